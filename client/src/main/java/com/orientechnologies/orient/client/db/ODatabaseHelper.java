@@ -73,7 +73,7 @@ public class ODatabaseHelper {
 		}
 	}
 
-	protected static String getServerRootPassword() throws IOException {
+	public static String getServerRootPassword() throws IOException {
 		return getServerRootPassword("server");
 	}
 
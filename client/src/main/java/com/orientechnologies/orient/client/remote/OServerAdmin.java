@@ -17,6 +17,7 @@ package com.orientechnologies.orient.client.remote;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.orientechnologies.common.log.OLogManager;
@@ -417,6 +418,67 @@ public class OServerAdmin {
 		return this;
 	}
 
+	/**
+	 * Lists the SELECT and TRAVERSE commands in execution on the server.
+	 * 
+	 * @return a document per command with the fields id, text, database, user, thread, startTime, elapsed, scanned and interrupted
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized List<ODocument> listRunningCommands() throws IOException {
+		storage.checkConnection();
+		final ODocument result = new ODocument();
+		try {
+			final OChannelBinaryClient network = storage.beginRequest(OChannelBinaryProtocol.REQUEST_COMMAND_LIST);
+			storage.endRequest(network);
+
+			try {
+				storage.beginResponse(network);
+				result.fromStream(network.readBytes());
+			} finally {
+				storage.endResponse(network);
+			}
+
+		} catch (Exception e) {
+			OLogManager.instance().exception("Cannot retrieve the running commands", e, OStorageException.class);
+			storage.close(true);
+		}
+		return (List<ODocument>) result.field("commands");
+	}
+
+	/**
+	 * Kills a command in execution on the server: it's interrupted at the next record read.
+	 * 
+	 * @param iCommandId
+	 *          Id of the command as returned by {@link #listRunningCommands()}
+	 * @return true if the command was in execution
+	 * @throws IOException
+	 */
+	public synchronized boolean killRunningCommand(final long iCommandId) throws IOException {
+		storage.checkConnection();
+
+		try {
+			final OChannelBinaryClient network = storage.beginRequest(OChannelBinaryProtocol.REQUEST_COMMAND_KILL);
+			try {
+				network.writeLong(iCommandId);
+			} finally {
+				storage.endRequest(network);
+			}
+
+			try {
+				storage.beginResponse(network);
+				return network.readByte() == 1;
+			} finally {
+				storage.endResponse(network);
+			}
+
+		} catch (Exception e) {
+			OLogManager.instance().exception("Cannot kill the command " + iCommandId, e, OStorageException.class);
+			storage.close(true);
+		}
+		return false;
+	}
+
 	public synchronized Map<String, String> getGlobalConfigurations() throws IOException {
 		storage.checkConnection();
 
@@ -447,7 +509,11 @@ public class OServerAdmin {
 
 		try {
 			final OChannelBinaryClient network = storage.beginRequest(OChannelBinaryProtocol.REQUEST_CONFIG_GET);
-			network.writeString(iConfig.getKey());
+			try {
+				network.writeString(iConfig.getKey());
+			} finally {
+				storage.endRequest(network);
+			}
 
 			try {
 				storage.beginResponse(network);
@@ -469,8 +535,13 @@ public class OServerAdmin {
 
 		try {
 			final OChannelBinaryClient network = storage.beginRequest(OChannelBinaryProtocol.REQUEST_CONFIG_SET);
-			network.writeString(iConfig.getKey());
-			network.writeString(iValue != null ? iValue.toString() : "");
+			try {
+				network.writeString(iConfig.getKey());
+				network.writeString(iValue != null ? iValue.toString() : "");
+			} finally {
+				storage.endRequest(network);
+			}
+
 			storage.getResponse(network);
 
 		} catch (Exception e) {
@@ -683,6 +683,7 @@ public class OStorageRemote extends OStorageAbstract {
 
 					if (asynch) {
 						byte status;
+						boolean listening = true;
 
 						// ASYNCH: READ ONE RECORD AT TIME
 						while ((status = network.readByte()) > 0) {
@@ -692,19 +693,18 @@ public class OStorageRemote extends OStorageAbstract {
 
 							switch (status) {
 							case 1:
-								// PUT AS PART OF THE RESULT SET. INVOKE THE LISTENER
-								try {
-									if (!aquery.getResultListener().result(record)) {
-										// EMPTY THE INPUT CHANNEL
-										while (network.in.available() > 0)
-											network.in.read();
-
-										break;
+								// PUT AS PART OF THE RESULT SET. INVOKE THE LISTENER UNTIL IT STOPS THE QUERY: THE SERVER SENDS THE REST OF
+								// THE RESULT SET ANYWAY, SO IT'S READ AND DISCARDED TO LEAVE THE CHANNEL AT THE END OF THE RESPONSE
+								if (listening)
+									try {
+										if (!aquery.getResultListener().result(record)) {
+											listening = false;
+											break;
+										}
+									} catch (Throwable t) {
+										// ABSORBE ALL THE USER EXCEPTIONS
+										t.printStackTrace();
 									}
-								} catch (Throwable t) {
-									// ABSORBE ALL THE USER EXCEPTIONS
-									t.printStackTrace();
-								}
 								database.getLevel1Cache().updateRecord(record);
 								break;
 
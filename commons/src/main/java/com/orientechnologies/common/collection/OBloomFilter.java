@@ -0,0 +1,284 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.common.collection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Scalable Bloom filter. Answers "definitely absent" or "maybe present" for a key without keeping the keys in memory. Keys can be
+ * only added: removed keys remain as false positives until the filter is rebuilt.<br/>
+ * Keys are hashed by value: arrays by content, composite keys and collections item by item and decimals ignoring the scale. Any
+ * other key must have a hashCode() consistent with its equality.<br/>
+ * When the number of added keys exceeds the capacity of the current bit set, a new bigger stage is appended with a tighter false
+ * positive rate, so the total false positive rate stays close to the configured one without rehashing the previous keys.
+ *
+ * @author Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ */
+public class OBloomFilter {
+	private static final int		STREAM_VERSION		= 1;
+	private static final int		GROWTH_FACTOR			= 2;
+	private static final double	TIGHTENING_RATIO	= 0.5;
+
+	private final float					falsePositiveRate;
+	private final List<Stage>		stages						= new ArrayList<Stage>();
+	private long								items;
+
+	private static class Stage {
+		private final long[]	bits;
+		private final int			bitCount;
+		private final int			hashes;
+		private final long		capacity;
+		private long					items;
+
+		private Stage(final long iCapacity, final double iFalsePositiveRate) {
+			capacity = Math.max(iCapacity, 1);
+
+			// OPTIMAL SIZE: m = -n * ln(p) / (ln 2)^2, k = m / n * ln 2
+			final long optimalBits = (long) Math.ceil(-capacity * Math.log(iFalsePositiveRate) / (Math.log(2) * Math.log(2)));
+			bitCount = (int) Math.min(Math.max(optimalBits, 64), Integer.MAX_VALUE - 63);
+			hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+			bits = new long[(bitCount + 63) >>> 6];
+		}
+
+		private Stage(final long[] iBits, final int iBitCount, final int iHashes, final long iCapacity, final long iItems) {
+			bits = iBits;
+			bitCount = iBitCount;
+			hashes = iHashes;
+			capacity = iCapacity;
+			items = iItems;
+		}
+
+		private void add(final int iHash1, final int iHash2) {
+			for (int i = 0; i < hashes; ++i) {
+				final int bit = index(iHash1, iHash2, i);
+				bits[bit >>> 6] |= 1L << (bit & 63);
+			}
+			items++;
+		}
+
+		private boolean mightContain(final int iHash1, final int iHash2) {
+			for (int i = 0; i < hashes; ++i) {
+				final int bit = index(iHash1, iHash2, i);
+				if ((bits[bit >>> 6] & (1L << (bit & 63))) == 0)
+					return false;
+			}
+			return true;
+		}
+
+		private int index(final int iHash1, final int iHash2, final int i) {
+			// DOUBLE HASHING: h(i) = h1 + i * h2
+			return ((iHash1 + i * iHash2) & Integer.MAX_VALUE) % bitCount;
+		}
+	}
+
+	/**
+	 * Creates a new Bloom filter.
+	 *
+	 * @param iExpectedItems
+	 *          Number of keys the first stage is sized for
+	 * @param iFalsePositiveRate
+	 *          Wanted false positive rate, between 0 and 1 excluded
+	 */
+	public OBloomFilter(final long iExpectedItems, final float iFalsePositiveRate) {
+		if (iFalsePositiveRate <= 0 || iFalsePositiveRate >= 1)
+			throw new IllegalArgumentException("False positive rate must be between 0 and 1 excluded, found: " + iFalsePositiveRate);
+
+		falsePositiveRate = iFalsePositiveRate;
+		stages.add(new Stage(iExpectedItems, iFalsePositiveRate * (1 - TIGHTENING_RATIO)));
+	}
+
+	private OBloomFilter(final float iFalsePositiveRate) {
+		falsePositiveRate = iFalsePositiveRate;
+	}
+
+	/**
+	 * Adds a key to the filter.
+	 */
+	public void add(final Object iKey) {
+		Stage current = stages.get(stages.size() - 1);
+		if (current.items >= current.capacity) {
+			// FULL: APPEND A BIGGER STAGE WITH A TIGHTER RATE
+			current = new Stage(current.capacity * GROWTH_FACTOR, falsePositiveRate * (1 - TIGHTENING_RATIO)
+					* Math.pow(TIGHTENING_RATIO, stages.size()));
+			stages.add(current);
+		}
+
+		final int hash1 = hash(iKey);
+		current.add(hash1, rehash(hash1));
+		items++;
+	}
+
+	/**
+	 * Tells if a key could have been added to the filter.
+	 *
+	 * @return false if the key was never added, true if the key may have been added
+	 */
+	public boolean mightContain(final Object iKey) {
+		final int hash1 = hash(iKey);
+		final int hash2 = rehash(hash1);
+		for (int i = stages.size() - 1; i >= 0; --i)
+			if (stages.get(i).mightContain(hash1, hash2))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns the number of keys added so far, duplicates included.
+	 */
+	public long getItems() {
+		return items;
+	}
+
+	public float getFalsePositiveRate() {
+		return falsePositiveRate;
+	}
+
+	/**
+	 * Returns the memory used by the bit sets in bytes.
+	 */
+	public long getSize() {
+		long size = 0;
+		for (Stage s : stages)
+			size += s.bits.length * 8;
+		return size;
+	}
+
+	public byte[] toStream() {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) getSize() + 64);
+		final DataOutputStream out = new DataOutputStream(buffer);
+		try {
+			out.writeInt(STREAM_VERSION);
+			out.writeFloat(falsePositiveRate);
+			out.writeLong(items);
+			out.writeInt(stages.size());
+			for (Stage s : stages) {
+				out.writeInt(s.bitCount);
+				out.writeInt(s.hashes);
+				out.writeLong(s.capacity);
+				out.writeLong(s.items);
+				out.writeInt(s.bits.length);
+				for (long word : s.bits)
+					out.writeLong(word);
+			}
+			out.flush();
+		} catch (IOException e) {
+			// CANNOT HAPPEN WRITING IN MEMORY
+			throw new IllegalStateException("Error on serializing Bloom filter", e);
+		}
+		return buffer.toByteArray();
+	}
+
+	public static OBloomFilter fromStream(final byte[] iStream) {
+		return fromStream(iStream, 0);
+	}
+
+	public static OBloomFilter fromStream(final byte[] iStream, final int iOffset) {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(iStream, iOffset, iStream.length - iOffset));
+		try {
+			final int version = in.readInt();
+			if (version != STREAM_VERSION)
+				throw new IllegalArgumentException("Unsupported Bloom filter version " + version);
+
+			final OBloomFilter filter = new OBloomFilter(in.readFloat());
+			filter.items = in.readLong();
+
+			final int stageCount = in.readInt();
+			for (int i = 0; i < stageCount; ++i) {
+				final int bitCount = in.readInt();
+				final int hashes = in.readInt();
+				final long capacity = in.readLong();
+				final long stageItems = in.readLong();
+				final long[] bits = new long[in.readInt()];
+				for (int w = 0; w < bits.length; ++w)
+					bits[w] = in.readLong();
+
+				filter.stages.add(new Stage(bits, bitCount, hashes, capacity, stageItems));
+			}
+			return filter;
+
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Error on deserializing Bloom filter", e);
+		}
+	}
+
+	private static int hash(final Object iKey) {
+		// MURMUR3 FINALIZER TO SPREAD WEAK hashCode() IMPLEMENTATIONS
+		int h = valueHashCode(iKey);
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	/**
+	 * Returns a hash code that depends only on the value of the key. The hashCode() of arrays is the identity one, and composite keys
+	 * and collections can contain arrays.
+	 */
+	private static int valueHashCode(final Object iKey) {
+		if (iKey == null)
+			return 0;
+
+		if (iKey.getClass().isArray()) {
+			int h = 1;
+			final int length = Array.getLength(iKey);
+			for (int i = 0; i < length; ++i)
+				h = 31 * h + valueHashCode(Array.get(iKey, i));
+			return h;
+		}
+
+		if (iKey instanceof OCompositeKey)
+			return valueHashCode(((OCompositeKey) iKey).getKeys());
+
+		if (iKey instanceof Collection<?>) {
+			int h = 1;
+			for (Object item : (Collection<?>) iKey)
+				h = 31 * h + valueHashCode(item);
+			return h;
+		}
+
+		if (iKey instanceof BigDecimal) {
+			// 1.0 AND 1.00 ARE THE SAME KEY FOR compareTo()
+			final BigDecimal decimal = (BigDecimal) iKey;
+			return decimal.signum() == 0 ? 0 : decimal.stripTrailingZeros().hashCode();
+		}
+
+		return iKey.hashCode();
+	}
+
+	private static int rehash(final int iHash) {
+		int h = iHash * 0x9e3779b9;
+		h ^= h >>> 15;
+		// ODD SECOND HASH AVOIDS PROBING THE SAME BIT
+		return h | 1;
+	}
+
+	@Override
+	public String toString() {
+		return "OBloomFilter [items=" + items + ", stages=" + stages.size() + ", size=" + getSize() + "]";
+	}
+}
@@ -316,26 +316,33 @@ public class OStringParser {
 
 	public static int readUnicode(String iText, int position, StringBuilder buffer) {
 		// DECODE UNICODE CHAR
-		final StringBuilder buff = new StringBuilder();
+		int code = 0;
 		final int lastPos = position + 4;
 		for (; position < lastPos; ++position)
-			buff.append(iText.charAt(position));
+			code = (code << 4) + hexDigit(iText.charAt(position));
 
-		buffer.append((char) Integer.parseInt(buff.toString(), 16));
+		buffer.append((char) code);
 		return position - 1;
 	}
 
 	public static int readUnicode(char[] iText, int position, StringBuilder buffer) {
 		// DECODE UNICODE CHAR
-		final StringBuilder buff = new StringBuilder();
+		int code = 0;
 		final int lastPos = position + 4;
 		for (; position < lastPos; ++position)
-			buff.append(iText[position]);
+			code = (code << 4) + hexDigit(iText[position]);
 
-		buffer.append((char) Integer.parseInt(buff.toString(), 16));
+		buffer.append((char) code);
 		return position - 1;
 	}
 
+	private static int hexDigit(final char iChar) {
+		final int digit = Character.digit(iChar, 16);
+		if (digit < 0)
+			throw new NumberFormatException("Invalid hexadecimal digit '" + iChar + "' in unicode sequence");
+		return digit;
+	}
+
 	public static String replaceAll(String iText, String iToReplace, String iReplacement) {
 		if (iText == null || iText.length() <= 0 || iToReplace == null || iToReplace.length() <= 0)
 			return iText;
@@ -46,6 +46,12 @@ public class OArrays {
 		}
 	}
 
+	public static byte[] copyOf(final byte[] iSource, final int iNewSize) {
+		final byte[] copy = new byte[iNewSize];
+		System.arraycopy(iSource, 0, copy, 0, Math.min(iSource.length, iNewSize));
+		return copy;
+	}
+
 	public static int[] copyOf(final int[] iSource, final int iNewSize) {
 		final int[] copy = new int[iNewSize];
 		System.arraycopy(iSource, 0, copy, 0, Math.min(iSource.length, iNewSize));
@@ -0,0 +1,131 @@
+package com.orientechnologies.common.collection;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test
+public class OBloomFilterTest {
+
+    @Test
+    public void testNoFalseNegatives() {
+        final OBloomFilter filter = new OBloomFilter(1000, 0.01f);
+
+        for (int i = 0; i < 1000; i++)
+            filter.add("key" + i);
+
+        for (int i = 0; i < 1000; i++)
+            assertTrue(filter.mightContain("key" + i));
+
+        assertEquals(filter.getItems(), 1000);
+    }
+
+    @Test
+    public void testGrowBeyondCapacity() {
+        final OBloomFilter filter = new OBloomFilter(100, 0.01f);
+
+        for (int i = 0; i < 10000; i++)
+            filter.add(i);
+
+        for (int i = 0; i < 10000; i++)
+            assertTrue(filter.mightContain(i));
+
+        assertTrue(countFalsePositives(filter, 10000, 20000) < 10000 * 0.03);
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        final OBloomFilter filter = new OBloomFilter(10000, 0.01f);
+
+        for (int i = 0; i < 10000; i++)
+            filter.add(i);
+
+        assertTrue(countFalsePositives(filter, 10000, 20000) < 10000 * 0.03);
+    }
+
+    @Test
+    public void testCompositeKeys() {
+        final OBloomFilter filter = new OBloomFilter(100, 0.01f);
+
+        final OCompositeKey compositeKey = new OCompositeKey();
+        compositeKey.addKey("a");
+        compositeKey.addKey(1);
+        filter.add(compositeKey);
+
+        final OCompositeKey sameCompositeKey = new OCompositeKey();
+        sameCompositeKey.addKey("a");
+        sameCompositeKey.addKey(1);
+
+        assertTrue(filter.mightContain(sameCompositeKey));
+    }
+
+    @Test
+    public void testBinaryKeys() {
+        final OBloomFilter filter = new OBloomFilter(100, 0.01f);
+
+        for (int i = 0; i < 100; i++)
+            filter.add(new byte[] { 1, 2, (byte) i });
+
+        for (int i = 0; i < 100; i++)
+            assertTrue(filter.mightContain(new byte[] { 1, 2, (byte) i }));
+    }
+
+    @Test
+    public void testCollectionKeysWithBinary() {
+        final OBloomFilter filter = new OBloomFilter(100, 0.01f);
+
+        filter.add(Arrays.asList("a", new byte[] { 1, 2, 3 }));
+
+        assertTrue(filter.mightContain(Arrays.asList("a", new byte[] { 1, 2, 3 })));
+    }
+
+    @Test
+    public void testDecimalKeys() {
+        final OBloomFilter filter = new OBloomFilter(100, 0.01f);
+
+        filter.add(new BigDecimal("1.5"));
+        filter.add(new BigDecimal("0.00"));
+
+        assertTrue(filter.mightContain(new BigDecimal("1.50")));
+        assertTrue(filter.mightContain(BigDecimal.ZERO));
+    }
+
+    @Test
+    public void testStreamRoundTrip() {
+        final OBloomFilter filter = new OBloomFilter(100, 0.05f);
+
+        for (int i = 0; i < 500; i++)
+            filter.add(i);
+
+        final OBloomFilter copy = OBloomFilter.fromStream(filter.toStream());
+
+        assertEquals(copy.getItems(), filter.getItems());
+        assertEquals(copy.getSize(), filter.getSize());
+        assertEquals(copy.getFalsePositiveRate(), filter.getFalsePositiveRate());
+
+        for (int i = 0; i < 500; i++)
+            assertTrue(copy.mightContain(i));
+
+        for (int i = 500; i < 1000; i++)
+            assertEquals(copy.mightContain(i), filter.mightContain(i));
+    }
+
+    @Test
+    public void testEmpty() {
+        final OBloomFilter filter = new OBloomFilter(100, 0.01f);
+        assertFalse(filter.mightContain("a"));
+    }
+
+    private int countFalsePositives(final OBloomFilter filter, final int from, final int to) {
+        int falsePositives = 0;
+        for (int i = from; i < to; i++)
+            if (filter.mightContain(i))
+                falsePositives++;
+        return falsePositives;
+    }
+}
@@ -15,8 +15,11 @@
  */
 package com.orientechnologies.orient.core.command;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.orientechnologies.orient.core.sql.OCommandExecutorSQLDelegate;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
@@ -26,6 +29,7 @@ import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 public class OCommandManager {
 	private Map<String, Class<? extends OCommandRequest>>															commandRequesters	= new HashMap<String, Class<? extends OCommandRequest>>();
 	private Map<Class<? extends OCommandRequest>, Class<? extends OCommandExecutor>>	commandReqExecMap	= new HashMap<Class<? extends OCommandRequest>, Class<? extends OCommandExecutor>>();
+	private Map<Long, ORunningCommand>																								runningCommands		= new ConcurrentHashMap<Long, ORunningCommand>();
 	private static OCommandManager																										instance					= new OCommandManager();
 
 	protected OCommandManager() {
@@ -78,6 +82,43 @@ public class OCommandManager {
 		}
 	}
 
+	/**
+	 * Registers a command in execution. The executor must unregister it at the end.
+	 */
+	public ORunningCommand registerRunningCommand(final ORunningCommand iCommand) {
+		runningCommands.put(iCommand.getId(), iCommand);
+		return iCommand;
+	}
+
+	public void unregisterRunningCommand(final ORunningCommand iCommand) {
+		runningCommands.remove(iCommand.getId());
+	}
+
+	/**
+	 * Returns the commands in execution.
+	 */
+	public Collection<ORunningCommand> getRunningCommands() {
+		return new ArrayList<ORunningCommand>(runningCommands.values());
+	}
+
+	public ORunningCommand getRunningCommand(final long iId) {
+		return runningCommands.get(iId);
+	}
+
+	/**
+	 * Kills a command in execution: it's interrupted at the next record read.
+	 * 
+	 * @return true if the command was in execution
+	 */
+	public boolean killRunningCommand(final long iId) {
+		final ORunningCommand command = runningCommands.get(iId);
+		if (command == null)
+			return false;
+
+		command.kill();
+		return true;
+	}
+
 	public static OCommandManager instance() {
 		return instance;
 	}
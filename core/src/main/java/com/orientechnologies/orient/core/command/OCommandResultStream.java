@@ -0,0 +1,239 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.command;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+
+/**
+ * Result listener that decouples the thread executing a command from the thread consuming its results. The results are kept in a
+ * bounded buffer: the command waits when the buffer is full or when the consumer has not requested more results, so a slow
+ * consumer slows down the command without being called inside it. The consumer can take the results one by one or in batches and
+ * can cancel the command at any time: the command stops at the next result found.
+ * <p>
+ * The results are requested automatically, up to the capacity of the buffer, when the consumer takes them and no demand is left.
+ * Call {@link #request(long)} to control the demand explicitly.
+ * </p>
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OCommandResultStream implements OCommandResultListener {
+	private static ExecutorService		executors;
+
+	private final int									capacity;
+	private final LinkedList<Object>	buffer	= new LinkedList<Object>();
+	private long											demand;
+	private boolean										ended;
+	private volatile boolean					cancelled;
+	private Throwable									error;
+
+	public OCommandResultStream(final int iCapacity) {
+		if (iCapacity < 1)
+			throw new IllegalArgumentException("Invalid capacity " + iCapacity + ": it must be greater than 0");
+		capacity = iCapacity;
+	}
+
+	/**
+	 * Executes the command in another thread sending the results to this stream. The database must not be used by the caller while
+	 * the command is running since it's not thread safe.
+	 *
+	 * @return the stream itself to take the results
+	 */
+	public OCommandResultStream execute(final ODatabaseRecord iDatabase, final OCommandRequestText iCommand, final Object... iArgs) {
+		iCommand.setResultListener(this);
+
+		getExecutors().execute(new Runnable() {
+			public void run() {
+				ODatabaseRecordThreadLocal.INSTANCE.set(iDatabase);
+				try {
+					iDatabase.command(iCommand).execute(iArgs);
+					end(null);
+				} catch (Throwable t) {
+					end(t);
+				} finally {
+					ODatabaseRecordThreadLocal.INSTANCE.remove();
+				}
+			}
+		});
+		return this;
+	}
+
+	/**
+	 * Called by the command for each result. Waits until the consumer requests the result and there is room in the buffer.
+	 *
+	 * @return false if the stream has been cancelled, to stop the command
+	 */
+	public boolean result(final Object iRecord) {
+		synchronized (buffer) {
+			try {
+				while (!cancelled && (demand == 0 || buffer.size() >= capacity))
+					buffer.wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				cancelled = true;
+			}
+
+			if (cancelled)
+				return false;
+
+			buffer.add(iRecord);
+			demand--;
+			buffer.notifyAll();
+			return true;
+		}
+	}
+
+	/**
+	 * Called once the command has finished.
+	 *
+	 * @param iError
+	 *          the error that stopped the command, or null if it has finished normally
+	 */
+	public void end(final Throwable iError) {
+		synchronized (buffer) {
+			ended = true;
+			error = iError;
+			buffer.notifyAll();
+		}
+	}
+
+	/**
+	 * Requests more results to the command.
+	 */
+	public void request(final long iResults) {
+		if (iResults < 1)
+			throw new IllegalArgumentException("Invalid number of results requested: " + iResults);
+
+		synchronized (buffer) {
+			demand = demand + iResults < 0 ? Long.MAX_VALUE : demand + iResults;
+			buffer.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the next result, waiting for the command to find it.
+	 *
+	 * @return the next result or null if the command has finished
+	 */
+	public Object next() {
+		synchronized (buffer) {
+			if (!await())
+				return null;
+
+			final Object result = buffer.removeFirst();
+			buffer.notifyAll();
+			return result;
+		}
+	}
+
+	/**
+	 * Moves the results available to the batch, waiting for the command to find at least one result.
+	 *
+	 * @param iBatch
+	 *          List where to add the results
+	 * @param iMax
+	 *          Maximum number of results to add
+	 * @return the number of results added, 0 if the command has finished
+	 */
+	public int next(final List<Object> iBatch, final int iMax) {
+		synchronized (buffer) {
+			if (!await())
+				return 0;
+
+			int added = 0;
+			while (added < iMax && !buffer.isEmpty()) {
+				iBatch.add(buffer.removeFirst());
+				added++;
+			}
+			buffer.notifyAll();
+			return added;
+		}
+	}
+
+	/**
+	 * Cancels the command: it stops at the next result found and the results not yet taken are discarded. Call {@link #next()} to
+	 * wait for the command to stop.
+	 */
+	public void cancel() {
+		synchronized (buffer) {
+			cancelled = true;
+			buffer.clear();
+			buffer.notifyAll();
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Waits for a result or for the end of the command. Must be called holding the lock of the buffer.
+	 *
+	 * @return true if a result is available
+	 */
+	private boolean await() {
+		try {
+			while (buffer.isEmpty() && !ended) {
+				if (demand == 0 && !cancelled) {
+					// NOTHING REQUESTED: ASK FOR A FULL BUFFER
+					demand = capacity;
+					buffer.notifyAll();
+				}
+				buffer.wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OCommandExecutionException("Interrupted while waiting for the results of the command");
+		}
+
+		if (!buffer.isEmpty())
+			return true;
+
+		if (error != null && !cancelled) {
+			if (error instanceof RuntimeException)
+				throw (RuntimeException) error;
+			throw new OCommandExecutionException("Error on executing the command", error);
+		}
+		return false;
+	}
+
+	private static synchronized ExecutorService getExecutors() {
+		if (executors == null)
+			executors = Executors.newCachedThreadPool(new ThreadFactory() {
+				private final AtomicInteger	counter	= new AtomicInteger();
+
+				public Thread newThread(final Runnable iRunnable) {
+					final Thread thread = new Thread(iRunnable, "OrientDB asynch command " + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		return executors;
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.command;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.orientechnologies.orient.core.exception.OCommandInterruptedException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Command in execution, registered in the {@link OCommandManager} to be listed and killed. Keeps the limits of the command: the
+ * executor calls {@link #checkScanned()} for every record read and {@link #checkResults(long)} for every record collected in memory,
+ * that throw an {@link OCommandInterruptedException} when the command has been killed or has exceeded a limit. The clock is read
+ * only once every {@link #CLOCK_CHECK_INTERVAL} records.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class ORunningCommand {
+	public static final int						CLOCK_CHECK_INTERVAL	= 1024;
+
+	private static final AtomicLong		serial								= new AtomicLong();
+
+	private final long								id										= serial.incrementAndGet();
+	private final String							text;
+	private final String							database;
+	private final String							user;
+	private final String							thread;
+	private final long								startTime							= System.currentTimeMillis();
+	private final long								timeout;
+	private final long								maxScannedRecords;
+	private final long								maxResultRecords;
+	private final AtomicLong					scannedRecords				= new AtomicLong();
+	private volatile String						interruption;
+
+	/**
+	 * @param iText
+	 *          Text of the command
+	 * @param iDatabase
+	 *          Name of the database
+	 * @param iUser
+	 *          Name of the user executing the command
+	 * @param iTimeout
+	 *          Maximum time of execution in ms, 0 means no limit
+	 * @param iMaxScannedRecords
+	 *          Maximum number of records read, 0 means no limit
+	 * @param iMaxResultRecords
+	 *          Maximum number of records collected in memory, 0 means no limit
+	 */
+	public ORunningCommand(final String iText, final String iDatabase, final String iUser, final long iTimeout,
+			final long iMaxScannedRecords, final long iMaxResultRecords) {
+		text = iText;
+		database = iDatabase;
+		user = iUser;
+		thread = Thread.currentThread().getName();
+		timeout = iTimeout;
+		maxScannedRecords = iMaxScannedRecords;
+		maxResultRecords = iMaxResultRecords;
+	}
+
+	/**
+	 * Counts a record read by the command, checking its limits. Can be called by more threads at the same time.
+	 *
+	 * @throws OCommandInterruptedException
+	 *           if the command has been killed or has exceeded a limit
+	 */
+	public void checkScanned() {
+		final long scanned = scannedRecords.incrementAndGet();
+
+		if (interruption == null) {
+			if (maxScannedRecords > 0 && scanned > maxScannedRecords)
+				interruption = "it has read more than " + maxScannedRecords + " records";
+			else if (timeout > 0 && scanned % CLOCK_CHECK_INTERVAL == 0 && System.currentTimeMillis() - startTime > timeout)
+				interruption = "it has run more than " + timeout + "ms";
+			else
+				return;
+		}
+
+		throw new OCommandInterruptedException("Command interrupted because " + interruption + ": " + text);
+	}
+
+	/**
+	 * Checks the number of records collected in memory by the command.
+	 *
+	 * @throws OCommandInterruptedException
+	 *           if the command has been killed or has exceeded a limit
+	 */
+	public void checkResults(final long iResults) {
+		if (interruption == null) {
+			if (maxResultRecords > 0 && iResults > maxResultRecords)
+				interruption = "it has collected more than " + maxResultRecords + " records";
+			else
+				return;
+		}
+
+		throw new OCommandInterruptedException("Command interrupted because " + interruption + ": " + text);
+	}
+
+	/**
+	 * Asks the command to stop: it's interrupted at the next record read.
+	 */
+	public void kill() {
+		if (interruption == null)
+			interruption = "it has been killed";
+	}
+
+	public boolean isInterrupted() {
+		return interruption != null;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public String getDatabase() {
+		return database;
+	}
+
+	public String getUser() {
+		return user;
+	}
+
+	public String getThread() {
+		return thread;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public long getElapsedTime() {
+		return System.currentTimeMillis() - startTime;
+	}
+
+	public long getScannedRecords() {
+		return scannedRecords.get();
+	}
+
+	public ODocument toDocument() {
+		final ODocument doc = new ODocument();
+		doc.field("id", id);
+		doc.field("text", text);
+		doc.field("database", database);
+		doc.field("user", user);
+		doc.field("thread", thread);
+		doc.field("startTime", new Date(startTime));
+		doc.field("elapsed", getElapsedTime());
+		doc.field("scanned", getScannedRecords());
+		doc.field("interrupted", isInterrupted());
+		return doc;
+	}
+
+	@Override
+	public String toString() {
+		return "#" + id + " " + database + " " + user + " " + getElapsedTime() + "ms " + getScannedRecords() + " records: " + text;
+	}
+}
@@ -89,6 +89,12 @@ public enum OGlobalConfiguration {
 
 	DB_VALIDATION("db.validation", "Enables or disables validation of records", Boolean.class, true),
 
+	BLOB_CHUNK_SIZE("blob.chunkSize", "Size in bytes of the records the content of chunked blobs is split in", Integer.class, 65536),
+
+	SERIALIZATION_BUFFER_POOL_SIZE("serialization.bufferPool.size",
+			"Temporary buffers of every size class kept by each thread to serialize records without allocating them. 0 disables the pool",
+			Integer.class, 4),
+
 	// SETTINGS OF NON-TRANSACTIONAL MODE
 	NON_TX_RECORD_UPDATE_SYNCH("nonTX.recordUpdate.synch",
 			"Executes a synch against the file-system at every record operation. This slows down records updates "
@@ -152,6 +158,56 @@ public enum OGlobalConfiguration {
 	MVRBTREE_RID_NODE_SAVE_MEMORY("mvrbtree.ridNodeSaveMemory",
 			"Save memory usage by avoid keeping RIDs in memory but creating them at every access", Boolean.class, Boolean.FALSE),
 
+	// INDEX
+	INDEX_BLOOM_FILTER_ENABLED("index.bloomFilter.enabled",
+			"Attaches a Bloom filter to the indexes to answer lookups of absent keys without searching the tree", Boolean.class,
+			Boolean.FALSE),
+
+	INDEX_BLOOM_FILTER_FALSE_POSITIVE_RATE("index.bloomFilter.falsePositiveRate",
+			"False positive rate of the index Bloom filters. Lower rates use more memory", Float.class, 0.01f),
+
+	INDEX_BLOOM_FILTER_INITIAL_CAPACITY("index.bloomFilter.initialCapacity",
+			"Number of keys a new index Bloom filter is sized for. The filter grows when this number is exceeded", Integer.class,
+			100000),
+
+	INDEX_STATISTICS_HISTOGRAM_BUCKETS("index.statistics.histogramBuckets",
+			"Number of buckets of the key histogram kept by single field indexes to estimate the selectivity of ranges. 0 disables it",
+			Integer.class, 32),
+
+	INDEX_PARTITIONS("index.partitions",
+			"Number of independently locked trees a new partitioned index is split into. Writers of different partitions run concurrently",
+			Integer.class, 16),
+
+	// COMMAND
+	COMMAND_CACHE_ENABLED("command.cache.enabled",
+			"Keeps the SQL statements already parsed to execute them again without parsing. Parameters are bound at every execution",
+			Boolean.class, Boolean.TRUE),
+
+	COMMAND_CACHE_SIZE("command.cache.size", "Maximum number of SQL statements kept parsed. 0 disables the cache", Integer.class, 500),
+
+	COMMAND_GROUP_BY_MAX_GROUPS("command.groupBy.maxGroupsInMemory",
+			"Maximum number of groups a GROUP BY aggregates in memory. The records of the other groups are spilled to temporary files",
+			Integer.class, 100000),
+
+	COMMAND_ORDER_BY_MAX_RECORDS("command.orderBy.maxRecordsInMemory",
+			"Maximum number of records an ORDER BY without LIMIT sorts in memory. Sorted blocks of records are spilled to temporary files",
+			Integer.class, 100000),
+
+	COMMAND_TIMEOUT("command.timeout",
+			"Maximum time in ms a SELECT or TRAVERSE can run before being interrupted. 0 means no limit. The TIMEOUT keyword overrides it",
+			Integer.class, 0),
+
+	COMMAND_MAX_SCANNED_RECORDS("command.maxScannedRecords",
+			"Maximum number of records a SELECT or TRAVERSE can read before being interrupted. 0 means no limit", Integer.class, 0),
+
+	COMMAND_MAX_RESULT_RECORDS("command.maxResultRecords",
+			"Maximum number of records a synchronous query can collect in memory before being interrupted. 0 means no limit",
+			Integer.class, 0),
+
+	COMMAND_PARALLEL_DEGREE("command.parallel.degree",
+			"Number of threads scanning the clusters of a SELECT at the same time. 1 scans them in the calling thread, 0 uses a thread per processor. The PARALLEL keyword of the SELECT overrides it",
+			Integer.class, 1),
+
 	// COLLECTIONS
 	LAZYSET_WORK_ON_STREAM("lazyset.workOnStream", "Upon add avoid unmarshalling set", Boolean.class, true),
 
@@ -234,6 +290,14 @@ public enum OGlobalConfiguration {
 			"Maximum time (in seconds) to wait until response will be read. Otherwise response will be dropped from chanel",
 			Integer.class, 10),
 
+	NETWORK_BINARY_ASYNCH_BATCH("network.binary.asynchBatch",
+			"Number of records of an asynchronous query sent to the client at once. The query waits when two batches are ready to be sent",
+			Integer.class, 100),
+
+	NETWORK_BINARY_LOAD_RAW("network.binary.loadRaw",
+			"Sends the records requested without a fetch plan as read from the files of local storages, without creating the records",
+			Boolean.class, true),
+
 	NETWORK_BINARY_DEBUG("network.binary.debug", "Debug mode: print all data incoming on the binary channel", Boolean.class, false),
 
 	NETWORK_HTTP_MAX_CONTENT_LENGTH("network.http.maxLength", "TCP/IP max content length in bytes for HTTP requests", Integer.class,
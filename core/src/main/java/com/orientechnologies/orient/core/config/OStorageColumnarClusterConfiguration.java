@@ -0,0 +1,28 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.config;
+
+/**
+ * Configuration of a columnar cluster: a physical cluster that also keeps the values of the numeric properties by column.
+ */
+public class OStorageColumnarClusterConfiguration extends OStoragePhysicalClusterConfiguration {
+	private static final long	serialVersionUID	= 1L;
+
+	public OStorageColumnarClusterConfiguration(final OStorageConfiguration iStorageConfiguration, final int iId,
+			final int iDataSegmentId) {
+		super(iStorageConfiguration, iId, iDataSegmentId);
+	}
+}
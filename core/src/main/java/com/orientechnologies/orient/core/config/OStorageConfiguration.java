@@ -176,10 +176,10 @@ public class OStorageConfiguration implements OSerializableStream {
 
 			final OStorageClusterConfiguration currentCluster;
 
-			if (clusterType.equals("p")) {
-				// PHYSICAL CLUSTER
-				final OStoragePhysicalClusterConfiguration phyCluster = new OStoragePhysicalClusterConfiguration(this, clusterId,
-						targetDataSegmentId);
+			if (clusterType.equals("p") || clusterType.equals("c")) {
+				// PHYSICAL OR COLUMNAR CLUSTER
+				final OStoragePhysicalClusterConfiguration phyCluster = clusterType.equals("c") ? new OStorageColumnarClusterConfiguration(
+						this, clusterId, targetDataSegmentId) : new OStoragePhysicalClusterConfiguration(this, clusterId, targetDataSegmentId);
 				phyCluster.name = clusterName;
 				index = phySegmentFromStream(values, index, phyCluster);
 				phyCluster.setHoleFile(new OStorageClusterHoleConfiguration(phyCluster, read(values[index++]), read(values[index++]),
@@ -258,8 +258,8 @@ public class OStorageConfiguration implements OSerializableStream {
 			write(buffer, c.getDataSegmentId());
 
 			if (c instanceof OStoragePhysicalClusterConfiguration) {
-				// PHYSICAL
-				write(buffer, "p");
+				// PHYSICAL OR COLUMNAR
+				write(buffer, c instanceof OStorageColumnarClusterConfiguration ? "c" : "p");
 				phySegmentToStream(buffer, (OStoragePhysicalClusterConfiguration) c);
 				fileToStream(buffer, ((OStoragePhysicalClusterConfiguration) c).getHoleFile());
 			} else if (c instanceof OStorageMemoryClusterConfiguration) {
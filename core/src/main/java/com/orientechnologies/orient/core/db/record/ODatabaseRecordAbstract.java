@@ -541,6 +541,8 @@ public abstract class ODatabaseRecordAbstract extends ODatabaseWrapperAbstract<O
 			if (record != null) {
 				if (iRecord != null) {
 					iRecord.fromStream(record.toStream());
+					// THE CACHED RECORD COULD HAVE A NEWER VERSION THAN THE PASSED ONE, FOR EXAMPLE ON A RECYCLED POSITION
+					iRecord.setVersion(record.getVersion());
 					record = iRecord;
 				}
 
@@ -763,7 +765,28 @@ public abstract class ODatabaseRecordAbstract extends ODatabaseWrapperAbstract<O
 		case STATUS:
 			setStatusInternal(STATUS.valueOf(stringValue.toUpperCase(Locale.ENGLISH)));
 			break;
+		case RECORDFORMAT:
+			getMetadata().getSchema().setRecordFormat(stringValue != null ? stringValue.toLowerCase(Locale.ENGLISH) : null);
+			break;
+		}
+	}
+
+	@Override
+	public Object get(final ATTRIBUTES iAttribute) {
+		if (iAttribute == ATTRIBUTES.RECORDFORMAT)
+			return getMetadata().getSchema().getRecordFormat();
+
+		return super.get(iAttribute);
+	}
+
+	@Override
+	public <THISDB extends ODatabase> THISDB set(final ATTRIBUTES iAttribute, final Object iValue) {
+		if (iAttribute == ATTRIBUTES.RECORDFORMAT) {
+			setInternal(iAttribute, iValue);
+			return (THISDB) this;
 		}
+
+		return (THISDB) super.set(iAttribute, iValue);
 	}
 
 	public OUser getUser() {
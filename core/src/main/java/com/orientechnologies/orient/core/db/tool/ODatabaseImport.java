@@ -45,6 +45,8 @@ import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.serializer.OJSONReader;
+import com.orientechnologies.orient.core.serialization.serializer.OJSONTokenReader;
+import com.orientechnologies.orient.core.serialization.serializer.OJSONTokenReader.TOKEN;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerJSON;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
@@ -518,16 +520,15 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
 	}
 
 	private ORID importRecord() throws Exception {
-		String value = jsonReader.readString(OJSONReader.END_OBJECT, true);
-
-		// JUMP EMPTY RECORDS
-		while (!value.isEmpty() && value.charAt(0) != '{') {
-			value = value.substring(1);
-		}
+		final OJSONTokenReader tokenReader = jsonReader.getTokenReader();
+		if (tokenReader.next() == TOKEN.END_ARRAY)
+			// NO MORE RECORDS
+			return null;
 
 		record = null;
 		try {
-			record = ORecordSerializerJSON.INSTANCE.fromString(value, record);
+			// READ THE RECORD DIRECTLY FROM THE STREAM
+			record = ORecordSerializerJSON.INSTANCE.fromStream(tokenReader, record);
 
 			if (schemaImported && record.getIdentity().toString().equals(database.getStorage().getConfiguration().schemaRecordId)) {
 				// JUMP THE SCHEMA
@@ -0,0 +1,32 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.exception;
+
+/**
+ * Thrown when a command is stopped before its end because it has been killed or it has exceeded one of its limits.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OCommandInterruptedException extends OCommandExecutionException {
+
+	private static final long	serialVersionUID	= 2592337245867457418L;
+
+	public OCommandInterruptedException(String message) {
+		super(message);
+	}
+
+}
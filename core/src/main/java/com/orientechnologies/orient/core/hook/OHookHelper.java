@@ -0,0 +1,40 @@
+/*
+ * Copyright 1999-2011 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.hook;
+
+import com.orientechnologies.orient.core.db.ODatabaseComplex;
+import com.orientechnologies.orient.core.index.OClassIndexManager;
+import com.orientechnologies.orient.core.metadata.security.OUserTrigger;
+
+/**
+ * Helper methods about the hooks registered in a database.
+ * 
+ * @author Luca Garulli (l.garulli--at--orientechnologies.com)
+ * 
+ */
+public class OHookHelper {
+	/**
+	 * Tells if the database has hooks that could act on the records read. The default hooks, that keep the indexes and the users
+	 * updated, act only on the changes. The components that read the records directly from the storage must load them through the
+	 * database when this returns true, otherwise the BEFORE_READ and AFTER_READ callbacks are lost.
+	 */
+	public static boolean hasReadHooks(final ODatabaseComplex<?> iDatabase) {
+		for (ORecordHook hook : iDatabase.getHooks())
+			if (!(hook instanceof OClassIndexManager) && !(hook instanceof OUserTrigger))
+				return true;
+		return false;
+	}
+}
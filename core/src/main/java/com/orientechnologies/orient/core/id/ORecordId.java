@@ -245,6 +245,21 @@ public class ORecordId implements ORID {
 			return;
 		}
 
+		// FAST PATH FOR THE USUAL FORM #<cluster-id>:<cluster-position>, PARSED WITHOUT CREATING SUBSTRINGS
+		final int begin = iRecordId.charAt(0) == PREFIX ? 1 : 0;
+		final int separatorPos = iRecordId.indexOf(SEPARATOR, begin);
+		if (separatorPos > begin && iRecordId.indexOf(SEPARATOR, separatorPos + 1) == -1)
+			try {
+				final int id = OStringSerializerHelper.parseInt(iRecordId, begin, separatorPos);
+				final long position = OStringSerializerHelper.parseLong(iRecordId, separatorPos + 1, iRecordId.length());
+				clusterId = id;
+				checkClusterLimits();
+				clusterPosition = position;
+				return;
+			} catch (NumberFormatException e) {
+				// PARSE IT BELOW TO GET THE SAME ERROR OR TO HANDLE THE UNUSUAL FORMS
+			}
+
 		if (!OStringSerializerHelper.contains(iRecordId, SEPARATOR))
 			throw new IllegalArgumentException("Argument '" + iRecordId
 					+ "' is not a RecordId in form of string. Format must be: <cluster-id>:<cluster-position>");
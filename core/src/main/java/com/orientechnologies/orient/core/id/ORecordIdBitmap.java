@@ -0,0 +1,132 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.id;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set of record ids kept as bitmaps of positions per cluster: every record id takes one bit instead of an object, since the
+ * positions of a cluster are assigned in sequence. The bitmap of a cluster is split in chunks of fixed size, created only for the
+ * ranges of positions really used, so few record ids with high positions take few chunks. The temporary record ids, with negative
+ * positions, are kept in a plain set.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class ORecordIdBitmap {
+	/**
+	 * Words of 64 bits per chunk: a chunk covers 1024 positions.
+	 */
+	private static final int						CHUNK_WORDS	= 16;
+	private static final int						CHUNK_SHIFT	= 10;
+
+	private final List<Map<Long, long[]>>	clusters		= new ArrayList<Map<Long, long[]>>();
+	private Set<ORID>										temporary;
+	private int													size;
+
+	// LAST CHUNK USED: THE RECORD IDS ARE OFTEN CLOSE TO EACH OTHER
+	private int													lastClusterId	= -1;
+	private long												lastChunkId		= -1;
+	private long[]											lastChunk;
+
+	/**
+	 * Adds a record id.
+	 *
+	 * @return true if the record id was not in the set
+	 */
+	public boolean add(final ORID iRid) {
+		final int clusterId = iRid.getClusterId();
+		final long position = iRid.getClusterPosition();
+
+		if (clusterId < 0 || position < 0) {
+			if (temporary == null)
+				temporary = new HashSet<ORID>();
+			if (!temporary.add(iRid.copy()))
+				return false;
+			size++;
+			return true;
+		}
+
+		long[] chunk = getChunk(clusterId, position);
+		if (chunk == null) {
+			while (clusterId >= clusters.size())
+				clusters.add(null);
+
+			Map<Long, long[]> chunks = clusters.get(clusterId);
+			if (chunks == null) {
+				chunks = new HashMap<Long, long[]>();
+				clusters.set(clusterId, chunks);
+			}
+
+			chunk = new long[CHUNK_WORDS];
+			chunks.put(position >>> CHUNK_SHIFT, chunk);
+			lastChunk = chunk;
+		}
+
+		final int word = (int) (position >>> 6) & (CHUNK_WORDS - 1);
+		final long mask = 1L << (position & 63);
+		if ((chunk[word] & mask) != 0)
+			return false;
+
+		chunk[word] |= mask;
+		size++;
+		return true;
+	}
+
+	public boolean contains(final ORID iRid) {
+		final int clusterId = iRid.getClusterId();
+		final long position = iRid.getClusterPosition();
+
+		if (clusterId < 0 || position < 0)
+			return temporary != null && temporary.contains(iRid);
+
+		final long[] chunk = getChunk(clusterId, position);
+		return chunk != null && (chunk[(int) (position >>> 6) & (CHUNK_WORDS - 1)] & (1L << (position & 63))) != 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		clusters.clear();
+		temporary = null;
+		size = 0;
+		lastClusterId = -1;
+		lastChunkId = -1;
+		lastChunk = null;
+	}
+
+	/**
+	 * Returns the chunk containing the position, or null if not created yet. The chunk looked for is remembered as the last one used.
+	 */
+	private long[] getChunk(final int iClusterId, final long iPosition) {
+		final long chunkId = iPosition >>> CHUNK_SHIFT;
+		if (iClusterId == lastClusterId && chunkId == lastChunkId)
+			return lastChunk;
+
+		final Map<Long, long[]> chunks = iClusterId < clusters.size() ? clusters.get(iClusterId) : null;
+		lastClusterId = iClusterId;
+		lastChunkId = chunkId;
+		lastChunk = chunks != null ? chunks.get(chunkId) : null;
+		return lastChunk;
+	}
+}
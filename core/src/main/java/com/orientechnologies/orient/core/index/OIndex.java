@@ -68,6 +68,13 @@ public interface OIndex<T> {
 	 */
 	public Iterator<Entry<Object, T>> iterator();
 
+	/**
+	 * Returns an iterator to walk across all the index items from the last to the first one.
+	 * 
+	 * @return
+	 */
+	public Iterator<Entry<Object, T>> inverseIterator();
+
 	/**
 	 * Gets the set of records associated with the passed key.
 	 * 
@@ -262,6 +269,13 @@ public interface OIndex<T> {
 	 */
 	public long getSize();
 
+	/**
+	 * Returns the statistics about the content of the index used to estimate the cost of the searches.
+	 * 
+	 * @return The index statistics or null if not available
+	 */
+	public OIndexStatistics getStatistics();
+
 	/**
 	 * For unique indexes it will throw exception if passed in key is contained in index.
 	 * 
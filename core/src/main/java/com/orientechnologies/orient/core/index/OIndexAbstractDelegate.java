@@ -57,6 +57,10 @@ public class OIndexAbstractDelegate<T> implements OIndex<T> {
 		return delegate.iterator();
 	}
 
+	public Iterator<Entry<Object, T>> inverseIterator() {
+		return delegate.inverseIterator();
+	}
+
 	public T get(final Object iKey) {
 		return delegate.get(iKey);
 	}
@@ -126,6 +130,10 @@ public class OIndexAbstractDelegate<T> implements OIndex<T> {
 		return delegate.getSize();
 	}
 
+	public OIndexStatistics getStatistics() {
+		return delegate.getStatistics();
+	}
+
 	public OIndex<T> lazySave() {
 		return delegate.lazySave();
 	}
@@ -38,10 +38,13 @@ public class OIndexDictionary extends OIndexOneValue {
 		try {
 			checkForKeyType(iKey);
 
-			final OIdentifiable value = map.get(iKey);
+			final OIdentifiable value = isKeyAbsent(iKey) ? null : map.get(iKey);
 
-			if (value == null || !value.equals(iSingleValue))
+			if (value == null || !value.equals(iSingleValue)) {
 				map.put(iKey, iSingleValue);
+				addToBloomFilter(iKey);
+				onEntriesChanged(value == null ? 1 : 0);
+			}
 
 			return this;
 
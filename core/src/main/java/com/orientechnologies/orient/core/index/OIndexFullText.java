@@ -97,17 +97,23 @@ public class OIndexFullText extends OIndexMultiValues {
 				Set<OIdentifiable> refs;
 
 				// SEARCH FOR THE WORD
-				refs = map.get(word);
+				refs = isKeyAbsent(word) ? null : map.get(word);
 
 				if (refs == null)
 					// WORD NOT EXISTS: CREATE THE KEYWORD CONTAINER THE FIRST TIME THE WORD IS FOUND
 					refs = new OMVRBTreeRIDSet().setAutoConvert(false);
 
+				if (refs.contains(iSingleValue))
+					// THE DOCUMENT IS ALREADY A REF FOR THAT WORD
+					continue;
+
 				// ADD THE CURRENT DOCUMENT AS REF FOR THAT WORD
 				refs.add(iSingleValue);
 
 				// SAVE THE INDEX ENTRY
 				map.put(word, refs);
+				addToBloomFilter(word);
+				onEntriesChanged(1);
 
 			} finally {
 				releaseExclusiveLock();
@@ -142,6 +148,7 @@ public class OIndexFullText extends OIndexMultiValues {
 							map.remove(iKey);
 						else
 							map.put(iKey, recs);
+						onEntriesChanged(-1);
 						removed = true;
 					}
 				}
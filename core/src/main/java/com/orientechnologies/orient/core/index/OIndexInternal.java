@@ -67,6 +67,13 @@ public interface OIndexInternal<T> extends OIndex<T>, Iterable<Entry<Object, T>>
 	 */
 	public ODocument updateConfiguration();
 
+	/**
+	 * Recomputes the statistics of the index browsing all its entries.
+	 * 
+	 * @return The refreshed statistics
+	 */
+	public OIndexStatistics refreshStatistics();
+
 	/**
 	 * Add given cluster to the list of clusters that should be automatically indexed.
 	 *
@@ -18,6 +18,7 @@ package com.orientechnologies.orient.core.index;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -25,6 +26,7 @@ import java.util.Locale;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import com.orientechnologies.common.collection.OBloomFilter;
 import com.orientechnologies.common.collection.OCompositeKey;
 import com.orientechnologies.common.concur.resource.OSharedResourceAdaptiveExternal;
 import com.orientechnologies.common.listener.OProgressListener;
@@ -45,6 +47,8 @@ import com.orientechnologies.orient.core.memory.OMemoryWatchDog.Listener;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ORecordBytes;
+import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
 import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OSimpleKeySerializer;
@@ -64,11 +68,26 @@ import com.orientechnologies.orient.core.type.tree.provider.OMVRBTreeProviderAbs
 public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveExternal implements OIndexInternal<T> {
 	protected static final String										CONFIG_MAP_RID	= "mapRid";
 	protected static final String										CONFIG_CLUSTERS	= "clusters";
+	protected static final String										CONFIG_BLOOM_FILTER	= "bloomFilter";
+	protected static final String										CONFIG_STATISTICS	= "statistics";
+
+	/**
+	 * Key types hashed by value by the Bloom filter. Other types, like embedded documents, can have an identity hashCode().
+	 */
+	private static final EnumSet<OType>							BLOOM_FILTER_TYPES	= EnumSet.of(OType.BOOLEAN, OType.BYTE, OType.SHORT,
+																																				OType.INTEGER, OType.LONG, OType.FLOAT, OType.DOUBLE,
+																																				OType.DECIMAL, OType.DATE, OType.DATETIME, OType.STRING,
+																																				OType.BINARY, OType.LINK);
+
 	protected String																name;
 	protected String																type;
 	protected OMVRBTreeDatabaseLazySave<Object, T>	map;
 	protected Set<String>														clustersToIndex	= new LinkedHashSet<String>();
 	protected OIndexDefinition											indexDefinition;
+	protected OBloomFilter													bloomFilter;
+	private ORecordBytes														bloomFilterRecord;
+	private boolean																	bloomFilterDirty;
+	protected volatile OIndexStatistics							statistics			= new OIndexStatistics();
 
 	@ODocumentInstance
 	protected ODocument															configuration;
@@ -122,6 +141,9 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 				map = new OMVRBTreeDatabaseLazySave<Object, T>(iClusterIndexName, keySerializer, iValueSerializer,	1);
 			}
 
+			if (OGlobalConfiguration.INDEX_BLOOM_FILTER_ENABLED.getValueAsBoolean() && isBloomFilterSupported())
+				bloomFilter = createBloomFilter(0);
+
 			installHooks(iDatabase);
 
 			rebuild(iProgressListener);
@@ -144,10 +166,6 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		acquireExclusiveLock();
 		try {
 
-			final ORID rid = (ORID) iConfig.field(CONFIG_MAP_RID, ORID.class);
-			if (rid == null)
-				throw new OIndexException("Error during deserialization of index definition: '" + CONFIG_MAP_RID + "' attribute is null");
-
 			configuration = iConfig;
 			name = configuration.field(OIndexInternal.CONFIG_NAME);
 
@@ -205,8 +223,7 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 			if (clusters != null)
 				clustersToIndex.addAll(clusters);
 
-			map = new OMVRBTreeDatabaseLazySave<Object, T>(getDatabase(), rid);
-			map.load();
+			loadTree();
 
 			installHooks(iConfig.getDatabase());
 
@@ -217,11 +234,33 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		}
 	}
 
+	/**
+	 * Loads the tree referenced by the configuration together with its Bloom filter and statistics.
+	 */
+	protected void loadTree() {
+		final ORID rid = (ORID) configuration.field(CONFIG_MAP_RID, ORID.class);
+		if (rid == null)
+			throw new OIndexException("Error during deserialization of index definition: '" + CONFIG_MAP_RID + "' attribute is null");
+
+		map = new OMVRBTreeDatabaseLazySave<Object, T>(getDatabase(), rid);
+		map.load();
+
+		statistics = OIndexStatistics.fromDocument((ODocument) configuration.field(CONFIG_STATISTICS));
+		if (statistics.getKeys() != map.size())
+			// CHANGES NOT SAVED IN THE CONFIGURATION
+			statistics.invalidate();
+
+		loadBloomFilter();
+	}
+
 	public boolean contains(final Object iKey) {
 
 		acquireExclusiveLock();
 		try {
 
+			if (isKeyAbsent(iKey))
+				return false;
+
 			return map.containsKey(iKey);
 
 		} finally {
@@ -363,6 +402,7 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 				}
 
 			lazySave();
+			refreshStatistics();
 
 			if (iProgressListener != null)
 				iProgressListener.onCompletition(this, true);
@@ -394,7 +434,12 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		acquireExclusiveLock();
 		try {
 
-			return map.remove(key) != null;
+			final T removed = map.remove(key);
+			if (removed == null)
+				return false;
+
+			onEntriesChanged(removed instanceof Collection<?> ? -((Collection<?>) removed).size() : -1);
+			return true;
 
 		} finally {
 			releaseExclusiveLock();
@@ -407,6 +452,12 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		try {
 
 			map.clear();
+			statistics.clear();
+
+			if (bloomFilter != null) {
+				bloomFilter = createBloomFilter(0);
+				bloomFilterDirty = true;
+			}
 			return this;
 
 		} finally {
@@ -420,6 +471,11 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 
 		try {
 			map.delete();
+
+			if (bloomFilterRecord != null) {
+				bloomFilterRecord.delete();
+				bloomFilterRecord = null;
+			}
 			return this;
 
 		} finally {
@@ -433,6 +489,7 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		try {
 
 			map.lazySave();
+			saveBloomFilter();
 			return this;
 
 		} finally {
@@ -456,6 +513,18 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		}
 	}
 
+	public Iterator<Entry<Object, T>> inverseIterator() {
+
+		acquireExclusiveLock();
+		try {
+
+			return map.descendingMap().entrySet().iterator();
+
+		} finally {
+			releaseExclusiveLock();
+		}
+	}
+
 	public Iterable<Object> keys() {
 
 		acquireExclusiveLock();
@@ -468,6 +537,59 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		}
 	}
 
+	/**
+	 * Returns a copy of the statistics of the index. Only the shared lock is taken to not stop the other queries while planning, the
+	 * exclusive one is needed only to refresh them when too many changes happened since the last refresh.
+	 */
+	public OIndexStatistics getStatistics() {
+
+		acquireSharedLock();
+		try {
+
+			if (!statistics.isStale())
+				return new OIndexStatistics(statistics);
+
+		} finally {
+			releaseSharedLock();
+		}
+
+		acquireExclusiveLock();
+		try {
+
+			// ANOTHER QUERY COULD HAVE REFRESHED THEM IN THE MEANTIME
+			if (statistics.isStale())
+				return refreshStatistics();
+			return new OIndexStatistics(statistics);
+
+		} finally {
+			releaseExclusiveLock();
+		}
+	}
+
+	/**
+	 * Recomputes the statistics browsing all the index entries. The new statistics are built apart and then replace the current
+	 * ones, so who reads them without the lock of the index never sees them half refreshed.
+	 */
+	public OIndexStatistics refreshStatistics() {
+
+		acquireExclusiveLock();
+		try {
+
+			// THE HISTOGRAM NEEDS COMPARABLE KEYS, NOT AVAILABLE WITH COMPOSITE INDEXES
+			final int buckets = indexDefinition != null && indexDefinition.getParamCount() == 1 ? OGlobalConfiguration.INDEX_STATISTICS_HISTOGRAM_BUCKETS
+					.getValueAsInteger() : 0;
+
+			final OIndexStatistics refreshed = new OIndexStatistics(statistics);
+			refreshed.refresh(this, buckets);
+			statistics = refreshed;
+			OProfiler.getInstance().updateCounter("Index.statistics.refresh", 1);
+			return new OIndexStatistics(refreshed);
+
+		} finally {
+			releaseExclusiveLock();
+		}
+	}
+
 	public long getSize() {
 
 		acquireSharedLock();
@@ -579,7 +701,11 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 				}
 
 				configuration.field(CONFIG_CLUSTERS, clustersToIndex, OType.EMBEDDEDSET);
-				configuration.field(CONFIG_MAP_RID, ((OMVRBTreeProviderAbstract<Object, ?>) map.getProvider()).getRecord().getIdentity());
+				updateTreeConfiguration();
+
+				final ODocument statisticsDocument = statistics.toDocument();
+				statisticsDocument.addOwner(configuration);
+				configuration.field(CONFIG_STATISTICS, statisticsDocument, OType.EMBEDDED);
 
 			} finally {
 				configuration.setInternalStatus(ORecordElement.STATUS.LOADED);
@@ -591,6 +717,18 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		return configuration;
 	}
 
+	/**
+	 * Writes the references to the tree and to its Bloom filter in the configuration. Must be called while holding the lock.
+	 */
+	protected void updateTreeConfiguration() {
+		configuration.field(CONFIG_MAP_RID, ((OMVRBTreeProviderAbstract<Object, ?>) map.getProvider()).getRecord().getIdentity());
+
+		if (bloomFilterRecord != null && bloomFilterRecord.getIdentity().isValid())
+			configuration.field(CONFIG_BLOOM_FILTER, bloomFilterRecord.getIdentity(), OType.LINK);
+		else
+			configuration.removeField(CONFIG_BLOOM_FILTER);
+	}
+
 	@SuppressWarnings("unchecked")
 	public void commit(final ODocument iDocument) {
 		if (iDocument == null)
@@ -598,7 +736,7 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 
 		acquireExclusiveLock();
 		try {
-			map.setRunningTransaction(true);
+			setRunningTransaction(true);
 
 			final Boolean clearAll = (Boolean) iDocument.field("clear");
 			if (clearAll != null && clearAll)
@@ -638,10 +776,14 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 
 		} finally {
 			releaseExclusiveLock();
-			map.setRunningTransaction(false);
+			setRunningTransaction(false);
 		}
 	}
 
+	protected void setRunningTransaction(final boolean iValue) {
+		map.setRunningTransaction(iValue);
+	}
+
 	public ODocument getConfiguration() {
 		return configuration;
 	}
@@ -751,6 +893,7 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		try {
 
 			map.commitChanges();
+			saveBloomFilter();
 			Orient.instance().getMemoryWatchDog().removeListener(watchDog);
 
 		} finally {
@@ -780,6 +923,127 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
 		}
 	}
 
+	/**
+	 * Updates the statistics after a change. Must be called while holding the exclusive lock after every change of the entries of
+	 * the tree.
+	 * 
+	 * @param iEntries
+	 *          Number of entries added (positive) or removed (negative)
+	 */
+	protected void onEntriesChanged(final long iEntries) {
+		statistics.onChange(iEntries, map.size());
+	}
+
+	/**
+	 * Tells if the key is surely not in the index by asking to the Bloom filter, if any. In this case the tree is not searched at all.
+	 * Must be called while holding the lock.
+	 * 
+	 * @return true if the key is not in the index, false if the key could be in the index
+	 */
+	protected boolean isKeyAbsent(final Object iKey) {
+		if (bloomFilter == null || iKey == null)
+			return false;
+
+		if (iKey instanceof OCompositeKey && indexDefinition != null
+				&& ((OCompositeKey) iKey).getKeys().size() < indexDefinition.getParamCount())
+			// PARTIAL KEY: CANNOT BE CHECKED
+			return false;
+
+		if (bloomFilter.mightContain(iKey)) {
+			OProfiler.getInstance().updateCounter("Index.bloomFilter.misses", 1);
+			return false;
+		}
+
+		OProfiler.getInstance().updateCounter("Index.bloomFilter.hits", 1);
+		return true;
+	}
+
+	/**
+	 * Registers a new key in the Bloom filter, if any. Must be called while holding the lock after every put in the tree.
+	 */
+	protected void addToBloomFilter(final Object iKey) {
+		if (bloomFilter == null)
+			return;
+
+		bloomFilter.add(iKey);
+		bloomFilterDirty = true;
+	}
+
+	private OBloomFilter createBloomFilter(final long iExpectedItems) {
+		return new OBloomFilter(Math.max(iExpectedItems, OGlobalConfiguration.INDEX_BLOOM_FILTER_INITIAL_CAPACITY.getValueAsLong()),
+				OGlobalConfiguration.INDEX_BLOOM_FILTER_FALSE_POSITIVE_RATE.getValueAsFloat());
+	}
+
+	private boolean isBloomFilterSupported() {
+		if (indexDefinition == null)
+			return false;
+
+		for (OType type : indexDefinition.getTypes())
+			if (!BLOOM_FILTER_TYPES.contains(type))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Loads the persisted Bloom filter. The filter is rebuilt browsing all the keys when it is not aligned with the tree, because it
+	 * was not saved after the last changes, or when it was enabled after the creation of the index.
+	 */
+	private void loadBloomFilter() {
+		bloomFilter = null;
+		bloomFilterRecord = null;
+		bloomFilterDirty = false;
+
+		final ORID bloomFilterRid = configuration.field(CONFIG_BLOOM_FILTER, ORID.class);
+		if (bloomFilterRid != null)
+			bloomFilterRecord = getDatabase().load(bloomFilterRid);
+
+		if (!isBloomFilterSupported())
+			return;
+
+		if (bloomFilterRecord != null) {
+			// THE FILTER IS ALIGNED ONLY IF BOTH THE KEYS AND THE ENTRIES OF THE INDEX ARE THE SAME OF WHEN IT WAS SAVED
+			final byte[] stream = bloomFilterRecord.toStream();
+			if (stream != null && stream.length > OBinaryProtocol.SIZE_LONG * 2 && statistics.getKeys() == map.size()
+					&& OBinaryProtocol.bytes2long(stream) == map.size()
+					&& OBinaryProtocol.bytes2long(stream, OBinaryProtocol.SIZE_LONG) == statistics.getEntries())
+				bloomFilter = OBloomFilter.fromStream(stream, OBinaryProtocol.SIZE_LONG * 2);
+		}
+
+		if (bloomFilter == null && (bloomFilterRid != null || OGlobalConfiguration.INDEX_BLOOM_FILTER_ENABLED.getValueAsBoolean())) {
+			OLogManager.instance().debug(this, "Rebuilding the Bloom filter of index %s (%d keys)...", name, map.size());
+
+			bloomFilter = createBloomFilter(map.size());
+			for (Object key : map.keySet())
+				bloomFilter.add(key);
+			bloomFilterDirty = true;
+		}
+	}
+
+	/**
+	 * Saves the Bloom filter, if changed, together with the number of keys and entries of the index to check its alignment at the next
+	 * load.
+	 */
+	private void saveBloomFilter() {
+		if (bloomFilter == null || !bloomFilterDirty || getDatabase().getTransaction().isActive())
+			return;
+
+		final byte[] filterStream = bloomFilter.toStream();
+		final byte[] stream = new byte[OBinaryProtocol.SIZE_LONG * 2 + filterStream.length];
+		OBinaryProtocol.long2bytes(map.size(), stream, 0);
+		OBinaryProtocol.long2bytes(statistics.getEntries(), stream, OBinaryProtocol.SIZE_LONG);
+		System.arraycopy(filterStream, 0, stream, OBinaryProtocol.SIZE_LONG * 2, filterStream.length);
+
+		if (bloomFilterRecord == null) {
+			bloomFilterRecord = new ORecordBytes(getDatabase(), stream);
+			bloomFilterRecord.save(((OMVRBTreeProviderAbstract<Object, ?>) map.getProvider()).getClusterName());
+		} else {
+			bloomFilterRecord.reset(stream);
+			bloomFilterRecord.save();
+		}
+
+		bloomFilterDirty = false;
+	}
+
 	protected void checkForKeyType(final Object iKey) {
 		if (indexDefinition == null) {
 			// RECOGNIZE THE KEY TYPE AT RUN-TIME
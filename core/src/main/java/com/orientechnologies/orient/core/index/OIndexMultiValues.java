@@ -49,6 +49,9 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 		acquireExclusiveLock();
 		try {
 
+			if (isKeyAbsent(iKey))
+				return Collections.emptySet();
+
 			final OMVRBTreeRIDSet values = (OMVRBTreeRIDSet) map.get(iKey);
 
 			if (values == null)
@@ -68,7 +71,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
 			checkForKeyType(iKey);
 
-			Set<OIdentifiable> values = map.get(iKey);
+			Set<OIdentifiable> values = isKeyAbsent(iKey) ? null : map.get(iKey);
 
 			if (values == null)
 				values = new OMVRBTreeRIDSet().setAutoConvert(false);
@@ -76,9 +79,15 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 			if (!iSingleValue.getIdentity().isValid())
 				((ORecord<?>) iSingleValue).save();
 
+			if (values.contains(iSingleValue))
+				// ALREADY INDEXED: A RECORD ADDED WHEN ITS RID WAS TEMPORARY WOULD BE ADDED TWICE TO THE SET
+				return this;
+
 			values.add(iSingleValue);
 
 			map.put(iKey, values);
+			addToBloomFilter(iKey);
+			onEntriesChanged(1);
 			return this;
 
 		} finally {
@@ -98,6 +107,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 					map.remove(iKey);
 				else
 					map.put(iKey, recs);
+				onEntriesChanged(-1);
 				return true;
 			}
 			return false;
@@ -304,6 +314,9 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 			final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
 
 			for (final Object key : sortedKeys) {
+				if (isKeyAbsent(key))
+					continue;
+
 				final OMVRBTreeRIDSet values = (OMVRBTreeRIDSet) map.get(key);
 
 				if (values == null)
@@ -490,6 +503,9 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 			final Set<ODocument> result = new ODocumentFieldsHashSet();
 
 			for (final Object key : sortedKeys) {
+				if (isKeyAbsent(key))
+					continue;
+
 				final OMVRBTreeRIDSet values = (OMVRBTreeRIDSet) map.get(key);
 
 				if (values == null)
@@ -0,0 +1,795 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.orientechnologies.common.collection.OCompositeKey;
+import com.orientechnologies.common.collection.OSimpleImmutableEntry;
+import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.common.profiler.OProfiler.OProfilerHookValue;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabase;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Index that allows multiple values for the same key, split in partitions by the hash of the keys. Every partition has its own tree
+ * and its own lock, so changes of keys in different partitions don't wait for each other. The lock of the index is taken shared by
+ * the operations against the partitions and exclusive by the operations against the whole index, like rebuild and transaction
+ * commit.<br/>
+ * Lookups by key search only the partition of the key, while ranges are searched in all the partitions. The iteration merges the
+ * partitions in key order. The partition of a key depends on its hash code, so it must not change between runs.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OIndexNotUniquePartitioned extends OIndexNotUnique {
+
+	public static final String		TYPE_ID						= OClass.INDEX_TYPE.NOTUNIQUE_PARTITIONED.toString();
+
+	protected static final String	CONFIG_PARTITIONS	= "partitions";
+
+	private OIndexPartition[]			partitions;
+	private final Object					statisticsLock		= new Object();
+
+	public OIndexNotUniquePartitioned() {
+		super(TYPE_ID);
+	}
+
+	@Override
+	public OIndexMultiValues create(final String iName, final OIndexDefinition iIndexDefinition, final ODatabaseRecord iDatabase,
+			final String iClusterIndexName, final int[] iClusterIdsToIndex, final OProgressListener iProgressListener) {
+		acquireExclusiveLock();
+		try {
+
+			name = iName;
+			configuration = new ODocument();
+
+			indexDefinition = iIndexDefinition;
+
+			if (iClusterIdsToIndex != null)
+				for (final int id : iClusterIdsToIndex)
+					clustersToIndex.add(iDatabase.getClusterNameById(id));
+
+			final int partitionCount = OGlobalConfiguration.INDEX_PARTITIONS.getValueAsInteger();
+			if (partitionCount < 1)
+				throw new OIndexException("Invalid number of partitions for index '" + iName + "': " + partitionCount);
+
+			partitions = new OIndexPartition[partitionCount];
+			for (int i = 0; i < partitions.length; ++i) {
+				final OIndexPartition partition = new OIndexPartition(this);
+				partition.create(name + ".partition" + i, indexDefinition, iDatabase, iClusterIndexName, null, null);
+				partitions[i] = partition;
+			}
+
+			installHooks(iDatabase);
+
+			rebuild(iProgressListener);
+			updateConfiguration();
+		} catch (Exception e) {
+			if (partitions != null)
+				for (OIndexPartition partition : partitions)
+					if (partition != null)
+						partition.delete();
+
+			if (e instanceof OIndexException)
+				throw (OIndexException) e;
+
+			throw new OIndexException("Cannot create the index '" + iName + "'", e);
+
+		} finally {
+			releaseExclusiveLock();
+		}
+		return this;
+	}
+
+	@Override
+	protected void loadTree() {
+		final Collection<ODocument> partitionConfigurations = configuration.field(CONFIG_PARTITIONS);
+		if (partitionConfigurations == null || partitionConfigurations.isEmpty())
+			throw new OIndexException("Error during deserialization of index definition: '" + CONFIG_PARTITIONS + "' attribute is empty");
+
+		partitions = new OIndexPartition[partitionConfigurations.size()];
+		int i = 0;
+		for (ODocument partitionConfiguration : partitionConfigurations) {
+			partitions[i] = new OIndexPartition(this);
+			partitions[i++].loadFromConfiguration(partitionConfiguration);
+		}
+
+		statistics = OIndexStatistics.fromDocument((ODocument) configuration.field(CONFIG_STATISTICS));
+		if (statistics.getKeys() != getSize())
+			// CHANGES NOT SAVED IN THE CONFIGURATION
+			statistics.invalidate();
+	}
+
+	@Override
+	protected void updateTreeConfiguration() {
+		final List<ODocument> partitionConfigurations = new ArrayList<ODocument>(partitions.length);
+		for (OIndexPartition partition : partitions) {
+			final ODocument partitionConfiguration = partition.updateConfiguration();
+			if (!partitionConfiguration.hasOwners())
+				partitionConfiguration.addOwner(configuration);
+			partitionConfigurations.add(partitionConfiguration);
+		}
+
+		configuration.field(CONFIG_PARTITIONS, partitionConfigurations, OType.EMBEDDEDLIST);
+	}
+
+	@Override
+	public Set<OIdentifiable> get(final Object iKey) {
+
+		acquireSharedLock();
+		try {
+
+			if (!isPartialKey(iKey))
+				return getPartition(iKey).get(iKey);
+
+			final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
+			for (OIndexPartition partition : partitions)
+				result.addAll(partition.get(iKey));
+			return result;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public boolean contains(final Object iKey) {
+
+		acquireSharedLock();
+		try {
+
+			if (!isPartialKey(iKey))
+				return getPartition(iKey).contains(iKey);
+
+			for (OIndexPartition partition : partitions)
+				if (partition.contains(iKey))
+					return true;
+			return false;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public OIndexMultiValues put(final Object iKey, final OIdentifiable iSingleValue) {
+		if (indexDefinition == null) {
+			// THE KEY TYPE IS RECOGNIZED UPDATING THE CONFIGURATION
+			acquireExclusiveLock();
+			try {
+				checkForKeyType(iKey);
+			} finally {
+				releaseExclusiveLock();
+			}
+		}
+
+		acquireSharedLock();
+		try {
+
+			getPartition(iKey).put(iKey, iSingleValue);
+			return this;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public boolean remove(final Object iKey) {
+
+		acquireSharedLock();
+		try {
+
+			return getPartition(iKey).remove(iKey);
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public boolean remove(final Object iKey, final OIdentifiable iValue) {
+
+		acquireSharedLock();
+		try {
+
+			return getPartition(iKey).remove(iKey, iValue);
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public int remove(final OIdentifiable iRecord) {
+
+		acquireSharedLock();
+		try {
+
+			int tot = 0;
+			for (OIndexPartition partition : partitions)
+				tot += partition.remove(iRecord);
+			return tot;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public int count(final OIdentifiable iRecord) {
+
+		acquireSharedLock();
+		try {
+
+			int tot = 0;
+			for (OIndexPartition partition : partitions)
+				tot += partition.count(iRecord);
+			return tot;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public OIndex<Set<OIdentifiable>> clear() {
+
+		acquireExclusiveLock();
+		try {
+
+			for (OIndexPartition partition : partitions)
+				partition.clear();
+
+			synchronized (statisticsLock) {
+				statistics.clear();
+			}
+			return this;
+
+		} finally {
+			releaseExclusiveLock();
+		}
+	}
+
+	@Override
+	public OIndexInternal<Set<OIdentifiable>> delete() {
+
+		acquireExclusiveLock();
+		try {
+
+			for (OIndexPartition partition : partitions)
+				partition.delete();
+			return this;
+
+		} finally {
+			releaseExclusiveLock();
+		}
+	}
+
+	@Override
+	public OIndexInternal<Set<OIdentifiable>> lazySave() {
+
+		acquireSharedLock();
+		try {
+
+			for (OIndexPartition partition : partitions)
+				partition.lazySave();
+			return this;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public void unload() {
+
+		acquireSharedLock();
+		try {
+
+			for (OIndexPartition partition : partitions)
+				partition.unload();
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public long getSize() {
+
+		acquireSharedLock();
+		try {
+
+			long size = 0;
+			for (OIndexPartition partition : partitions)
+				size += partition.getSize();
+			return size;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	/**
+	 * Returns a copy of the statistics of the whole index. The lock of the index is taken only to refresh them, to not stop the
+	 * writers at every query.
+	 */
+	@Override
+	public OIndexStatistics getStatistics() {
+		synchronized (statisticsLock) {
+			if (!statistics.isStale())
+				return new OIndexStatistics(statistics);
+		}
+		return super.getStatistics();
+	}
+
+	/**
+	 * Returns the identity of the tree of the first partition.
+	 */
+	@Override
+	public ORID getIdentity() {
+		return partitions[0].getIdentity();
+	}
+
+	/**
+	 * Returns the record of the tree of the first partition.
+	 */
+	@Override
+	public ORecord<?> getRecord() {
+		return partitions[0].getRecord();
+	}
+
+	/**
+	 * Returns the entries of all the partitions in key order.
+	 */
+	@Override
+	public Iterator<Entry<Object, Set<OIdentifiable>>> iterator() {
+		return iterator(true);
+	}
+
+	/**
+	 * Returns the entries of all the partitions in inverse key order.
+	 */
+	@Override
+	public Iterator<Entry<Object, Set<OIdentifiable>>> inverseIterator() {
+		return iterator(false);
+	}
+
+	private Iterator<Entry<Object, Set<OIdentifiable>>> iterator(final boolean iAscending) {
+
+		acquireSharedLock();
+		try {
+
+			final List<Iterator<Entry<Object, Set<OIdentifiable>>>> iterators = new ArrayList<Iterator<Entry<Object, Set<OIdentifiable>>>>(
+					partitions.length);
+			for (OIndexPartition partition : partitions)
+				iterators.add(iAscending ? partition.iterator() : partition.inverseIterator());
+
+			return new OPartitionsIterator<Entry<Object, Set<OIdentifiable>>>(iterators, iAscending) {
+				@Override
+				protected Entry<Object, Set<OIdentifiable>> fetch(final Iterator<Entry<Object, Set<OIdentifiable>>> iIterator) {
+					// THE ENTRIES OF THE TREE CHANGE WHILE ITERATING: COPY THEM
+					return new OSimpleImmutableEntry<Object, Set<OIdentifiable>>(iIterator.next());
+				}
+
+				@Override
+				protected Object getKey(final Entry<Object, Set<OIdentifiable>> iItem) {
+					return iItem.getKey();
+				}
+			};
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	/**
+	 * Returns the keys of all the partitions in order.
+	 */
+	@Override
+	public Iterable<Object> keys() {
+
+		acquireSharedLock();
+		try {
+
+			final List<Iterable<Object>> partitionKeys = new ArrayList<Iterable<Object>>(partitions.length);
+			for (OIndexPartition partition : partitions)
+				partitionKeys.add(partition.keys());
+
+			return new Iterable<Object>() {
+				public Iterator<Object> iterator() {
+					final List<Iterator<Object>> iterators = new ArrayList<Iterator<Object>>(partitionKeys.size());
+					for (Iterable<Object> keys : partitionKeys)
+						iterators.add(keys.iterator());
+
+					return new OPartitionsIterator<Object>(iterators) {
+						@Override
+						protected Object getKey(final Object iItem) {
+							return iItem;
+						}
+					};
+				}
+			};
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public Collection<OIdentifiable> getValuesBetween(final Object iRangeFrom, final boolean iFromInclusive, final Object iRangeTo,
+			final boolean iToInclusive, final int maxValuesToFetch) {
+
+		acquireSharedLock();
+		try {
+
+			final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
+			for (OIndexPartition partition : partitions) {
+				if (isComplete(result, maxValuesToFetch))
+					break;
+				result.addAll(partition.getValuesBetween(iRangeFrom, iFromInclusive, iRangeTo, iToInclusive,
+						getRemaining(result, maxValuesToFetch)));
+			}
+			return result;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public Collection<OIdentifiable> getValuesMajor(final Object fromKey, final boolean isInclusive, final int maxValuesToFetch) {
+
+		acquireSharedLock();
+		try {
+
+			final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
+			for (OIndexPartition partition : partitions) {
+				if (isComplete(result, maxValuesToFetch))
+					break;
+				result.addAll(partition.getValuesMajor(fromKey, isInclusive, getRemaining(result, maxValuesToFetch)));
+			}
+			return result;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public Collection<OIdentifiable> getValuesMinor(final Object toKey, final boolean isInclusive, final int maxValuesToFetch) {
+
+		acquireSharedLock();
+		try {
+
+			final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
+			for (OIndexPartition partition : partitions) {
+				if (isComplete(result, maxValuesToFetch))
+					break;
+				result.addAll(partition.getValuesMinor(toKey, isInclusive, getRemaining(result, maxValuesToFetch)));
+			}
+			return result;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public Collection<OIdentifiable> getValues(final Collection<?> iKeys, final int maxValuesToFetch) {
+
+		acquireSharedLock();
+		try {
+
+			final List<List<Object>> keysByPartition = splitKeys(iKeys);
+
+			final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
+			for (int i = 0; i < partitions.length; ++i) {
+				if (isComplete(result, maxValuesToFetch))
+					break;
+				if (keysByPartition.get(i) != null)
+					result.addAll(partitions[i].getValues(keysByPartition.get(i), getRemaining(result, maxValuesToFetch)));
+			}
+			return result;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public Collection<ODocument> getEntriesBetween(final Object iRangeFrom, final Object iRangeTo, final boolean iInclusive,
+			final int maxEntriesToFetch) {
+
+		acquireSharedLock();
+		try {
+
+			final Set<ODocument> result = new ODocumentFieldsHashSet();
+			for (OIndexPartition partition : partitions) {
+				if (isComplete(result, maxEntriesToFetch))
+					break;
+				result.addAll(partition.getEntriesBetween(iRangeFrom, iRangeTo, iInclusive, getRemaining(result, maxEntriesToFetch)));
+			}
+			return result;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public Collection<ODocument> getEntriesMajor(final Object fromKey, final boolean isInclusive, final int maxEntriesToFetch) {
+
+		acquireSharedLock();
+		try {
+
+			final Set<ODocument> result = new ODocumentFieldsHashSet();
+			for (OIndexPartition partition : partitions) {
+				if (isComplete(result, maxEntriesToFetch))
+					break;
+				result.addAll(partition.getEntriesMajor(fromKey, isInclusive, getRemaining(result, maxEntriesToFetch)));
+			}
+			return result;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public Collection<ODocument> getEntriesMinor(final Object toKey, final boolean isInclusive, final int maxEntriesToFetch) {
+
+		acquireSharedLock();
+		try {
+
+			final Set<ODocument> result = new ODocumentFieldsHashSet();
+			for (OIndexPartition partition : partitions) {
+				if (isComplete(result, maxEntriesToFetch))
+					break;
+				result.addAll(partition.getEntriesMinor(toKey, isInclusive, getRemaining(result, maxEntriesToFetch)));
+			}
+			return result;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public Collection<ODocument> getEntries(final Collection<?> iKeys, final int maxEntriesToFetch) {
+
+		acquireSharedLock();
+		try {
+
+			final List<List<Object>> keysByPartition = splitKeys(iKeys);
+
+			final Set<ODocument> result = new ODocumentFieldsHashSet();
+			for (int i = 0; i < partitions.length; ++i) {
+				if (isComplete(result, maxEntriesToFetch))
+					break;
+				if (keysByPartition.get(i) != null)
+					result.addAll(partitions[i].getEntries(keysByPartition.get(i), getRemaining(result, maxEntriesToFetch)));
+			}
+			return result;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + type + ") " + (partitions != null ? partitions.length : 0) + " partitions";
+	}
+
+	@Override
+	public void onBeforeTxBegin(final ODatabase iDatabase) {
+		for (OIndexPartition partition : partitions)
+			partition.onBeforeTxBegin(iDatabase);
+	}
+
+	@Override
+	public void onAfterTxRollback(final ODatabase iDatabase) {
+		for (OIndexPartition partition : partitions)
+			partition.onAfterTxRollback(iDatabase);
+	}
+
+	@Override
+	public void onAfterTxCommit(final ODatabase iDatabase) {
+		for (OIndexPartition partition : partitions)
+			partition.onAfterTxCommit(iDatabase);
+	}
+
+	@Override
+	public void onClose(final ODatabase iDatabase) {
+		for (OIndexPartition partition : partitions)
+			partition.onClose(iDatabase);
+	}
+
+	@Override
+	protected void setRunningTransaction(final boolean iValue) {
+		for (OIndexPartition partition : partitions)
+			partition.setRunningTransaction(iValue);
+	}
+
+	@Override
+	protected void installHooks(final ODatabaseRecord iDatabase) {
+		OProfiler.getInstance().registerHookValue("index." + name + ".items", new OProfilerHookValue() {
+			public Object getValue() {
+				return partitions != null ? getSize() : "-";
+			}
+		});
+
+		iDatabase.registerListener(this);
+	}
+
+	@Override
+	protected void uninstallHooks(final ODatabaseRecord iDatabase) {
+		OProfiler.getInstance().unregisterHookValue("index." + name + ".items");
+		iDatabase.unregisterListener(this);
+	}
+
+	private void onPartitionChanged(final long iEntries, final long iKeys) {
+		synchronized (statisticsLock) {
+			statistics.onChange(iEntries, statistics.getKeys() + iKeys);
+		}
+	}
+
+	private OIndexPartition getPartition(final Object iKey) {
+		return partitions[getPartitionIndex(iKey)];
+	}
+
+	private int getPartitionIndex(final Object iKey) {
+		final int hashCode = iKey instanceof byte[] ? Arrays.hashCode((byte[]) iKey) : iKey.hashCode();
+		return ((hashCode ^ (hashCode >>> 16)) & Integer.MAX_VALUE) % partitions.length;
+	}
+
+	/**
+	 * Tells if the key is a composite key with less fields than the index, whose values can be in any partition.
+	 */
+	private boolean isPartialKey(final Object iKey) {
+		return iKey instanceof OCompositeKey && indexDefinition != null
+				&& ((OCompositeKey) iKey).getKeys().size() < indexDefinition.getParamCount();
+	}
+
+	/**
+	 * Groups the keys by partition. Partitions without keys have a null group.
+	 */
+	private List<List<Object>> splitKeys(final Collection<?> iKeys) {
+		final List<List<Object>> keysByPartition = new ArrayList<List<Object>>(partitions.length);
+		for (int i = 0; i < partitions.length; ++i)
+			keysByPartition.add(null);
+
+		for (Object key : iKeys) {
+			final int partition = getPartitionIndex(key);
+			if (keysByPartition.get(partition) == null)
+				keysByPartition.set(partition, new ArrayList<Object>());
+			keysByPartition.get(partition).add(key);
+		}
+		return keysByPartition;
+	}
+
+	private static boolean isComplete(final Collection<?> iResult, final int iMaxToFetch) {
+		return iMaxToFetch > -1 && iResult.size() >= iMaxToFetch;
+	}
+
+	private static int getRemaining(final Collection<?> iResult, final int iMaxToFetch) {
+		return iMaxToFetch > -1 ? iMaxToFetch - iResult.size() : -1;
+	}
+
+	/**
+	 * Partition of the index. Reports its changes to the owner to keep the statistics of the whole index.
+	 */
+	private static class OIndexPartition extends OIndexNotUnique {
+		private final OIndexNotUniquePartitioned	owner;
+
+		public OIndexPartition(final OIndexNotUniquePartitioned iOwner) {
+			owner = iOwner;
+		}
+
+		@Override
+		protected void onEntriesChanged(final long iEntries) {
+			final long keys = statistics.getKeys();
+			super.onEntriesChanged(iEntries);
+			owner.onPartitionChanged(iEntries, statistics.getKeys() - keys);
+		}
+
+		@Override
+		protected void installHooks(final ODatabaseRecord iDatabase) {
+			super.installHooks(iDatabase);
+			// THE DATABASE EVENTS ARE FORWARDED BY THE OWNER
+			iDatabase.unregisterListener(this);
+		}
+	}
+
+	/**
+	 * Merges the sorted iterators of the partitions, returning the items in key order.
+	 */
+	private static abstract class OPartitionsIterator<T> implements Iterator<T> {
+		private final List<Iterator<T>>	iterators;
+		private final List<T>						nextItems;
+		private final boolean						ascending;
+
+		public OPartitionsIterator(final List<Iterator<T>> iIterators) {
+			this(iIterators, true);
+		}
+
+		public OPartitionsIterator(final List<Iterator<T>> iIterators, final boolean iAscending) {
+			iterators = iIterators;
+			ascending = iAscending;
+			nextItems = new ArrayList<T>(iIterators.size());
+			for (Iterator<T> iterator : iterators)
+				nextItems.add(iterator.hasNext() ? fetch(iterator) : null);
+		}
+
+		public boolean hasNext() {
+			for (T item : nextItems)
+				if (item != null)
+					return true;
+			return false;
+		}
+
+		public T next() {
+			// TAKE THE LOWEST KEY, OR THE HIGHEST ONE IN INVERSE ORDER
+			int lowest = -1;
+			for (int i = 0; i < nextItems.size(); ++i)
+				if (nextItems.get(i) != null && (lowest == -1 || compare(getKey(nextItems.get(i)), getKey(nextItems.get(lowest))) < 0))
+					lowest = i;
+
+			if (lowest == -1)
+				throw new NoSuchElementException();
+
+			final T item = nextItems.get(lowest);
+			final Iterator<T> iterator = iterators.get(lowest);
+			nextItems.set(lowest, iterator.hasNext() ? fetch(iterator) : null);
+			return item;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException("remove");
+		}
+
+		protected T fetch(final Iterator<T> iIterator) {
+			return iIterator.next();
+		}
+
+		protected abstract Object getKey(T iItem);
+
+		@SuppressWarnings("unchecked")
+		private int compare(final Object iKey1, final Object iKey2) {
+			final int result = ((Comparable<Object>) iKey1).compareTo(iKey2);
+			return ascending ? result : -result;
+		}
+	}
+}
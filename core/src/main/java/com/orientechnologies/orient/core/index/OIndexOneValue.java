@@ -53,6 +53,9 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 		acquireExclusiveLock();
 		try {
 
+			if (isKeyAbsent(iKey))
+				return null;
+
 			return map.get(iKey);
 
 		} finally {
@@ -250,6 +253,9 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 				if (maxValuesToSearch > -1 && result.size() == maxValuesToSearch)
 					return result;
 
+				if (isKeyAbsent(key))
+					continue;
+
 				final OIdentifiable val = map.get(key);
 				if (val != null) {
 					result.add(val);
@@ -405,6 +411,9 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 				if (maxEntriesToFetch > -1 && result.size() == maxEntriesToFetch)
 					return result;
 
+				if (isKeyAbsent(key))
+					continue;
+
 				final OIdentifiable val = map.get(key);
 				if (val != null) {
 					final ODocument document = new ODocument();
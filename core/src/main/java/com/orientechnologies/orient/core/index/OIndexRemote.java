@@ -16,8 +16,12 @@
 package com.orientechnologies.orient.core.index;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 
 import com.orientechnologies.common.listener.OProgressListener;
 import com.orientechnologies.orient.core.command.OCommandRequest;
@@ -236,6 +240,25 @@ public abstract class OIndexRemote<T> implements OIndex<T> {
 		return (Long) result.get(0).field("size");
 	}
 
+	/**
+	 * Entries are received without order: sorts them by key on the client side.
+	 */
+	public Iterator<Entry<Object, T>> inverseIterator() {
+		final TreeMap<Object, T> entries = new TreeMap<Object, T>(Collections.reverseOrder());
+		for (Iterator<Entry<Object, T>> it = iterator(); it.hasNext();) {
+			final Entry<Object, T> entry = it.next();
+			entries.put(entry.getKey(), entry.getValue());
+		}
+		return entries.entrySet().iterator();
+	}
+
+	/**
+	 * Statistics are used only by the query planner, that runs on the server side.
+	 */
+	public OIndexStatistics getStatistics() {
+		return null;
+	}
+
 	public void unload() {
 	}
 
@@ -0,0 +1,269 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Statistics of an index used by the query planner to estimate how many entries a search returns: number of entries (key/value
+ * pairs), number of distinct keys and an equi-depth histogram of the keys. Entries and keys are updated at every change of the
+ * index, while the histogram is rebuilt browsing the index when too many changes happened since the last build.
+ *
+ * @author Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ */
+public class OIndexStatistics {
+	private static final String	FIELD_ENTRIES		= "entries";
+	private static final String	FIELD_KEYS			= "keys";
+	private static final String	FIELD_CHANGES		= "changes";
+	private static final String	FIELD_HISTOGRAM	= "histogram";
+
+	/**
+	 * Fraction of the entries that can change before the histogram is considered stale.
+	 */
+	private static final float	STALE_RATIO			= 0.2f;
+
+	private long								entries;
+	private long								keys;
+	private long								changes;
+	private List<Object>				histogram;
+	/**
+	 * False when the counters do not match the index anymore, for example because changes were not saved in the configuration.
+	 */
+	private boolean							counted					= true;
+
+	public OIndexStatistics() {
+	}
+
+	/**
+	 * Copy constructor. The histogram is shared since it is never changed, only replaced.
+	 */
+	public OIndexStatistics(final OIndexStatistics iSource) {
+		entries = iSource.entries;
+		keys = iSource.keys;
+		changes = iSource.changes;
+		histogram = iSource.histogram;
+		counted = iSource.counted;
+	}
+
+	/**
+	 * Updates the counters after a change of the index.
+	 *
+	 * @param iEntries
+	 *          Entries added (positive) or removed (negative)
+	 * @param iKeys
+	 *          Current number of distinct keys
+	 */
+	public void onChange(final long iEntries, final long iKeys) {
+		if (iEntries == 0 && iKeys == keys)
+			// NOTHING CHANGED
+			return;
+
+		entries = Math.max(0, entries + iEntries);
+		keys = iKeys;
+		changes++;
+	}
+
+	public void clear() {
+		entries = 0;
+		keys = 0;
+		changes = 0;
+		histogram = null;
+		counted = true;
+	}
+
+	/**
+	 * Marks the statistics as stale, forcing their refresh before the next use.
+	 */
+	public void invalidate() {
+		changes = Long.MAX_VALUE / 2;
+		counted = false;
+	}
+
+	public boolean isStale() {
+		return changes > 0 && changes > entries * STALE_RATIO;
+	}
+
+	/**
+	 * Recomputes all the statistics browsing the index entries in key order. The entries are browsed once: the counters kept
+	 * updated at every change size the histogram buckets, they are counted with an additional pass only if not reliable.
+	 *
+	 * @param iEntries
+	 *          Index entries sorted by key
+	 * @param iBuckets
+	 *          Number of histogram buckets, 0 to avoid the histogram
+	 */
+	public void refresh(final Iterable<? extends Entry<Object, ?>> iEntries, final int iBuckets) {
+		List<Object> bounds = null;
+		long bucketDepth = 0;
+		if (iBuckets > 0) {
+			long expectedEntries = counted ? entries : 0;
+			if (expectedEntries == 0)
+				for (Entry<Object, ?> entry : iEntries)
+					expectedEntries += countValues(entry.getValue());
+
+			// EVERY BUCKET CONTAINS ABOUT THE SAME NUMBER OF ENTRIES
+			bucketDepth = Math.max(1, expectedEntries / iBuckets);
+			bounds = new ArrayList<Object>(iBuckets + 1);
+		}
+
+		long totalEntries = 0;
+		long totalKeys = 0;
+		long nextBound = 0;
+		Object lastKey = null;
+		for (Entry<Object, ?> entry : iEntries) {
+			lastKey = entry.getKey();
+			final long count = countValues(entry.getValue());
+			if (bounds != null)
+				// A KEY WITH MANY VALUES SPANS MORE BUCKETS
+				while (totalEntries + count > nextBound) {
+					bounds.add(lastKey);
+					nextBound += bucketDepth;
+				}
+			totalEntries += count;
+			totalKeys++;
+		}
+
+		if (bounds != null) {
+			if (bounds.isEmpty())
+				bounds = null;
+			else if (bounds.get(bounds.size() - 1) != lastKey)
+				bounds.add(lastKey);
+		}
+
+		entries = totalEntries;
+		keys = totalKeys;
+		changes = 0;
+		histogram = bounds;
+		counted = true;
+	}
+
+	public long getEntries() {
+		return entries;
+	}
+
+	public long getKeys() {
+		return keys;
+	}
+
+	public List<Object> getHistogram() {
+		return histogram != null ? Collections.unmodifiableList(histogram) : null;
+	}
+
+	/**
+	 * Estimates the entries with the same key.
+	 */
+	public long estimateEquals() {
+		if (keys == 0)
+			return 0;
+		return Math.max(1, entries / keys);
+	}
+
+	/**
+	 * Estimates the entries whose keys are inside the range using the histogram. Without histogram a range is supposed to contain one
+	 * third of the entries.
+	 *
+	 * @param iFrom
+	 *          Lower bound, null means no lower bound
+	 * @param iTo
+	 *          Upper bound, null means no upper bound
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public long estimateRange(final Object iFrom, final Object iTo) {
+		if (entries == 0)
+			return 0;
+
+		if (histogram == null || histogram.isEmpty())
+			return entries / 3;
+
+		try {
+			final int buckets = histogram.size() - 1;
+			if (buckets == 0) {
+				// ONLY ONE KEY
+				final Comparable key = (Comparable) histogram.get(0);
+				return (iFrom == null || key.compareTo(iFrom) >= 0) && (iTo == null || key.compareTo(iTo) <= 0) ? entries : 0;
+			}
+
+			double coveredBuckets = 0;
+			for (int i = 0; i < buckets; ++i) {
+				final Comparable bucketFrom = (Comparable) histogram.get(i);
+				final Comparable bucketTo = (Comparable) histogram.get(i + 1);
+
+				if (iFrom != null && bucketTo.compareTo(iFrom) < 0 || iTo != null && bucketFrom.compareTo(iTo) > 0)
+					// OUT OF RANGE
+					continue;
+
+				if ((iFrom == null || bucketFrom.compareTo(iFrom) >= 0) && (iTo == null || bucketTo.compareTo(iTo) <= 0))
+					coveredBuckets += 1;
+				else
+					// PARTIALLY COVERED
+					coveredBuckets += 0.5;
+			}
+
+			return (long) Math.ceil(entries * coveredBuckets / buckets);
+
+		} catch (ClassCastException e) {
+			// KEYS NOT COMPARABLE WITH THE RANGE
+			return entries / 3;
+		}
+	}
+
+	public ODocument toDocument() {
+		final ODocument doc = new ODocument();
+		doc.field(FIELD_ENTRIES, entries);
+		doc.field(FIELD_KEYS, keys);
+		doc.field(FIELD_CHANGES, changes);
+		if (histogram != null)
+			doc.field(FIELD_HISTOGRAM, new ArrayList<Object>(histogram), OType.EMBEDDEDLIST);
+		return doc;
+	}
+
+	public static OIndexStatistics fromDocument(final ODocument iDocument) {
+		final OIndexStatistics statistics = new OIndexStatistics();
+		if (iDocument == null) {
+			statistics.invalidate();
+			return statistics;
+		}
+
+		statistics.entries = ((Number) iDocument.field(FIELD_ENTRIES)).longValue();
+		statistics.keys = ((Number) iDocument.field(FIELD_KEYS)).longValue();
+		statistics.changes = ((Number) iDocument.field(FIELD_CHANGES)).longValue();
+
+		final Collection<Object> histogram = iDocument.field(FIELD_HISTOGRAM);
+		if (histogram != null)
+			statistics.histogram = new ArrayList<Object>(histogram);
+		return statistics;
+	}
+
+	@Override
+	public String toString() {
+		return "OIndexStatistics [entries=" + entries + ", keys=" + keys + ", buckets="
+				+ (histogram != null ? histogram.size() - 1 : 0) + "]";
+	}
+
+	private static long countValues(final Object iValue) {
+		if (iValue instanceof Collection<?>)
+			return ((Collection<?>) iValue).size();
+		return iValue != null ? 1 : 0;
+	}
+}
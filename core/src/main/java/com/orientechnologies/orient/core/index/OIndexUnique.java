@@ -37,7 +37,7 @@ public class OIndexUnique extends OIndexOneValue {
 		try {
 			checkForKeyType(iKey);
 
-			final OIdentifiable value = map.get(iKey);
+			final OIdentifiable value = isKeyAbsent(iKey) ? null : map.get(iKey);
 
 			if (value != null) {
 				// CHECK IF THE ID IS THE SAME OF CURRENT: THIS IS THE UPDATE CASE
@@ -49,6 +49,8 @@ public class OIndexUnique extends OIndexOneValue {
 			}
 
 			map.put(iKey, iSingleValue);
+			addToBloomFilter(iKey);
+			onEntriesChanged(1);
 			return this;
 
 		} finally {
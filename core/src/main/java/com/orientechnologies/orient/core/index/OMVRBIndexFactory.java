@@ -29,6 +29,7 @@ import java.util.Set;
  * <li>NOTUNIQUE</li>
  * <li>FULLTEXT</li>
  * <li>DICTIONARY</li>
+ * <li>NOTUNIQUE_PARTITIONED</li>
  * </ul>
  */
 public class OMVRBIndexFactory implements OIndexFactory {
@@ -40,6 +41,7 @@ public class OMVRBIndexFactory implements OIndexFactory {
 		types.add(OIndexNotUnique.TYPE_ID);
 		types.add(OIndexFullText.TYPE_ID);
 		types.add(OIndexDictionary.TYPE_ID);
+		types.add(OIndexNotUniquePartitioned.TYPE_ID);
 		TYPES = Collections.unmodifiableSet(types);
 	}
 
@@ -50,6 +52,7 @@ public class OMVRBIndexFactory implements OIndexFactory {
 	 * <li>NOTUNIQUE</li>
 	 * <li>FULLTEXT</li>
 	 * <li>DICTIONARY</li>
+	 * <li>NOTUNIQUE_PARTITIONED</li>
 	 * </ul>
 	 */
 	public Set<String> getTypes() {
@@ -66,6 +69,8 @@ public class OMVRBIndexFactory implements OIndexFactory {
 			return new OIndexFullText();
 		} else if (OIndexDictionary.TYPE_ID.equals(iIndexType)) {
 			return new OIndexDictionary();
+		} else if (OIndexNotUniquePartitioned.TYPE_ID.equals(iIndexType)) {
+			return new OIndexNotUniquePartitioned();
 		}
 
 		throw new OConfigurationException("Unsupported type : " + iIndexType);
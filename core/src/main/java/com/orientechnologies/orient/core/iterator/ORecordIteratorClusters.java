@@ -53,6 +53,13 @@ public class ORecordIteratorClusters<REC extends ORecordInternal<?>> extends OId
 		super(iDatabase, iLowLevelDatabase);
 	}
 
+	/**
+	 * Returns the ids of the clusters browsed, in the order they are browsed.
+	 */
+	public int[] getClusterIds() {
+		return clusterIds;
+	}
+
 	public ORecordIteratorClusters<REC> setRange(final ORID iBegin, final ORID iEnd) {
 		beginRange = iBegin;
 		endRange = iEnd;
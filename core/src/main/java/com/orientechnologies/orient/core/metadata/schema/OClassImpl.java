@@ -830,6 +830,7 @@ public class OClassImpl extends ODocumentWrapperNoClass implements OClass {
 		final OPropertyImpl prop = new OPropertyImpl(this, iName, iType);
 
 		properties.put(lowerName, prop);
+		owner.registerFieldName(iName);
 
 		if (iLinkedType != null)
 			prop.setLinkedTypeInternal(iLinkedType);
@@ -28,7 +28,7 @@ import com.orientechnologies.orient.core.index.OIndex;
  */
 public interface OProperty extends Comparable<OProperty> {
 	public static enum ATTRIBUTES {
-		LINKEDTYPE, LINKEDCLASS, MIN, MAX, MANDATORY, NAME, NOTNULL, REGEXP, TYPE, CUSTOM
+		LINKEDTYPE, LINKEDCLASS, MIN, MAX, MANDATORY, NAME, NOTNULL, REGEXP, TYPE, CUSTOM, DICTIONARY
 	}
 
 	public String getName();
@@ -169,6 +169,22 @@ public interface OProperty extends Comparable<OProperty> {
 
 	public String getRegexp();
 
+	/**
+	 * Returns the maximum number of values of the dictionary of the property. The binary record format stores the values in the
+	 * dictionary as small ids in place of the strings: use it for properties with few distinct values, like status or country codes.
+	 * 
+	 * @return The maximum number of values, 0 if the values are not encoded
+	 */
+	public int getDictionarySize();
+
+	/**
+	 * @see OProperty#getDictionarySize()
+	 * @param iSize
+	 *          Maximum number of values, 0 to stop encoding new values. Only STRING properties support a dictionary
+	 * @return this property
+	 */
+	public OProperty setDictionarySize(int iSize);
+
 	public OPropertyImpl setRegexp(String regexp);
 
 	/**
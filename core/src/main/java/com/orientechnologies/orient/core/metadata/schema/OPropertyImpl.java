@@ -65,6 +65,7 @@ public class OPropertyImpl extends ODocumentWrapperNoClass implements OProperty
 	private String							min;
 	private String							max;
 	private String							regexp;
+	private int									dictionarySize;
 	private Map<String, String>	customFields;
 
 	/**
@@ -357,6 +358,28 @@ public class OPropertyImpl extends ODocumentWrapperNoClass implements OProperty
 		this.regexp = iRegexp;
 	}
 
+	public int getDictionarySize() {
+		return dictionarySize;
+	}
+
+	public OPropertyImpl setDictionarySize(final int iSize) {
+		getDatabase().checkSecurity(ODatabaseSecurityResources.SCHEMA, ORole.PERMISSION_UPDATE);
+		final String cmd = String.format("alter property %s dictionary %d", getFullName(), iSize);
+		getDatabase().command(new OCommandSQL(cmd)).execute();
+		setDictionarySizeInternal(iSize);
+		return this;
+	}
+
+	public void setDictionarySizeInternal(final int iSize) {
+		getDatabase().checkSecurity(ODatabaseSecurityResources.SCHEMA, ORole.PERMISSION_UPDATE);
+		if (iSize < 0)
+			throw new OSchemaException("Invalid dictionary size " + iSize + " for property " + getFullName());
+		if (iSize > 0 && type != OType.STRING)
+			throw new OSchemaException("Cannot create the dictionary of property " + getFullName()
+					+ ": only properties of type STRING support it");
+		this.dictionarySize = iSize;
+	}
+
 	public OPropertyImpl setType(final OType iType) {
 		getDatabase().checkSecurity(ODatabaseSecurityResources.SCHEMA, ORole.PERMISSION_UPDATE);
 		final String cmd = String.format("alter property %s type %s", getFullName(), iType.toString());
@@ -438,6 +461,8 @@ public class OPropertyImpl extends ODocumentWrapperNoClass implements OProperty
 			return getRegexp();
 		case TYPE:
 			return getType();
+		case DICTIONARY:
+			return getDictionarySize();
 		}
 
 		throw new IllegalArgumentException("Cannot find attribute '" + iAttribute + "'");
@@ -474,6 +499,9 @@ public class OPropertyImpl extends ODocumentWrapperNoClass implements OProperty
 		case REGEXP:
 			setRegexpInternal(stringValue);
 			break;
+		case DICTIONARY:
+			setDictionarySizeInternal(Integer.parseInt(stringValue));
+			break;
 		case TYPE:
 			setTypeInternal(OType.valueOf(stringValue.toUpperCase(Locale.ENGLISH)));
 			break;
@@ -524,6 +552,9 @@ public class OPropertyImpl extends ODocumentWrapperNoClass implements OProperty
 		case REGEXP:
 			setRegexp(stringValue);
 			break;
+		case DICTIONARY:
+			setDictionarySize(Integer.parseInt(stringValue));
+			break;
 		case TYPE:
 			setType(OType.valueOf(stringValue.toUpperCase(Locale.ENGLISH)));
 			break;
@@ -579,6 +610,8 @@ public class OPropertyImpl extends ODocumentWrapperNoClass implements OProperty
 		min = document.field("min");
 		max = document.field("max");
 		regexp = document.field("regexp");
+		final Integer dictionary = document.field("dictionarySize");
+		dictionarySize = dictionary != null ? dictionary : 0;
 		linkedClassName = (String) document.field("linkedClass");
 		if (document.field("linkedType") != null)
 			linkedType = OType.getById(((Integer) document.field("linkedType")).byteValue());
@@ -615,6 +648,10 @@ public class OPropertyImpl extends ODocumentWrapperNoClass implements OProperty
 				document.field("max", max);
 			if (regexp != null)
 				document.field("regexp", regexp);
+			if (dictionarySize > 0)
+				document.field("dictionarySize", dictionarySize);
+			else
+				document.removeField("dictionarySize");
 			if (linkedType != null)
 				document.field("linkedType", linkedType.id);
 			if (linkedClass != null || linkedClassName != null)
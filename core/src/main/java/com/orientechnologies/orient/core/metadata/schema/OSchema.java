@@ -22,6 +22,8 @@ import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.type.ODocumentWrapper;
 
 public interface OSchema {
+	public static final String	RECORD_FORMAT_CSV			= "csv";
+	public static final String	RECORD_FORMAT_BINARY	= "binary";
 
 	public int countClasses();
 
@@ -69,6 +71,55 @@ public interface OSchema {
 
 	public ORID getIdentity();
 
+	/**
+	 * Returns the format used to marshall the documents of the database: {@link #RECORD_FORMAT_CSV} or {@link #RECORD_FORMAT_BINARY}.
+	 */
+	public String getRecordFormat();
+
+	/**
+	 * Changes the format used to marshall the documents of the database. The documents already stored are still read in their
+	 * format and are migrated to the new one when they are saved again.
+	 * 
+	 * @param iFormat
+	 *          {@link #RECORD_FORMAT_CSV} or {@link #RECORD_FORMAT_BINARY}
+	 */
+	public void setRecordFormat(final String iFormat);
+
+	/**
+	 * Returns the id of a field name in the dictionary of the schema. The names of the properties are added to the dictionary when
+	 * they are created and are never removed, so the id can be stored in place of the name.
+	 * 
+	 * @return The id of the field name or -1 if it's not in the dictionary
+	 */
+	public int getFieldId(final String iFieldName);
+
+	/**
+	 * Returns the field name in the dictionary of the schema by its id.
+	 * 
+	 * @return The field name or null if the id is unknown
+	 */
+	public String getFieldName(final int iFieldId);
+
+	/**
+	 * Returns the id of a value of a property in the dictionary of the class (see {@link OProperty#getDictionarySize()}). New values
+	 * are added while the dictionary has room, only by embedded databases and outside transactions, because the schema is saved
+	 * before the id is used. The values are never removed.
+	 * 
+	 * @param iClass
+	 *          Class of the document
+	 * @param iProperty
+	 *          Property of the field, also inherited
+	 * @return The id of the value or -1 if it's not in the dictionary and it cannot be added
+	 */
+	public int getDictionaryValueId(final OClass iClass, final OProperty iProperty, final String iValue);
+
+	/**
+	 * Returns a value of a field in the dictionary of the class by its id.
+	 * 
+	 * @return The value or null if the id is unknown
+	 */
+	public String getDictionaryValue(final OClass iClass, final String iFieldName, final int iValueId);
+
 	/**
 	 * Do nothing. Starting from 1.0rc2 the schema is auto saved!
 	 * 
@@ -160,6 +160,31 @@ public class OSchemaProxy extends OProxedResource<OSchemaShared> implements OSch
 		return delegate.getIdentity();
 	}
 
+	public String getRecordFormat() {
+		return delegate.getRecordFormat();
+	}
+
+	public void setRecordFormat(final String iFormat) {
+		setCurrentDatabaseInThreadLocal();
+		delegate.setRecordFormat(iFormat);
+	}
+
+	public int getFieldId(final String iFieldName) {
+		return delegate.getFieldId(iFieldName);
+	}
+
+	public String getFieldName(final int iFieldId) {
+		return delegate.getFieldName(iFieldId);
+	}
+
+	public int getDictionaryValueId(final OClass iClass, final OProperty iProperty, final String iValue) {
+		return delegate.getDictionaryValueId(iClass, iProperty, iValue);
+	}
+
+	public String getDictionaryValue(final OClass iClass, final String iFieldName, final int iValueId) {
+		return delegate.getDictionaryValue(iClass, iFieldName, iValueId);
+	}
+
 	public void close() {
 	}
 }
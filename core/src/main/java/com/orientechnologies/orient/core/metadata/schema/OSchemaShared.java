@@ -15,15 +15,21 @@
  */
 package com.orientechnologies.orient.core.metadata.schema;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.orientechnologies.common.concur.resource.OCloseable;
 import com.orientechnologies.common.concur.resource.OSharedResourceExternal;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.util.OArrays;
 import com.orientechnologies.orient.core.annotation.OBeforeSerialization;
 import com.orientechnologies.orient.core.db.ODatabase;
 import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
@@ -41,6 +47,7 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.OStorage.CLUSTER_TYPE;
+import com.orientechnologies.orient.core.storage.OStorageEmbedded;
 import com.orientechnologies.orient.core.type.ODocumentWrapper;
 import com.orientechnologies.orient.core.type.ODocumentWrapperNoClass;
 
@@ -56,6 +63,10 @@ public class OSchemaShared extends ODocumentWrapperNoClass implements OSchema, O
 	private static final String						DROP_INDEX_QUERY				= "drop index ";
 	protected Map<String, OClass>					classes									= new HashMap<String, OClass>();
 	private final OSharedResourceExternal	lock										= new OSharedResourceExternal();
+	private volatile String								recordFormat						= RECORD_FORMAT_CSV;
+	private volatile String[]							fieldNames							= new String[0];
+	private final Map<String, Integer>		fieldIds								= new ConcurrentHashMap<String, Integer>();
+	private final Map<String, ODictionary>	dictionaries						= new ConcurrentHashMap<String, ODictionary>();
 
 	public OSchemaShared(final int schemaClusterId) {
 		super(new ODocument());
@@ -438,6 +449,130 @@ public class OSchemaShared extends ODocumentWrapperNoClass implements OSchema, O
 		return cls;
 	}
 
+	public String getRecordFormat() {
+		return recordFormat;
+	}
+
+	public void setRecordFormat(final String iFormat) {
+		getDatabase().checkSecurity(ODatabaseSecurityResources.SCHEMA, ORole.PERMISSION_UPDATE);
+
+		if (!RECORD_FORMAT_CSV.equals(iFormat) && !RECORD_FORMAT_BINARY.equals(iFormat))
+			throw new OSchemaException("Unknown record format '" + iFormat + "'. Supported formats are: " + RECORD_FORMAT_CSV + ", "
+					+ RECORD_FORMAT_BINARY);
+
+		if (!(getDatabase().getStorage() instanceof OStorageEmbedded)) {
+			// THE SERVER CHANGES AND SAVES ITS SCHEMA: THE LOCAL COPY COULD BE OLDER
+			getDatabase().command(new OCommandSQL("alter database " + ODatabase.ATTRIBUTES.RECORDFORMAT + " " + iFormat)).execute();
+			reload();
+			return;
+		}
+
+		lock.acquireExclusiveLock();
+		try {
+
+			if (RECORD_FORMAT_BINARY.equals(iFormat))
+				// ADD THE PROPERTIES CREATED BEFORE THE DICTIONARY
+				for (OClass c : classes.values())
+					for (OProperty p : c.declaredProperties())
+						registerFieldName(p.getName());
+
+			recordFormat = iFormat;
+
+		} finally {
+			lock.releaseExclusiveLock();
+		}
+
+		saveInternal();
+	}
+
+	public int getFieldId(final String iFieldName) {
+		final Integer id = fieldIds.get(iFieldName);
+		return id != null ? id.intValue() : -1;
+	}
+
+	public String getFieldName(final int iFieldId) {
+		final String[] names = fieldNames;
+		return iFieldId > -1 && iFieldId < names.length ? names[iFieldId] : null;
+	}
+
+	/**
+	 * Adds a field name to the dictionary if it's not already present.
+	 */
+	public void registerFieldName(final String iFieldName) {
+		synchronized (fieldIds) {
+			if (fieldIds.containsKey(iFieldName))
+				return;
+
+			final String[] names = OArrays.copyOf(fieldNames, fieldNames.length + 1);
+			names[names.length - 1] = iFieldName;
+
+			// PUBLISH THE NAME BEFORE ITS ID
+			fieldNames = names;
+			fieldIds.put(iFieldName, names.length - 1);
+		}
+	}
+
+	public int getDictionaryValueId(final OClass iClass, final OProperty iProperty, final String iValue) {
+		final int maxSize = iProperty.getDictionarySize();
+		if (maxSize <= 0)
+			return -1;
+
+		final String key = getDictionaryKey(iClass.getName(), iProperty.getName());
+		ODictionary dictionary = dictionaries.get(key);
+		if (dictionary != null) {
+			final Integer id = dictionary.ids.get(iValue);
+			if (id != null)
+				return id.intValue();
+			if (dictionary.values.length >= maxSize)
+				return -1;
+		}
+
+		// THE SCHEMA IS SAVED BEFORE USING THE NEW ID: ONLY THE EMBEDDED DATABASES OUTSIDE TRANSACTIONS CAN DO IT
+		final ODatabaseRecord database = getDatabase();
+		if (!(database.getStorage() instanceof OStorageEmbedded) || database.getTransaction().isActive())
+			return -1;
+
+		synchronized (dictionaries) {
+			dictionary = dictionaries.get(key);
+			if (dictionary == null) {
+				dictionary = new ODictionary(new String[0]);
+				dictionaries.put(key, dictionary);
+			} else {
+				final Integer id = dictionary.ids.get(iValue);
+				if (id != null)
+					return id.intValue();
+				if (dictionary.values.length >= maxSize)
+					return -1;
+			}
+
+			dictionary.pending = iValue;
+			try {
+				saveInternal();
+			} catch (Exception e) {
+				OLogManager.instance().debug(this, "Cannot add the value '%s' to the dictionary of %s.%s", e, iValue, iClass.getName(),
+						iProperty.getName());
+				return -1;
+			} finally {
+				dictionary.pending = null;
+			}
+
+			return dictionary.add(iValue);
+		}
+	}
+
+	public String getDictionaryValue(final OClass iClass, final String iFieldName, final int iValueId) {
+		final ODictionary dictionary = dictionaries.get(getDictionaryKey(iClass.getName(), iFieldName));
+		if (dictionary == null)
+			return null;
+
+		final String[] values = dictionary.values;
+		return iValueId > -1 && iValueId < values.length ? values[iValueId] : null;
+	}
+
+	private static String getDictionaryKey(final String iClassName, final String iFieldName) {
+		return iClassName.toLowerCase() + '.' + iFieldName;
+	}
+
 	public void changeClassName(String iOldName, String iNewName) {
 		OClass clazz = classes.remove(iOldName.toLowerCase());
 		classes.put(iNewName.toLowerCase(), clazz);
@@ -456,6 +591,32 @@ public class OSchemaShared extends ODocumentWrapperNoClass implements OSchema, O
 					"Database schema is different. Please export your old database with the previous version of OrientDB and reimport it using the current one.");
 		}
 
+		// @COMPATIBILITY: SCHEMAS SAVED WITHOUT RECORD FORMAT AND DICTIONARY USE CSV
+		final String format = document.field("recordFormat");
+		recordFormat = format != null ? format : RECORD_FORMAT_CSV;
+
+		synchronized (fieldIds) {
+			final List<String> storedFieldNames = document.field("fieldNames");
+			final String[] names = storedFieldNames != null ? storedFieldNames.toArray(new String[storedFieldNames.size()])
+					: new String[0];
+
+			fieldIds.clear();
+			for (int i = 0; i < names.length; ++i)
+				fieldIds.put(names[i], i);
+			fieldNames = names;
+		}
+
+		synchronized (dictionaries) {
+			dictionaries.clear();
+			final Collection<ODocument> storedDictionaries = document.field("dictionaries");
+			if (storedDictionaries != null)
+				for (ODocument d : storedDictionaries) {
+					final List<String> values = d.field("values");
+					dictionaries.put((String) d.field("name"),
+							new ODictionary(values != null ? values.toArray(new String[values.size()]) : new String[0]));
+				}
+		}
+
 		// REGISTER ALL THE CLASSES
 		classes.clear();
 		OClassImpl cls;
@@ -507,6 +668,24 @@ public class OSchemaShared extends ODocumentWrapperNoClass implements OSchema, O
 			}
 			document.field("classes", cc, OType.EMBEDDEDSET);
 
+			document.field("recordFormat", recordFormat);
+			document.field("fieldNames", new ArrayList<String>(Arrays.asList(fieldNames)), OType.EMBEDDEDLIST);
+
+			final List<ODocument> dd = new ArrayList<ODocument>();
+			for (Map.Entry<String, ODictionary> entry : dictionaries.entrySet()) {
+				final ODictionary dictionary = entry.getValue();
+				final List<String> values = new ArrayList<String>(Arrays.asList(dictionary.values));
+				if (dictionary.pending != null)
+					// VALUE BEING ADDED
+					values.add(dictionary.pending);
+
+				final ODocument d = new ODocument();
+				d.field("name", entry.getKey());
+				d.field("values", values, OType.EMBEDDEDLIST);
+				dd.add(d);
+			}
+			document.field("dictionaries", dd, OType.EMBEDDEDLIST);
+
 		} finally {
 			document.setInternalStatus(ORecordElement.STATUS.LOADED);
 		}
@@ -621,4 +800,27 @@ public class OSchemaShared extends ODocumentWrapperNoClass implements OSchema, O
 		classes.clear();
 		document.reset();
 	}
+
+	/**
+	 * Values of a field of a class stored by id. Like the field names, a value is published before its id.
+	 */
+	private static class ODictionary {
+		private volatile String[]						values;
+		private final Map<String, Integer>	ids	= new ConcurrentHashMap<String, Integer>();
+		private volatile String							pending;
+
+		private ODictionary(final String[] iValues) {
+			values = iValues;
+			for (int i = 0; i < iValues.length; ++i)
+				ids.put(iValues[i], i);
+		}
+
+		private int add(final String iValue) {
+			final String[] newValues = OArrays.copyOf(values, values.length + 1);
+			newValues[newValues.length - 1] = iValue;
+			values = newValues;
+			ids.put(iValue, newValues.length - 1);
+			return newValues.length - 1;
+		}
+	}
 }
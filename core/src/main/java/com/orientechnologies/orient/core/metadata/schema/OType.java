@@ -379,6 +379,10 @@ public enum OType {
 		return javaTypes.length > 0 ? javaTypes[0] : null;
 	}
 
+	public int getId() {
+		return id;
+	}
+
 	public Class<?>[] getJavaTypes() {
 		return javaTypes;
 	}
@@ -49,19 +49,20 @@ public abstract class ORecordSchemaAwareAbstract<T> extends ORecordAbstract<T> i
 			return;
 
 		checkForLoading();
-		checkForFields();
 
-		if (_clazz != null) {
-			if (_clazz.isStrictMode()) {
+		// THE FIELDS ARE LOADED BY THE CHECKS, ONLY IF NEEDED
+		final OClass cls = getSchemaClass();
+		if (cls != null) {
+			if (cls.isStrictMode()) {
 				// CHECK IF ALL FIELDS ARE DEFINED
 				for (String f : fieldNames()) {
-					if (_clazz.getProperty(f) == null)
+					if (cls.getProperty(f) == null)
 						throw new OValidationException("Found additional field '" + f + "'. It cannot be added because the schema class '"
-								+ _clazz.getName() + "' is defined as STRICT");
+								+ cls.getName() + "' is defined as STRICT");
 				}
 			}
 
-			for (OProperty p : _clazz.properties()) {
+			for (OProperty p : cls.properties()) {
 				validateField(this, p);
 			}
 		}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.record.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.orientechnologies.common.util.OArrays;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordLazyMultiValue;
+import com.orientechnologies.orient.core.exception.ORecordNotFoundException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+
+/**
+ * Binary content of any size, split in {@link ORecordBytes} chunks of fixed size. A header document keeps the total size, the
+ * chunk size and the links to the chunks, in order. The content is written and read one chunk at a time through
+ * {@link #getOutputStream()} and {@link #getInputStream()}, so only one chunk at a time is kept in memory and every chunk travels
+ * over the network as a regular record. The chunks are not kept in the record caches. Inside a transaction the chunks are held by
+ * the transaction until the commit.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OChunkedBlob {
+	public static final String		FIELD_SIZE				= "size";
+	public static final String		FIELD_CHUNK_SIZE	= "chunkSize";
+	public static final String		FIELD_CHUNKS			= "chunks";
+
+	private final ODatabaseRecord	database;
+	private final ODocument				header;
+	private final String					clusterName;
+
+	/**
+	 * Creates a new empty blob saved in the default clusters.
+	 */
+	public OChunkedBlob() {
+		this((String) null);
+	}
+
+	/**
+	 * Creates a new empty blob.
+	 * 
+	 * @param iClusterName
+	 *          Cluster where to save the header and the chunks, null to use the default ones
+	 */
+	public OChunkedBlob(final String iClusterName) {
+		database = ODatabaseRecordThreadLocal.INSTANCE.get();
+		header = new ODocument();
+		clusterName = iClusterName;
+	}
+
+	/**
+	 * Opens an existent blob.
+	 * 
+	 * @param iHeaderRid
+	 *          Identity of the header document
+	 */
+	public OChunkedBlob(final ORID iHeaderRid) {
+		database = ODatabaseRecordThreadLocal.INSTANCE.get();
+		final ORecordInternal<?> record = database.load(iHeaderRid);
+		if (record == null)
+			throw new ORecordNotFoundException("Blob " + iHeaderRid + " not found");
+		if (!(record instanceof ODocument) || !isChunkedBlob((ODocument) record))
+			throw new IllegalArgumentException("Record " + iHeaderRid + " is not the header of a blob");
+		header = (ODocument) record;
+		clusterName = database.getClusterNameById(iHeaderRid.getClusterId());
+	}
+
+	/**
+	 * Tells if the document is the header of a blob.
+	 */
+	public static boolean isChunkedBlob(final ODocument iDocument) {
+		return iDocument.containsField(FIELD_CHUNK_SIZE) && iDocument.containsField(FIELD_CHUNKS);
+	}
+
+	public ORID getIdentity() {
+		return header.getIdentity();
+	}
+
+	public ODocument getHeader() {
+		return header;
+	}
+
+	public long getSize() {
+		final Number size = header.field(FIELD_SIZE);
+		return size != null ? size.longValue() : 0;
+	}
+
+	public int getChunkSize() {
+		final Number chunkSize = header.field(FIELD_CHUNK_SIZE);
+		return chunkSize != null ? chunkSize.intValue() : OGlobalConfiguration.BLOB_CHUNK_SIZE.getValueAsInteger();
+	}
+
+	/**
+	 * Returns the links to the chunks without loading them.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<ORID> getChunks() {
+		final Object value = header.field(FIELD_CHUNKS);
+		if (value == null)
+			return new ArrayList<ORID>();
+
+		final Iterator<OIdentifiable> it = value instanceof ORecordLazyMultiValue ? ((ORecordLazyMultiValue) value).rawIterator()
+				: ((Iterable<OIdentifiable>) value).iterator();
+
+		final List<ORID> chunks = new ArrayList<ORID>();
+		while (it.hasNext())
+			chunks.add(it.next().getIdentity());
+		return chunks;
+	}
+
+	/**
+	 * Returns a stream to write the content of the blob. Every chunk is saved as soon as it's full, the header when the stream is
+	 * closed. The previous content, if any, is deleted when the stream is closed.
+	 */
+	public OutputStream getOutputStream() {
+		return new OChunkOutputStream();
+	}
+
+	/**
+	 * Returns a stream to read the content of the blob loading one chunk at a time.
+	 */
+	public InputStream getInputStream() {
+		return new OChunkInputStream(getChunks());
+	}
+
+	/**
+	 * Writes the whole content of the input stream in the blob.
+	 * 
+	 * @return The size of the content read
+	 */
+	public long fromInputStream(final InputStream in) throws IOException {
+		final OutputStream out = getOutputStream();
+		try {
+			final byte[] buffer = new byte[getChunkSize()];
+			int read;
+			while ((read = in.read(buffer)) > -1)
+				out.write(buffer, 0, read);
+		} finally {
+			out.close();
+		}
+		return getSize();
+	}
+
+	/**
+	 * Writes the whole content of the blob to the output stream.
+	 */
+	public void toOutputStream(final OutputStream out) throws IOException {
+		for (ORID rid : getChunks())
+			out.write(loadChunk(rid));
+	}
+
+	/**
+	 * Deletes the chunks and the header.
+	 */
+	public void delete() {
+		final List<ORID> chunks = getChunks();
+		if (!header.getIdentity().isNew())
+			header.delete();
+		deleteChunks(chunks);
+	}
+
+	private void deleteChunks(final List<ORID> iChunks) {
+		for (ORID rid : iChunks)
+			database.delete(rid);
+	}
+
+	private byte[] loadChunk(final ORID iRid) {
+		// BYPASS THE CACHES TO KEEP ONLY ONE CHUNK IN MEMORY
+		final ORecordBytes chunk = database.load(iRid, null, true);
+		if (chunk == null)
+			throw new ORecordNotFoundException("Chunk " + iRid + " of blob " + header.getIdentity() + " not found");
+		return chunk.toStream();
+	}
+
+	private ORID saveChunk(final byte[] iContent) {
+		final ORecordBytes chunk = new ORecordBytes(iContent);
+		chunk.unpin();
+		if (clusterName != null)
+			chunk.save(clusterName);
+		else
+			chunk.save();
+
+		database.getLevel1Cache().freeRecord(chunk.getIdentity());
+		return chunk.getIdentity();
+	}
+
+	private class OChunkOutputStream extends OutputStream {
+		private final List<ORID>	chunks	= new ArrayList<ORID>();
+		private final int					chunkSize;
+		private byte[]						buffer;
+		private int								position;
+		private long							size;
+		private boolean						closed;
+
+		private OChunkOutputStream() {
+			chunkSize = getChunkSize();
+			buffer = new byte[chunkSize];
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			checkClosed();
+			buffer[position++] = (byte) b;
+			size++;
+			if (position == chunkSize)
+				flushChunk();
+		}
+
+		@Override
+		public void write(final byte[] b, int off, int len) throws IOException {
+			checkClosed();
+			while (len > 0) {
+				final int copy = Math.min(len, chunkSize - position);
+				System.arraycopy(b, off, buffer, position, copy);
+				position += copy;
+				size += copy;
+				off += copy;
+				len -= copy;
+				if (position == chunkSize)
+					flushChunk();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed)
+				return;
+			closed = true;
+
+			if (position > 0)
+				flushChunk();
+			buffer = null;
+
+			final List<ORID> oldChunks = getChunks();
+
+			header.field(FIELD_SIZE, size);
+			header.field(FIELD_CHUNK_SIZE, chunkSize);
+			header.field(FIELD_CHUNKS, chunks, OType.LINKLIST);
+			if (clusterName != null && header.getIdentity().isNew())
+				header.save(clusterName);
+			else
+				header.save();
+
+			deleteChunks(oldChunks);
+		}
+
+		private void flushChunk() {
+			// THE SAVED CHUNK KEEPS THE BUFFER: USE A NEW ONE FOR THE NEXT CHUNK
+			chunks.add(saveChunk(position == chunkSize ? buffer : OArrays.copyOf(buffer, position)));
+			buffer = new byte[chunkSize];
+			position = 0;
+		}
+
+		private void checkClosed() throws IOException {
+			if (closed)
+				throw new IOException("Stream closed");
+		}
+	}
+
+	private class OChunkInputStream extends InputStream {
+		private final List<ORID>	chunks;
+		private int								nextChunk;
+		private byte[]						buffer;
+		private int								position;
+
+		private OChunkInputStream(final List<ORID> iChunks) {
+			chunks = iChunks;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!fetch())
+				return -1;
+			return buffer[position++] & 0xFF;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (!fetch())
+				return -1;
+
+			final int copy = Math.min(len, buffer.length - position);
+			System.arraycopy(buffer, position, b, off, copy);
+			position += copy;
+			return copy;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return buffer != null ? buffer.length - position : 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			buffer = null;
+			nextChunk = chunks.size();
+		}
+
+		private boolean fetch() {
+			while (buffer == null || position == buffer.length) {
+				if (nextChunk >= chunks.size()) {
+					buffer = null;
+					return false;
+				}
+				buffer = loadChunk(chunks.get(nextChunk++));
+				position = 0;
+			}
+			return true;
+		}
+	}
+}
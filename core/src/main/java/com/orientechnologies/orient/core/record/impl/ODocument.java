@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -45,7 +46,9 @@ import com.orientechnologies.orient.core.record.ORecordAbstract;
 import com.orientechnologies.orient.core.record.ORecordSchemaAwareAbstract;
 import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
+import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializer;
 import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializerFactory;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerSchemaAware2Binary;
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerSchemaAware2CSV;
 
 /**
@@ -67,6 +70,10 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 
 	protected List<WeakReference<ORecordElement>>						_owners						= null;
 
+	// TABLE OF THE FIELDS OF THE BINARY CONTENT AND NAMES OF THE FIELDS UNMARSHALLED ON DEMAND, NULL IF NOT UNMARSHALLED ON DEMAND
+	protected ORecordSerializerSchemaAware2Binary.OFieldTable	_partialTable;
+	protected Set<String>																		_partialFields;
+
 	protected static final String[]													EMPTY_STRINGS			= new String[] {};
 
 	/**
@@ -225,7 +232,12 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 	 * Copies all the fields into iDestination document.
 	 */
 	public ODocument copy(final ODocument iDestination) {
-		checkForFields();
+		if (_partialTable != null && _source != null) {
+			// NOT CHANGED: THE COPY UNMARSHALLS THE FIELDS NOT READ YET FROM THE SAME CONTENT
+			iDestination._partialTable = _partialTable;
+			iDestination._partialFields = new LinkedHashSet<String>(_partialFields);
+		} else
+			checkForFields();
 
 		iDestination._ordered = _ordered;
 		iDestination._clazz = _clazz;
@@ -429,6 +441,8 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 		_fieldOriginalValues = null;
 		_fieldTypes = null;
 		_fieldValues = null;
+		_partialTable = null;
+		_partialFields = null;
 	}
 
 	/**
@@ -459,7 +473,8 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 			return null;
 
 		checkForLoading();
-		checkForFields();
+		if (!checkForPartialField(iFieldName))
+			checkForFields();
 
 		if (_fieldValues.size() == 0)
 			// NO FIELDS
@@ -596,7 +611,8 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 		iFieldName = checkFieldName(iFieldName);
 
 		checkForLoading();
-		checkForFields();
+		if (!checkForPartialField(iFieldName))
+			checkForFields();
 
 		_source = null;
 
@@ -866,7 +882,8 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 			return false;
 
 		checkForLoading();
-		checkForFields();
+		if (!checkForPartialField(iFieldName))
+			checkForFields();
 		return _fieldValues.containsKey(iFieldName);
 	}
 
@@ -936,8 +953,10 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 					e.setDirty();
 			}
 		}
-		// THIS IS IMPORTANT TO BE SURE THAT FIELDS ARE LOADED BEFORE IT'S TOO LATE AND THE RECORD _SOURCE IS NULL
-		checkForFields();
+		// THIS IS IMPORTANT TO BE SURE THAT FIELDS ARE LOADED BEFORE IT'S TOO LATE AND THE RECORD _SOURCE IS NULL. THE FIELDS
+		// UNMARSHALLED ON DEMAND KEEP THE CONTENT IN THEIR TABLE
+		if (_partialTable == null)
+			checkForFields();
 
 		return super.setDirty();
 	}
@@ -980,10 +999,44 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 		_fieldOriginalValues = null;
 		_fieldChangeListeners = null;
 		_fieldCollectionChangeTimeLines = null;
+		_partialTable = null;
+		_partialFields = null;
 
 		return (ODocument) super.fromStream(iRecordBuffer);
 	}
 
+	@Override
+	public ORecordAbstract<?> fill(final ORecordId iRid, final int iVersion, final byte[] iBuffer, final boolean iDirty) {
+		if (_partialTable != null && iBuffer != _partialTable.getSource())
+			// NEW CONTENT: UNMARSHALL THE FIELDS NOT READ YET FROM THE PREVIOUS ONE
+			checkForFields();
+
+		return super.fill(iRid, iVersion, iBuffer, iDirty);
+	}
+
+	/**
+	 * Unmarshalls only the requested fields of the content in a new document, without unmarshalling this one. Used to check the
+	 * conditions of a query before paying the unmarshalling of all the fields. If the fields of this document are already
+	 * unmarshalled this document is returned.
+	 * 
+	 * @param iFieldNames
+	 *          Names of the fields to unmarshall
+	 * @return A new document with the same identity and only the requested fields, or this document
+	 */
+	public ODocument fieldsFromStream(final Set<String> iFieldNames) {
+		if (_status != STATUS.LOADED || _source == null || _source.length == 0 || (_fieldValues != null && _fieldValues.size() > 0)
+				|| _partialTable != null || !(_recordFormat instanceof ORecordSerializerSchemaAware2CSV || _recordFormat instanceof ORecordSerializerSchemaAware2Binary))
+			return this;
+
+		final ODocument document = new ODocument();
+		document._recordId = _recordId;
+		document._version = _version;
+		document._status = STATUS.UNMARSHALLING;
+		ORecordSerializerSchemaAware2Binary.INSTANCE.fromStream(_source, document, iFieldNames);
+		document._status = STATUS.LOADED;
+		return document;
+	}
+
 	@Override
 	public void unsetDirty() {
 		_fieldOriginalValues = null;
@@ -1012,6 +1065,8 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 		if (_fieldValues != null)
 			_fieldValues.clear();
 
+		_partialTable = null;
+		_partialFields = null;
 		return this;
 	}
 
@@ -1030,6 +1085,8 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 		if (_fieldValues != null)
 			_fieldValues.clear();
 
+		_partialTable = null;
+		_partialFields = null;
 		_owners = null;
 		return this;
 	}
@@ -1051,6 +1108,8 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 		if (_fieldCollectionChangeTimeLines != null)
 			_fieldCollectionChangeTimeLines.clear();
 
+		_partialTable = null;
+		_partialFields = null;
 		return this;
 	}
 
@@ -1133,11 +1192,132 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
 		if (_fieldValues == null)
 			_fieldValues = _ordered ? new LinkedHashMap<String, Object>() : new HashMap<String, Object>();
 
-		if (_status == ORecordElement.STATUS.LOADED && _fieldValues.size() == 0)
+		if (_partialTable != null) {
+			if (_status == ORecordElement.STATUS.LOADED)
+				// UNMARSHALL ALSO THE FIELDS NOT READ YET
+				completeFields();
+		} else if (_status == ORecordElement.STATUS.LOADED && _fieldValues.size() == 0)
 			// POPULATE FIELDS LAZY
 			deserializeFields();
 	}
 
+	@Override
+	public OClass getSchemaClass() {
+		if (_clazz == null && !checkForPartialTable())
+			checkForFields();
+		return _clazz;
+	}
+
+	@Override
+	public String getClassName() {
+		checkForLoading();
+		if (!checkForPartialTable())
+			checkForFields();
+		return _clazz != null ? _clazz.getName() : null;
+	}
+
+	@Override
+	public byte[] toStream(final boolean iOnlyDelta) {
+		if (_source == null && _partialTable != null) {
+			final ORecordSerializer format = ORecordSerializerSchemaAware2Binary.getDatabaseFormat(_recordFormat);
+			if (!iOnlyDelta && format instanceof ORecordSerializerSchemaAware2Binary) {
+				// MARSHALL ONLY THE FIELDS READ, COPYING THE OTHERS FROM THE PREVIOUS CONTENT
+				final byte[] content = ((ORecordSerializerSchemaAware2Binary) format).toStream(this, _partialTable, _partialFields);
+				if (content != null) {
+					_recordFormat = format;
+					_source = content;
+					_partialTable = ((ORecordSerializerSchemaAware2Binary) format).readTable(content);
+				}
+			}
+
+			if (_source == null)
+				checkForFields();
+		}
+
+		if (_source == null
+				&& (_recordFormat instanceof ORecordSerializerSchemaAware2CSV || _recordFormat instanceof ORecordSerializerSchemaAware2Binary))
+			// MARSHALL IN THE FORMAT OF THE DATABASE: THE CONTENT WRITTEN IN THE OTHER FORMAT IS MIGRATED
+			_recordFormat = ORecordSerializerSchemaAware2Binary.getDatabaseFormat(_recordFormat);
+
+		return super.toStream(iOnlyDelta);
+	}
+
+	/**
+	 * Unmarshalls only the requested field of a content in binary format, reading the table of the fields the first time. The other
+	 * fields remain marshalled until they are requested or all the fields are needed.
+	 * 
+	 * @return true if the field is unmarshalled on demand, false if all the fields must be unmarshalled
+	 */
+	protected boolean checkForPartialField(final String iFieldName) {
+		if (_status != ORecordElement.STATUS.LOADED || iFieldName.length() == 0 || iFieldName.charAt(0) == '@'
+				|| OStringSerializerHelper.indexOf(iFieldName, 0, '.', '[') > -1 || !checkForPartialTable())
+			return false;
+
+		if (_fieldValues == null)
+			_fieldValues = _ordered ? new LinkedHashMap<String, Object>() : new HashMap<String, Object>();
+
+		if (_partialFields.add(iFieldName)) {
+			final byte[] source = _source;
+			_status = ORecordElement.STATUS.UNMARSHALLING;
+			try {
+				ORecordSerializerSchemaAware2Binary.INSTANCE.fieldFromStream(_partialTable, this, iFieldName);
+			} finally {
+				_status = ORecordElement.STATUS.LOADED;
+				_source = source;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the table of the fields if the content is in binary format and no field has been unmarshalled yet.
+	 * 
+	 * @return true if the fields are unmarshalled on demand
+	 */
+	protected boolean checkForPartialTable() {
+		if (_partialTable != null)
+			return true;
+
+		if (_status != ORecordElement.STATUS.LOADED || (_fieldValues != null && _fieldValues.size() > 0)
+				|| !ORecordSerializerSchemaAware2Binary.isBinary(_source)
+				|| !(_recordFormat instanceof ORecordSerializerSchemaAware2CSV || _recordFormat instanceof ORecordSerializerSchemaAware2Binary))
+			return false;
+
+		_partialTable = ORecordSerializerSchemaAware2Binary.INSTANCE.readTable(_source);
+		_partialFields = new LinkedHashSet<String>();
+		setClassNameIfExists(_partialTable.getClassName());
+		return true;
+	}
+
+	/**
+	 * Unmarshalls the fields not read yet, keeping the values of the fields already read or changed.
+	 */
+	private void completeFields() {
+		final ORecordSerializerSchemaAware2Binary.OFieldTable table = _partialTable;
+		final Map<String, Object> values = new HashMap<String, Object>(_fieldValues);
+		final byte[] source = _source;
+
+		_partialTable = null;
+		_partialFields = null;
+
+		removeAllCollectionChangeListeners();
+		_fieldValues.clear();
+
+		_status = ORecordElement.STATUS.UNMARSHALLING;
+		try {
+			ORecordSerializerSchemaAware2Binary.INSTANCE.fromStream(table.getSource(), this);
+		} finally {
+			_status = ORecordElement.STATUS.LOADED;
+			_source = source;
+		}
+
+		for (Entry<String, Object> entry : values.entrySet()) {
+			removeCollectionChangeListener(entry.getKey());
+			_fieldValues.put(entry.getKey(), entry.getValue());
+			addCollectionChangeListener(entry.getKey(), entry.getValue());
+		}
+	}
+
 	/**
 	 * Internal.
 	 */
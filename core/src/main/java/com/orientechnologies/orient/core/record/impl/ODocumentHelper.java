@@ -377,7 +377,8 @@ public class ODocumentHelper {
 		}
 
 		final ODocument doc = ((ODocument) iCurrent.getRecord());
-		doc.checkForFields();
+		if (!doc.checkForPartialField(iFieldName))
+			doc.checkForFields();
 		return doc._fieldValues.get(iFieldName);
 	}
 
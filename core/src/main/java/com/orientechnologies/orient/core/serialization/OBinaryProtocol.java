@@ -62,13 +62,28 @@ public class OBinaryProtocol {
 	}
 
 	public static final byte[] string2bytes(final String iInputText) {
+		return string2bytes((CharSequence) iInputText);
+	}
+
+	/**
+	 * Encodes the text without copying it in a String first: the length of the result is computed in advance to allocate it once.
+	 */
+	public static final byte[] string2bytes(final CharSequence iInputText) {
 		if (iInputText == null)
 			return null;
 
 		final int len = iInputText.length();
 
-		// worst case, all chars could require 3-byte encodings.
-		final byte[] output = new byte[len * 3];
+		int size = len;
+		for (int i = 0; i < len; i++) {
+			final int c = iInputText.charAt(i);
+			if (c >= 0x800)
+				size += 2;
+			else if (c >= 0x80)
+				size++;
+		}
+
+		final byte[] output = new byte[size];
 
 		// index output[]
 		int j = 0;
@@ -90,12 +105,7 @@ public class OBinaryProtocol {
 				output[j++] = (byte) (0x80 | c & 0x3F);
 			}
 		}// end for
-			// Prune back our byte array. For efficiency we could hand item back
-			// partly filled, which is only a minor inconvenience to the caller
-			// most of the time to save copying the array.
-		final byte[] chopped = new byte[j];
-		System.arraycopy(output, 0, chopped, 0, j/* length */);
-		return chopped;
+		return output;
 	}// end encode
 
 	public static final String bytes2string(final OMemoryStream input, final int iLenght) {
@@ -0,0 +1,285 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.serialization;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.common.profiler.OProfiler.OProfilerHookValue;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+
+/**
+ * Pool of the temporary buffers used by the serializers, to marshall the records without allocating new buffers every time. Every
+ * thread keeps its own buffers grouped by size class: a request is served by the smallest class that fits it, while larger requests
+ * are allocated and never kept.<br/>
+ * <br/>
+ * Ownership rules: an acquired buffer belongs to the caller until it is released, by the same thread, and it must not be referenced
+ * after the release. The content must be copied out of the buffer before releasing it, so the buffers must never be returned to the
+ * caller of the serializer. Releasing a buffer is optional: a buffer never released is just collected by the GC. The pool is
+ * disabled by setting {@link OGlobalConfiguration#SERIALIZATION_BUFFER_POOL_SIZE} to 0.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OSerializationBufferPool {
+	public static final OSerializationBufferPool	INSTANCE					= new OSerializationBufferPool();
+
+	/**
+	 * Capacities of the buffers kept, in bytes or chars.
+	 */
+	private static final int[]										SIZE_CLASSES			= { 512, 8192, 131072 };
+
+	/**
+	 * Buffers grown beyond this capacity are not kept.
+	 */
+	private static final int											MAX_POOLED_SIZE		= SIZE_CLASSES[SIZE_CLASSES.length - 1];
+
+	private static final int											STREAMS						= 0;
+	private static final int											BUILDERS					= 1;
+	private static final int											BYTES							= 2;
+
+	private final ThreadLocal<OFreeList[]>				buffers						= new ThreadLocal<OFreeList[]>() {
+		@Override
+		protected OFreeList[] initialValue() {
+			return new OFreeList[] { new OFreeList(), new OFreeList(), new OFreeList() };
+		}
+	};
+
+	private final AtomicLong											acquired					= new AtomicLong();
+	private final AtomicLong											allocated					= new AtomicLong();
+	private final AtomicLong											allocatedBytes		= new AtomicLong();
+	private final AtomicLong											discarded					= new AtomicLong();
+
+	/**
+	 * Free buffers of a thread by size class, used as stacks.
+	 */
+	private static class OFreeList {
+		private final Object[][]	items	= new Object[SIZE_CLASSES.length][];
+		private final int[]				sizes	= new int[SIZE_CLASSES.length];
+
+		private Object poll(final int iSizeClass) {
+			for (int c = iSizeClass; c < SIZE_CLASSES.length; ++c)
+				if (sizes[c] > 0) {
+					final Object item = items[c][--sizes[c]];
+					items[c][sizes[c]] = null;
+					return item;
+				}
+			return null;
+		}
+
+		private boolean offer(final int iSizeClass, final Object iItem, final int iMax) {
+			Object[] list = items[iSizeClass];
+			if (list == null || list.length != iMax) {
+				// FIRST USE OR SIZE CHANGED
+				final Object[] newList = new Object[iMax];
+				if (list != null)
+					System.arraycopy(list, 0, newList, 0, Math.min(sizes[iSizeClass], iMax));
+				sizes[iSizeClass] = Math.min(sizes[iSizeClass], iMax);
+				items[iSizeClass] = list = newList;
+			}
+
+			final int size = sizes[iSizeClass];
+			if (size >= iMax)
+				return false;
+
+			for (int i = 0; i < size; ++i)
+				if (list[i] == iItem)
+					// ALREADY RELEASED
+					return true;
+
+			list[sizes[iSizeClass]++] = iItem;
+			return true;
+		}
+	}
+
+	public OSerializationBufferPool() {
+		OProfiler.getInstance().registerHookValue("Serialization.bufferPool.acquired", new OProfilerHookValue() {
+			public Object getValue() {
+				return getAcquired();
+			}
+		});
+
+		OProfiler.getInstance().registerHookValue("Serialization.bufferPool.allocated", new OProfilerHookValue() {
+			public Object getValue() {
+				return getAllocated();
+			}
+		});
+
+		OProfiler.getInstance().registerHookValue("Serialization.bufferPool.allocatedBytes", new OProfilerHookValue() {
+			public Object getValue() {
+				return getAllocatedBytes();
+			}
+		});
+
+		OProfiler.getInstance().registerHookValue("Serialization.bufferPool.reuseRatio", new OProfilerHookValue() {
+			public Object getValue() {
+				return getReuseRatio();
+			}
+		});
+	}
+
+	/**
+	 * Takes an empty stream with at least the requested capacity.
+	 */
+	public OMemoryStream acquireStream(final int iSize) {
+		acquired.incrementAndGet();
+
+		final int sizeClass = getSizeClass(iSize);
+		if (sizeClass > -1) {
+			final OMemoryStream stream = (OMemoryStream) poll(STREAMS, sizeClass);
+			if (stream != null) {
+				stream.reset();
+				return stream;
+			}
+		}
+
+		final int size = sizeClass > -1 ? SIZE_CLASSES[sizeClass] : iSize;
+		onAllocation(size);
+		return new OMemoryStream(size);
+	}
+
+	/**
+	 * Gives back a stream taken by {@link #acquireStream(int)}.
+	 */
+	public void releaseStream(final OMemoryStream iStream) {
+		if (iStream != null)
+			offer(STREAMS, iStream, iStream.getSize());
+	}
+
+	/**
+	 * Takes an empty string builder with at least the requested capacity.
+	 */
+	public StringBuilder acquireStringBuilder(final int iSize) {
+		acquired.incrementAndGet();
+
+		final int sizeClass = getSizeClass(iSize);
+		if (sizeClass > -1) {
+			final StringBuilder builder = (StringBuilder) poll(BUILDERS, sizeClass);
+			if (builder != null) {
+				builder.setLength(0);
+				return builder;
+			}
+		}
+
+		final int size = sizeClass > -1 ? SIZE_CLASSES[sizeClass] : iSize;
+		onAllocation(size * 2);
+		return new StringBuilder(size);
+	}
+
+	/**
+	 * Gives back a string builder taken by {@link #acquireStringBuilder(int)}.
+	 */
+	public void releaseStringBuilder(final StringBuilder iBuilder) {
+		if (iBuilder != null)
+			offer(BUILDERS, iBuilder, iBuilder.capacity());
+	}
+
+	/**
+	 * Takes a byte array of at least the requested length: its content is undefined and it can be longer than requested.
+	 */
+	public byte[] acquireBytes(final int iSize) {
+		acquired.incrementAndGet();
+
+		final int sizeClass = getSizeClass(iSize);
+		if (sizeClass > -1) {
+			final byte[] bytes = (byte[]) poll(BYTES, sizeClass);
+			if (bytes != null)
+				return bytes;
+		}
+
+		final int size = sizeClass > -1 ? SIZE_CLASSES[sizeClass] : iSize;
+		onAllocation(size);
+		return new byte[size];
+	}
+
+	/**
+	 * Gives back a byte array taken by {@link #acquireBytes(int)}.
+	 */
+	public void releaseBytes(final byte[] iBytes) {
+		if (iBytes != null)
+			offer(BYTES, iBytes, iBytes.length);
+	}
+
+	/**
+	 * Returns the number of buffers requested.
+	 */
+	public long getAcquired() {
+		return acquired.get();
+	}
+
+	/**
+	 * Returns the number of buffers allocated because none was available in the pool.
+	 */
+	public long getAllocated() {
+		return allocated.get();
+	}
+
+	/**
+	 * Returns the bytes allocated for the buffers not available in the pool.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes.get();
+	}
+
+	/**
+	 * Returns the number of buffers released but not kept because too large or exceeding the size of the pool.
+	 */
+	public long getDiscarded() {
+		return discarded.get();
+	}
+
+	/**
+	 * Returns the percentage of the requests served by a buffer of the pool.
+	 */
+	public float getReuseRatio() {
+		final long total = acquired.get();
+		return total > 0 ? (total - allocated.get()) * 100f / total : 0f;
+	}
+
+	private Object poll(final int iKind, final int iSizeClass) {
+		if (OGlobalConfiguration.SERIALIZATION_BUFFER_POOL_SIZE.getValueAsInteger() <= 0)
+			return null;
+
+		return buffers.get()[iKind].poll(iSizeClass);
+	}
+
+	private void offer(final int iKind, final Object iItem, final int iCapacity) {
+		final int max = OGlobalConfiguration.SERIALIZATION_BUFFER_POOL_SIZE.getValueAsInteger();
+		if (max <= 0)
+			return;
+
+		// THE LARGEST CLASS THE BUFFER CAN SERVE
+		int sizeClass = -1;
+		if (iCapacity <= MAX_POOLED_SIZE)
+			for (int c = 0; c < SIZE_CLASSES.length && SIZE_CLASSES[c] <= iCapacity; ++c)
+				sizeClass = c;
+
+		if (sizeClass == -1 || !buffers.get()[iKind].offer(sizeClass, iItem, max))
+			discarded.incrementAndGet();
+	}
+
+	private void onAllocation(final int iBytes) {
+		allocated.incrementAndGet();
+		allocatedBytes.addAndGet(iBytes);
+	}
+
+	private static int getSizeClass(final int iSize) {
+		for (int c = 0; c < SIZE_CLASSES.length; ++c)
+			if (iSize <= SIZE_CLASSES[c])
+				return c;
+		return -1;
+	}
+}
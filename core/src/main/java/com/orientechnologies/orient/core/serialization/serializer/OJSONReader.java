@@ -18,6 +18,7 @@ package com.orientechnologies.orient.core.serialization.serializer;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.text.ParseException;
 import java.util.Arrays;
 
@@ -30,6 +31,7 @@ public class OJSONReader {
 	private String							value;
 	private char								c;
 	private Character						missedChar;
+	private OJSONTokenReader		tokenReader;
 	public static final char		NEW_LINE					= '\n';
 	public static final char[]	DEFAULT_JUMP			= new char[] { ' ', '\r', '\n', '\t' };
 	public static final char[]	BEGIN_OBJECT			= new char[] { '{' };
@@ -237,6 +239,58 @@ public class OJSONReader {
 		return c;
 	}
 
+	/**
+	 * Returns a token reader that reads from the same source, one character at a time so that this reader can go on from the point
+	 * the token reader has left. Escaped characters are passed as they are to be decoded by the token reader.
+	 */
+	public OJSONTokenReader getTokenReader() {
+		if (tokenReader == null)
+			tokenReader = new OJSONTokenReader(new Reader() {
+				@Override
+				public int read(final char[] iBuffer, final int iOffset, final int iLength) throws IOException {
+					if (iLength == 0)
+						return 0;
+
+					final int ch = readChar();
+					if (ch == -1)
+						return -1;
+
+					iBuffer[iOffset] = (char) ch;
+					return 1;
+				}
+
+				@Override
+				public void close() throws IOException {
+				}
+			}, 1);
+		return tokenReader;
+	}
+
+	/**
+	 * Returns the next character from the input stream as is, or -1 at the end of the stream.
+	 */
+	private int readChar() throws IOException {
+		if (missedChar != null) {
+			c = missedChar.charValue();
+			missedChar = null;
+		} else {
+			final int read = in.read();
+			if (read == -1)
+				return -1;
+			c = (char) read;
+		}
+
+		cursor++;
+
+		if (c == NEW_LINE) {
+			++lineNumber;
+			columnNumber = 0;
+		} else
+			++columnNumber;
+
+		return c;
+	}
+
 	public char lastChar() {
 		return c;
 	}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.serialization.serializer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import com.orientechnologies.orient.core.exception.OSerializationException;
+
+/**
+ * Streaming reader of JSON content: returns one token at a time reading the source through a fixed buffer, so the memory used
+ * doesn't depend on the size of the content. Strings are returned already decoded. The reader is lenient like the rest of the JSON
+ * parsing: strings can be delimited by single quotes, values can be unquoted and the separators ':' and ',' are optional. RIDs
+ * like #10:3 can be written without quotes.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OJSONTokenReader {
+	public static final int	DEFAULT_BUFFER_SIZE	= 8192;
+
+	public enum TOKEN {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, LITERAL, END
+	}
+
+	private final Reader				in;
+	private final char[]				buffer;
+	private int									position;
+	private int									limit;
+	private final StringBuilder	value					= new StringBuilder();
+	private TOKEN								token;
+	private int									lineNumber		= 1;
+	private int									columnNumber	= 0;
+
+	public OJSONTokenReader(final String iSource) {
+		this(new StringReader(iSource), Math.max(1, Math.min(iSource.length(), DEFAULT_BUFFER_SIZE)));
+	}
+
+	public OJSONTokenReader(final Reader iSource) {
+		this(iSource, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param iSource
+	 *          Source to read
+	 * @param iBufferSize
+	 *          Characters to read from the source at once. Use 1 to leave the source positioned just after the last token when it's
+	 *          shared with other readers.
+	 */
+	public OJSONTokenReader(final Reader iSource, final int iBufferSize) {
+		in = iSource;
+		buffer = new char[iBufferSize];
+	}
+
+	/**
+	 * Moves to the next token skipping blanks and separators.
+	 * 
+	 * @return The token read, {@link TOKEN#END} at the end of the source
+	 */
+	public TOKEN next() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',' || c == ':');
+
+		switch (c) {
+		case -1:
+			token = TOKEN.END;
+			break;
+		case '{':
+			token = TOKEN.BEGIN_OBJECT;
+			break;
+		case '}':
+			token = TOKEN.END_OBJECT;
+			break;
+		case '[':
+			token = TOKEN.BEGIN_ARRAY;
+			break;
+		case ']':
+			token = TOKEN.END_ARRAY;
+			break;
+		case '"':
+		case '\'':
+			readString((char) c);
+			token = TOKEN.STRING;
+			break;
+		default:
+			readLiteral((char) c);
+			token = TOKEN.LITERAL;
+		}
+		return token;
+	}
+
+	public TOKEN getToken() {
+		return token;
+	}
+
+	/**
+	 * Returns the content of the last {@link TOKEN#STRING} or {@link TOKEN#LITERAL} token without copying it. The content is valid
+	 * until the next call to {@link #next()}.
+	 */
+	public CharSequence getValue() {
+		return value;
+	}
+
+	public String getString() {
+		return value.toString();
+	}
+
+	/**
+	 * Tells if the content of the last token is equal to the text, without copying it.
+	 */
+	public boolean isValue(final String iText) {
+		return value.length() == iText.length() && iText.contentEquals(value);
+	}
+
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	public int getColumnNumber() {
+		return columnNumber;
+	}
+
+	public OSerializationException newParseException(final String iMessage) {
+		return new OSerializationException("Error on parsing JSON content at line " + lineNumber + ", column " + columnNumber + ": "
+				+ iMessage);
+	}
+
+	private void readString(final char iQuote) throws IOException {
+		value.setLength(0);
+
+		int c;
+		while ((c = read()) != iQuote) {
+			if (c == -1)
+				throw newParseException("string not closed");
+
+			if (c == '\\') {
+				c = read();
+				switch (c) {
+				case 'n':
+					value.append('\n');
+					break;
+				case 'r':
+					value.append('\r');
+					break;
+				case 't':
+					value.append('\t');
+					break;
+				case 'b':
+					value.append('\b');
+					break;
+				case 'f':
+					value.append('\f');
+					break;
+				case 'u':
+					value.append(readUnicode());
+					break;
+				case '"':
+				case '\'':
+				case '\\':
+				case '/':
+					value.append((char) c);
+					break;
+				case -1:
+					throw newParseException("string not closed");
+				default:
+					// UNKNOWN ESCAPE: KEEP IT AS IS
+					value.append('\\');
+					value.append((char) c);
+				}
+			} else
+				value.append((char) c);
+		}
+	}
+
+	private char readUnicode() throws IOException {
+		int code = 0;
+		for (int i = 0; i < 4; ++i) {
+			final int c = read();
+			final int digit = c == -1 ? -1 : Character.digit((char) c, 16);
+			if (digit == -1)
+				throw newParseException("invalid unicode escape");
+			code = code * 16 + digit;
+		}
+		return (char) code;
+	}
+
+	private void readLiteral(final char iFirst) throws IOException {
+		value.setLength(0);
+		value.append(iFirst);
+
+		// A RID CAN CONTAIN THE ':' SEPARATOR
+		final boolean rid = iFirst == '#';
+
+		int c;
+		while ((c = peek()) != -1) {
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',' || c == '}' || c == ']' || c == '{' || c == '['
+					|| (c == ':' && !rid))
+				break;
+			value.append((char) read());
+		}
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill())
+			return -1;
+
+		final char c = buffer[position++];
+		if (c == '\n') {
+			++lineNumber;
+			columnNumber = 0;
+		} else
+			++columnNumber;
+		return c;
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill())
+			return -1;
+		return buffer[position];
+	}
+
+	private boolean fill() throws IOException {
+		final int read = in.read(buffer, 0, buffer.length);
+		if (read <= 0)
+			return false;
+
+		position = 0;
+		limit = read;
+		return true;
+	}
+}
@@ -16,6 +16,7 @@
 package com.orientechnologies.orient.core.serialization.serializer;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Array;
 import java.text.SimpleDateFormat;
@@ -28,6 +29,7 @@ import java.util.Map.Entry;
 import com.orientechnologies.orient.core.db.record.ORecordLazyMultiValue;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.serialization.OBase64Utils;
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerJSON;
 
@@ -71,7 +73,7 @@ public class OJSONWriter {
 		format(iIdentLevel, iNewLine);
 
 		if (iName != null)
-			out.append("\"" + iName.toString() + "\":");
+			out.append('"').append(iName.toString()).append("\":");
 
 		out.append('{');
 
@@ -87,9 +89,9 @@ public class OJSONWriter {
 		format(iIdentLevel, iNewLine);
 
 		if (iName != null)
-			out.append("\"" + iName.toString() + "\":");
+			out.append('"').append(iName.toString()).append("\":");
 
-		out.append(iRecord.toJSON(format));
+		writeRecord(out, iRecord, format);
 
 		firstAttribute = false;
 		return this;
@@ -118,7 +120,7 @@ public class OJSONWriter {
 
 		format(iIdentLevel, iNewLine);
 
-		out.append(writeValue(iName));
+		writeValue(out, iName, DEF_FORMAT);
 		out.append(": [");
 
 		firstAttribute = true;
@@ -154,9 +156,9 @@ public class OJSONWriter {
 
 		format(iIdentLevel, iNewLine);
 
-		out.append(writeValue(iName, iFormat));
+		writeValue(out, iName, iFormat);
 		out.append(": ");
-		out.append(writeValue(iValue, iFormat));
+		writeValue(out, iValue, iFormat);
 
 		firstAttribute = false;
 		return this;
@@ -168,7 +170,7 @@ public class OJSONWriter {
 
 		format(iIdentLevel, iNewLine);
 
-		out.append(writeValue(iValue, format));
+		writeValue(out, iValue, format);
 
 		firstAttribute = false;
 		return this;
@@ -179,8 +181,15 @@ public class OJSONWriter {
 	}
 
 	public static String writeValue(final Object iValue, final String iFormat) throws IOException {
-		final StringBuilder buffer = new StringBuilder();
+		final StringWriter buffer = new StringWriter();
+		writeValue(buffer, iValue, iFormat);
+		return buffer.toString();
+	}
 
+	/**
+	 * Writes the value directly to the output, without building it in memory first. Records not yet saved are written embedded.
+	 */
+	public static void writeValue(final Writer iOutput, final Object iValue, final String iFormat) throws IOException {
 		final boolean oldAutoConvertSettings;
 
 		if (iValue instanceof ORecordLazyMultiValue) {
@@ -190,90 +199,91 @@ public class OJSONWriter {
 			oldAutoConvertSettings = false;
 
 		if (iValue == null)
-			buffer.append("null");
+			iOutput.append("null");
 
 		else if (iValue instanceof ORecordId) {
-			final ORecordId rid = (ORecordId) iValue;
-			buffer.append('\"');
-			rid.toString(buffer);
-			buffer.append('\"');
+			iOutput.append('\"');
+			iOutput.append(iValue.toString());
+			iOutput.append('\"');
 
 		} else if (iValue instanceof ORecord<?>) {
 			final ORecord<?> linked = (ORecord<?>) iValue;
 			if (linked.getIdentity().isValid()) {
-				buffer.append('\"');
-				linked.getIdentity().toString(buffer);
-				buffer.append('\"');
-			} else {
-				buffer.append(linked.toJSON(iFormat));
-			}
+				iOutput.append('\"');
+				iOutput.append(linked.getIdentity().toString());
+				iOutput.append('\"');
+			} else
+				writeRecord(iOutput, linked, iFormat);
 
 		} else if (iValue.getClass().isArray()) {
 
 			if (iValue instanceof byte[]) {
-				buffer.append('\"');
-				final byte[] source = (byte[]) iValue;
-
-				buffer.append(OBase64Utils.encodeBytes(source));
-
-				buffer.append('\"');
+				iOutput.append('\"');
+				iOutput.append(OBase64Utils.encodeBytes((byte[]) iValue));
+				iOutput.append('\"');
 			} else {
-				buffer.append('[');
-				for (int i = 0; i < Array.getLength(iValue); ++i) {
+				iOutput.append('[');
+				final int length = Array.getLength(iValue);
+				for (int i = 0; i < length; ++i) {
 					if (i > 0)
-						buffer.append(", ");
-					buffer.append(writeValue(Array.get(iValue, i), iFormat));
+						iOutput.append(", ");
+					writeValue(iOutput, Array.get(iValue, i), iFormat);
 				}
-				buffer.append(']');
+				iOutput.append(']');
 			}
 
 		} else if (iValue instanceof Collection<?>) {
 			final Collection<Object> coll = (Collection<Object>) iValue;
-			buffer.append('[');
+			iOutput.append('[');
 			int i = 0;
 			for (Iterator<Object> it = coll.iterator(); it.hasNext(); ++i) {
 				if (i > 0)
-					buffer.append(", ");
-				buffer.append(writeValue(it.next(), iFormat));
+					iOutput.append(", ");
+				writeValue(iOutput, it.next(), iFormat);
 			}
-			buffer.append(']');
+			iOutput.append(']');
 
 		} else if (iValue instanceof Map<?, ?>) {
 			final Map<Object, Object> map = (Map<Object, Object>) iValue;
-			buffer.append('{');
+			iOutput.append('{');
 			int i = 0;
 			Entry<Object, Object> entry;
 			for (Iterator<Entry<Object, Object>> it = map.entrySet().iterator(); it.hasNext(); ++i) {
 				entry = it.next();
 				if (i > 0)
-					buffer.append(", ");
-				buffer.append(writeValue(entry.getKey(), iFormat));
-				buffer.append(": ");
-				buffer.append(writeValue(entry.getValue(), iFormat));
+					iOutput.append(", ");
+				writeValue(iOutput, entry.getKey(), iFormat);
+				iOutput.append(": ");
+				writeValue(iOutput, entry.getValue(), iFormat);
 			}
-			buffer.append('}');
+			iOutput.append('}');
 
 		} else if (iValue instanceof Date) {
 			final SimpleDateFormat dateFormat = new SimpleDateFormat(ORecordSerializerJSON.DEF_DATE_FORMAT);
-			buffer.append('"');
-			buffer.append(dateFormat.format(iValue));
-			buffer.append('"');
+			iOutput.append('"');
+			iOutput.append(dateFormat.format(iValue));
+			iOutput.append('"');
 		} else if (iValue instanceof String) {
 			final String v = (String) iValue;
 			if (v.startsWith("\""))
-				buffer.append(v);
+				iOutput.append(v);
 			else {
-				buffer.append('"');
-				buffer.append(v);
-				buffer.append('"');
+				iOutput.append('"');
+				iOutput.append(v);
+				iOutput.append('"');
 			}
 		} else
-			buffer.append(iValue.toString());
+			iOutput.append(iValue.toString());
 
 		if (iValue instanceof ORecordLazyMultiValue)
 			((ORecordLazyMultiValue) iValue).setAutoConvertToRecord(oldAutoConvertSettings);
+	}
 
-		return buffer.toString();
+	private static void writeRecord(final Writer iOutput, final ORecord<?> iRecord, final String iFormat) throws IOException {
+		if (iRecord instanceof ORecordInternal<?>)
+			ORecordSerializerJSON.INSTANCE.toStream((ORecordInternal<?>) iRecord, iOutput, iFormat);
+		else
+			iOutput.append(iRecord.toJSON(iFormat));
 	}
 
 	public OJSONWriter flush() throws IOException {
@@ -315,10 +325,44 @@ public class OJSONWriter {
 		out.append(iText);
 	}
 
+	/**
+	 * Escapes backslashes and double quotes and converts the characters out of the printable ASCII range to unicode escapes in one
+	 * pass. Strings that need no escaping are returned as they are.
+	 */
 	public static Object encode(final Object iValue) {
-		if (iValue instanceof String) {
-			return OStringSerializerHelper.java2unicode(((String) iValue).replace("\\", "\\\\").replace("\"", "\\\""));
-		} else
+		if (!(iValue instanceof String))
 			return iValue;
+
+		final String text = (String) iValue;
+		final int length = text.length();
+
+		int i = 0;
+		for (char c; i < length; ++i) {
+			c = text.charAt(i);
+			if (c < 0x0020 || c > 0x007e || c == '\\' || c == '"')
+				break;
+		}
+
+		if (i == length)
+			return text;
+
+		final StringBuilder buffer = new StringBuilder(length + 16);
+		buffer.append(text, 0, i);
+
+		for (char c; i < length; ++i) {
+			c = text.charAt(i);
+			if (c == '\\' || c == '"')
+				buffer.append('\\').append(c);
+			else if (c >= 0x0020 && c <= 0x007e)
+				buffer.append(c);
+			else {
+				buffer.append("\\u");
+				final String hex = Integer.toHexString(c);
+				for (int j = hex.length(); j < 4; ++j)
+					buffer.append('0');
+				buffer.append(hex);
+			}
+		}
+		return buffer.toString();
 	}
 }
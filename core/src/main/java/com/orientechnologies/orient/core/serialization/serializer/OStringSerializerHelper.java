@@ -176,11 +176,9 @@ public abstract class OStringSerializerHelper {
 
 		final int max = endIndex > -1 ? endIndex + 1 : iSource.length();
 
-		final char[] buffer = new char[max - beginIndex];
-		iSource.getChars(beginIndex, max, buffer, 0);
-
-		for (int i = 0; i < buffer.length; ++i) {
-			final char c = buffer[i];
+		// READ THE SOURCE IN PLACE: COPYING THE REST OF IT AT EVERY ITEM WOULD MAKE THE SPLIT QUADRATIC
+		for (int i = beginIndex; i < max; ++i) {
+			final char c = iSource.charAt(i);
 
 			if (stringBeginChar == ' ') {
 				// OUTSIDE A STRING
@@ -235,7 +233,7 @@ public abstract class OStringSerializerHelper {
 					// OUTSIDE A PARAMS/COLLECTION/MAP
 					if (isCharPresent(c, iRecordSeparator)) {
 						// SEPARATOR (OUTSIDE A STRING): PUSH
-						return beginIndex + i + 1;
+						return i + 1;
 					}
 				}
 
@@ -257,24 +255,24 @@ public abstract class OStringSerializerHelper {
 
 			if (c == '\\' && !encodeMode) {
 				// ESCAPE CHARS
-				final char nextChar = buffer[i + 1];
+				final char nextChar = iSource.charAt(i + 1);
 				if (nextChar == 'u') {
-					i = OStringParser.readUnicode(buffer, i + 2, iBuffer);
+					i = OStringParser.readUnicode(iSource, i + 2, iBuffer);
 					continue;
 				} else if (nextChar == 'n') {
-					iBuffer.append("\n");
+					iBuffer.append('\n');
 					i++;
 					continue;
 				} else if (nextChar == 'r') {
-					iBuffer.append("\r");
+					iBuffer.append('\r');
 					i++;
 					continue;
 				} else if (nextChar == 't') {
-					iBuffer.append("\t");
+					iBuffer.append('\t');
 					i++;
 					continue;
 				} else if (nextChar == 'f') {
-					iBuffer.append("\f");
+					iBuffer.append('\f');
 					i++;
 					continue;
 				} else
@@ -384,6 +382,52 @@ public abstract class OStringSerializerHelper {
 		return values;
 	}
 
+	/**
+	 * Parses the decimal number contained in a range of the text, with an optional sign, without creating a substring.
+	 * 
+	 * @param iText
+	 *          Text containing the number
+	 * @param iBegin
+	 *          Position of the first char of the number
+	 * @param iEnd
+	 *          Position after the last char of the number
+	 * @throws NumberFormatException
+	 *           if the range doesn't contain a valid number or the number doesn't fit a long
+	 */
+	public static long parseLong(final CharSequence iText, final int iBegin, final int iEnd) {
+		int i = iBegin;
+		final boolean negative = i < iEnd && iText.charAt(i) == '-';
+		if (negative || i < iEnd && iText.charAt(i) == '+')
+			i++;
+
+		if (i >= iEnd)
+			throw new NumberFormatException("For input string: \"" + iText.subSequence(iBegin, iEnd) + "\"");
+
+		// ACCUMULATE THE VALUE AS NEGATIVE TO REACH Long.MIN_VALUE TOO
+		final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		final long limitBeforeMultiply = limit / 10;
+		long result = 0;
+		for (; i < iEnd; ++i) {
+			final int digit = iText.charAt(i) - '0';
+			if (digit < 0 || digit > 9 || result < limitBeforeMultiply || result * 10 < limit + digit)
+				throw new NumberFormatException("For input string: \"" + iText.subSequence(iBegin, iEnd) + "\"");
+			result = result * 10 - digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Parses the decimal number contained in a range of the text checking it fits an int.
+	 * 
+	 * @see #parseLong(CharSequence, int, int)
+	 */
+	public static int parseInt(final CharSequence iText, final int iBegin, final int iEnd) {
+		final long value = parseLong(iText, iBegin, iEnd);
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+			throw new NumberFormatException("Value out of range: \"" + iText.subSequence(iBegin, iEnd) + "\"");
+		return (int) value;
+	}
+
 	public static boolean contains(final String iText, final char iSeparator) {
 		if (iText == null)
 			return false;
@@ -0,0 +1,95 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.serialization.serializer.object;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of the analysis of a POJO class, built once and shared by all the serializations of its instances: the persistent fields
+ * in order, their accessors and the callback methods.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OObjectClassDescriptor {
+	private final Class<?>																	pojoClass;
+	private final List<Field>																fields					= new ArrayList<Field>();
+	private final Map<String, OObjectPropertyAccessor>			propertiesByName	= new HashMap<String, OObjectPropertyAccessor>();
+	private final Map<Class<?>, Method>											callbacks				= new HashMap<Class<?>, Method>();
+	private List<OObjectPropertyAccessor>										properties;
+
+	public OObjectClassDescriptor(final Class<?> iPojoClass) {
+		pojoClass = iPojoClass;
+	}
+
+	public Class<?> getPojoClass() {
+		return pojoClass;
+	}
+
+	/**
+	 * Returns the persistent fields, from the class to the super classes.
+	 */
+	public List<Field> getFields() {
+		return fields;
+	}
+
+	/**
+	 * Returns the accessors in the same order of {@link #getFields()}.
+	 */
+	public List<OObjectPropertyAccessor> getProperties() {
+		return properties;
+	}
+
+	public OObjectPropertyAccessor getProperty(final String iName) {
+		return propertiesByName.get(iName);
+	}
+
+	public Method getCallback(final Class<?> iAnnotation) {
+		return callbacks.get(iAnnotation);
+	}
+
+	void addProperty(final OObjectPropertyAccessor iProperty) {
+		fields.add(iProperty.getField());
+		// A FIELD OF A SUPER CLASS WITH THE SAME NAME OVERWRITES THE PREVIOUS ONE
+		propertiesByName.put(iProperty.getName(), iProperty);
+	}
+
+	void setCallback(final Class<?> iAnnotation, final Method iMethod) {
+		if (!iMethod.isAccessible())
+			try {
+				iMethod.setAccessible(true);
+			} catch (SecurityException e) {
+				// KEEP THE ACCESS CHECK
+			}
+		callbacks.put(iAnnotation, iMethod);
+	}
+
+	/**
+	 * Ends the analysis: resolves the accessors of the fields by name as the lookup by property does.
+	 */
+	void seal() {
+		final List<OObjectPropertyAccessor> list = new ArrayList<OObjectPropertyAccessor>(fields.size());
+		for (Field f : fields)
+			list.add(propertiesByName.get(f.getName()));
+		properties = Collections.unmodifiableList(list);
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.serialization.serializer.object;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import com.orientechnologies.common.reflection.OReflectionHelper;
+
+/**
+ * Accessor of a persistent property of a POJO class, resolved once when the class is analyzed. Reads and writes the value by the
+ * getter and the setter if any, otherwise by the field. Methods and fields are set accessible to skip the access check at every
+ * call.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OObjectPropertyAccessor {
+	private final String		name;
+	private final Field			field;
+	private final Method		getter;
+	private final Method		setter;
+	private final Class<?>	type;
+	private final Class<?>	setterType;
+	private final Class<?>	genericMultiValueType;
+
+	/**
+	 * @param iField
+	 *          Field of the property
+	 * @param iGetter
+	 *          Getter method, null to read the field
+	 * @param iSetter
+	 *          Setter method, null to write the field
+	 */
+	public OObjectPropertyAccessor(final Field iField, final Method iGetter, final Method iSetter) {
+		name = iField.getName();
+		field = iField;
+		getter = iGetter;
+		setter = iSetter;
+		type = getter != null ? getter.getReturnType() : field.getType();
+		setterType = setter != null ? setter.getParameterTypes()[0] : field.getType();
+		genericMultiValueType = OReflectionHelper.getGenericMultivalueType(field);
+
+		if (getter == null || setter == null) {
+			if (!field.isAccessible())
+				field.setAccessible(true);
+		}
+		setAccessible(getter);
+		setAccessible(setter);
+	}
+
+	public Object getValue(final Object iPojo) throws IllegalAccessException, InvocationTargetException {
+		if (getter != null)
+			return getter.invoke(iPojo);
+		return field.get(iPojo);
+	}
+
+	/**
+	 * Sets the value as is: the caller converts it to {@link #getSetterType()}.
+	 */
+	public void setValue(final Object iPojo, final Object iValue) throws IllegalAccessException, InvocationTargetException {
+		if (setter != null)
+			setter.invoke(iPojo, iValue);
+		else
+			field.set(iPojo, iValue);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	/**
+	 * Returns the type returned by the getter if any, otherwise the type of the field.
+	 */
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the type of the parameter of the setter if any, otherwise the type of the field.
+	 */
+	public Class<?> getSetterType() {
+		return setterType;
+	}
+
+	public boolean hasSetter() {
+		return setter != null;
+	}
+
+	/**
+	 * Returns the generic type of the items if the property is a multi-value, otherwise null.
+	 */
+	public Class<?> getGenericMultiValueType() {
+		return genericMultiValueType;
+	}
+
+	private static void setAccessible(final Method iMethod) {
+		if (iMethod != null && !iMethod.isAccessible())
+			try {
+				iMethod.setAccessible(true);
+			} catch (SecurityException e) {
+				// KEEP THE ACCESS CHECK
+			}
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
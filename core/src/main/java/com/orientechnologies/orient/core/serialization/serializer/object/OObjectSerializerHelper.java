@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.profiler.OProfiler;
@@ -88,10 +89,7 @@ public class OObjectSerializerHelper {
 
 	private static HashMap<Class<?>, OObjectSerializerContext>	serializerContexts				= new LinkedHashMap<Class<?>, OObjectSerializerContext>();
 
-	private static HashMap<String, List<Field>>									classes										= new HashMap<String, List<Field>>();
-	private static HashMap<String, Method>											callbacks									= new HashMap<String, Method>();
-	private static HashMap<String, Object>											getters										= new HashMap<String, Object>();
-	private static HashMap<String, Object>											setters										= new HashMap<String, Object>();
+	private static Map<Class<?>, OObjectClassDescriptor>				descriptors								= new ConcurrentHashMap<Class<?>, OObjectClassDescriptor>();
 	private static HashMap<Class<?>, Field>											boundDocumentFields				= new HashMap<Class<?>, Field>();
 	private static HashMap<Class<?>, Field>											fieldIds									= new HashMap<Class<?>, Field>();
 	private static HashMap<Class<?>, Field>											fieldVersions							= new HashMap<Class<?>, Field>();
@@ -124,12 +122,7 @@ public class OObjectSerializerHelper {
 	}
 
 	public static boolean hasField(final Object iPojo, final String iProperty) {
-		final Class<?> c = iPojo.getClass();
-		final String className = c.getName();
-
-		getClassFields(c);
-
-		return getters.get(className + "." + iProperty) != null;
+		return getProperty(iPojo, iProperty) != null;
 	}
 
 	public static String getDocumentBoundField(final Class<?> iClass) {
@@ -139,23 +132,8 @@ public class OObjectSerializerHelper {
 	}
 
 	public static Class<?> getFieldType(final Object iPojo, final String iProperty) {
-		final Class<?> c = iPojo.getClass();
-		final String className = c.getName();
-
-		getClassFields(c);
-
-		try {
-			final Object o = getters.get(className + "." + iProperty);
-
-			if (o == null)
-				return null;
-			else if (o instanceof Field)
-				return ((Field) o).getType();
-			else
-				return ((Method) o).getReturnType();
-		} catch (Exception e) {
-			throw new OSchemaException("Cannot get the value of the property: " + iProperty, e);
-		}
+		final OObjectPropertyAccessor property = getProperty(iPojo, iProperty);
+		return property != null ? property.getType() : null;
 	}
 
 	public static Class<?> getFieldType(ODocument iDocument, final OEntityManager iEntityManager) {
@@ -170,44 +148,39 @@ public class OObjectSerializerHelper {
 	}
 
 	public static Object getFieldValue(final Object iPojo, final String iProperty) {
-		final Class<?> c = iPojo.getClass();
-		final String className = c.getName();
+		final OObjectPropertyAccessor property = getProperty(iPojo, iProperty);
+		return property != null ? getPropertyValue(iPojo, property) : null;
+	}
+
+	public static void setFieldValue(final Object iPojo, final String iProperty, final Object iValue) {
+		final OObjectPropertyAccessor property = getProperty(iPojo, iProperty);
+		if (property != null)
+			setPropertyValue(iPojo, property, iValue);
+	}
 
-		getClassFields(c);
+	private static OObjectPropertyAccessor getProperty(final Object iPojo, final String iProperty) {
+		final OObjectClassDescriptor descriptor = getClassDescriptor(iPojo.getClass());
+		return descriptor != null ? descriptor.getProperty(iProperty) : null;
+	}
 
+	private static Object getPropertyValue(final Object iPojo, final OObjectPropertyAccessor iProperty) {
 		try {
-			Object o = getters.get(className + "." + iProperty);
-
-			if (o instanceof Method)
-				return ((Method) o).invoke(iPojo);
-			else if (o instanceof Field)
-				return ((Field) o).get(iPojo);
-			return null;
+			return iProperty.getValue(iPojo);
 		} catch (Exception e) {
-			throw new OSchemaException("Cannot get the value of the property: " + iProperty, e);
+			throw new OSchemaException("Cannot get the value of the property: " + iProperty.getName(), e);
 		}
 	}
 
-	public static void setFieldValue(final Object iPojo, final String iProperty, final Object iValue) {
-		final Class<?> c = iPojo.getClass();
-		final String className = c.getName();
-
-		getClassFields(c);
-
+	private static void setPropertyValue(final Object iPojo, final OObjectPropertyAccessor iProperty, final Object iValue) {
 		try {
-			Object o = setters.get(className + "." + iProperty);
-
-			if (o instanceof Method) {
-				((Method) o).invoke(iPojo,
-						OObjectSerializerHelper.convertInObject(iPojo, iProperty, iValue, ((Method) o).getParameterTypes()[0]));
-			} else if (o instanceof Field) {
-				((Field) o).set(iPojo, OType.convert(iValue, ((Field) o).getType()));
-			}
-
+			if (iProperty.hasSetter())
+				iProperty.setValue(iPojo, convertInObject(iPojo, iProperty.getName(), iValue, iProperty.getSetterType()));
+			else
+				iProperty.setValue(iPojo, OType.convert(iValue, iProperty.getSetterType()));
 		} catch (Exception e) {
 
-			throw new OSchemaException(
-					"Cannot set the value '" + iValue + "' to the property '" + iProperty + "' for the pojo: " + iPojo, e);
+			throw new OSchemaException("Cannot set the value '" + iValue + "' to the property '" + iProperty.getName()
+					+ "' for the pojo: " + iPojo, e);
 		}
 	}
 
@@ -219,7 +192,7 @@ public class OObjectSerializerHelper {
 
 		final Class<?> pojoClass = iPojo.getClass();
 
-		final List<Field> properties = getClassFields(pojoClass);
+		final List<OObjectPropertyAccessor> properties = getClassDescriptor(pojoClass).getProperties();
 
 		String fieldName;
 		Object fieldValue;
@@ -234,7 +207,7 @@ public class OObjectSerializerHelper {
 
 		// BIND BASIC FIELDS, LINKS WILL BE BOUND BY THE FETCH API
 		int f = 0;
-		for (Field p : properties) {
+		for (OObjectPropertyAccessor p : properties) {
 			fieldName = p.getName();
 			fieldNames[f++] = fieldName;
 
@@ -255,7 +228,7 @@ public class OObjectSerializerHelper {
 						|| (!(fieldValue instanceof Map<?, ?>) || ((Map<?, ?>) fieldValue).size() == 0 || !(((Map<?, ?>) fieldValue).values()
 								.iterator().next() instanceof ODocument))) {
 
-					final Class<?> genericTypeClass = OReflectionHelper.getGenericMultivalueType(p);
+					final Class<?> genericTypeClass = p.getGenericMultiValueType();
 
 					if (genericTypeClass != null)
 						if (genericTypeClass.isEnum()) {
@@ -340,11 +313,11 @@ public class OObjectSerializerHelper {
 						}
 
 					if (type == null) {
-						type = p.getGenericType();
+						type = p.getField().getGenericType();
 						value = unserializeFieldValue((Class<?>) (type != null && type instanceof Class<?> ? type : null), fieldValue);
 					}
 
-					setFieldValue(iPojo, fieldName, value);
+					setPropertyValue(iPojo, p, value);
 				}
 			}
 
@@ -501,7 +474,7 @@ public class OObjectSerializerHelper {
 
 		final Class<?> pojoClass = iPojo.getClass();
 
-		final List<Field> properties = getClassFields(pojoClass);
+		final List<OObjectPropertyAccessor> properties = getClassDescriptor(pojoClass).getProperties();
 
 		// CHECK FOR ID BINDING
 		final Field idField = fieldIds.get(pojoClass);
@@ -561,7 +534,7 @@ public class OObjectSerializerHelper {
 		// CALL BEFORE MARSHALLING
 		invokeCallback(iPojo, iRecord, OBeforeSerialization.class);
 
-		for (Field p : properties) {
+		for (OObjectPropertyAccessor p : properties) {
 			fieldName = p.getName();
 
 			if (idField != null && fieldName.equals(idField.getName()))
@@ -570,7 +543,7 @@ public class OObjectSerializerHelper {
 			if (vField != null && fieldName.equals(vField.getName()))
 				continue;
 
-			fieldValue = serializeFieldValue(getFieldType(iPojo, fieldName), getFieldValue(iPojo, fieldName));
+			fieldValue = serializeFieldValue(p.getType(), getPropertyValue(iPojo, p));
 
 			schemaProperty = schemaClass != null ? schemaClass.getProperty(fieldName) : null;
 
@@ -784,14 +757,30 @@ public class OObjectSerializerHelper {
 	}
 
 	private static List<Field> getClassFields(final Class<?> iClass) {
+		final OObjectClassDescriptor descriptor = getClassDescriptor(iClass);
+		return descriptor != null ? descriptor.getFields() : null;
+	}
+
+	/**
+	 * Returns the descriptor of the class, analyzing the class the first time.
+	 * 
+	 * @return The descriptor if any, otherwise null for the java.lang classes
+	 */
+	private static OObjectClassDescriptor getClassDescriptor(final Class<?> iClass) {
+		OObjectClassDescriptor descriptor = descriptors.get(iClass);
+		if (descriptor != null)
+			return descriptor;
+
 		if (iClass.getName().startsWith("java.lang"))
 			return null;
 
-		synchronized (classes) {
-			if (classes.containsKey(iClass.getName()))
-				return classes.get(iClass.getName());
-
-			return analyzeClass(iClass);
+		synchronized (descriptors) {
+			descriptor = descriptors.get(iClass);
+			if (descriptor == null) {
+				analyzeClass(iClass);
+				descriptor = descriptors.get(iClass);
+			}
+			return descriptor;
 		}
 	}
 
@@ -813,7 +802,8 @@ public class OObjectSerializerHelper {
 	}
 
 	public static void invokeCallback(final Object iPojo, final ODocument iDocument, final Class<?> iAnnotation) {
-		final Method m = callbacks.get(iPojo.getClass().getSimpleName() + "." + iAnnotation.getSimpleName());
+		final OObjectClassDescriptor descriptor = descriptors.get(iPojo.getClass());
+		final Method m = descriptor != null ? descriptor.getCallback(iAnnotation) : null;
 
 		if (m != null)
 
@@ -837,10 +827,11 @@ public class OObjectSerializerHelper {
 	}
 
 	protected static List<Field> analyzeClass(final Class<?> iClass) {
-		final List<Field> properties = new ArrayList<Field>();
-		classes.put(iClass.getName(), properties);
+		final OObjectClassDescriptor descriptor = new OObjectClassDescriptor(iClass);
 
 		String fieldName;
+		Method getter;
+		Method setter;
 		Class<?> fieldType;
 		int fieldModifier;
 		boolean autoBinding;
@@ -863,7 +854,6 @@ public class OObjectSerializerHelper {
 
 				fieldName = f.getName();
 				fieldType = f.getType();
-				properties.add(f);
 
 				// CHECK FOR AUTO-BINDING
 				autoBinding = true;
@@ -934,32 +924,28 @@ public class OObjectSerializerHelper {
 					embeddedFields.get(iClass).add(fieldName);
 				}
 
-				if (autoBinding)
-					// TRY TO GET THE VALUE BY THE GETTER (IF ANY)
+				getter = null;
+				setter = null;
+				if (autoBinding) {
+					// TRY TO GET THE VALUE BY THE GETTER (IF ANY), OTHERWISE BY ACCESSING DIRECTLY TO THE PROPERTY
 					try {
 						String getterName = "get" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
-						Method m = currentClass.getMethod(getterName, NO_ARGS);
-						getters.put(iClass.getName() + "." + fieldName, m);
+						getter = currentClass.getMethod(getterName, NO_ARGS);
 					} catch (Exception e) {
-						registerFieldGetter(iClass, fieldName, f);
 					}
-				else
-					registerFieldGetter(iClass, fieldName, f);
 
-				if (autoBinding)
-					// TRY TO GET THE VALUE BY THE SETTER (IF ANY)
+					// TRY TO SET THE VALUE BY THE SETTER (IF ANY), OTHERWISE BY ACCESSING DIRECTLY TO THE PROPERTY
 					try {
-						String getterName = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
-						Method m = currentClass.getMethod(getterName, f.getType());
-						setters.put(iClass.getName() + "." + fieldName, m);
+						String setterName = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+						setter = currentClass.getMethod(setterName, f.getType());
 					} catch (Exception e) {
-						registerFieldSetter(iClass, fieldName, f);
 					}
-				else
-					registerFieldSetter(iClass, fieldName, f);
+				}
+
+				descriptor.addProperty(new OObjectPropertyAccessor(f, getter, setter));
 			}
 
-			registerCallbacks(iClass, currentClass);
+			registerCallbacks(descriptor, currentClass);
 
 			currentClass = currentClass.getSuperclass();
 
@@ -968,37 +954,24 @@ public class OObjectSerializerHelper {
 				// ODOCUMENT FIELDS
 				currentClass = Object.class;
 		}
-		return properties;
+
+		descriptor.seal();
+		descriptors.put(iClass, descriptor);
+		return descriptor.getFields();
 	}
 
 	@SuppressWarnings("rawtypes")
-	private static void registerCallbacks(final Class<?> iRootClass, final Class<?> iCurrentClass) {
+	private static void registerCallbacks(final OObjectClassDescriptor iDescriptor, final Class<?> iCurrentClass) {
 		// FIND KEY METHODS
 		for (Method m : iCurrentClass.getDeclaredMethods()) {
 			// SEARCH FOR CALLBACK ANNOTATIONS
 			for (Class annotationClass : callbackAnnotationClasses) {
 				if (m.getAnnotation(annotationClass) != null)
-					callbacks.put(iRootClass.getSimpleName() + "." + annotationClass.getSimpleName(), m);
+					iDescriptor.setCallback(annotationClass, m);
 			}
 		}
 	}
 
-	private static void registerFieldSetter(final Class<?> iClass, String fieldName, Field f) {
-		// TRY TO GET THE VALUE BY ACCESSING DIRECTLY TO THE PROPERTY
-		if (!f.isAccessible())
-			f.setAccessible(true);
-
-		setters.put(iClass.getName() + "." + fieldName, f);
-	}
-
-	private static void registerFieldGetter(final Class<?> iClass, String fieldName, Field f) {
-		// TRY TO GET THE VALUE BY ACCESSING DIRECTLY TO THE PROPERTY
-		if (!f.isAccessible())
-			f.setAccessible(true);
-
-		getters.put(iClass.getName() + "." + fieldName, f);
-	}
-
 	private static boolean isEmbeddedObject(final Class<?> iPojoClass, final Class<?> iFieldClass, final String iFieldName,
 			final OEntityManager iEntityManager) {
 		return embeddedFields.get(iPojoClass) != null && embeddedFields.get(iPojoClass).contains(iFieldName);
@@ -1008,10 +981,11 @@ public class OObjectSerializerHelper {
 		Object pojo = null;
 		try {
 			pojo = type.newInstance();
-			final List<Field> fields = OObjectSerializerHelper.analyzeClass(type);
-			for (Field aField : fields) {
-				OObjectSerializerHelper.setFieldFromDocument(oDocument, pojo, aField);
-			}
+			final List<Field> fields = OObjectSerializerHelper.getClassFields(type);
+			if (fields != null)
+				for (Field aField : fields) {
+					OObjectSerializerHelper.setFieldFromDocument(oDocument, pojo, aField);
+				}
 		} catch (Exception e) {
 			OLogManager.instance().error(null, "Error on converting document in object", e);
 		}
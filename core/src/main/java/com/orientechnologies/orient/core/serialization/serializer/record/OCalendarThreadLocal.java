@@ -0,0 +1,33 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.serialization.serializer.record;
+
+import java.util.Calendar;
+
+/**
+ * Calendar of the current thread, reused by the serializers to truncate the dates without creating a new Calendar for every value.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OCalendarThreadLocal extends ThreadLocal<Calendar> {
+	public static OCalendarThreadLocal	INSTANCE	= new OCalendarThreadLocal();
+
+	@Override
+	protected Calendar initialValue() {
+		return Calendar.getInstance();
+	}
+}
@@ -0,0 +1,879 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.serialization.serializer.record.binary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.OUserObject2RecordHandler;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OSerializationException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.OMetadata;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OProperty;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
+import com.orientechnologies.orient.core.serialization.OMemoryStream;
+import com.orientechnologies.orient.core.serialization.OSerializationBufferPool;
+import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializer;
+import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializerFactory;
+import com.orientechnologies.orient.core.serialization.serializer.record.OSerializationThreadLocal;
+import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerCSVAbstract;
+import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerSchemaAware2CSV;
+
+/**
+ * Binary format of the documents. The record starts with a zero byte, that a CSV record never contains, so both the formats can be
+ * read and the documents are migrated to the format of the database when they are saved again. Layout:
+ * <ul>
+ * <li>marker (0) and version of the format</li>
+ * <li>class name</li>
+ * <li>table of the fields: for each field the key, the type and the offset of the value in the data section. The key is the id of
+ * the field name in the dictionary of the schema, or the name itself if it's not in the dictionary</li>
+ * <li>data section with the values: numbers and dates as variable length integers, links as cluster id and position, embedded
+ * documents in this format. The strings of properties with a dictionary (see {@link OProperty#getDictionarySize()}) are written as
+ * the id of the value in the dictionary of the class</li>
+ * <li>CSV section with the collections, maps and the other values still marshalled in CSV format, to keep the lazy loading of
+ * their links</li>
+ * </ul>
+ * The documents read the table once and unmarshall only the fields accessed: when saved, only these fields are marshalled again and
+ * the values of the others are copied from the previous content (see {@link #toStream(ODocument, OFieldTable, Set)}).
+ *
+ * @author Luca Garulli
+ *
+ */
+public class ORecordSerializerSchemaAware2Binary implements ORecordSerializer {
+	public static final String																NAME						= "ORecordDocument2binary";
+	public static final ORecordSerializerSchemaAware2Binary	INSTANCE				= new ORecordSerializerSchemaAware2Binary();
+
+	public static final byte																	MARKER					= 0;
+	public static final byte																	VERSION					= 1;
+
+	private static final byte																	TYPE_NULL				= -1;
+	private static final byte																	TYPE_CSV				= -2;
+	private static final byte																	TYPE_TRANSIENT	= -3;
+	// BEYOND THE IDS OF THE TYPES: STRING STORED AS ID IN THE DICTIONARY OF THE CLASS
+	private static final byte																	TYPE_DICTIONARY	= 64;
+	private static final byte[]																EMPTY						= new byte[0];
+
+	/**
+	 * Tells if the content has been written by this serializer.
+	 */
+	public static boolean isBinary(final byte[] iSource) {
+		return iSource != null && iSource.length > 1 && iSource[0] == MARKER;
+	}
+
+	/**
+	 * Returns the serializer of the documents configured for the current database.
+	 *
+	 * @param iDefault
+	 *          Serializer to use if the database is not available
+	 */
+	public static ORecordSerializer getDatabaseFormat(final ORecordSerializer iDefault) {
+		final OSchema schema = getSchema();
+		if (schema == null)
+			return iDefault;
+
+		return ORecordSerializerFactory.instance().getFormat(
+				OSchema.RECORD_FORMAT_BINARY.equals(schema.getRecordFormat()) ? NAME : ORecordSerializerSchemaAware2CSV.NAME);
+	}
+
+	public ORecordInternal<?> fromStream(final byte[] iSource, final ORecordInternal<?> iRecord) {
+		return fromStream(iSource, iRecord, null);
+	}
+
+	/**
+	 * Unmarshalls only some fields of the record, jumping the values of the others.
+	 *
+	 * @param iFields
+	 *          Names of the fields to unmarshall, null to unmarshall all of them
+	 */
+	public ORecordInternal<?> fromStream(final byte[] iSource, final ORecordInternal<?> iRecord, final Set<String> iFields) {
+		if (!isBinary(iSource)) {
+			// WRITTEN IN CSV FORMAT
+			if (iFields == null)
+				return ORecordSerializerSchemaAware2CSV.INSTANCE.fromStream(iSource, iRecord);
+			return ORecordSerializerSchemaAware2CSV.INSTANCE.fromString(OBinaryProtocol.bytes2string(iSource), iRecord, iFields);
+		}
+
+		final long timer = OProfiler.getInstance().startChrono();
+
+		final ODocument record = (ODocument) iRecord;
+		final OFieldTable table = readTable(iSource);
+		record.setClassNameIfExists(table.className);
+
+		// UNMARSHALL THE VALUES
+		final OInput in = new OInput(iSource);
+		for (int i = 0; i < table.names.length; ++i) {
+			if (iFields != null && !iFields.contains(table.names[i]))
+				// NOT REQUESTED: JUMP THE VALUE
+				continue;
+
+			fieldFromStream(table, in, record, i);
+		}
+
+		if (table.csvLength > 0)
+			ORecordSerializerSchemaAware2CSV.INSTANCE.fromString(
+					OBinaryProtocol.bytes2string(iSource, table.csvBegin, table.csvLength), record, iFields);
+
+		OProfiler.getInstance().stopChrono("ORecordSerializerSchemaAware2Binary.fromStream", timer);
+		return iRecord;
+	}
+
+	/**
+	 * Reads the class name and the table of the fields of a content in binary format, without unmarshalling the values. Used by the
+	 * documents to unmarshall their fields on demand.
+	 */
+	public OFieldTable readTable(final byte[] iSource) {
+		final OInput in = new OInput(iSource);
+
+		if (in.readByte() != MARKER || in.readByte() != VERSION)
+			throw new OSerializationException("Unsupported version of the binary format of the record");
+
+		final String className = in.readString();
+		final int fields = in.readVarInt();
+		final OFieldTable table = new OFieldTable(iSource, className.length() > 0 ? className : null, fields);
+
+		OSchema schema = null;
+		for (int i = 0; i < fields; ++i) {
+			final int key = in.readVarInt();
+			if ((key & 1) == 1)
+				table.names[i] = in.readString(key >>> 1);
+			else {
+				if (schema == null)
+					schema = getSchema();
+				table.names[i] = getFieldName(schema, key >>> 1);
+			}
+
+			table.types[i] = in.readByte();
+			if (table.types[i] > TYPE_NULL)
+				table.offsets[i] = in.readVarInt();
+		}
+
+		table.dataLength = in.readVarInt();
+		table.dataBegin = in.position;
+		in.position = table.dataBegin + table.dataLength;
+		table.csvLength = in.readVarInt();
+		table.csvBegin = in.position;
+
+		// THE VALUES ARE WRITTEN IN THE ORDER OF THE TABLE: EVERY VALUE ENDS WHERE THE NEXT ONE BEGINS
+		int end = table.dataLength;
+		for (int i = fields - 1; i > -1; --i)
+			if (table.types[i] > TYPE_NULL) {
+				table.lengths[i] = end - table.offsets[i];
+				end = table.offsets[i];
+			}
+
+		return table;
+	}
+
+	/**
+	 * Unmarshalls a single field, jumping to its value through the table of the fields.
+	 *
+	 * @return false if the content has no field with that name
+	 */
+	public boolean fieldFromStream(final OFieldTable iTable, final ODocument iRecord, final String iFieldName) {
+		final int index = iTable.indexOf(iFieldName);
+		if (index == -1)
+			return false;
+
+		fieldFromStream(iTable, new OInput(iTable.source), iRecord, index);
+
+		if (iTable.types[index] == TYPE_CSV)
+			ORecordSerializerSchemaAware2CSV.INSTANCE.fromString(
+					OBinaryProtocol.bytes2string(iTable.source, iTable.csvBegin, iTable.csvLength), iRecord,
+					Collections.singleton(iFieldName));
+
+		return true;
+	}
+
+	public byte[] toStream(final ORecordInternal<?> iRecord, final boolean iOnlyDelta) {
+		if (!(iRecord instanceof ODocument))
+			throw new OSerializationException("Cannot marshall a record of type " + iRecord.getClass().getSimpleName() + " to binary");
+
+		final long timer = OProfiler.getInstance().startChrono();
+		try {
+			final byte[] result = toStream((ODocument) iRecord, iOnlyDelta, OSerializationThreadLocal.INSTANCE.get());
+			return result != null ? result : EMPTY;
+		} finally {
+			OProfiler.getInstance().stopChrono("ORecordSerializerSchemaAware2Binary.toStream", timer);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return NAME;
+	}
+
+	/**
+	 * Marshalls the document.
+	 *
+	 * @return The content or null if the document is already being marshalled
+	 */
+	protected byte[] toStream(final ODocument iRecord, final boolean iOnlyDelta, final Set<Integer> iMarshalledRecords) {
+		// CHECK IF THE RECORD IS PENDING TO BE MARSHALLED
+		final Integer identityRecord = System.identityHashCode(iRecord);
+		if (iMarshalledRecords != null)
+			if (iMarshalledRecords.contains(identityRecord))
+				return null;
+			else
+				iMarshalledRecords.add(identityRecord);
+
+		final OSchema schema = getSchema();
+		final OClass cls = iRecord.getSchemaClass();
+		final String[] fieldNames = iOnlyDelta && iRecord.isTrackingChanges() ? iRecord.getDirtyFields() : iRecord.fieldNames();
+
+		// THE BUFFERS ARE ONLY COPIED IN THE RESULT
+		final OMemoryStream table = OSerializationBufferPool.INSTANCE.acquireStream(fieldNames.length * 4 + 16);
+		final OMemoryStream data = OSerializationBufferPool.INSTANCE.acquireStream(fieldNames.length * 8 + 16);
+		try {
+			List<String> csvFields = null;
+			int fields = 0;
+
+			// MARSHALL ALL THE FIELDS OR DELTA IF TRACKING IS ENABLED
+			for (String fieldName : fieldNames) {
+				final int offset = data.size();
+				final byte type = fieldToStream(iRecord, cls, fieldName, data, iMarshalledRecords);
+				if (type == TYPE_TRANSIENT)
+					// TRANSIENT FIELD
+					continue;
+
+				writeKey(table, schema, fieldName);
+				fields++;
+
+				table.write(type);
+				if (type == TYPE_CSV) {
+					// MARSHALLED IN THE CSV SECTION
+					if (csvFields == null)
+						csvFields = new ArrayList<String>();
+					csvFields.add(fieldName);
+				} else if (type > TYPE_NULL)
+					writeVarLong(table, offset);
+			}
+
+			if (iMarshalledRecords != null)
+				iMarshalledRecords.remove(identityRecord);
+
+			final byte[] csv;
+			if (csvFields != null) {
+				final OUserObject2RecordHandler objHandler = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+				final StringBuilder buffer = OSerializationBufferPool.INSTANCE.acquireStringBuilder(0);
+				try {
+					csv = OBinaryProtocol.string2bytes(ORecordSerializerSchemaAware2CSV.INSTANCE.toString(iRecord, buffer, objHandler,
+							iMarshalledRecords, false, csvFields.toArray(new String[csvFields.size()])));
+				} finally {
+					OSerializationBufferPool.INSTANCE.releaseStringBuilder(buffer);
+				}
+			} else
+				csv = EMPTY;
+
+			return toRecord(iRecord, cls, fields, table, data, csv, 0, csv.length);
+		} finally {
+			OSerializationBufferPool.INSTANCE.releaseStream(data);
+			OSerializationBufferPool.INSTANCE.releaseStream(table);
+		}
+	}
+
+	/**
+	 * Marshalls a document whose fields have been unmarshalled on demand, without unmarshalling the others: the fields read, that
+	 * could be changed, are marshalled again and the values of the others are copied from the previous content. If the new values
+	 * have the same size of the previous ones they are overwritten in a copy of the previous content.
+	 *
+	 * @param iTable
+	 *          Table of the previous content
+	 * @param iFields
+	 *          Names of the fields read or changed
+	 * @return The content or null if the document must be marshalled entirely because a field read is marshalled in the CSV section
+	 */
+	public byte[] toStream(final ODocument iRecord, final OFieldTable iTable, final Set<String> iFields) {
+		final Set<Integer> marshalledRecords = OSerializationThreadLocal.INSTANCE.get();
+		final Integer identityRecord = System.identityHashCode(iRecord);
+		if (marshalledRecords != null)
+			if (marshalledRecords.contains(identityRecord))
+				return null;
+			else
+				marshalledRecords.add(identityRecord);
+
+		final long timer = OProfiler.getInstance().startChrono();
+		OMemoryStream values = null;
+		try {
+			final OClass cls = iRecord.getSchemaClass();
+			final String className = cls != null ? cls.getStreamableName() : null;
+			if (className == null ? iTable.className != null : !className.equals(iTable.className))
+				// THE CLASS NAME IS ALSO IN THE CSV SECTION
+				return null;
+
+			final List<String> names = new ArrayList<String>(Arrays.asList(iTable.names));
+			for (String f : iFields)
+				if (iTable.indexOf(f) == -1 && iRecord.containsField(f))
+					// NEW FIELD
+					names.add(f);
+
+			final int fields = names.size();
+			final byte[] types = new byte[fields];
+			final int[] offsets = new int[fields];
+			final int[] lengths = new int[fields];
+			values = OSerializationBufferPool.INSTANCE.acquireStream(0);
+			boolean inPlace = fields == iTable.names.length;
+
+			// MARSHALL THE FIELDS READ
+			for (int i = 0; i < fields; ++i) {
+				final String name = names.get(i);
+				if (i < iTable.names.length) {
+					if (!iFields.contains(name)) {
+						// NOT READ: THE VALUE IS COPIED FROM THE PREVIOUS CONTENT
+						types[i] = iTable.types[i];
+						offsets[i] = -1;
+						continue;
+					}
+
+					if (iTable.types[i] == TYPE_CSV)
+						// THE CSV SECTION CAN'T BE SPLIT
+						return null;
+				}
+
+				offsets[i] = values.size();
+				types[i] = fieldToStream(iRecord, cls, name, values, marshalledRecords);
+				if (types[i] == TYPE_CSV || types[i] == TYPE_TRANSIENT)
+					return null;
+				lengths[i] = values.size() - offsets[i];
+
+				if (inPlace && (types[i] != iTable.types[i] || lengths[i] != iTable.lengths[i]))
+					inPlace = false;
+			}
+
+			if (inPlace) {
+				// SAME TYPES AND SIZES: OVERWRITE THE VALUES IN A COPY OF THE PREVIOUS CONTENT
+				final byte[] result = new byte[iTable.source.length];
+				System.arraycopy(iTable.source, 0, result, 0, result.length);
+				for (int i = 0; i < fields; ++i)
+					if (offsets[i] > -1 && lengths[i] > 0)
+						System.arraycopy(values.getInternalBuffer(), offsets[i], result, iTable.dataBegin + iTable.offsets[i], lengths[i]);
+				return result;
+			}
+
+			final OSchema schema = getSchema();
+			final OMemoryStream table = OSerializationBufferPool.INSTANCE.acquireStream(fields * 4 + 16);
+			final OMemoryStream data = OSerializationBufferPool.INSTANCE.acquireStream(iTable.dataLength + values.size() + 16);
+			try {
+				for (int i = 0; i < fields; ++i) {
+					writeKey(table, schema, names.get(i));
+					table.write(types[i]);
+					if (types[i] > TYPE_NULL) {
+						writeVarLong(table, data.size());
+						if (offsets[i] > -1)
+							data.write(values.getInternalBuffer(), offsets[i], lengths[i]);
+						else
+							data.write(iTable.source, iTable.dataBegin + iTable.offsets[i], iTable.lengths[i]);
+					}
+				}
+
+				return toRecord(iRecord, cls, fields, table, data, iTable.source, iTable.csvBegin, iTable.csvLength);
+			} finally {
+				OSerializationBufferPool.INSTANCE.releaseStream(data);
+				OSerializationBufferPool.INSTANCE.releaseStream(table);
+			}
+
+		} finally {
+			OSerializationBufferPool.INSTANCE.releaseStream(values);
+
+			if (marshalledRecords != null)
+				marshalledRecords.remove(identityRecord);
+
+			OProfiler.getInstance().stopChrono("ORecordSerializerSchemaAware2Binary.toStreamFields", timer);
+		}
+	}
+
+	/**
+	 * Marshalls the value of a field in the data section.
+	 *
+	 * @return The type to write in the table: the id of the type of the value, TYPE_NULL, TYPE_CSV if the value must be marshalled
+	 *         in the CSV section or TYPE_TRANSIENT if the field must not be marshalled
+	 */
+	protected byte fieldToStream(final ODocument iRecord, final OClass iClass, final String iFieldName, final OMemoryStream iData,
+			final Set<Integer> iMarshalledRecords) {
+		Object fieldValue = iRecord.rawField(iFieldName);
+
+		// SEARCH FOR A CONFIGURED PROPERTY
+		final OProperty prop = iClass != null ? iClass.getProperty(iFieldName) : null;
+		OType type = prop != null ? prop.getType() : iRecord.fieldType(iFieldName);
+
+		if (type == OType.TRANSIENT)
+			return TYPE_TRANSIENT;
+
+		if (fieldValue == null)
+			return TYPE_NULL;
+
+		if (type == null)
+			// NOT FOUND: TRY TO DETERMINE THE TYPE FROM ITS CONTENT
+			type = getType(fieldValue);
+
+		if (type == null || !isNative(type, fieldValue))
+			return TYPE_CSV;
+
+		if (type == OType.STRING && prop != null && prop.getDictionarySize() > 0) {
+			final OSchema schema = getSchema();
+			final int valueId = schema != null ? schema.getDictionaryValueId(iClass, prop, (String) fieldValue) : -1;
+			if (valueId > -1) {
+				writeVarLong(iData, valueId);
+				return TYPE_DICTIONARY;
+			}
+		}
+
+		if (type == OType.LINK) {
+			// SAVE THE LINKED RECORD IF NEW OR CHANGED
+			final OIdentifiable link = ORecordSerializerCSVAbstract.linkToStream(null, iRecord, fieldValue);
+			if (link != null) {
+				// OVERWRITE CONTENT
+				iRecord.field(iFieldName, link);
+				fieldValue = link;
+			}
+			fieldValue = ((OIdentifiable) fieldValue).getIdentity();
+			if (!((ORID) fieldValue).isValid())
+				return TYPE_NULL;
+
+		} else if (type == OType.EMBEDDED) {
+			final byte[] embedded = toStream((ODocument) fieldValue, false, iMarshalledRecords);
+			if (embedded == null)
+				return TYPE_NULL;
+
+			writeVarLong(iData, embedded.length);
+			iData.write(embedded, 0, embedded.length);
+			return (byte) type.getId();
+		}
+
+		valueToStream(iData, type, fieldValue);
+		return (byte) type.getId();
+	}
+
+	/**
+	 * Assemblies the record with its sections.
+	 */
+	private byte[] toRecord(final ODocument iRecord, final OClass iClass, final int iFields, final OMemoryStream iTable,
+			final OMemoryStream iData, final byte[] iCSV, final int iCSVOffset, final int iCSVLength) {
+		final OMemoryStream output = OSerializationBufferPool.INSTANCE.acquireStream(iTable.size() + iData.size() + iCSVLength + 32);
+		try {
+			output.write(MARKER);
+			output.write(VERSION);
+
+			final byte[] className = iClass != null ? OBinaryProtocol.string2bytes(iClass.getStreamableName()) : EMPTY;
+			writeVarLong(output, className.length);
+			output.write(className, 0, className.length);
+
+			writeVarLong(output, iFields);
+			output.write(iTable.getInternalBuffer(), 0, iTable.size());
+
+			writeVarLong(output, iData.size());
+			output.write(iData.getInternalBuffer(), 0, iData.size());
+
+			writeVarLong(output, iCSVLength);
+			output.write(iCSV, iCSVOffset, iCSVLength);
+
+			// APPEND ZEROS TO FILL THE SPACE OF THE PREVIOUS CONTENT AND AVOID FRAGMENTATION
+			final int newSize;
+			if (iRecord.hasOwners())
+				// EMBEDDED: GET REAL SIZE
+				newSize = output.size();
+			else if (iRecord.getSize() > output.size())
+				newSize = iRecord.getSize();
+			else if (iClass != null && iClass.getOverSize() > 0)
+				newSize = (int) (output.size() * iClass.getOverSize());
+			else
+				newSize = output.size();
+
+			if (newSize > output.size())
+				output.fill(newSize - output.size(), (byte) 0);
+
+			final byte[] result = new byte[output.size()];
+			System.arraycopy(output.getInternalBuffer(), 0, result, 0, result.length);
+			return result;
+		} finally {
+			OSerializationBufferPool.INSTANCE.releaseStream(output);
+		}
+	}
+
+	/**
+	 * Determines the type of a field not declared in the schema by its value.
+	 *
+	 * @return The type or null if it's not marshalled in binary format
+	 */
+	protected OType getType(final Object iValue) {
+		if (iValue instanceof String)
+			return OType.STRING;
+		else if (iValue instanceof Integer)
+			return OType.INTEGER;
+		else if (iValue instanceof Long)
+			return OType.LONG;
+		else if (iValue instanceof Double)
+			return OType.DOUBLE;
+		else if (iValue instanceof Float)
+			return OType.FLOAT;
+		else if (iValue instanceof Short)
+			return OType.SHORT;
+		else if (iValue instanceof Byte)
+			return OType.BYTE;
+		else if (iValue instanceof Boolean)
+			return OType.BOOLEAN;
+		else if (iValue instanceof Date)
+			return OType.DATETIME;
+		else if (iValue instanceof byte[])
+			return OType.BINARY;
+		else if (iValue instanceof ORID)
+			return OType.LINK;
+		else if (iValue instanceof ODocument && ((ODocument) iValue).hasOwners())
+			return OType.EMBEDDED;
+		else if (iValue instanceof ORecord<?>)
+			return OType.LINK;
+		return null;
+	}
+
+	/**
+	 * Tells if the value can be marshalled in binary format with the type. The other values are marshalled in the CSV section.
+	 */
+	protected boolean isNative(final OType iType, final Object iValue) {
+		switch (iType) {
+		case BOOLEAN:
+			return iValue instanceof Boolean;
+		case BYTE:
+		case SHORT:
+		case INTEGER:
+		case LONG:
+		case FLOAT:
+		case DOUBLE:
+			return iValue instanceof Number;
+		case DATE:
+		case DATETIME:
+			return iValue instanceof Date;
+		case STRING:
+			return iValue instanceof String;
+		case BINARY:
+			return iValue instanceof byte[];
+		case LINK:
+			return iValue instanceof ORID || iValue instanceof ORecordInternal<?>;
+		case EMBEDDED:
+			return iValue instanceof ODocument;
+		default:
+			return false;
+		}
+	}
+
+	protected void valueToStream(final OMemoryStream iOutput, final OType iType, final Object iValue) {
+		switch (iType) {
+		case BOOLEAN:
+			iOutput.write(((Boolean) iValue).booleanValue() ? 1 : 0);
+			break;
+		case BYTE:
+			iOutput.write(((Number) iValue).byteValue());
+			break;
+		case SHORT:
+		case INTEGER:
+		case LONG:
+			writeSignedVarLong(iOutput, ((Number) iValue).longValue());
+			break;
+		case FLOAT:
+			iOutput.write(OBinaryProtocol.int2bytes(Float.floatToIntBits(((Number) iValue).floatValue())), 0, OBinaryProtocol.SIZE_INT);
+			break;
+		case DOUBLE:
+			iOutput.write(OBinaryProtocol.long2bytes(Double.doubleToLongBits(((Number) iValue).doubleValue())), 0,
+					OBinaryProtocol.SIZE_LONG);
+			break;
+		case DATE: {
+			// RESET HOURS, MINUTES, SECONDS AND MILLISECONDS
+			final Calendar calendar = Calendar.getInstance();
+			calendar.setTime((Date) iValue);
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+			writeSignedVarLong(iOutput, calendar.getTimeInMillis());
+			break;
+		}
+		case DATETIME:
+			writeSignedVarLong(iOutput, ((Date) iValue).getTime());
+			break;
+		case STRING: {
+			final byte[] content = OBinaryProtocol.string2bytes((String) iValue);
+			writeVarLong(iOutput, content.length);
+			iOutput.write(content, 0, content.length);
+			break;
+		}
+		case BINARY: {
+			final byte[] content = (byte[]) iValue;
+			writeVarLong(iOutput, content.length);
+			iOutput.write(content, 0, content.length);
+			break;
+		}
+		case LINK:
+			writeSignedVarLong(iOutput, ((ORID) iValue).getClusterId());
+			writeSignedVarLong(iOutput, ((ORID) iValue).getClusterPosition());
+			break;
+		default:
+			throw new OSerializationException("Type " + iType + " is not supported by the binary format");
+		}
+	}
+
+	protected Object valueFromStream(final OInput iInput, final ODocument iRecord, final OType iType) {
+		switch (iType) {
+		case BOOLEAN:
+			return iInput.readByte() != 0;
+		case BYTE:
+			return iInput.readByte();
+		case SHORT:
+			return (short) iInput.readSignedVarLong();
+		case INTEGER:
+			return (int) iInput.readSignedVarLong();
+		case LONG:
+			return iInput.readSignedVarLong();
+		case FLOAT:
+			return Float.intBitsToFloat(iInput.readInt());
+		case DOUBLE:
+			return Double.longBitsToDouble(iInput.readLong());
+		case DATE:
+		case DATETIME:
+			return new Date(iInput.readSignedVarLong());
+		case STRING:
+			return iInput.readString();
+		case BINARY:
+			return iInput.readBytes();
+		case LINK:
+			return new ORecordId((int) iInput.readSignedVarLong(), iInput.readSignedVarLong());
+		case EMBEDDED: {
+			final ODocument embedded = new ODocument();
+			embedded.fromStream(iInput.readBytes());
+			embedded.addOwner(iRecord);
+			return embedded;
+		}
+		default:
+			throw new OSerializationException("Type " + iType + " is not supported by the binary format");
+		}
+	}
+
+	private void fieldFromStream(final OFieldTable iTable, final OInput iInput, final ODocument iRecord, final int iIndex) {
+		final String name = iTable.names[iIndex];
+		try {
+			if (iTable.types[iIndex] == TYPE_NULL || iTable.types[iIndex] == TYPE_CSV)
+				// THE CSV VALUES ARE SET LATER: RESERVE THE POSITION
+				iRecord.field(name, (Object) null);
+			else if (iTable.types[iIndex] == TYPE_DICTIONARY) {
+				iInput.position = iTable.dataBegin + iTable.offsets[iIndex];
+				iRecord.field(name, getDictionaryValue(iRecord.getSchemaClass(), name, iInput.readVarInt()));
+			} else {
+				final OType type = OType.getById(iTable.types[iIndex]);
+				iInput.position = iTable.dataBegin + iTable.offsets[iIndex];
+				final Object value = valueFromStream(iInput, iRecord, type);
+
+				if (type == OType.EMBEDDED)
+					// SAVE THE TYPE AS EMBEDDED
+					iRecord.field(name, value, type);
+				else
+					iRecord.field(name, value);
+			}
+		} catch (Exception e) {
+			OLogManager.instance().exception("Error on unmarshalling field '%s' in binary format", e, OSerializationException.class,
+					name);
+		}
+	}
+
+	/**
+	 * Writes the key of a field in the table: the id in the dictionary or the name itself.
+	 */
+	private static void writeKey(final OMemoryStream iTable, final OSchema iSchema, final String iFieldName) {
+		final int fieldId = iSchema != null ? iSchema.getFieldId(iFieldName) : -1;
+		if (fieldId > -1)
+			writeVarLong(iTable, fieldId << 1);
+		else {
+			final byte[] name = OBinaryProtocol.string2bytes(iFieldName);
+			writeVarLong(iTable, (name.length << 1) | 1);
+			iTable.write(name, 0, name.length);
+		}
+	}
+
+	private static String getFieldName(OSchema iSchema, final int iFieldId) {
+		if (iSchema == null)
+			throw new OSerializationException("Cannot unmarshall the field with id " + iFieldId + " without an open database");
+
+		String name = iSchema.getFieldName(iFieldId);
+		if (name == null) {
+			// CREATED BY ANOTHER CLIENT: RELOAD THE SCHEMA
+			iSchema.reload();
+			name = iSchema.getFieldName(iFieldId);
+			if (name == null)
+				throw new OSerializationException("Field with id " + iFieldId + " not found in the dictionary of the schema");
+		}
+		return name;
+	}
+
+	private static String getDictionaryValue(final OClass iClass, final String iFieldName, final int iValueId) {
+		final OSchema schema = getSchema();
+		if (schema == null || iClass == null)
+			throw new OSerializationException("Cannot unmarshall the value with id " + iValueId + " of field '" + iFieldName
+					+ "' without an open database and its class");
+
+		String value = schema.getDictionaryValue(iClass, iFieldName, iValueId);
+		if (value == null) {
+			// ADDED BY ANOTHER CLIENT: RELOAD THE SCHEMA
+			schema.reload();
+			value = schema.getDictionaryValue(iClass, iFieldName, iValueId);
+			if (value == null)
+				throw new OSerializationException("Value with id " + iValueId + " of field '" + iFieldName
+						+ "' not found in the dictionary of class " + iClass.getName());
+		}
+		return value;
+	}
+
+	private static OSchema getSchema() {
+		final ODatabaseRecord database = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+		if (database == null || database.isClosed())
+			return null;
+
+		final OMetadata metadata = database.getMetadata();
+		return metadata != null ? metadata.getSchema() : null;
+	}
+
+	private static void writeSignedVarLong(final OMemoryStream iOutput, final long iValue) {
+		// ZIGZAG ENCODING: SMALL NEGATIVE NUMBERS TAKE FEW BYTES TOO
+		writeVarLong(iOutput, (iValue << 1) ^ (iValue >> 63));
+	}
+
+	private static void writeVarLong(final OMemoryStream iOutput, long iValue) {
+		while ((iValue & ~0x7FL) != 0) {
+			iOutput.write((int) ((iValue & 0x7F) | 0x80));
+			iValue >>>= 7;
+		}
+		iOutput.write((int) iValue);
+	}
+
+	/**
+	 * Table of the fields of a content in binary format: for each field the name, the type and the position of the value.
+	 */
+	public static class OFieldTable {
+		private final byte[]		source;
+		private final String		className;
+		private final String[]	names;
+		private final byte[]		types;
+		private final int[]			offsets;
+		private final int[]			lengths;
+		private int							dataBegin;
+		private int							dataLength;
+		private int							csvBegin;
+		private int							csvLength;
+
+		protected OFieldTable(final byte[] iSource, final String iClassName, final int iFields) {
+			source = iSource;
+			className = iClassName;
+			names = new String[iFields];
+			types = new byte[iFields];
+			offsets = new int[iFields];
+			lengths = new int[iFields];
+		}
+
+		public byte[] getSource() {
+			return source;
+		}
+
+		public String getClassName() {
+			return className;
+		}
+
+		public int indexOf(final String iFieldName) {
+			for (int i = 0; i < names.length; ++i)
+				if (names[i].equals(iFieldName))
+					return i;
+			return -1;
+		}
+	}
+
+	/**
+	 * Cursor over the content of a record.
+	 */
+	protected static class OInput {
+		private final byte[]	buffer;
+		private int						position;
+
+		public OInput(final byte[] iBuffer) {
+			buffer = iBuffer;
+		}
+
+		public byte readByte() {
+			return buffer[position++];
+		}
+
+		public int readInt() {
+			final int value = OBinaryProtocol.bytes2int(buffer, position);
+			position += OBinaryProtocol.SIZE_INT;
+			return value;
+		}
+
+		public long readLong() {
+			final long value = OBinaryProtocol.bytes2long(buffer, position);
+			position += OBinaryProtocol.SIZE_LONG;
+			return value;
+		}
+
+		public long readVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = buffer[position++];
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		public int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		public long readSignedVarLong() {
+			final long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		public String readString() {
+			return readString(readVarInt());
+		}
+
+		public String readString(final int iLength) {
+			final String value = OBinaryProtocol.bytes2string(buffer, position, iLength);
+			position += iLength;
+			return value;
+		}
+
+		public byte[] readBytes() {
+			final int length = readVarInt();
+			final byte[] value = new byte[length];
+			System.arraycopy(buffer, position, value, 0, length);
+			position += length;
+			return value;
+		}
+	}
+}
@@ -676,7 +676,14 @@ public abstract class ORecordSerializerCSVAbstract extends ORecordSerializerStri
 	 *          Can be an instance of ORID or a Record<?>
 	 * @return
 	 */
-	private static OIdentifiable linkToStream(final StringBuilder buffer, final ORecordSchemaAware<?> iParentRecord, Object iLinked) {
+	/**
+	 * Saves the linked record if it's new or changed and writes its record id.
+	 * 
+	 * @param buffer
+	 *          Where to write the record id, null to only save the linked record
+	 * @return The new identity of the link to set in the parent record, or null if it's not changed
+	 */
+	public static OIdentifiable linkToStream(final StringBuilder buffer, final ORecordSchemaAware<?> iParentRecord, Object iLinked) {
 		if (iLinked == null)
 			// NULL REFERENCE
 			return null;
@@ -743,7 +750,7 @@ public abstract class ORecordSerializerCSVAbstract extends ORecordSerializerStri
 			}
 		}
 
-		if (rid.isValid())
+		if (rid.isValid() && buffer != null)
 			rid.toString(buffer);
 
 		return resultRid;
@@ -16,9 +16,12 @@
 package com.orientechnologies.orient.core.serialization.serializer.record.string;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -26,7 +29,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import com.orientechnologies.common.parser.OStringParser;
 import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.db.OUserObject2RecordHandler;
 import com.orientechnologies.orient.core.db.record.ORecordLazyList;
@@ -48,6 +50,8 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.record.impl.ODocumentHelper;
 import com.orientechnologies.orient.core.record.impl.ORecordBytes;
 import com.orientechnologies.orient.core.serialization.OBase64Utils;
+import com.orientechnologies.orient.core.serialization.serializer.OJSONTokenReader;
+import com.orientechnologies.orient.core.serialization.serializer.OJSONTokenReader.TOKEN;
 import com.orientechnologies.orient.core.serialization.serializer.OJSONWriter;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.type.tree.OMVRBTreeRIDSet;
@@ -64,129 +68,200 @@ public class ORecordSerializerJSON extends ORecordSerializerStringAbstract {
 	private SimpleDateFormat									dateFormat						= new SimpleDateFormat(DEF_DATE_FORMAT);
 
 	@Override
-	public ORecordInternal<?> fromString(String iSource, ORecordInternal<?> iRecord) {
+	public ORecordInternal<?> fromString(final String iSource, final ORecordInternal<?> iRecord) {
 		if (iSource == null)
 			throw new OSerializationException("Error on unmarshalling JSON content: content is null");
 
-		iSource = iSource.trim();
-		if (!iSource.startsWith("{") || !iSource.endsWith("}"))
+		try {
+			final OJSONTokenReader reader = new OJSONTokenReader(iSource);
+			final ORecordInternal<?> record = fromStream(reader, iRecord);
+			if (reader.next() != TOKEN.END)
+				throw new OSerializationException("Error on unmarshalling JSON content: content must be between { }");
+			return record;
+		} catch (IOException e) {
+			throw new OSerializationException("Error on unmarshalling JSON content", e);
+		}
+	}
+
+	/**
+	 * Reads a record from a stream of JSON content.
+	 */
+	public ORecordInternal<?> fromStream(final Reader iSource, final ORecordInternal<?> iRecord) throws IOException {
+		return fromStream(new OJSONTokenReader(iSource), iRecord);
+	}
+
+	/**
+	 * Reads the next record from the token reader, leaving it just after the end of the record. If the current token is
+	 * {@link TOKEN#BEGIN_OBJECT} the record starts there, otherwise it starts at the next token. The fields of every object are kept
+	 * as read until the end of the object, because the attributes @type and @fieldTypes can follow the fields they refer to.
+	 * Embedded records are converted as soon as they are read.
+	 */
+	public ORecordInternal<?> fromStream(final OJSONTokenReader iReader, final ORecordInternal<?> iRecord) throws IOException {
+		if (iReader.getToken() != TOKEN.BEGIN_OBJECT && iReader.next() != TOKEN.BEGIN_OBJECT)
 			throw new OSerializationException("Error on unmarshalling JSON content: content must be between { }");
 
+		return toRecord(readObject(iReader), iRecord);
+	}
+
+	private OJSONObject readObject(final OJSONTokenReader iReader) throws IOException {
+		final OJSONObject object = new OJSONObject();
+
+		TOKEN token;
+		while ((token = iReader.next()) != TOKEN.END_OBJECT) {
+			if (token != TOKEN.STRING && token != TOKEN.LITERAL)
+				throw iReader.newParseException("expected field name but found " + token);
+
+			final String fieldName = iReader.getString();
+			if (fieldName.equals(ODocumentHelper.ATTRIBUTE_TYPE))
+				object.typed = true;
+
+			object.names.add(fieldName);
+			object.values.add(readValue(iReader, iReader.next()));
+		}
+
+		return object;
+	}
+
+	private Object readValue(final OJSONTokenReader iReader, final TOKEN iToken) throws IOException {
+		switch (iToken) {
+		case BEGIN_OBJECT:
+			final OJSONObject object = readObject(iReader);
+			// A TYPED OBJECT IS A RECORD: CONVERT IT NOW TO RELEASE ITS CONTENT
+			return object.typed ? toRecord(object, null) : object;
+
+		case BEGIN_ARRAY:
+			final List<Object> array = new ArrayList<Object>();
+			TOKEN token;
+			while ((token = iReader.next()) != TOKEN.END_ARRAY)
+				array.add(readValue(iReader, token));
+			return array;
+
+		case STRING:
+			return new OJSONValue(iReader.getString(), true);
+
+		case LITERAL:
+			return new OJSONValue(iReader.getString(), false);
+		}
+
+		throw iReader.newParseException("expected value but found " + iToken);
+	}
+
+	private ORecordInternal<?> toRecord(final OJSONObject iObject, ORecordInternal<?> iRecord) {
 		if (iRecord != null)
 			// RESET ALL THE FIELDS
 			iRecord.reset();
 
-		iSource = iSource.substring(1, iSource.length() - 1).trim();
-
-		final List<String> fields = OStringSerializerHelper
-				.smartSplit(iSource, PARAMETER_SEPARATOR, 0, -1, true, ' ', '\n', '\r', '\t');
+		final int fields = iObject.names.size();
 
-		if (fields.size() % 2 != 0)
-			throw new OSerializationException("Error on unmarshalling JSON content: wrong format. Use <field> : <value>");
+		// SEARCH FOR THE RECORD TYPE, THEN FOR FIELD TYPES IF ANY
+		for (int i = 0; i < fields; ++i)
+			if (iObject.names.get(i).equals(ODocumentHelper.ATTRIBUTE_TYPE)) {
+				final String recordType = getText(iObject.values.get(i));
+				if (iRecord == null || iRecord.getRecordType() != recordType.charAt(0))
+					// CREATE THE RIGHT RECORD INSTANCE
+					iRecord = Orient.instance().getRecordFactoryManager().newInstance((byte) recordType.charAt(0));
+			}
 
 		Map<String, Character> fieldTypes = null;
+		if (iRecord instanceof ODocument)
+			for (int i = 0; i < fields; ++i)
+				if (iObject.names.get(i).equals(ATTRIBUTE_FIELD_TYPES))
+					fieldTypes = parseFieldTypes(getText(iObject.values.get(i)));
+
+		try {
+			for (int i = 0; i < fields; ++i) {
+				final String fieldName = iObject.names.get(i);
+				final Object fieldValue = iObject.values.get(i);
+
+				// RECORD ATTRIBUTES
+				if (fieldName.equals(ODocumentHelper.ATTRIBUTE_RID))
+					iRecord.setIdentity(new ORecordId(getText(fieldValue)));
+
+				else if (fieldName.equals(ODocumentHelper.ATTRIBUTE_VERSION)) {
+					final String version = getText(fieldValue);
+					iRecord.setVersion(OStringSerializerHelper.parseInt(version, 0, version.length()));
 
-		if (fields != null && fields.size() > 0) {
-			// SEARCH FOR FIELD TYPES IF ANY
-			for (int i = 0; i < fields.size(); i += 2) {
-				final String fieldName = OStringSerializerHelper.getStringContent(fields.get(i));
-				final String fieldValue = fields.get(i + 1);
-				final String fieldValueAsString = OStringSerializerHelper.getStringContent(fieldValue);
-
-				if (fieldName.equals(ATTRIBUTE_FIELD_TYPES) && iRecord instanceof ODocument) {
-					// LOAD THE FIELD TYPE MAP
-					final String[] fieldTypesParts = fieldValueAsString.split(",");
-					if (fieldTypesParts.length > 0) {
-						fieldTypes = new HashMap<String, Character>();
-						String[] part;
-						for (String f : fieldTypesParts) {
-							part = f.split("=");
-							if (part.length == 2)
-								fieldTypes.put(part[0], part[1].charAt(0));
-						}
-					}
 				} else if (fieldName.equals(ODocumentHelper.ATTRIBUTE_TYPE)) {
-					if (iRecord == null || iRecord.getRecordType() != fieldValueAsString.charAt(0)) {
-						// CREATE THE RIGHT RECORD INSTANCE
-						iRecord = Orient.instance().getRecordFactoryManager().newInstance((byte) fieldValueAsString.charAt(0));
+					continue;
+				} else if (fieldName.equals(ODocumentHelper.ATTRIBUTE_CLASS) && iRecord instanceof ODocument) {
+					final String className = getText(fieldValue);
+					((ODocument) iRecord).setClassNameIfExists("null".equals(className) ? null : className);
+				} else if (fieldName.equals(ATTRIBUTE_FIELD_TYPES) && iRecord instanceof ODocument)
+					// JUMP IT
+					continue;
+
+				// RECORD VALUE(S)
+				else if (fieldName.equals("value") && !(iRecord instanceof ODocument)) {
+					if (isNull(fieldValue))
+						iRecord.fromStream(new byte[] {});
+					else if (iRecord instanceof ORecordBytes) {
+						// BYTES
+						iRecord.fromStream(OBase64Utils.decode(getText(fieldValue)));
+					} else if (iRecord instanceof ORecordStringable) {
+						((ORecordStringable) iRecord).value(getText(fieldValue));
 					}
-				}
-			}
-
-			try {
-				for (int i = 0; i < fields.size(); i += 2) {
-					final String fieldName = OStringSerializerHelper.getStringContent(fields.get(i));
-					final String fieldValue = fields.get(i + 1);
-					final String fieldValueAsString = OStringSerializerHelper.getStringContent(fieldValue);
-
-					// RECORD ATTRIBUTES
-					if (fieldName.equals(ODocumentHelper.ATTRIBUTE_RID))
-						iRecord.setIdentity(new ORecordId(fieldValueAsString));
-
-					else if (fieldName.equals(ODocumentHelper.ATTRIBUTE_VERSION))
-						iRecord.setVersion(Integer.parseInt(fieldValue));
-
-					else if (fieldName.equals(ODocumentHelper.ATTRIBUTE_TYPE)) {
-						continue;
-					} else if (fieldName.equals(ODocumentHelper.ATTRIBUTE_CLASS) && iRecord instanceof ODocument)
-						((ODocument) iRecord).setClassNameIfExists("null".equals(fieldValueAsString) ? null : fieldValueAsString);
-					else if (fieldName.equals(ATTRIBUTE_FIELD_TYPES) && iRecord instanceof ODocument)
-						// JUMP IT
-						continue;
-
-					// RECORD VALUE(S)
-					else if (fieldName.equals("value") && !(iRecord instanceof ODocument)) {
-						if ("null".equals(fieldValue))
-							iRecord.fromStream(new byte[] {});
-						else if (iRecord instanceof ORecordBytes) {
-							// BYTES
-							iRecord.fromStream(OBase64Utils.decode(fieldValueAsString));
-						} else if (iRecord instanceof ORecordStringable) {
-							((ORecordStringable) iRecord).value(fieldValueAsString);
-						}
-					} else {
-						if (iRecord instanceof ODocument) {
-							final Object v = getValue((ODocument) iRecord, fieldName, fieldValue, fieldValueAsString, null, null, fieldTypes);
-
-							if (v != null)
-								if (v instanceof Collection<?> && !((Collection<?>) v).isEmpty()) {
-									if (v instanceof ORecordLazyList)
-										((ORecordLazyList) v).setAutoConvertToRecord(false);
-									else if (v instanceof OMVRBTreeRIDSet)
-										((OMVRBTreeRIDSet) v).setAutoConvert(false);
-
-									// CHECK IF THE COLLECTION IS EMBEDDED
-									Object first = ((Collection<?>) v).iterator().next();
-									if (first != null && first instanceof ORecord<?> && !((ORecord<?>) first).getIdentity().isValid()) {
-										((ODocument) iRecord).field(fieldName, v, v instanceof Set<?> ? OType.EMBEDDEDSET : OType.EMBEDDEDLIST);
-										continue;
-									}
-								} else if (v instanceof Map<?, ?> && !((Map<?, ?>) v).isEmpty()) {
-									// CHECK IF THE MAP IS EMBEDDED
-									Object first = ((Map<?, ?>) v).values().iterator().next();
-									if (first != null && first instanceof ORecord<?> && !((ORecord<?>) first).getIdentity().isValid()) {
-										((ODocument) iRecord).field(fieldName, v, OType.EMBEDDEDMAP);
-										continue;
-									}
+				} else {
+					if (iRecord instanceof ODocument) {
+						final Object v = getValue((ODocument) iRecord, fieldName, fieldValue, null, null, fieldTypes);
+
+						if (v != null)
+							if (v instanceof Collection<?> && !((Collection<?>) v).isEmpty()) {
+								if (v instanceof ORecordLazyList)
+									((ORecordLazyList) v).setAutoConvertToRecord(false);
+								else if (v instanceof OMVRBTreeRIDSet)
+									((OMVRBTreeRIDSet) v).setAutoConvert(false);
+
+								// CHECK IF THE COLLECTION IS EMBEDDED
+								Object first = ((Collection<?>) v).iterator().next();
+								if (first != null && first instanceof ORecord<?> && !((ORecord<?>) first).getIdentity().isValid()) {
+									((ODocument) iRecord).field(fieldName, v, v instanceof Set<?> ? OType.EMBEDDEDSET : OType.EMBEDDEDLIST);
+									continue;
 								}
+							} else if (v instanceof Map<?, ?> && !((Map<?, ?>) v).isEmpty()) {
+								// CHECK IF THE MAP IS EMBEDDED
+								Object first = ((Map<?, ?>) v).values().iterator().next();
+								if (first != null && first instanceof ORecord<?> && !((ORecord<?>) first).getIdentity().isValid()) {
+									((ODocument) iRecord).field(fieldName, v, OType.EMBEDDEDMAP);
+									continue;
+								}
+							}
 
-							((ODocument) iRecord).field(fieldName, v);
-						}
+						((ODocument) iRecord).field(fieldName, v);
 					}
 				}
-
-			} catch (Exception e) {
-				e.printStackTrace();
-				throw new OSerializationException("Error on unmarshalling JSON content for record " + iRecord.getIdentity(), e);
 			}
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			throw new OSerializationException("Error on unmarshalling JSON content for record " + iRecord.getIdentity(), e);
 		}
 		return iRecord;
 	}
 
+	/**
+	 * Parses the field types in the format {@literal <field>=<type>[,<field>=<type>]*}.
+	 */
+	private Map<String, Character> parseFieldTypes(final String iFieldTypes) {
+		final Map<String, Character> fieldTypes = new HashMap<String, Character>();
+		int begin = 0;
+		while (begin < iFieldTypes.length()) {
+			int end = iFieldTypes.indexOf(',', begin);
+			if (end == -1)
+				end = iFieldTypes.length();
+
+			final int separator = iFieldTypes.indexOf('=', begin);
+			if (separator > begin && separator == end - 2)
+				fieldTypes.put(iFieldTypes.substring(begin, separator), iFieldTypes.charAt(end - 1));
+
+			begin = end + 1;
+		}
+		return fieldTypes;
+	}
+
 	@SuppressWarnings("unchecked")
-	private Object getValue(final ODocument iRecord, String iFieldName, String iFieldValue, String iFieldValueAsString, OType iType,
-			OType iLinkedType, final Map<String, Character> iFieldTypes) {
-		if (iFieldValue.equals("null"))
+	private Object getValue(final ODocument iRecord, String iFieldName, final Object iFieldValue, OType iType, OType iLinkedType,
+			final Map<String, Character> iFieldTypes) {
+		if (isNull(iFieldValue))
 			return null;
 
 		if (iFieldName != null)
@@ -198,41 +273,26 @@ public class ORecordSerializerJSON extends ORecordSerializerStringAbstract {
 				}
 			}
 
-		if (iFieldValue.startsWith("{") && iFieldValue.endsWith("}")) {
-			// OBJECT OR MAP. CHECK THE TYPE ATTRIBUTE TO KNOW IT
-			iFieldValueAsString = iFieldValue.substring(1, iFieldValue.length() - 1);
-			final String[] fields = OStringParser.getWords(iFieldValueAsString, ":,", true);
-			if (fields == null || fields.length == 0)
+		if (iFieldValue instanceof ORecordInternal<?>) {
+			// OBJECT: ALREADY CONVERTED
+			final ORecordInternal<?> recordInternal = (ORecordInternal<?>) iFieldValue;
+			if (recordInternal instanceof ODocument)
+				((ODocument) recordInternal).addOwner(iRecord);
+			return recordInternal;
+
+		} else if (iFieldValue instanceof OJSONObject) {
+			final OJSONObject object = (OJSONObject) iFieldValue;
+			if (object.names.isEmpty())
 				// EMPTY, RETURN an EMPTY HASHMAP
 				return new HashMap<String, Object>();
 
-			if (hasTypeField(fields)) {
-				// OBJECT
-				final ORecordInternal<?> recordInternal = fromString(iFieldValue, null);
-				if (recordInternal instanceof ODocument)
-					((ODocument) recordInternal).addOwner(iRecord);
-				return recordInternal;
-			} else {
-				if (fields.length % 2 == 1)
-					throw new OSerializationException("Bad JSON format on map. Expected pairs of field:value but received '"
-							+ iFieldValueAsString + "'");
-
-				// MAP
-				final Map<String, Object> embeddedMap = new LinkedHashMap<String, Object>();
-
-				for (int i = 0; i < fields.length; i += 2) {
-					iFieldName = fields[i];
-					if (iFieldName.length() >= 2)
-						iFieldName = iFieldName.substring(1, iFieldName.length() - 1);
-					iFieldValue = fields[i + 1];
-					iFieldValueAsString = OStringSerializerHelper.getStringContent(iFieldValue);
-
-					embeddedMap.put(iFieldName, getValue(iRecord, null, iFieldValue, iFieldValueAsString, iLinkedType, null, iFieldTypes));
-				}
-				return embeddedMap;
-			}
-		} else if (iFieldValue.startsWith("[") && iFieldValue.endsWith("]")) {
+			// MAP
+			final Map<String, Object> embeddedMap = new LinkedHashMap<String, Object>();
+			for (int i = 0; i < object.names.size(); ++i)
+				embeddedMap.put(object.names.get(i), getValue(iRecord, null, object.values.get(i), iLinkedType, null, iFieldTypes));
+			return embeddedMap;
 
+		} else if (iFieldValue instanceof List<?>) {
 			// EMBEDDED VALUES
 			final Collection<?> embeddedCollection;
 			if (iType == OType.LINKSET)
@@ -244,85 +304,66 @@ public class ORecordSerializerJSON extends ORecordSerializerStringAbstract {
 			else
 				embeddedCollection = new OTrackedList<Object>(iRecord);
 
-			iFieldValue = iFieldValue.substring(1, iFieldValue.length() - 1);
-
-			if (!iFieldValue.isEmpty()) {
-				// EMBEDDED VALUES
-				List<String> items = OStringSerializerHelper.smartSplit(iFieldValue, ',');
-
-				Object collectionItem;
-				for (String item : items) {
-					iFieldValue = item.trim();
-					iFieldValueAsString = iFieldValue.length() >= 2 ? iFieldValue.substring(1, iFieldValue.length() - 1) : iFieldValue;
+			Object collectionItem;
+			for (Object item : (List<?>) iFieldValue) {
+				collectionItem = getValue(iRecord, null, item, iLinkedType, null, iFieldTypes);
 
-					collectionItem = getValue(iRecord, null, iFieldValue, iFieldValueAsString, iLinkedType, null, iFieldTypes);
+				if (collectionItem instanceof ODocument && iRecord instanceof ODocument)
+					// SET THE OWNER
+					((ODocument) collectionItem).addOwner(iRecord);
 
-					if (collectionItem instanceof ODocument && iRecord instanceof ODocument)
-						// SET THE OWNER
-						((ODocument) collectionItem).addOwner(iRecord);
-
-					if (collectionItem instanceof String && ((String) collectionItem).length() > 0)
-						continue;
-
-					((Collection<Object>) embeddedCollection).add(collectionItem);
-				}
+				((Collection<Object>) embeddedCollection).add(collectionItem);
 			}
 
 			return embeddedCollection;
 		}
 
+		final OJSONValue value = (OJSONValue) iFieldValue;
+		final String text = value.text;
+
 		if (iType == null)
 			// TRY TO DETERMINE THE CONTAINED TYPE from THE FIRST VALUE
-			if (iFieldValue.charAt(0) != '\"' && iFieldValue.charAt(0) != '\'') {
-				if (iFieldValue.equalsIgnoreCase("false") || iFieldValue.equalsIgnoreCase("true"))
+			if (!value.quoted) {
+				if (text.equalsIgnoreCase("false") || text.equalsIgnoreCase("true"))
 					iType = OType.BOOLEAN;
 				else {
 					Character c = null;
 					if (iFieldTypes != null) {
 						c = iFieldTypes.get(iFieldName);
 						if (c != null)
-							iType = ORecordSerializerStringAbstract.getType(iFieldValue + c);
+							iType = ORecordSerializerStringAbstract.getType(text + c);
 					}
 
-					if (c == null && !iFieldValue.isEmpty()) {
+					if (c == null && !text.isEmpty()) {
 						// TRY TO AUTODETERMINE THE BEST TYPE
-						if (iFieldValue.charAt(0) == ORID.PREFIX && iFieldValue.contains(":"))
+						if (text.charAt(0) == ORID.PREFIX && text.indexOf(':') > -1)
 							iType = OType.LINK;
-						else if (OStringSerializerHelper.contains(iFieldValue, '.'))
+						else if (text.indexOf('.') > -1)
 							iType = OType.FLOAT;
 						else
-							iType = OType.INTEGER;
+							return parseInteger(text);
 					}
 				}
-			} else if (iFieldValueAsString.startsWith("{") && iFieldValueAsString.endsWith("}"))
+			} else if (text.startsWith("{") && text.endsWith("}"))
 				iType = OType.EMBEDDED;
 			else {
-				if (iFieldValueAsString.length() >= 4 && iFieldValueAsString.charAt(0) == ORID.PREFIX && iFieldValueAsString.contains(":")) {
-					// IS IT A LINK?
-					final List<String> parts = OStringSerializerHelper.split(iFieldValueAsString, 1, -1, ':');
-					if (parts.size() == 2)
-						try {
-							Short.parseShort(parts.get(0));
-							Long.parseLong(parts.get(1));
-							// YES, IT'S A LINK
-							iType = OType.LINK;
-						} catch (Exception e) {
-						}
-				}
+				if (text.length() >= 4 && text.charAt(0) == ORID.PREFIX && isRID(text))
+					// YES, IT'S A LINK
+					iType = OType.LINK;
 
 				if (iFieldTypes != null) {
 					Character c = null;
 					c = iFieldTypes.get(iFieldName);
 					if (c != null)
-						iType = ORecordSerializerStringAbstract.getType(iFieldValueAsString, c);
+						iType = ORecordSerializerStringAbstract.getType(text, c);
 				}
 
 				if (iType == null) {
-					if (iFieldValueAsString.length() == DEF_DATE_FORMAT.length())
+					if (text.length() == DEF_DATE_FORMAT.length())
 						// TRY TO PARSE AS DATE
 						try {
 							synchronized (dateFormat) {
-								return dateFormat.parseObject(iFieldValueAsString);
+								return dateFormat.parseObject(text);
 							}
 						} catch (Exception e) {
 						}
@@ -334,50 +375,84 @@ public class ORecordSerializerJSON extends ORecordSerializerStringAbstract {
 		if (iType != null)
 			switch (iType) {
 			case STRING:
-				return decodeJSON(iFieldValueAsString);
+				return text;
 
 			case LINK:
-				final int pos = iFieldValueAsString.indexOf('@');
+				final int pos = text.indexOf('@');
 				if (pos > -1)
 					// CREATE DOCUMENT
-					return new ODocument(iFieldValueAsString.substring(1, pos), new ORecordId(iFieldValueAsString.substring(pos + 1)));
+					return new ODocument(text.substring(1, pos), new ORecordId(text.substring(pos + 1)));
 				else {
 					// CREATE SIMPLE RID
-					return new ORecordId(iFieldValueAsString);
+					return new ORecordId(text);
 				}
 
 			case EMBEDDED:
-				return fromString(iFieldValueAsString);
+				return fromString(text);
 
 			case DATE:
 			case DATETIME:
-				if (iFieldValueAsString == null || iFieldValueAsString.equals(""))
+				if (text.length() == 0)
 					return null;
 				try {
 					// TRY TO PARSE AS LONG
-					return Long.parseLong(iFieldValueAsString);
+					return OStringSerializerHelper.parseLong(text, 0, text.length());
 				} catch (NumberFormatException e) {
 					try {
 						// TRY TO PARSE AS DATE
-						return dateFormat.parseObject(iFieldValueAsString);
+						synchronized (dateFormat) {
+							return dateFormat.parseObject(text);
+						}
 					} catch (ParseException ex) {
-						throw new OSerializationException("Unable to unmarshall date: " + iFieldValueAsString, e);
+						throw new OSerializationException("Unable to unmarshall date: " + text, e);
 					}
 				}
-			case BINARY:
-				return OStringSerializerHelper.fieldTypeFromStream(iRecord, iType, iFieldValueAsString);
+
+			case INTEGER:
+				return Integer.valueOf(OStringSerializerHelper.parseInt(text, 0, text.length()));
+
 			default:
-				return OStringSerializerHelper.fieldTypeFromStream(iRecord, iType, iFieldValue);
+				return OStringSerializerHelper.fieldTypeFromStream(iRecord, iType, text);
 			}
 
-		return iFieldValueAsString;
+		return text;
+	}
+
+	/**
+	 * Parses an integer number in place, returning a Long if it's too big for an Integer.
+	 */
+	private static Number parseInteger(final String iText) {
+		final long value = OStringSerializerHelper.parseLong(iText, 0, iText.length());
+		if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+			return Integer.valueOf((int) value);
+		return Long.valueOf(value);
 	}
 
-	private String decodeJSON(String iFieldValueAsString) {
-		iFieldValueAsString = OStringParser.replaceAll(iFieldValueAsString, "\\\\", "\\");
-		iFieldValueAsString = OStringParser.replaceAll(iFieldValueAsString, "\\\"", "\"");
-		iFieldValueAsString = OStringParser.replaceAll(iFieldValueAsString, "\\/", "/");
-		return iFieldValueAsString;
+	/**
+	 * Tells if the text is a RID in the format #<cluster-id>:<cluster-position>.
+	 */
+	private static boolean isRID(final String iText) {
+		final int separator = iText.indexOf(':');
+		if (separator < 2 || separator == iText.length() - 1)
+			return false;
+
+		try {
+			final long clusterId = OStringSerializerHelper.parseLong(iText, 1, separator);
+			OStringSerializerHelper.parseLong(iText, separator + 1, iText.length());
+			return clusterId >= Short.MIN_VALUE && clusterId <= Short.MAX_VALUE;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static boolean isNull(final Object iFieldValue) {
+		return iFieldValue instanceof OJSONValue && !((OJSONValue) iFieldValue).quoted && ((OJSONValue) iFieldValue).text.equals("null");
+	}
+
+	private static String getText(final Object iFieldValue) {
+		if (iFieldValue instanceof OJSONValue)
+			return ((OJSONValue) iFieldValue).text;
+		throw new OSerializationException("Error on unmarshalling JSON content: expected a value but found " + iFieldValue);
 	}
 
 	@Override
@@ -385,104 +460,123 @@ public class ORecordSerializerJSON extends ORecordSerializerStringAbstract {
 			final OUserObject2RecordHandler iObjHandler, final Set<Integer> iMarshalledRecords, boolean iOnlyDelta) {
 		try {
 			final StringWriter buffer = new StringWriter();
-			final OJSONWriter json = new OJSONWriter(buffer, iFormat);
-
-			boolean includeVer;
-			boolean includeType;
-			boolean includeId;
-			boolean includeClazz;
-			boolean attribSameRow;
-			boolean alwaysFetchEmbeddedDocuments;
-			int indentLevel;
-			String fetchPlan = null;
-			boolean keepTypes;
-
-			if (iFormat == null) {
-				includeType = true;
-				includeVer = true;
-				includeId = true;
-				includeClazz = true;
-				attribSameRow = true;
-				indentLevel = 0;
-				fetchPlan = "";
-				keepTypes = true;
-				alwaysFetchEmbeddedDocuments = true;
-			} else {
-				includeType = false;
-				includeVer = false;
-				includeId = false;
-				includeClazz = false;
-				attribSameRow = false;
-				alwaysFetchEmbeddedDocuments = false;
-				indentLevel = 0;
-				keepTypes = true;
-
-				final String[] format = iFormat.split(",");
-				for (String f : format)
-					if (f.equals("type"))
-						includeType = true;
-					else if (f.equals("rid"))
-						includeId = true;
-					else if (f.equals("version"))
-						includeVer = true;
-					else if (f.equals("class"))
-						includeClazz = true;
-					else if (f.equals("attribSameRow"))
-						attribSameRow = true;
-					else if (f.startsWith("indent"))
-						indentLevel = Integer.parseInt(f.substring(f.indexOf(':') + 1));
-					else if (f.startsWith("fetchPlan"))
-						fetchPlan = f.substring(f.indexOf(':') + 1);
-					else if (f.startsWith("keepTypes"))
-						keepTypes = true;
-					else if (f.startsWith("alwaysFetchEmbedded"))
-						alwaysFetchEmbeddedDocuments = true;
-			}
-
-			json.beginObject(indentLevel);
-			OJSONFetchContext context = new OJSONFetchContext(json, includeType, includeId, includeVer, includeClazz, attribSameRow,
-					keepTypes, alwaysFetchEmbeddedDocuments);
+			toStream(iRecord, buffer, iFormat);
+			iOutput.append(buffer);
+			return iOutput;
+		} catch (IOException e) {
+			throw new OSerializationException("Error on marshalling of record to JSON", e);
+		}
+	}
 
-			context.writeSignature(json, indentLevel, includeType, includeId, includeVer, includeClazz, attribSameRow, iRecord);
+	/**
+	 * Writes the record as JSON directly to the output.
+	 */
+	public void toStream(final ORecordInternal<?> iRecord, final Writer iOutput, final String iFormat) throws IOException {
+		final OJSONWriter json = new OJSONWriter(iOutput, iFormat);
+
+		boolean includeVer;
+		boolean includeType;
+		boolean includeId;
+		boolean includeClazz;
+		boolean attribSameRow;
+		boolean alwaysFetchEmbeddedDocuments;
+		int indentLevel;
+		String fetchPlan = null;
+		boolean keepTypes;
+
+		if (iFormat == null) {
+			includeType = true;
+			includeVer = true;
+			includeId = true;
+			includeClazz = true;
+			attribSameRow = true;
+			indentLevel = 0;
+			fetchPlan = "";
+			keepTypes = true;
+			alwaysFetchEmbeddedDocuments = true;
+		} else {
+			includeType = false;
+			includeVer = false;
+			includeId = false;
+			includeClazz = false;
+			attribSameRow = false;
+			alwaysFetchEmbeddedDocuments = false;
+			indentLevel = 0;
+			keepTypes = true;
+
+			final String[] format = iFormat.split(",");
+			for (String f : format)
+				if (f.equals("type"))
+					includeType = true;
+				else if (f.equals("rid"))
+					includeId = true;
+				else if (f.equals("version"))
+					includeVer = true;
+				else if (f.equals("class"))
+					includeClazz = true;
+				else if (f.equals("attribSameRow"))
+					attribSameRow = true;
+				else if (f.startsWith("indent"))
+					indentLevel = Integer.parseInt(f.substring(f.indexOf(':') + 1));
+				else if (f.startsWith("fetchPlan"))
+					fetchPlan = f.substring(f.indexOf(':') + 1);
+				else if (f.startsWith("keepTypes"))
+					keepTypes = true;
+				else if (f.startsWith("alwaysFetchEmbedded"))
+					alwaysFetchEmbeddedDocuments = true;
+		}
 
-			if (iRecord instanceof ORecordSchemaAware<?>) {
+		json.beginObject(indentLevel);
+		OJSONFetchContext context = new OJSONFetchContext(json, includeType, includeId, includeVer, includeClazz, attribSameRow,
+				keepTypes, alwaysFetchEmbeddedDocuments);
 
-				OFetchHelper.fetch(iRecord, null, OFetchHelper.buildFetchPlan(fetchPlan), new OJSONFetchListener(), context);
-			} else if (iRecord instanceof ORecordStringable) {
+		context.writeSignature(json, indentLevel, includeType, includeId, includeVer, includeClazz, attribSameRow, iRecord);
 
-				// STRINGABLE
-				final ORecordStringable record = (ORecordStringable) iRecord;
-				json.writeAttribute(indentLevel + 1, true, "value", record.value());
+		if (iRecord instanceof ORecordSchemaAware<?>) {
 
-			} else if (iRecord instanceof ORecordBytes) {
-				// BYTES
-				final ORecordBytes record = (ORecordBytes) iRecord;
-				json.writeAttribute(indentLevel + 1, true, "value", OBase64Utils.encodeBytes(record.toStream()));
-			} else
+			OFetchHelper.fetch(iRecord, null, OFetchHelper.buildFetchPlan(fetchPlan), new OJSONFetchListener(), context);
+		} else if (iRecord instanceof ORecordStringable) {
 
-				throw new OSerializationException("Error on marshalling record of type '" + iRecord.getClass()
-						+ "' to JSON. The record type cannot be exported to JSON");
+			// STRINGABLE
+			final ORecordStringable record = (ORecordStringable) iRecord;
+			json.writeAttribute(indentLevel + 1, true, "value", record.value());
 
-			json.endObject(indentLevel);
+		} else if (iRecord instanceof ORecordBytes) {
+			// BYTES
+			final ORecordBytes record = (ORecordBytes) iRecord;
+			json.writeAttribute(indentLevel + 1, true, "value", OBase64Utils.encodeBytes(record.toStream()));
+		} else
 
-			iOutput.append(buffer);
-			return iOutput;
-		} catch (IOException e) {
-			throw new OSerializationException("Error on marshalling of record to JSON", e);
-		}
-	}
+			throw new OSerializationException("Error on marshalling record of type '" + iRecord.getClass()
+					+ "' to JSON. The record type cannot be exported to JSON");
 
-	private boolean hasTypeField(String[] fields) {
-		for (int i = 0; i < fields.length; i = i + 2) {
-			if (fields[i].equals("\"@type\"") || fields[i].equals("'@type'")) {
-				return true;
-			}
-		}
-		return false;
+		json.endObject(indentLevel);
 	}
 
 	@Override
 	public String toString() {
 		return NAME;
 	}
+
+	/**
+	 * Object read from the stream whose fields are not converted yet.
+	 */
+	private static class OJSONObject {
+		private final List<String>	names		= new ArrayList<String>();
+		private final List<Object>	values	= new ArrayList<Object>();
+		private boolean							typed;
+	}
+
+	/**
+	 * String or literal read from the stream.
+	 */
+	private static class OJSONValue {
+		private final String	text;
+		private final boolean	quoted;
+
+		private OJSONValue(final String iText, final boolean iQuoted) {
+			text = iText;
+			quoted = iQuoted;
+		}
+	}
 }
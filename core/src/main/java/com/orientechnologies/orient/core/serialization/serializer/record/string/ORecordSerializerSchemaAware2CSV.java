@@ -40,6 +40,7 @@ import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.ORecordSchemaAware;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerSchemaAware2Binary;
 
 public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstract {
 	public static final String														NAME			= "ORecordDocument2csv";
@@ -55,9 +56,29 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
 		return NAME;
 	}
 
+	@Override
+	public ORecordInternal<?> fromStream(final byte[] iSource, final ORecordInternal<?> iRecord) {
+		if (ORecordSerializerSchemaAware2Binary.isBinary(iSource))
+			// WRITTEN IN BINARY FORMAT
+			return ORecordSerializerSchemaAware2Binary.INSTANCE.fromStream(iSource, iRecord);
+
+		return super.fromStream(iSource, iRecord);
+	}
+
 	@Override
 	protected StringBuilder toString(ORecordInternal<?> iRecord, final StringBuilder iOutput, final String iFormat,
 			OUserObject2RecordHandler iObjHandler, final Set<Integer> iMarshalledRecords, final boolean iOnlyDelta) {
+		return toString(iRecord, iOutput, iObjHandler, iMarshalledRecords, iOnlyDelta, null);
+	}
+
+	/**
+	 * Marshalls only some fields of the record, without filling the space left by the previous content.
+	 * 
+	 * @param iFields
+	 *          Names of the fields to marshall, null to marshall all of them
+	 */
+	public StringBuilder toString(ORecordInternal<?> iRecord, final StringBuilder iOutput, OUserObject2RecordHandler iObjHandler,
+			final Set<Integer> iMarshalledRecords, final boolean iOnlyDelta, final String[] iFields) {
 		if (!(iRecord instanceof ODocument))
 			throw new OSerializationException("Cannot marshall a record of type " + iRecord.getClass().getSimpleName() + " to CSV");
 
@@ -84,7 +105,11 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
 		String fieldClassName;
 		int i = 0;
 
-		final String[] fieldNames = iOnlyDelta && record.isTrackingChanges() ? record.getDirtyFields() : record.fieldNames();
+		final String[] fieldNames;
+		if (iFields != null)
+			fieldNames = iFields;
+		else
+			fieldNames = iOnlyDelta && record.isTrackingChanges() ? record.getDirtyFields() : record.fieldNames();
 
 		if (iObjHandler == null && ODatabaseRecordThreadLocal.INSTANCE.isDefined())
 			iObjHandler = ODatabaseRecordThreadLocal.INSTANCE.get();
@@ -246,6 +271,9 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
 		if (iMarshalledRecords != null)
 			iMarshalledRecords.remove(identityRecord);
 
+		if (iFields != null)
+			return iOutput;
+
 		// GET THE OVERSIZE IF ANY
 		final float overSize;
 		if (record.getSchemaClass() != null)
@@ -303,7 +331,17 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
 	}
 
 	@Override
-	public ORecordInternal<?> fromString(String iContent, final ORecordInternal<?> iRecord) {
+	public ORecordInternal<?> fromString(final String iContent, final ORecordInternal<?> iRecord) {
+		return fromString(iContent, iRecord, null);
+	}
+
+	/**
+	 * Unmarshalls only some fields of the record, jumping the values of the others.
+	 * 
+	 * @param iFields
+	 *          Names of the fields to unmarshall, null to unmarshall all of them
+	 */
+	public ORecordInternal<?> fromString(String iContent, final ORecordInternal<?> iRecord, final Set<String> iFields) {
 		iContent = iContent.trim();
 
 		if (iContent.length() == 0)
@@ -342,6 +380,10 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
 					// GET THE FIELD NAME
 					fieldName = field.substring(0, pos);
 
+					if (iFields != null && !iFields.contains(fieldName))
+						// NOT REQUESTED: JUMP THE VALUE
+						continue;
+
 					// GET THE FIELD VALUE
 					fieldValue = field.length() > pos + 1 ? field.substring(pos + 1) : null;
 
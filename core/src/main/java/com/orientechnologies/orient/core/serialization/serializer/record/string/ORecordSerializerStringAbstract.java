@@ -33,7 +33,9 @@ import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.OBase64Utils;
 import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
+import com.orientechnologies.orient.core.serialization.OSerializationBufferPool;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
+import com.orientechnologies.orient.core.serialization.serializer.record.OCalendarThreadLocal;
 import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializer;
 import com.orientechnologies.orient.core.serialization.serializer.record.OSerializationThreadLocal;
 import com.orientechnologies.orient.core.serialization.serializer.string.OStringSerializerAnyStreamable;
@@ -76,10 +78,12 @@ public abstract class ORecordSerializerStringAbstract implements ORecordSerializ
 	public byte[] toStream(final ORecordInternal<?> iRecord, boolean iOnlyDelta) {
 		final long timer = OProfiler.getInstance().startChrono();
 
+		final StringBuilder buffer = OSerializationBufferPool.INSTANCE.acquireStringBuilder(iRecord.getSize());
 		try {
-			return OBinaryProtocol.string2bytes(toString(iRecord, new StringBuilder(), null, null,
-					OSerializationThreadLocal.INSTANCE.get(), iOnlyDelta).toString());
+			return OBinaryProtocol.string2bytes(toString(iRecord, buffer, null, null, OSerializationThreadLocal.INSTANCE.get(),
+					iOnlyDelta));
 		} finally {
+			OSerializationBufferPool.INSTANCE.releaseStringBuilder(buffer);
 
 			OProfiler.getInstance().stopChrono("ORecordSerializerStringAbstract.toStream", timer);
 		}
@@ -434,37 +438,43 @@ public abstract class ORecordSerializerStringAbstract implements ORecordSerializ
 								continue;
 						}
 
-						final String v = iValue.substring(0, index);
-
+						// INTEGER NUMBERS AND DATES ARE PARSED IN PLACE, WITHOUT EXTRACTING THE DIGITS IN A SUBSTRING
 						if (c == 'f')
-							return new Float(v);
+							return new Float(iValue.substring(0, index));
 						else if (c == 'c')
-							return new BigDecimal(v);
+							return new BigDecimal(iValue.substring(0, index));
 						else if (c == 'l')
-							return new Long(v);
+							return Long.valueOf(OStringSerializerHelper.parseLong(iValue, 0, index));
 						else if (c == 'd')
-							return new Double(v);
+							return new Double(iValue.substring(0, index));
 						else if (c == 'b')
-							return new Byte(v);
+							return Byte.valueOf((byte) parseInRange(iValue, index, Byte.MIN_VALUE, Byte.MAX_VALUE));
 						else if (c == 'a' || c == 't')
-							return new Date(Long.parseLong(v));
+							return new Date(OStringSerializerHelper.parseLong(iValue, 0, index));
 						else if (c == 's')
-							return new Short(v);
+							return Short.valueOf((short) parseInRange(iValue, index, Short.MIN_VALUE, Short.MAX_VALUE));
 					}
 					return iValue;
 				}
 		}
 
 		if (integer) {
-			try {
-				return new Integer(iValue);
-			} catch (NumberFormatException e) {
-				return new Long(iValue);
-			}
+			// AUTO CONVERT TO LONG IF THE INTEGER IS TOO BIG
+			final long value = OStringSerializerHelper.parseLong(iValue, 0, iValue.length());
+			if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+				return Integer.valueOf((int) value);
+			return Long.valueOf(value);
 		} else
 			return new BigDecimal(iValue);
 	}
 
+	private static int parseInRange(final String iValue, final int iEnd, final int iMin, final int iMax) {
+		final int value = OStringSerializerHelper.parseInt(iValue, 0, iEnd);
+		if (value < iMin || value > iMax)
+			throw new NumberFormatException("Value out of range. Value:\"" + iValue.substring(0, iEnd) + "\"");
+		return value;
+	}
+
 	public static Object simpleValueFromStream(final Object iValue, final OType iType) {
 		switch (iType) {
 		case STRING:
@@ -477,7 +487,8 @@ public abstract class ORecordSerializerStringAbstract implements ORecordSerializ
 		case INTEGER:
 			if (iValue instanceof Integer)
 				return iValue;
-			return new Integer(iValue.toString());
+			final String value = iValue.toString();
+			return Integer.valueOf(OStringSerializerHelper.parseInt(value, 0, value.length()));
 
 		case BOOLEAN:
 			if (iValue instanceof Boolean)
@@ -546,35 +557,35 @@ public abstract class ORecordSerializerStringAbstract implements ORecordSerializ
 			break;
 
 		case BOOLEAN:
-			iBuffer.append(String.valueOf(iValue));
+			iBuffer.append(iValue);
 			break;
 
 		case INTEGER:
-			iBuffer.append(String.valueOf(iValue));
+			appendNumber(iBuffer, iValue);
 			break;
 
 		case FLOAT:
-			iBuffer.append(String.valueOf(iValue));
+			appendNumber(iBuffer, iValue);
 			iBuffer.append('f');
 			break;
 
 		case DECIMAL:
-			iBuffer.append(String.valueOf(iValue));
+			iBuffer.append(iValue);
 			iBuffer.append('c');
 			break;
 
 		case LONG:
-			iBuffer.append(String.valueOf(iValue));
+			appendNumber(iBuffer, iValue);
 			iBuffer.append('l');
 			break;
 
 		case DOUBLE:
-			iBuffer.append(String.valueOf(iValue));
+			appendNumber(iBuffer, iValue);
 			iBuffer.append('d');
 			break;
 
 		case SHORT:
-			iBuffer.append(String.valueOf(iValue));
+			appendNumber(iBuffer, iValue);
 			iBuffer.append('s');
 			break;
 
@@ -582,9 +593,9 @@ public abstract class ORecordSerializerStringAbstract implements ORecordSerializ
 			if (iValue instanceof Character)
 				iBuffer.append((int) ((Character) iValue).charValue());
 			else if (iValue instanceof String)
-				iBuffer.append(String.valueOf((int) ((String) iValue).charAt(0)));
+				iBuffer.append((int) ((String) iValue).charAt(0));
 			else
-				iBuffer.append(String.valueOf(iValue));
+				appendNumber(iBuffer, iValue);
 			iBuffer.append('b');
 			break;
 
@@ -600,7 +611,7 @@ public abstract class ORecordSerializerStringAbstract implements ORecordSerializ
 		case DATE:
 			if (iValue instanceof Date) {
 				// RESET HOURS, MINUTES, SECONDS AND MILLISECONDS
-				Calendar calendar = Calendar.getInstance();
+				final Calendar calendar = OCalendarThreadLocal.INSTANCE.get();
 				calendar.setTime((Date) iValue);
 				calendar.set(Calendar.HOUR_OF_DAY, 0);
 				calendar.set(Calendar.MINUTE, 0);
@@ -622,4 +633,20 @@ public abstract class ORecordSerializerStringAbstract implements ORecordSerializ
 			break;
 		}
 	}
+
+	/**
+	 * Appends the primitive value of the number to the buffer, without creating the temporary string of String.valueOf().
+	 */
+	private static void appendNumber(final StringBuilder iBuffer, final Object iValue) {
+		if (iValue instanceof Integer || iValue instanceof Short || iValue instanceof Byte)
+			iBuffer.append(((Number) iValue).intValue());
+		else if (iValue instanceof Long)
+			iBuffer.append(((Long) iValue).longValue());
+		else if (iValue instanceof Float)
+			iBuffer.append(((Float) iValue).floatValue());
+		else if (iValue instanceof Double)
+			iBuffer.append(((Double) iValue).doubleValue());
+		else
+			iBuffer.append(iValue);
+	}
 }
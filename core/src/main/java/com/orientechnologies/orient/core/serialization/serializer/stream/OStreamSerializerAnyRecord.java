@@ -24,6 +24,7 @@ import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
+import com.orientechnologies.orient.core.serialization.OSerializationBufferPool;
 
 /**
  * Allow short and long form. Examples: <br/>
@@ -84,10 +85,15 @@ public class OStreamSerializerAnyRecord implements OStreamSerializer {
 		if (((ORecord<?>) iObject).getIdentity() == null)
 			throw new OSerializationException("Cannot serialize record without identity. Store it before serialization.");
 
-		final StringBuilder buffer = OStreamSerializerHelper.writeRecordType(iObject.getClass(), new StringBuilder());
-		buffer.append(((ORecord<?>) iObject).getIdentity().toString());
+		final StringBuilder buffer = OSerializationBufferPool.INSTANCE.acquireStringBuilder(0);
+		try {
+			OStreamSerializerHelper.writeRecordType(iObject.getClass(), buffer);
+			buffer.append(((ORecord<?>) iObject).getIdentity().toString());
 
-		return OBinaryProtocol.string2bytes(buffer.toString());
+			return OBinaryProtocol.string2bytes(buffer);
+		} finally {
+			OSerializationBufferPool.INSTANCE.releaseStringBuilder(buffer);
+		}
 	}
 
 	public String getName() {
@@ -19,6 +19,7 @@ import java.io.IOException;
 
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
+import com.orientechnologies.orient.core.serialization.OSerializationBufferPool;
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerStringAbstract;
 
 public class OStreamSerializerLiteral implements OStreamSerializer {
@@ -38,8 +39,12 @@ public class OStreamSerializerLiteral implements OStreamSerializer {
 		if (iObject == null)
 			return null;
 
-		final StringBuilder buffer = new StringBuilder();
-		ORecordSerializerStringAbstract.fieldTypeToString(buffer, OType.getTypeByClass(iObject.getClass()), iObject);
-		return OBinaryProtocol.string2bytes(buffer.toString());
+		final StringBuilder buffer = OSerializationBufferPool.INSTANCE.acquireStringBuilder(0);
+		try {
+			ORecordSerializerStringAbstract.fieldTypeToString(buffer, OType.getTypeByClass(iObject.getClass()), iObject);
+			return OBinaryProtocol.string2bytes(buffer);
+		} finally {
+			OSerializationBufferPool.INSTANCE.releaseStringBuilder(buffer);
+		}
 	}
 }
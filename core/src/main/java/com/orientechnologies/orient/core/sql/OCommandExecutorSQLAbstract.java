@@ -18,6 +18,7 @@ package com.orientechnologies.orient.core.sql;
 import java.util.Locale;
 
 import com.orientechnologies.orient.core.command.OCommandExecutorAbstract;
+import com.orientechnologies.orient.core.command.OCommandRequestText;
 
 /**
  * SQL abstract Command Executor implementation.
@@ -31,6 +32,7 @@ public abstract class OCommandExecutorSQLAbstract extends OCommandExecutorAbstra
 	public static final String	KEYWORD_WHERE		= "WHERE";
 	public static final String	KEYWORD_LIMIT		= "LIMIT";
 	public static final String	KEYWORD_SKIP		= "SKIP";
+	public static final String	KEYWORD_TIMEOUT	= "TIMEOUT";
 	public static final String	KEYWORD_KEY			= "key";
 	public static final String	KEYWORD_RID			= "rid";
 	public static final String	CLUSTER_PREFIX	= "CLUSTER:";
@@ -45,4 +47,28 @@ public abstract class OCommandExecutorSQLAbstract extends OCommandExecutorAbstra
 	}
 
 	public abstract String getSyntax();
+
+	/**
+	 * Tells if the executor, once parsed, can execute other requests of the same statement. Reusable executors are kept by the
+	 * {@link OSQLStatementCache}.
+	 */
+	public boolean isReusable() {
+		return false;
+	}
+
+	/**
+	 * Prepares an executor already parsed to execute a new request of the same statement.
+	 * 
+	 * @param iRequest
+	 *          New request to execute
+	 */
+	public OCommandExecutorSQLAbstract reuse(final OCommandRequestText iRequest) {
+		throw new UnsupportedOperationException("Command " + getClass().getSimpleName() + " cannot be reused");
+	}
+
+	/**
+	 * Releases the objects of the last execution before the executor is cached.
+	 */
+	public void clearExecution() {
+	}
 }
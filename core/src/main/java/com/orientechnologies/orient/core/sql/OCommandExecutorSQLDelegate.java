@@ -18,8 +18,10 @@ package com.orientechnologies.orient.core.sql;
 import java.util.Locale;
 import java.util.Map;
 
+import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandRequestText;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
 
 /**
  * SQL UPDATE command.
@@ -29,20 +31,41 @@ import com.orientechnologies.orient.core.command.OCommandRequestText;
  */
 public class OCommandExecutorSQLDelegate extends OCommandExecutorSQLAbstract {
 	private OCommandExecutorSQLAbstract	delegate;
+	private String											statement;
+	private long												statementVersion	= -1;
 
 	@SuppressWarnings("unchecked")
 	public OCommandExecutorSQLDelegate parse(final OCommandRequestText iCommand) {
 		if (iCommand instanceof OCommandRequestText) {
 			OCommandRequestText textRequest = iCommand;
 			final String text = textRequest.getText();
-			final String textUpperCase = text.toUpperCase(Locale.ENGLISH);
+			final OSQLStatementCache cache = OSQLEngine.getInstance().getStatementCache();
 
-			delegate = (OCommandExecutorSQLAbstract) OSQLEngine.getInstance().getCommand(textUpperCase);
-			if (delegate == null)
-				throw new IllegalArgumentException("Cannot find a command executor for the command request: " + iCommand);
+			if (cache.isEnabled()) {
+				// LOOK FOR THE STATEMENT ALREADY PARSED
+				final ODatabaseRecord database = getDatabase();
+				statement = text.trim();
+				statementVersion = cache.getVersion(database);
+				delegate = cache.acquire(database, statement, statementVersion);
+			}
 
-			delegate.setLimit(iCommand.getLimit());
-			delegate.parse(iCommand);
+			if (delegate != null)
+				delegate.reuse(iCommand);
+			else {
+				final long parsingBegin = OProfiler.getInstance().startChrono();
+				final String textUpperCase = text.toUpperCase(Locale.ENGLISH);
+
+				delegate = (OCommandExecutorSQLAbstract) OSQLEngine.getInstance().getCommand(textUpperCase);
+				if (delegate == null)
+					throw new IllegalArgumentException("Cannot find a command executor for the command request: " + iCommand);
+
+				delegate.setLimit(iCommand.getLimit());
+				delegate.parse(iCommand);
+
+				OProfiler.getInstance().stopChrono("Command.parse", parsingBegin);
+				if (statementVersion > -1 && delegate.isReusable())
+					cache.onMiss();
+			}
 			delegate.setProgressListener(progressListener);
 		} else
 			throw new IllegalArgumentException("Cannot find a command executor for the command request: " + iCommand);
@@ -50,7 +73,14 @@ public class OCommandExecutorSQLDelegate extends OCommandExecutorSQLAbstract {
 	}
 
 	public Object execute(final Map<Object, Object> iArgs) {
-		return delegate.execute(iArgs);
+		final Object result = delegate.execute(iArgs);
+
+		if (statementVersion > -1 && delegate.isReusable()) {
+			// KEEP THE EXECUTOR FOR THE NEXT EXECUTION OF THE SAME STATEMENT
+			delegate.clearExecution();
+			OSQLEngine.getInstance().getStatementCache().release(getDatabase(), statement, statementVersion, delegate);
+		}
+		return result;
 	}
 
 	@Override
@@ -21,7 +21,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.orientechnologies.orient.core.command.OCommandManager;
 import com.orientechnologies.orient.core.command.OCommandRequestText;
+import com.orientechnologies.orient.core.command.ORunningCommand;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecordAbstract;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
@@ -74,6 +77,10 @@ public abstract class OCommandExecutorSQLExtractAbstract extends OCommandExecuto
 	protected List<OIdentifiable>											tempResult;
 	protected int																			resultCount;
 	protected int																			skip								= 0;
+	private int																				parsedLimit					= -1;
+	private int																				parsedSkip					= 0;
+	protected long																		timeout							= -1;
+	protected ORunningCommand													running;
 
 	/**
 	 * Compile the filter conditions only the first time.
@@ -84,6 +91,33 @@ public abstract class OCommandExecutorSQLExtractAbstract extends OCommandExecuto
 
 		init(iRequest.getText());
 
+		assignRequest(iRequest);
+		return this;
+	}
+
+	@Override
+	public OCommandExecutorSQLExtractAbstract reuse(final OCommandRequestText iRequest) {
+		getDatabase().checkSecurity(ODatabaseSecurityResources.COMMAND, ORole.PERMISSION_READ);
+
+		assignRequest(iRequest);
+
+		// LIMIT AND SKIP OF THE STATEMENT OVERRIDE THE ONES OF THE REQUEST
+		limit = parsedLimit > -1 ? parsedLimit : iRequest.getLimit();
+		skip = parsedSkip;
+		resultCount = 0;
+		compiledFilter.resetParameters();
+		return this;
+	}
+
+	@Override
+	public void clearExecution() {
+		request = null;
+		target = null;
+		tempResult = null;
+		parameters = null;
+	}
+
+	protected void assignRequest(final OCommandRequestText iRequest) {
 		if (iRequest instanceof OSQLSynchQuery) {
 			request = (OSQLSynchQuery<ORecordSchemaAware<?>>) iRequest;
 		} else if (iRequest instanceof OSQLAsynchQuery)
@@ -94,7 +128,6 @@ public abstract class OCommandExecutorSQLExtractAbstract extends OCommandExecuto
 			if (iRequest.getResultListener() != null)
 				request.setResultListener(iRequest.getResultListener());
 		}
-		return this;
 	}
 
 	public List<OIdentifiable> getResult() {
@@ -151,10 +184,14 @@ public abstract class OCommandExecutorSQLExtractAbstract extends OCommandExecuto
 
 		OIdentifiable recordCopy = iRecord instanceof ORecord<?> ? ((ORecord<?>) iRecord).copy() : iRecord.getIdentity().copy();
 
+		if (running != null)
+			running.checkResults(resultCount);
+
 		if (recordCopy != null)
 			// CALL THE LISTENER NOW
-			if (request.getResultListener() != null)
-				request.getResultListener().result(recordCopy);
+			if (request.getResultListener() != null && !request.getResultListener().result(recordCopy))
+				// STOPPED BY THE LISTENER
+				return false;
 
 		if (limit > -1 && resultCount >= limit)
 			// BREAK THE EXECUTION
@@ -163,6 +200,46 @@ public abstract class OCommandExecutorSQLExtractAbstract extends OCommandExecuto
 		return true;
 	}
 
+	/**
+	 * Registers the command as running, to be listed and killed, with its limits: the timeout set by the TIMEOUT keyword or by the
+	 * configuration, the maximum number of records read and, for the synchronous queries only, the maximum number of records
+	 * collected in memory.
+	 */
+	protected ORunningCommand startRunning() {
+		final ODatabaseRecord database = getDatabase();
+		running = new ORunningCommand(text, database.getName(), database.getUser() != null ? database.getUser().getName() : null,
+				timeout > -1 ? timeout : OGlobalConfiguration.COMMAND_TIMEOUT.getValueAsLong(),
+				OGlobalConfiguration.COMMAND_MAX_SCANNED_RECORDS.getValueAsLong(),
+				request instanceof OSQLSynchQuery ? OGlobalConfiguration.COMMAND_MAX_RESULT_RECORDS.getValueAsLong() : 0);
+		return OCommandManager.instance().registerRunningCommand(running);
+	}
+
+	protected void stopRunning() {
+		if (running != null) {
+			OCommandManager.instance().unregisterRunningCommand(running);
+			running = null;
+		}
+	}
+
+	/**
+	 * Parses the TIMEOUT keyword: the maximum time in ms of the execution.
+	 */
+	protected long parseTimeout(final StringBuilder word) throws OCommandSQLParsingException {
+		currentPos = OSQLHelper.nextWord(text, textUpperCase, currentPos, word, true);
+		try {
+			timeout = Long.parseLong(word.toString());
+		} catch (Exception e) {
+			throw new OCommandSQLParsingException("Invalid TIMEOUT value setted to '" + word
+					+ "' but it should be a valid number of milliseconds. Example: TIMEOUT 5000", text, currentPos);
+		}
+
+		if (timeout < 0)
+			throw new OCommandSQLParsingException("Invalid TIMEOUT value setted to the negative number '" + word
+					+ "'. Only positive numbers are valid. Example: TIMEOUT 5000", text, currentPos);
+
+		return timeout;
+	}
+
 	/**
 	 * Parses the limit keyword if found.
 	 * 
@@ -189,6 +266,7 @@ public abstract class OCommandExecutorSQLExtractAbstract extends OCommandExecuto
 			throw new OCommandSQLParsingException("Invalid LIMIT value setted to the negative number '" + word
 					+ "'. Only positive numbers are valid. Example: LIMIT 10", text, currentPos);
 
+		parsedLimit = limit;
 		return limit;
 	}
 
@@ -219,6 +297,7 @@ public abstract class OCommandExecutorSQLExtractAbstract extends OCommandExecuto
 			throw new OCommandSQLParsingException("Invalid SKIP value setted to the negative number '" + word
 					+ "'. Only positive numbers are valid. Example: SKIP 10", text, currentPos);
 
+		parsedSkip = skip;
 		return skip;
 	}
 
@@ -19,45 +19,47 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeSet;
 
 import com.orientechnologies.common.collection.OCompositeKey;
 import com.orientechnologies.common.concur.resource.OSharedResource;
-import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.common.parser.OStringParser;
 import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.common.util.OPair;
 import com.orientechnologies.orient.core.command.OBasicCommandContext;
 import com.orientechnologies.orient.core.command.OCommandRequestText;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
-import com.orientechnologies.orient.core.db.record.ORecordElement;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.exception.OQueryParsingException;
-import com.orientechnologies.orient.core.exception.ORecordNotFoundException;
-import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.hook.OHookHelper;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.index.*;
+import com.orientechnologies.orient.core.iterator.ORecordIteratorClusters;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.security.ODatabaseSecurityResources;
 import com.orientechnologies.orient.core.metadata.security.ORole;
 import com.orientechnologies.orient.core.record.ORecord;
-import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.record.impl.ODocumentHelper;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterCondition;
-import com.orientechnologies.orient.core.sql.filter.OSQLFilterItem;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemField;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
 import com.orientechnologies.orient.core.sql.functions.misc.OSQLFunctionCount;
 import com.orientechnologies.orient.core.sql.operator.OIndexReuseType;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperator;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorAnd;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorBetween;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorContains;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorContainsKey;
@@ -69,7 +71,19 @@ import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajor;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajorEquals;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinor;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinorEquals;
-import com.orientechnologies.orient.core.type.tree.OMVRBTreeRIDSet;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorOr;
+import com.orientechnologies.orient.core.sql.pipeline.OColumnarScanOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OFilterOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OFlattenOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OGroupOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OLimitOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OParallelScanOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OPipelineOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OProjectOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OScanOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OSkipOperator;
+import com.orientechnologies.orient.core.sql.pipeline.OSortOperator;
+import com.orientechnologies.orient.core.storage.OStorageEmbedded;
 
 /**
  * Executes the SQL SELECT statement. the parse() method compiles the query and builds the meta information needed by the execute().
@@ -87,12 +101,157 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 	public static final String					KEYWORD_ORDER					= "ORDER";
 	public static final String					KEYWORD_BY						= "BY";
 	public static final String					KEYWORD_ORDER_BY			= "ORDER BY";
+	public static final String					KEYWORD_GROUP					= "GROUP";
+	public static final String					KEYWORD_HAVING				= "HAVING";
+	public static final String					KEYWORD_PARALLEL			= "PARALLEL";
 
 	private Map<String, Object>					projections						= null;
 	private List<OPair<String, String>>	orderedFields;
 	private Object											flattenTarget;
 	private boolean											anyFunctionAggregates	= false;
 	private int													fetchLimit						= -1;
+	private boolean											countFromIndex				= false;
+	private List<Object>								groupByItems;
+	private OSQLFilter									having;
+	private boolean											orderedByIndex				= false;
+	private boolean											targetFiltered				= false;
+	private int													parallelDegree				= -1;
+
+	/**
+	 * Cost of loading a record expressed as number of index entries read. Used to decide when intersecting the RIDs of one more
+	 * index is cheaper than loading and filtering the records.
+	 */
+	private static final int						INDEX_MERGE_LOAD_COST	= 10;
+
+	/**
+	 * Cost of reading a record browsing the class, compared to loading it by RID. The class scan reads the records sequentially.
+	 */
+	private static final double					CLASS_SCAN_RECORD_COST	= 0.5;
+
+	/**
+	 * Index that can be used to search one of the variants of the condition, with its estimated cost.
+	 */
+	private static class OIndexCandidate {
+		private final OIndexSearchResult	searchResult;
+		private final OIndex<?>						index;
+		private final double							cost;
+
+		private OIndexCandidate(final OIndexSearchResult iSearchResult, final OIndex<?> iIndex, final double iCost) {
+			searchResult = iSearchResult;
+			index = iIndex;
+			cost = iCost;
+		}
+	}
+
+	/**
+	 * Node of the plan that combines the RIDs of more indexes before loading the records. Leaves search one index, the other nodes
+	 * intersect (AND) or unite (OR) the RIDs of their children.
+	 */
+	private static class OIndexMergeNode {
+		private final OIndex<?>								index;
+		private final OQueryOperator					operator;
+		private final Object									key;
+		private final Object									keyTo;
+		private final boolean									intersection;
+		private final List<OIndexMergeNode>	children;
+		private final long										estimatedRecords;
+
+		private OIndexMergeNode(final OIndex<?> iIndex, final OQueryOperator iOperator, final Object iKey, final Object iKeyTo,
+				final long iEstimatedRecords) {
+			index = iIndex;
+			operator = iOperator;
+			key = iKey;
+			keyTo = iKeyTo;
+			intersection = false;
+			children = null;
+			estimatedRecords = iEstimatedRecords;
+		}
+
+		private OIndexMergeNode(final boolean iIntersection, final List<OIndexMergeNode> iChildren, final long iEstimatedRecords) {
+			index = null;
+			operator = null;
+			key = null;
+			keyTo = null;
+			intersection = iIntersection;
+			children = iChildren;
+			estimatedRecords = iEstimatedRecords;
+		}
+
+		private long getIndexEntries() {
+			if (children == null)
+				return estimatedRecords;
+
+			long total = 0;
+			for (OIndexMergeNode child : children)
+				total += child.getIndexEntries();
+			return total;
+		}
+
+		private int getIndexCount() {
+			if (children == null)
+				return 1;
+
+			int total = 0;
+			for (OIndexMergeNode child : children)
+				total += child.getIndexCount();
+			return total;
+		}
+	}
+
+	/**
+	 * Records of an index in the order of their keys.
+	 */
+	private static class OIndexValuesIterable implements Iterable<OIdentifiable> {
+		private final OIndex<?>	index;
+		private final boolean		ascending;
+
+		private OIndexValuesIterable(final OIndex<?> iIndex, final boolean iAscending) {
+			index = iIndex;
+			ascending = iAscending;
+		}
+
+		public Iterator<OIdentifiable> iterator() {
+			final Iterator<? extends Entry<Object, ?>> entries = ascending ? index.iterator() : index.inverseIterator();
+
+			return new Iterator<OIdentifiable>() {
+				private Iterator<OIdentifiable>	values;
+				private OIdentifiable						next;
+
+				@SuppressWarnings("unchecked")
+				public boolean hasNext() {
+					while (next == null) {
+						if (values != null && values.hasNext())
+							next = values.next();
+						else if (entries.hasNext()) {
+							// THE NOT UNIQUE INDEXES HAVE MORE RECORDS FOR EVERY KEY
+							final Object value = entries.next().getValue();
+							if (value instanceof Collection<?>)
+								values = ((Collection<OIdentifiable>) value).iterator();
+							else {
+								values = null;
+								next = (OIdentifiable) value;
+							}
+						} else
+							return false;
+					}
+					return true;
+				}
+
+				public OIdentifiable next() {
+					if (!hasNext())
+						throw new NoSuchElementException();
+
+					final OIdentifiable result = next;
+					next = null;
+					return result;
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException("remove");
+				}
+			};
+		}
+	}
 
 	/**
 	 * Compile the filter conditions only the first time.
@@ -132,6 +291,14 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 						parseLimit(word);
 					else if (w.equals(KEYWORD_SKIP))
 						parseSkip(word);
+					else if (w.equals(KEYWORD_GROUP))
+						parseGroupBy(word);
+					else if (w.equals(KEYWORD_HAVING))
+						parseHaving();
+					else if (w.equals(KEYWORD_PARALLEL))
+						parseParallel(word);
+					else if (w.equals(KEYWORD_TIMEOUT))
+						parseTimeout(word);
 					else
 						throw new OCommandSQLParsingException("Invalid keyword '" + w + "'");
 				}
@@ -140,11 +307,48 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 		if (limit == 0 || limit < -1) {
 			throw new IllegalArgumentException("Limit must be > 0 or = -1 (no limit)");
 		}
+		if (groupByItems != null && flattenTarget != null)
+			throw new OCommandSQLParsingException("GROUP BY cannot be used with FLATTEN()", text, 0);
+		if (having != null && groupByItems == null)
+			throw new OCommandSQLParsingException("HAVING needs the GROUP BY clause", text, 0);
+		return this;
+	}
+
+	/**
+	 * Projections and conditions without functions and sub-queries can be executed again binding new parameters.
+	 */
+	@Override
+	public boolean isReusable() {
+		if (compiledFilter == null || compiledFilter.getTargetRecords() != null || flattenTarget != null)
+			return false;
+
+		if (projections != null)
+			for (Object projection : projections.values())
+				if (projection instanceof OSQLFunctionRuntime)
+					return false;
+
+		if (groupByItems != null)
+			for (Object item : groupByItems)
+				if (item instanceof OSQLFunctionRuntime)
+					return false;
+
+		return compiledFilter.isReusable() && (having == null || having.isReusable());
+	}
+
+	@Override
+	public OCommandExecutorSQLSelect reuse(final OCommandRequestText iRequest) {
+		super.reuse(iRequest);
+		fetchLimit = -1;
+		countFromIndex = false;
+		orderedByIndex = false;
+		targetFiltered = false;
 		return this;
 	}
 
 	public Object execute(final Map<Object, Object> iArgs) {
 		fetchLimit = getQueryFetchLimit();
+		orderedByIndex = false;
+		targetFiltered = false;
 
 		if (!assignTarget(iArgs)) {
 			if (compiledFilter.getTargetIndex() != null)
@@ -154,72 +358,207 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 						+ getSyntax());
 		}
 
-		executeSearch();
-
-		applyFlatten();
-		applyProjections();
-		applyOrderBy();
-		applyLimit();
+		startRunning();
+		try {
+			executePipeline();
+		} finally {
+			stopRunning();
+		}
 
 		return handleResult();
 	}
 
-	protected void executeSearch() {
-		if (target == null)
-			// SEARCH WITHOUT USING TARGET (USUALLY WHEN INDEXES ARE INVOLVED)
-			return;
+	/**
+	 * Pulls the records from the pipeline and sends them to the listener. The records of the database are copied only here, when
+	 * they are returned.
+	 */
+	protected void executePipeline() {
+		final OPipelineOperator pipeline = createPipeline();
+		try {
+			OIdentifiable record;
+			while ((record = pipeline.next()) != null) {
+				resultCount++;
 
-		// BROWSE ALL THE RECORDS
-		for (OIdentifiable id : target) {
-			final ORecordInternal<?> record = id.getRecord();
+				if (running != null)
+					running.checkResults(resultCount);
 
-			if (record == null || record.getRecordType() != ODocument.RECORD_TYPE)
-				// WRONG RECORD TYPE: JUMP IT
-				continue;
+				if (record instanceof ORecord<?> && record.getIdentity().isPersistent())
+					record = ((ORecord<?>) record).copy();
 
-			if (filter(record))
-				if (!addResult(record))
-					// END OF EXECUTION
+				if (request.getResultListener() != null && !request.getResultListener().result(record))
+					// STOPPED BY THE LISTENER
 					break;
+			}
+		} finally {
+			pipeline.close();
 		}
 	}
 
-	protected boolean addResult(final OIdentifiable iRecord) {
-		if (skip > 0) {
-			skip--;
-			return true;
+	/**
+	 * Creates the operators executing the query against the target found. Every operator pulls the records from the previous one.
+	 */
+	private OPipelineOperator createPipeline() {
+		OPipelineOperator pipeline = createScan();
+
+		int pipelineSkip = skip;
+		int pipelineLimit = getQueryLimit();
+
+		if (groupByItems != null)
+			pipeline = new OGroupOperator(pipeline, new OSQLGroupBy(groupByItems, projections, context, this,
+					OGlobalConfiguration.COMMAND_GROUP_BY_MAX_GROUPS.getValueAsInteger()), having);
+		else if (flattenTarget != null)
+			pipeline = new OFlattenOperator(pipeline, flattenTarget, context);
+		else if (projections != null) {
+			if (anyFunctionAggregates) {
+				// WITHOUT GROUP BY THE AGGREGATES ARE COMPUTED ON THE RECORDS BETWEEN SKIP AND LIMIT
+				pipeline = createSkipAndLimit(pipeline, pipelineSkip, pipelineLimit);
+				pipelineSkip = 0;
+				pipelineLimit = -1;
+			}
+			pipeline = new OProjectOperator(pipeline, projections, anyFunctionAggregates, context, this);
 		}
 
-		OIdentifiable recordCopy = iRecord instanceof ORecord<?> ? ((ORecord<?>) iRecord).copy() : iRecord.getIdentity().copy();
-		recordCopy = applyProjections(recordCopy);
+		if (orderedFields != null)
+			// ONLY THE FIRST SKIP + LIMIT RECORDS ARE KEPT WHILE SORTING
+			pipeline = new OSortOperator(pipeline, new OSQLOrderBy(orderedFields, pipelineLimit > -1 ? pipelineSkip + pipelineLimit
+					: -1, OGlobalConfiguration.COMMAND_ORDER_BY_MAX_RECORDS.getValueAsInteger()), orderedByIndex);
 
-		resultCount++;
+		return createSkipAndLimit(pipeline, pipelineSkip, pipelineLimit);
+	}
 
-		if (recordCopy != null)
-			if (anyFunctionAggregates || orderedFields != null || flattenTarget != null) {
-				// ORDER BY CLAUSE: COLLECT ALL THE RECORDS AND ORDER THEM AT THE END
-				if (tempResult == null)
-					tempResult = new ArrayList<OIdentifiable>();
+	/**
+	 * Creates the operators reading and filtering the records of the target. The clusters of a class or the clusters listed are
+	 * scanned by column if they are columnar, or by more threads if the query allows it.
+	 */
+	private OPipelineOperator createScan() {
+		if (target instanceof ORecordIteratorClusters<?>) {
+			final OPipelineOperator columnarScan = createColumnarScan();
+			if (columnarScan != null)
+				return columnarScan;
+		}
 
-				tempResult.add(recordCopy);
-			} else {
-				// CALL THE LISTENER NOW
-				if (request.getResultListener() != null)
-					request.getResultListener().result(recordCopy);
-			}
+		final int threads = getParallelDegree();
+		if (threads > 1 && target instanceof ORecordIteratorClusters<?> && isParallelizable()) {
+			final ODatabaseRecord database = getDatabase();
+			final int[] clusterIds = ((ORecordIteratorClusters<?>) target).getClusterIds();
+			for (int clusterId : clusterIds)
+				database.checkSecurity(ODatabaseSecurityResources.CLUSTER, ORole.PERMISSION_READ, database.getClusterNameById(clusterId));
+
+			// THE ORDER OF THE RECORDS IS KEPT ONLY IF IT IS THE ORDER OF THE RESULT
+			return new OParallelScanOperator(database, clusterIds, compiledFilter, context, running, threads, orderedFields == null
+					&& groupByItems == null && !anyFunctionAggregates, getMergeableAggregates(), this);
+		}
+
+		final OPipelineOperator pipeline = new OScanOperator(target != null ? target : Collections.<OIdentifiable> emptyList(),
+				running);
+		if (targetFiltered)
+			return pipeline;
+		return new OFilterOperator(pipeline, compiledFilter, context);
+	}
+
+	/**
+	 * Creates the scan of the columnar clusters of the target, if the conditions or the aggregate functions can be computed on the
+	 * columns, otherwise returns null. The columns are read directly from the local storage, so they hold only the committed records
+	 * and the hooks are not called.
+	 */
+	private OPipelineOperator createColumnarScan() {
+		final ODatabaseRecord database = getDatabase();
+		if (!(database.getStorage() instanceof OStorageEmbedded) || database.getTransaction().isActive()
+				|| OHookHelper.hasReadHooks(database))
+			return null;
+
+		final ORID[] range = getRange();
+		if (range[0] != null || range[1] != null)
+			return null;
+
+		List<OSQLFilterCondition> conditions = new ArrayList<OSQLFilterCondition>();
+		if (compiledFilter.getRootCondition() != null
+				&& !collectConditions(compiledFilter.getRootCondition(), OQueryOperatorAnd.class, conditions))
+			conditions = null;
+
+		// THE AGGREGATES ARE COMPUTED BY COLUMN ONLY IF THERE ARE NO OTHER PROJECTIONS
+		List<OSQLFunctionRuntime> aggregates = getMergeableAggregates();
+		if (aggregates != null && aggregates.size() != projections.size())
+			aggregates = null;
+
+		final int[] clusterIds = ((ORecordIteratorClusters<?>) target).getClusterIds();
+		final OColumnarScanOperator scan = OColumnarScanOperator.create(database, clusterIds, compiledFilter.getTargetClasses() != null
+				? compiledFilter.getTargetClasses().keySet().iterator().next() : null, conditions, compiledFilter, aggregates, context,
+				running, this);
+		if (scan == null)
+			return null;
 
-		if (fetchLimit > -1 && resultCount >= fetchLimit)
-			// BREAK THE EXECUTION
+		for (int clusterId : clusterIds)
+			database.checkSecurity(ODatabaseSecurityResources.CLUSTER, ORole.PERMISSION_READ, database.getClusterNameById(clusterId));
+
+		if (scan.isAggregating())
+			return scan;
+		// THE CONDITIONS NOT EVALUATED BY COLUMN ARE CHECKED ON THE RECORDS
+		return new OFilterOperator(scan, compiledFilter, context);
+	}
+
+	/**
+	 * Tells if the records can be read and filtered by more threads: the workers read the committed records directly from the local
+	 * storage, without calling the hooks, and cannot load other records.
+	 */
+	private boolean isParallelizable() {
+		final ODatabaseRecord database = getDatabase();
+		if (!(database.getStorage() instanceof OStorageEmbedded) || database.getTransaction().isActive()
+				|| OHookHelper.hasReadHooks(database))
 			return false;
 
-		return true;
+		final ORID[] range = getRange();
+		return range[0] == null && range[1] == null && compiledFilter.isConcurrent();
+	}
+
+	/**
+	 * Returns the aggregate functions if all of them can be computed in parts by the workers of the parallel scan, otherwise null.
+	 */
+	private List<OSQLFunctionRuntime> getMergeableAggregates() {
+		if (!anyFunctionAggregates || groupByItems != null || skip > 0 || getQueryLimit() > -1)
+			return null;
+
+		final List<OSQLFunctionRuntime> aggregates = new ArrayList<OSQLFunctionRuntime>();
+		for (Object projection : projections.values())
+			if (projection instanceof OSQLFunctionRuntime) {
+				if (!((OSQLFunctionRuntime) projection).canMergeResults())
+					return null;
+				aggregates.add((OSQLFunctionRuntime) projection);
+			}
+		return aggregates;
+	}
+
+	/**
+	 * Returns the number of threads scanning the clusters, set by the PARALLEL keyword or by the configuration.
+	 */
+	private int getParallelDegree() {
+		final int degree = parallelDegree > -1 ? parallelDegree : OGlobalConfiguration.COMMAND_PARALLEL_DEGREE.getValueAsInteger();
+		return degree == 0 ? Runtime.getRuntime().availableProcessors() : degree;
 	}
 
+	private OPipelineOperator createSkipAndLimit(OPipelineOperator iSource, final int iSkip, final int iLimit) {
+		if (iSkip > 0)
+			iSource = new OSkipOperator(iSource, iSkip);
+		if (iLimit > -1)
+			iSource = new OLimitOperator(iSource, iLimit);
+		return iSource;
+	}
+
+	/**
+	 * Returns the maximum number of records to fetch from the indexes, -1 if they cannot be limited.
+	 */
 	private int getQueryFetchLimit() {
-		if (orderedFields != null) {
+		if (orderedFields != null || groupByItems != null || flattenTarget != null)
 			return -1;
-		}
 
+		final int queryLimit = getQueryLimit();
+		return queryLimit > -1 ? skip + queryLimit : -1;
+	}
+
+	/**
+	 * Returns the lower between the LIMIT of the query and the limit of the request, -1 if both are unlimited.
+	 */
+	private int getQueryLimit() {
 		final int sqlLimit;
 		final int requestLimit;
 
@@ -270,7 +609,8 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 			fieldName = word.toString();
 
 			currentPos = OSQLHelper.nextWord(text, textUpperCase, currentPos, word, true);
-			if (currentPos == -1 || word.toString().equals(KEYWORD_LIMIT))
+			if (currentPos == -1 || word.toString().equals(KEYWORD_LIMIT) || word.toString().equals(KEYWORD_SKIP)
+					|| word.toString().equals(KEYWORD_PARALLEL) || word.toString().equals(KEYWORD_TIMEOUT))
 				// END/NEXT CLAUSE: SET AS ASC BY DEFAULT
 				fieldOrdering = KEYWORD_ASC;
 			else {
@@ -305,16 +645,137 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 					currentPos);
 	}
 
+	public List<Object> getGroupByItems() {
+		return groupByItems;
+	}
+
+	protected void parseGroupBy(final StringBuilder word) {
+		final int newPos = OSQLHelper.nextWord(text, textUpperCase, currentPos, word, true);
+
+		if (!KEYWORD_BY.equals(word.toString()))
+			throw new OQueryParsingException("Expected keyword " + KEYWORD_BY);
+
+		currentPos = newPos;
+
+		groupByItems = new ArrayList<Object>();
+		while (currentPos != -1) {
+			currentPos = OSQLHelper.nextWord(text, textUpperCase, currentPos, word, false, " ,");
+			if (currentPos == -1 || word.length() == 0)
+				throw new OCommandSQLParsingException("Group by field set was missed. Example: GROUP BY city, country", text, currentPos);
+
+			groupByItems.add(OSQLHelper.parseValue(this, word.toString(), context));
+
+			currentPos = OStringParser.jumpWhiteSpaces(text, currentPos);
+			if (currentPos == -1 || text.charAt(currentPos) != ',')
+				break;
+
+			// NEXT FIELD
+			currentPos++;
+		}
+	}
+
+	/**
+	 * Parses the HAVING conditions. They are evaluated against the documents of the groups, so they refer to the projections by
+	 * name or alias. Example: SELECT city, count(*) AS total FROM Person GROUP BY city HAVING total > 10
+	 */
+	protected void parseHaving() {
+		final int havingPosition = currentPos;
+
+		having = OSQLEngine.getInstance().parseCondition(text.substring(havingPosition), context);
+		if (having.getRootCondition() == null)
+			throw new OCommandSQLParsingException("HAVING conditions were missed. Example: HAVING total > 10", text, havingPosition);
+
+		currentPos = having.currentPos < 0 ? -1 : having.currentPos + havingPosition;
+	}
+
+	/**
+	 * Parses the PARALLEL keyword, optionally followed by the number of threads. Without it a thread per processor is used.
+	 * Example: SELECT count(*) FROM Account WHERE amount > 100 PARALLEL 8
+	 */
+	protected void parseParallel(final StringBuilder word) {
+		parallelDegree = 0;
+
+		final int nextPosition = OSQLHelper.nextWord(text, textUpperCase, currentPos, word, true);
+		if (nextPosition == -1 || word.length() == 0 || !Character.isDigit(word.charAt(0)))
+			// NO NUMBER OF THREADS
+			return;
+
+		try {
+			parallelDegree = Integer.parseInt(word.toString());
+		} catch (Exception e) {
+			throw new OCommandSQLParsingException("Invalid PARALLEL value setted to '" + word
+					+ "' but it should be a valid positive integer. Example: PARALLEL 4", text, currentPos);
+		}
+		currentPos = nextPosition;
+	}
+
 	@Override
 	protected void searchInClasses() {
 		final OClass cls = compiledFilter.getTargetClasses().keySet().iterator().next();
 
 		if (searchForIndexes(cls))
 			OProfiler.getInstance().updateCounter("Query.indexUsage", 1);
+		else if (searchInOrderedIndex(cls))
+			OProfiler.getInstance().updateCounter("Query.indexOrderUsage", 1);
 		else
 			super.searchInClasses();
 	}
 
+	/**
+	 * Browses the records in the order of the index of the only ORDER BY field, so the search stops as soon as SKIP + LIMIT records
+	 * are found. The index is used only if it contains all the records of the class, since the null values are not indexed.
+	 * 
+	 * @return true if the records are browsed through the index, otherwise false
+	 */
+	private boolean searchInOrderedIndex(final OClass iSchemaClass) {
+		if (orderedFields == null || orderedFields.size() != 1 || groupByItems != null || flattenTarget != null || anyFunctionAggregates
+				|| getQueryLimit() == -1 || iSchemaClass.getBaseClasses() != null)
+			return false;
+
+		final String fieldName = getOrderedFieldSource(orderedFields.get(0).getKey());
+		if (fieldName == null)
+			return false;
+
+		final long classRecords = iSchemaClass.count();
+		for (final OIndex<?> index : iSchemaClass.getClassIndexes()) {
+			final OIndexDefinition indexDefinition = index.getDefinition();
+			if (!(indexDefinition instanceof OPropertyIndexDefinition) || !indexDefinition.getFields().get(0).equals(fieldName))
+				continue;
+
+			final OIndex<?> internalIndex = index.getInternal();
+			if (!(internalIndex instanceof OIndexUnique || internalIndex instanceof OIndexNotUnique))
+				continue;
+
+			final OIndexStatistics statistics = index.getStatistics();
+			if (statistics == null || statistics.getEntries() != classRecords)
+				// SOME RECORDS ARE NOT INDEXED
+				continue;
+
+			target = new OIndexValuesIterable(index, orderedFields.get(0).getValue().equals(KEYWORD_ASC));
+			orderedByIndex = true;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the field of the record the ORDER BY field is read from, or null if it is computed by a projection.
+	 */
+	private String getOrderedFieldSource(final String iOrderedField) {
+		if (projections == null)
+			return iOrderedField;
+
+		final Object projection = projections.get(iOrderedField);
+		if (projection == null)
+			return projections.containsValue("*") ? iOrderedField : null;
+
+		if (projection instanceof OSQLFilterItemField && !((OSQLFilterItemField) projection).hasChainOperators())
+			return ((OSQLFilterItemField) projection).getRoot();
+
+		return null;
+	}
+
 	@SuppressWarnings("rawtypes")
 	private boolean searchForIndexes(final OClass iSchemaClass) {
 		final ODatabaseRecord database = getDatabase();
@@ -334,384 +795,913 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 			}
 		});
 
-		// go through all variants to choose which one can be used for index search.
+		// LIST ALL THE INDEXES USABLE BY EVERY VARIANT: THE LESS PARAMETERS THE BETTER
+		final List<OIndexCandidate> candidates = new ArrayList<OIndexCandidate>();
+		boolean estimated = true;
 		for (final OIndexSearchResult searchResult : indexSearchResults) {
+			final List<OIndex<?>> involvedIndexes = getInvolvedIndexes(iSchemaClass, searchResult);
+			Collections.sort(involvedIndexes, new Comparator<OIndex>() {
+				public int compare(final OIndex indexOne, final OIndex indexTwo) {
+					return indexOne.getDefinition().getParamCount() - indexTwo.getDefinition().getParamCount();
+				}
+			});
+
+			for (final OIndex<?> index : involvedIndexes) {
+				// we need to test that last field in query subset and field in index that has the same position
+				// are equals.
+				if (!(searchResult.lastOperator instanceof OQueryOperatorEquals)) {
+					final String lastFiled = searchResult.lastField.getItemName(searchResult.lastField.getItemCount() - 1);
+					final String relatedIndexField = index.getDefinition().getFields().get(searchResult.fieldValuePairs.size());
+					if (!lastFiled.equals(relatedIndexField))
+						continue;
+				}
+
+				final OIndexCandidate candidate = new OIndexCandidate(searchResult, index, getIndexSearchCost(iSchemaClass, index,
+						searchResult));
+				if (candidate.cost < 0)
+					estimated = false;
+				candidates.add(candidate);
+			}
+		}
+
+		double bestIndexCost = Double.MAX_VALUE;
+		if (!candidates.isEmpty()) {
+			if (estimated) {
+				// WITH STATISTICS THE CHEAPEST INDEX GOES FIRST
+				Collections.sort(candidates, new Comparator<OIndexCandidate>() {
+					public int compare(final OIndexCandidate candidateOne, final OIndexCandidate candidateTwo) {
+						return Double.compare(candidateOne.cost, candidateTwo.cost);
+					}
+				});
+				bestIndexCost = candidates.get(0).cost;
+			} else if (candidates.get(0).searchResult.getFieldCount() > 1)
+				// A COMPOSITE INDEX IS BETTER THAN MERGING THE RESULTS OF MORE INDEXES
+				bestIndexCost = 0;
+		}
+
+		final long classRecords = iSchemaClass.count();
+		final double classScanCost = classRecords * CLASS_SCAN_RECORD_COST;
+
+		if (searchWithIndexMerge(iSchemaClass, classRecords, Math.min(bestIndexCost, classScanCost)))
+			return true;
+
+		if (estimated && !candidates.isEmpty() && bestIndexCost >= classScanCost) {
+			// BROWSING THE CLASS IS CHEAPER THAN LOADING THE RECORDS FOUND BY THE INDEXES
+			OProfiler.getInstance().updateCounter("Query.indexDiscardedByCost", 1);
+			countFromIndex = false;
+			return false;
+		}
+
+		// go through all variants to choose which one can be used for index search.
+		for (final OIndexCandidate candidate : candidates) {
+			final OIndexSearchResult searchResult = candidate.searchResult;
+			final OIndex index = candidate.index;
 			final int searchResultFieldsCount = searchResult.fields().size();
 
-			final List<OIndex<?>> involvedIndexes = getInvolvedIndexes(iSchemaClass, searchResult);
-			Collections.sort(involvedIndexes, new Comparator<OIndex>() {
-				public int compare(final OIndex indexOne, final OIndex indexTwo) {
-					return indexOne.getDefinition().getParamCount() - indexTwo.getDefinition().getParamCount();
+			final OIndexDefinition indexDefinition = index.getDefinition();
+			final OQueryOperator operator = searchResult.lastOperator;
+
+			final List<Object> keyParams = new ArrayList<Object>(searchResultFieldsCount);
+			// We get only subset contained in processed sub query.
+			for (final String fieldName : indexDefinition.getFields().subList(0, searchResultFieldsCount)) {
+				final Object fieldValue = searchResult.fieldValuePairs.get(fieldName);
+				if (fieldValue != null)
+					keyParams.add(fieldValue);
+				else
+					keyParams.add(searchResult.lastValue);
+			}
+
+			final OIndex internalIndex = index.getInternal();
+			final boolean indexCanBeUsedInEqualityOperators = (internalIndex instanceof OIndexUnique || internalIndex instanceof OIndexNotUnique);
+
+			// CHECK IF THE INDEX ALONE CAN ANSWER THE QUERY WITHOUT LOADING THE RECORDS. NOT IN TX: THE RANGE SEARCHES DON'T SEE THE
+			// INDEX CHANGES OF THE TRANSACTION, SO THE RECORDS ARE LOADED AND CHECKED AGAIN AGAINST THE CONDITIONS
+			final boolean indexOnly = indexCanBeUsedInEqualityOperators && !database.getTransaction().isActive()
+					&& isConditionCoveredByIndex(iSchemaClass, indexDefinition, searchResult);
+			if (indexOnly && areProjectionsCoveredByIndex(indexDefinition)
+					&& searchInIndexKeys(index, indexDefinition, operator, keyParams)) {
+				OProfiler.getInstance().updateCounter("Query.indexOnlyUsage", 1);
+				return true;
+			}
+			countFromIndex = indexOnly && isCountAllProjection();
+
+			if (indexDefinition.getParamCount() == 1) {
+				if (indexCanBeUsedInEqualityOperators && operator instanceof OQueryOperatorBetween) {
+					final Object[] betweenKeys = (Object[]) keyParams.get(0);
+
+					final Object keyOne = indexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[0])));
+					final Object keyTwo = indexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[2])));
+
+					if (keyOne == null || keyTwo == null)
+						continue;
+
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
+					else
+						result = index.getValuesBetween(keyOne, true, keyTwo, true);
+
+					fillSearchIndexResultSet(result);
+					return true;
+				}
+
+				if (indexCanBeUsedInEqualityOperators && operator instanceof OQueryOperatorIn) {
+					final List<Object> inParams = (List<Object>) keyParams.get(0);
+					final List<Object> inKeys = new ArrayList<Object>();
+
+					boolean containsNotCompatibleKey = false;
+					for (final Object keyValue : inParams) {
+						final Object key = indexDefinition.createValue(OSQLHelper.getValue(keyValue));
+						if (key == null) {
+							containsNotCompatibleKey = true;
+							break;
+						}
+
+						inKeys.add(key);
+
+					}
+					if (containsNotCompatibleKey)
+						continue;
+
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValues(inKeys, fetchLimit);
+					else
+						result = index.getValues(inKeys);
+
+					fillSearchIndexResultSet(result);
+					return true;
+				}
+
+				final Object key;
+				if (indexDefinition instanceof OIndexDefinitionMultiValue)
+					key = ((OIndexDefinitionMultiValue) indexDefinition).createSingleValue(keyParams.get(0));
+				else
+					key = indexDefinition.createValue(keyParams);
+
+				if (key == null)
+					continue;
+
+				if (internalIndex instanceof OIndexFullText && operator instanceof OQueryOperatorContainsText) {
+					fillSearchIndexResultSet(index.get(key));
+					return true;
+				}
+
+				if (!indexCanBeUsedInEqualityOperators)
+					continue;
+
+				if (operator instanceof OQueryOperatorEquals) {
+					fillSearchIndexResultSet(index.get(key));
+					return true;
+				}
+
+				if (operator instanceof OQueryOperatorContainsKey) {
+					if ((index.getDefinition() instanceof OPropertyMapIndexDefinition)
+							&& ((OPropertyMapIndexDefinition) index.getDefinition()).getIndexBy() == OPropertyMapIndexDefinition.INDEX_BY.KEY) {
+						fillSearchIndexResultSet(index.get(key));
+						return true;
+					}
+					continue;
+				}
+
+				if (operator instanceof OQueryOperatorContainsValue) {
+					if ((index.getDefinition() instanceof OPropertyMapIndexDefinition)
+							&& ((OPropertyMapIndexDefinition) index.getDefinition()).getIndexBy() == OPropertyMapIndexDefinition.INDEX_BY.VALUE) {
+						fillSearchIndexResultSet(index.get(key));
+						return true;
+					}
+					continue;
+				}
+
+				if (operator instanceof OQueryOperatorContains) {
+					fillSearchIndexResultSet(index.get(key));
+					return true;
+				}
+
+				if (operator instanceof OQueryOperatorMajor) {
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesMajor(key, false, fetchLimit);
+					else
+						result = index.getValuesMajor(key, false);
+
+					fillSearchIndexResultSet(result);
+					return true;
+				}
+
+				if (operator instanceof OQueryOperatorMajorEquals) {
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesMajor(key, true, fetchLimit);
+					else
+						result = index.getValuesMajor(key, true);
+
+					fillSearchIndexResultSet(result);
+					return true;
+				}
+
+				if (operator instanceof OQueryOperatorMinor) {
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesMinor(key, false, fetchLimit);
+					else
+						result = index.getValuesMinor(key, false);
+
+					fillSearchIndexResultSet(result);
+					return true;
+				}
+
+				if (operator instanceof OQueryOperatorMinorEquals) {
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesMinor(key, true, fetchLimit);
+					else
+						result = index.getValuesMinor(key, true);
+
+					fillSearchIndexResultSet(result);
+					return true;
+				}
+			} else {
+				if (!indexCanBeUsedInEqualityOperators)
+					continue;
+
+				if (operator instanceof OQueryOperatorBetween) {
+					final Object[] betweenKeys = (Object[]) keyParams.get(keyParams.size() - 1);
+
+					final Object betweenKeyOne = OSQLHelper.getValue(betweenKeys[0]);
+
+					if (betweenKeyOne == null)
+						continue;
+
+					final Object betweenKeyTwo = OSQLHelper.getValue(betweenKeys[2]);
+
+					if (betweenKeyTwo == null)
+						continue;
+
+					final List<Object> betweenKeyOneParams = new ArrayList<Object>(keyParams.size());
+					betweenKeyOneParams.addAll(keyParams.subList(0, keyParams.size() - 1));
+					betweenKeyOneParams.add(betweenKeyOne);
+
+					final List<Object> betweenKeyTwoParams = new ArrayList<Object>(keyParams.size());
+					betweenKeyTwoParams.addAll(keyParams.subList(0, keyParams.size() - 1));
+					betweenKeyTwoParams.add(betweenKeyTwo);
+
+					final Object keyOne = indexDefinition.createValue(betweenKeyOneParams);
+
+					if (keyOne == null)
+						continue;
+
+					final Object keyTwo = indexDefinition.createValue(betweenKeyTwoParams);
+
+					if (keyTwo == null)
+						continue;
+
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
+					else
+						result = index.getValuesBetween(keyOne, true, keyTwo, true);
+
+					fillSearchIndexResultSet(result);
+
+					if (OProfiler.getInstance().isRecording()) {
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
+					}
+
+					return true;
 				}
-			});
 
-			// go through all possible index for given set of fields.
-			for (final OIndex index : involvedIndexes) {
-				final OIndexDefinition indexDefinition = index.getDefinition();
-				final OQueryOperator operator = searchResult.lastOperator;
+				if (operator instanceof OQueryOperatorEquals) {
+					// in case of composite keys several items can be returned in case of we perform search
+					// using part of composite key stored in index.
 
-				// we need to test that last field in query subset and field in index that has the same position
-				// are equals.
-				if (!(operator instanceof OQueryOperatorEquals)) {
-					final String lastFiled = searchResult.lastField.getItemName(searchResult.lastField.getItemCount() - 1);
-					final String relatedIndexField = indexDefinition.getFields().get(searchResult.fieldValuePairs.size());
-					if (!lastFiled.equals(relatedIndexField))
+					final Object keyOne = indexDefinition.createValue(keyParams);
+
+					if (keyOne == null)
 						continue;
-				}
 
-				final List<Object> keyParams = new ArrayList<Object>(searchResultFieldsCount);
-				// We get only subset contained in processed sub query.
-				for (final String fieldName : indexDefinition.getFields().subList(0, searchResultFieldsCount)) {
-					final Object fieldValue = searchResult.fieldValuePairs.get(fieldName);
-					if (fieldValue != null)
-						keyParams.add(fieldValue);
+					final Object keyTwo = indexDefinition.createValue(keyParams);
+
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
 					else
-						keyParams.add(searchResult.lastValue);
+						result = index.getValuesBetween(keyOne, true, keyTwo, true);
+
+					fillSearchIndexResultSet(result);
+
+					if (OProfiler.getInstance().isRecording()) {
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
+					}
+					return true;
 				}
 
-				final OIndex internalIndex = index.getInternal();
-				final boolean indexCanBeUsedInEqualityOperators = (internalIndex instanceof OIndexUnique || internalIndex instanceof OIndexNotUnique);
+				if (operator instanceof OQueryOperatorMajor) {
+					// if we have situation like "field1 = 1 AND field2 > 2"
+					// then we fetch collection which left not included boundary is the smallest composite key in the
+					// index that contains keys with values field1=1 and field2=2 and which right included boundary
+					// is the biggest composite key in the index that contains key with value field1=1.
 
-				if (indexDefinition.getParamCount() == 1) {
-					if (indexCanBeUsedInEqualityOperators && operator instanceof OQueryOperatorBetween) {
-						final Object[] betweenKeys = (Object[]) keyParams.get(0);
+					final Object keyOne = indexDefinition.createValue(keyParams);
 
-						final Object keyOne = indexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[0])));
-						final Object keyTwo = indexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[2])));
+					if (keyOne == null)
+						continue;
 
-						if (keyOne == null || keyTwo == null)
-							continue;
+					final Object keyTwo = indexDefinition.createValue(keyParams.subList(0, keyParams.size() - 1));
 
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
-						else
-							result = index.getValuesBetween(keyOne, true, keyTwo, true);
+					if (keyTwo == null)
+						continue;
 
-						fillSearchIndexResultSet(result);
-						return true;
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesBetween(keyOne, false, keyTwo, true, fetchLimit);
+					else
+						result = index.getValuesBetween(keyOne, false, keyTwo, true);
+
+					fillSearchIndexResultSet(result);
+
+					if (OProfiler.getInstance().isRecording()) {
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
 					}
+					return true;
+				}
 
-					if (indexCanBeUsedInEqualityOperators && operator instanceof OQueryOperatorIn) {
-						final List<Object> inParams = (List<Object>) keyParams.get(0);
-						final List<Object> inKeys = new ArrayList<Object>();
+				if (operator instanceof OQueryOperatorMajorEquals) {
+					// if we have situation like "field1 = 1 AND field2 >= 2"
+					// then we fetch collection which left included boundary is the smallest composite key in the
+					// index that contains keys with values field1=1 and field2=2 and which right included boundary
+					// is the biggest composite key in the index that contains key with value field1=1.
 
-						boolean containsNotCompatibleKey = false;
-						for (final Object keyValue : inParams) {
-							final Object key = indexDefinition.createValue(OSQLHelper.getValue(keyValue));
-							if (key == null) {
-								containsNotCompatibleKey = true;
-								break;
-							}
+					final Object keyOne = indexDefinition.createValue(keyParams);
+
+					if (keyOne == null)
+						continue;
 
-							inKeys.add(key);
+					final Object keyTwo = indexDefinition.createValue(keyParams.subList(0, keyParams.size() - 1));
 
-						}
-						if (containsNotCompatibleKey)
-							continue;
+					if (keyTwo == null)
+						continue;
+
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
+					else
+						result = index.getValuesBetween(keyOne, true, keyTwo, true);
 
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValues(inKeys, fetchLimit);
-						else
-							result = index.getValues(inKeys);
+					fillSearchIndexResultSet(result);
 
-						fillSearchIndexResultSet(result);
-						return true;
+					if (OProfiler.getInstance().isRecording()) {
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
 					}
+					return true;
+				}
 
-					final Object key;
-					if (indexDefinition instanceof OIndexDefinitionMultiValue)
-						key = ((OIndexDefinitionMultiValue) indexDefinition).createSingleValue(keyParams.get(0));
-					else
-						key = indexDefinition.createValue(keyParams);
+				if (operator instanceof OQueryOperatorMinor) {
+					// if we have situation like "field1 = 1 AND field2 < 2"
+					// then we fetch collection which left included boundary is the smallest composite key in the
+					// index that contains key with value field1=1 and which right not included boundary
+					// is the biggest composite key in the index that contains key with values field1=1 and field2=2.
 
-					if (key == null)
+					final Object keyOne = indexDefinition.createValue(keyParams.subList(0, keyParams.size() - 1));
+
+					if (keyOne == null)
 						continue;
 
-					if (internalIndex instanceof OIndexFullText && operator instanceof OQueryOperatorContainsText) {
-						fillSearchIndexResultSet(index.get(key));
-						return true;
-					}
+					final Object keyTwo = indexDefinition.createValue(keyParams);
 
-					if (!indexCanBeUsedInEqualityOperators)
+					if (keyTwo == null)
 						continue;
 
-					if (operator instanceof OQueryOperatorEquals) {
-						fillSearchIndexResultSet(index.get(key));
-						return true;
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesBetween(keyOne, true, keyTwo, false, fetchLimit);
+					else
+						result = index.getValuesBetween(keyOne, true, keyTwo, false);
+
+					fillSearchIndexResultSet(result);
+
+					if (OProfiler.getInstance().isRecording()) {
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
 					}
+					return true;
+				}
 
-					if (operator instanceof OQueryOperatorContainsKey) {
-						if ((index.getDefinition() instanceof OPropertyMapIndexDefinition)
-								&& ((OPropertyMapIndexDefinition) index.getDefinition()).getIndexBy() == OPropertyMapIndexDefinition.INDEX_BY.KEY) {
-							fillSearchIndexResultSet(index.get(key));
-							return true;
-						}
+				if (operator instanceof OQueryOperatorMinorEquals) {
+					// if we have situation like "field1 = 1 AND field2 <= 2"
+					// then we fetch collection which left included boundary is the smallest composite key in the
+					// index that contains key with value field1=1 and which right not included boundary
+					// is the biggest composite key in the index that contains key with value field1=1 and field2=2.
+
+					final Object keyOne = indexDefinition.createValue(keyParams.subList(0, keyParams.size() - 1));
+
+					if (keyOne == null)
 						continue;
-					}
 
-					if (operator instanceof OQueryOperatorContainsValue) {
-						if ((index.getDefinition() instanceof OPropertyMapIndexDefinition)
-								&& ((OPropertyMapIndexDefinition) index.getDefinition()).getIndexBy() == OPropertyMapIndexDefinition.INDEX_BY.VALUE) {
-							fillSearchIndexResultSet(index.get(key));
-							return true;
-						}
+					final Object keyTwo = indexDefinition.createValue(keyParams);
+
+					if (keyTwo == null)
 						continue;
-					}
 
-					if (operator instanceof OQueryOperatorContains) {
-						fillSearchIndexResultSet(index.get(key));
-						return true;
-					}
+					final Collection<OIdentifiable> result;
+					if (fetchLimit > -1)
+						result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
+					else
+						result = index.getValuesBetween(keyOne, true, keyTwo, true);
 
-					if (operator instanceof OQueryOperatorMajor) {
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesMajor(key, false, fetchLimit);
-						else
-							result = index.getValuesMajor(key, false);
+					fillSearchIndexResultSet(result);
 
-						fillSearchIndexResultSet(result);
-						return true;
+					if (OProfiler.getInstance().isRecording()) {
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
+						OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
 					}
+					return true;
+				}
+			}
+		}
+		countFromIndex = false;
+		return false;
+	}
+
+	/**
+	 * Searches the records combining the RIDs returned by more single field indexes: AND-ed conditions intersect the RIDs, OR-ed
+	 * conditions unite them. The records are loaded in RID order and filtered against the whole condition.
+	 * 
+	 * @param iMaxCost
+	 *          Cost of the best alternative: the merge is executed only if cheaper
+	 * @return true if the search was executed, false if the plan involves less than 2 indexes or it is not cheaper than the
+	 *         alternative
+	 */
+	private boolean searchWithIndexMerge(final OClass iSchemaClass, final long iClassRecords, final double iMaxCost) {
+		final OIndexMergeNode plan = planIndexMerge(iSchemaClass, compiledFilter.getRootCondition(), iClassRecords);
+		if (plan == null || plan.getIndexCount() < 2
+				|| (double) plan.getIndexEntries() / INDEX_MERGE_LOAD_COST + plan.estimatedRecords >= iMaxCost)
+			return false;
 
-					if (operator instanceof OQueryOperatorMajorEquals) {
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesMajor(key, true, fetchLimit);
-						else
-							result = index.getValuesMajor(key, true);
+		countFromIndex = false;
+		fillSearchIndexResultSet(executeIndexMerge(plan));
 
-						fillSearchIndexResultSet(result);
-						return true;
-					}
+		OProfiler.getInstance().updateCounter("Query.indexMergeUsage", 1);
+		return true;
+	}
 
-					if (operator instanceof OQueryOperatorMinor) {
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesMinor(key, false, fetchLimit);
-						else
-							result = index.getValuesMinor(key, false);
+	private OIndexMergeNode planIndexMerge(final OClass iSchemaClass, final OSQLFilterCondition iCondition, final long iClassRecords) {
+		if (iCondition == null)
+			return null;
 
-						fillSearchIndexResultSet(result);
-						return true;
-					}
+		final OQueryOperator operator = iCondition.getOperator();
+		if (operator == null) {
+			if (iCondition.getRight() == null && iCondition.getLeft() instanceof OSQLFilterCondition)
+				return planIndexMerge(iSchemaClass, (OSQLFilterCondition) iCondition.getLeft(), iClassRecords);
+			return null;
+		}
 
-					if (operator instanceof OQueryOperatorMinorEquals) {
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesMinor(key, true, fetchLimit);
-						else
-							result = index.getValuesMinor(key, true);
+		final OIndexReuseType indexReuseType = operator.getIndexReuseType(iCondition.getLeft(), iCondition.getRight());
 
-						fillSearchIndexResultSet(result);
-						return true;
-					}
-				} else {
-					if (!indexCanBeUsedInEqualityOperators)
-						continue;
+		if (indexReuseType == OIndexReuseType.INDEX_METHOD)
+			return planIndexMergeLeaf(iSchemaClass, iCondition);
 
-					if (operator instanceof OQueryOperatorBetween) {
-						final Object[] betweenKeys = (Object[]) keyParams.get(keyParams.size() - 1);
+		if (indexReuseType == OIndexReuseType.INDEX_INTERSECTION) {
+			final List<OSQLFilterCondition> conditions = new ArrayList<OSQLFilterCondition>();
+			collectConditions(iCondition, OQueryOperatorAnd.class, conditions);
 
-						final Object betweenKeyOne = OSQLHelper.getValue(betweenKeys[0]);
+			// CONDITIONS WITHOUT INDEX ARE CHECKED LATER AGAINST THE LOADED RECORDS
+			final List<OIndexMergeNode> candidates = new ArrayList<OIndexMergeNode>();
+			for (OSQLFilterCondition condition : conditions) {
+				final OIndexMergeNode node = planIndexMerge(iSchemaClass, condition, iClassRecords);
+				if (node != null)
+					candidates.add(node);
+			}
 
-						if (betweenKeyOne == null)
-							continue;
+			if (candidates.isEmpty())
+				return null;
 
-						final Object betweenKeyTwo = OSQLHelper.getValue(betweenKeys[2]);
+			Collections.sort(candidates, new Comparator<OIndexMergeNode>() {
+				public int compare(final OIndexMergeNode o1, final OIndexMergeNode o2) {
+					return o1.estimatedRecords < o2.estimatedRecords ? -1 : (o1.estimatedRecords == o2.estimatedRecords ? 0 : 1);
+				}
+			});
 
-						if (betweenKeyTwo == null)
-							continue;
+			// START FROM THE MOST SELECTIVE INDEX AND INTERSECT THE NEXT ONES UNTIL READING THEM COSTS MORE THAN THE LOADS THEY SAVE
+			final List<OIndexMergeNode> children = new ArrayList<OIndexMergeNode>();
+			long estimatedRecords = candidates.get(0).estimatedRecords;
+			children.add(candidates.get(0));
 
-						final List<Object> betweenKeyOneParams = new ArrayList<Object>(keyParams.size());
-						betweenKeyOneParams.addAll(keyParams.subList(0, keyParams.size() - 1));
-						betweenKeyOneParams.add(betweenKeyOne);
+			for (int i = 1; i < candidates.size() && estimatedRecords > 0; ++i) {
+				final OIndexMergeNode candidate = candidates.get(i);
+				final double selectivity = iClassRecords > 0 ? (double) candidate.estimatedRecords / iClassRecords : 1;
+				if (candidate.estimatedRecords >= estimatedRecords * (1 - selectivity) * INDEX_MERGE_LOAD_COST)
+					break;
 
-						final List<Object> betweenKeyTwoParams = new ArrayList<Object>(keyParams.size());
-						betweenKeyTwoParams.addAll(keyParams.subList(0, keyParams.size() - 1));
-						betweenKeyTwoParams.add(betweenKeyTwo);
+				children.add(candidate);
+				estimatedRecords = Math.max(1, (long) (estimatedRecords * selectivity));
+			}
 
-						final Object keyOne = indexDefinition.createValue(betweenKeyOneParams);
+			return children.size() == 1 ? children.get(0) : new OIndexMergeNode(true, children, estimatedRecords);
+		}
 
-						if (keyOne == null)
-							continue;
+		if (indexReuseType == OIndexReuseType.INDEX_UNION) {
+			final List<OSQLFilterCondition> conditions = new ArrayList<OSQLFilterCondition>();
+			if (!collectConditions(iCondition, OQueryOperatorOr.class, conditions))
+				return null;
 
-						final Object keyTwo = indexDefinition.createValue(betweenKeyTwoParams);
+			// EVERY BRANCH MUST BE ANSWERED BY INDEXES, OTHERWISE ALL THE RECORDS MUST BE SCANNED ANYWAY
+			final List<OIndexMergeNode> children = new ArrayList<OIndexMergeNode>();
+			long estimatedRecords = 0;
+			for (OSQLFilterCondition condition : conditions) {
+				final OIndexMergeNode node = planIndexMerge(iSchemaClass, condition, iClassRecords);
+				if (node == null)
+					return null;
 
-						if (keyTwo == null)
-							continue;
+				children.add(node);
+				estimatedRecords += node.estimatedRecords;
+			}
 
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
-						else
-							result = index.getValuesBetween(keyOne, true, keyTwo, true);
+			return new OIndexMergeNode(false, children, Math.min(estimatedRecords, iClassRecords));
+		}
 
-						fillSearchIndexResultSet(result);
+		return null;
+	}
 
-						if (OProfiler.getInstance().isRecording()) {
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
-						}
+	/**
+	 * Plans the search of a single condition against the cheapest single field index available for it.
+	 */
+	private OIndexMergeNode planIndexMergeLeaf(final OClass iSchemaClass, final OSQLFilterCondition iCondition) {
+		OIndexSearchResult searchResult = createIndexedProperty(iCondition, iCondition.getLeft());
+		if (searchResult == null)
+			searchResult = createIndexedProperty(iCondition, iCondition.getRight());
 
-						return true;
-					}
+		if (searchResult == null || searchResult.lastField.isLong())
+			return null;
+
+		final OQueryOperator operator = searchResult.lastOperator;
 
-					if (operator instanceof OQueryOperatorEquals) {
-						// in case of composite keys several items can be returned in case of we perform search
-						// using part of composite key stored in index.
+		OIndexMergeNode best = null;
+		for (OIndex<?> index : iSchemaClass.getInvolvedIndexes(searchResult.fields())) {
+			final OIndexDefinition indexDefinition = index.getDefinition();
+			final OIndex<?> internalIndex = index.getInternal();
+
+			if (indexDefinition.getParamCount() != 1 || indexDefinition instanceof OIndexDefinitionMultiValue
+					|| !(internalIndex instanceof OIndexUnique || internalIndex instanceof OIndexNotUnique))
+				continue;
 
-						final Object keyOne = indexDefinition.createValue(keyParams);
+			final long estimatedRecords = estimateIndexSearch(index, searchResult);
+			if (estimatedRecords < 0)
+				continue;
 
-						if (keyOne == null)
-							continue;
+			final OIndexMergeNode node;
+			if (operator instanceof OQueryOperatorEquals) {
+				final Object key = indexDefinition.createValue(searchResult.lastValue);
+				if (key == null)
+					continue;
+				node = new OIndexMergeNode(index, operator, key, null, estimatedRecords);
 
-						final Object keyTwo = indexDefinition.createValue(keyParams);
+			} else if (operator instanceof OQueryOperatorIn) {
+				final Object inValues = OSQLHelper.getValue(searchResult.lastValue);
+				if (!(inValues instanceof Collection<?>))
+					return null;
 
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
-						else
-							result = index.getValuesBetween(keyOne, true, keyTwo, true);
+				final List<Object> keys = new ArrayList<Object>();
+				for (Object keyValue : (Collection<Object>) inValues) {
+					final Object key = indexDefinition.createValue(OSQLHelper.getValue(keyValue));
+					if (key == null)
+						return null;
+					keys.add(key);
+				}
+				node = new OIndexMergeNode(index, operator, keys, null, estimatedRecords);
 
-						fillSearchIndexResultSet(result);
+			} else if (operator instanceof OQueryOperatorBetween) {
+				final Object[] betweenKeys = (Object[]) searchResult.lastValue;
+				final Object keyFrom = indexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[0])));
+				final Object keyTo = indexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[2])));
+				if (keyFrom == null || keyTo == null)
+					continue;
+				node = new OIndexMergeNode(index, operator, keyFrom, keyTo, estimatedRecords);
 
-						if (OProfiler.getInstance().isRecording()) {
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
-						}
-						return true;
-					}
+			} else if (operator instanceof OQueryOperatorMajor || operator instanceof OQueryOperatorMajorEquals
+					|| operator instanceof OQueryOperatorMinor || operator instanceof OQueryOperatorMinorEquals) {
+				final Object key = indexDefinition.createValue(searchResult.lastValue);
+				if (key == null)
+					continue;
+				node = new OIndexMergeNode(index, operator, key, null, estimatedRecords);
 
-					if (operator instanceof OQueryOperatorMajor) {
-						// if we have situation like "field1 = 1 AND field2 > 2"
-						// then we fetch collection which left not included boundary is the smallest composite key in the
-						// index that contains keys with values field1=1 and field2=2 and which right included boundary
-						// is the biggest composite key in the index that contains key with value field1=1.
+			} else
+				return null;
 
-						final Object keyOne = indexDefinition.createValue(keyParams);
+			if (best == null || node.estimatedRecords < best.estimatedRecords)
+				best = node;
+		}
 
-						if (keyOne == null)
-							continue;
+		return best;
+	}
 
-						final Object keyTwo = indexDefinition.createValue(keyParams.subList(0, keyParams.size() - 1));
+	/**
+	 * Estimates the cost of searching the index, expressed as number of records loaded by RID.
+	 * 
+	 * @return the estimated cost or -1 if the index has no statistics
+	 */
+	private double getIndexSearchCost(final OClass iSchemaClass, final OIndex<?> iIndex, final OIndexSearchResult iSearchResult) {
+		final long estimatedRecords = estimateIndexSearch(iIndex, iSearchResult);
+		if (estimatedRecords < 0)
+			return -1;
 
-						if (keyTwo == null)
-							continue;
+		final OIndexDefinition indexDefinition = iIndex.getDefinition();
+		final OIndex<?> internalIndex = iIndex.getInternal();
+		if ((internalIndex instanceof OIndexUnique || internalIndex instanceof OIndexNotUnique)
+				&& isConditionCoveredByIndex(iSchemaClass, indexDefinition, iSearchResult)
+				&& (areProjectionsCoveredByIndex(indexDefinition) || isCountAllProjection()))
+			// ANSWERED BY THE INDEX ALONE: NO RECORD IS LOADED
+			return (double) estimatedRecords / INDEX_MERGE_LOAD_COST;
 
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesBetween(keyOne, false, keyTwo, true, fetchLimit);
-						else
-							result = index.getValuesBetween(keyOne, false, keyTwo, true);
+		return estimatedRecords + (double) estimatedRecords / INDEX_MERGE_LOAD_COST;
+	}
 
-						fillSearchIndexResultSet(result);
+	/**
+	 * Estimates the entries returned by the index search using the index statistics. Composite indexes have no histogram: their
+	 * fields are supposed independent and uniformly distributed.
+	 * 
+	 * @return the estimated entries or -1 if the index has no statistics
+	 */
+	private long estimateIndexSearch(final OIndex<?> iIndex, final OIndexSearchResult iSearchResult) {
+		final OIndexStatistics statistics = iIndex.getStatistics();
+		if (statistics == null)
+			return -1;
 
-						if (OProfiler.getInstance().isRecording()) {
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
-						}
-						return true;
-					}
+		final OIndexDefinition indexDefinition = iIndex.getDefinition();
+		final OQueryOperator operator = iSearchResult.lastOperator;
+		final long entries = statistics.getEntries();
+
+		if (indexDefinition.getParamCount() > 1) {
+			final int equalFields = operator instanceof OQueryOperatorEquals ? iSearchResult.getFieldCount() : iSearchResult
+					.getFieldCount() - 1;
+			double estimate = entries * Math.pow(Math.max(1, statistics.getKeys()), -(double) equalFields / indexDefinition.getParamCount());
+			if (!(operator instanceof OQueryOperatorEquals))
+				// WITHOUT KEY DISTRIBUTION A RANGE IS SUPPOSED TO SELECT ONE THIRD OF THE ENTRIES
+				estimate /= 3;
+			return entries > 0 ? Math.max(1, (long) Math.ceil(estimate)) : 0;
+		}
 
-					if (operator instanceof OQueryOperatorMajorEquals) {
-						// if we have situation like "field1 = 1 AND field2 >= 2"
-						// then we fetch collection which left included boundary is the smallest composite key in the
-						// index that contains keys with values field1=1 and field2=2 and which right included boundary
-						// is the biggest composite key in the index that contains key with value field1=1.
+		if (operator instanceof OQueryOperatorIn) {
+			final Object inValues = OSQLHelper.getValue(iSearchResult.lastValue);
+			final int keys = inValues instanceof Collection<?> ? ((Collection<?>) inValues).size() : 1;
+			return Math.min(entries, statistics.estimateEquals() * keys);
+		}
 
-						final Object keyOne = indexDefinition.createValue(keyParams);
+		if (operator instanceof OQueryOperatorBetween) {
+			final Object[] betweenKeys = (Object[]) iSearchResult.lastValue;
+			final Object keyFrom = indexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[0])));
+			final Object keyTo = indexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[2])));
+			if (keyFrom == null || keyTo == null)
+				return entries / 3;
+			return statistics.estimateRange(keyFrom, keyTo);
+		}
 
-						if (keyOne == null)
-							continue;
+		if (operator instanceof OQueryOperatorMajor || operator instanceof OQueryOperatorMajorEquals
+				|| operator instanceof OQueryOperatorMinor || operator instanceof OQueryOperatorMinorEquals) {
+			final Object key = indexDefinition.createValue(iSearchResult.lastValue);
+			if (key == null)
+				return entries / 3;
+			if (operator instanceof OQueryOperatorMajor || operator instanceof OQueryOperatorMajorEquals)
+				return statistics.estimateRange(key, null);
+			return statistics.estimateRange(null, key);
+		}
 
-						final Object keyTwo = indexDefinition.createValue(keyParams.subList(0, keyParams.size() - 1));
+		return statistics.estimateEquals();
+	}
 
-						if (keyTwo == null)
-							continue;
+	/**
+	 * Executes the plan returning the RIDs sorted by their physical position.
+	 */
+	private Set<OIdentifiable> executeIndexMerge(final OIndexMergeNode iNode) {
+		if (iNode.children == null) {
+			final Set<OIdentifiable> result = new TreeSet<OIdentifiable>();
+			addIndexMergeValues(result, searchIndexMergeLeaf(iNode));
+			return result;
+		}
 
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
-						else
-							result = index.getValuesBetween(keyOne, true, keyTwo, true);
+		Set<OIdentifiable> result = executeIndexMerge(iNode.children.get(0));
+		for (int i = 1; i < iNode.children.size(); ++i) {
+			if (iNode.intersection) {
+				if (result.isEmpty())
+					break;
 
-						fillSearchIndexResultSet(result);
+				final Set<OIdentifiable> current = result;
+				result = new TreeSet<OIdentifiable>();
+				for (OIdentifiable rid : executeIndexMerge(iNode.children.get(i)))
+					if (current.contains(rid))
+						result.add(rid);
+			} else
+				result.addAll(executeIndexMerge(iNode.children.get(i)));
+		}
+		return result;
+	}
 
-						if (OProfiler.getInstance().isRecording()) {
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
-						}
-						return true;
-					}
+	private Object searchIndexMergeLeaf(final OIndexMergeNode iLeaf) {
+		final OIndex<?> index = iLeaf.index;
+		final OQueryOperator operator = iLeaf.operator;
+
+		if (operator instanceof OQueryOperatorEquals)
+			return index.get(iLeaf.key);
+		if (operator instanceof OQueryOperatorIn)
+			return index.getValues((Collection<?>) iLeaf.key);
+		if (operator instanceof OQueryOperatorBetween)
+			return index.getValuesBetween(iLeaf.key, true, iLeaf.keyTo, true);
+		if (operator instanceof OQueryOperatorMajor)
+			return index.getValuesMajor(iLeaf.key, false);
+		if (operator instanceof OQueryOperatorMajorEquals)
+			return index.getValuesMajor(iLeaf.key, true);
+		if (operator instanceof OQueryOperatorMinor)
+			return index.getValuesMinor(iLeaf.key, false);
+		return index.getValuesMinor(iLeaf.key, true);
+	}
 
-					if (operator instanceof OQueryOperatorMinor) {
-						// if we have situation like "field1 = 1 AND field2 < 2"
-						// then we fetch collection which left included boundary is the smallest composite key in the
-						// index that contains key with value field1=1 and which right not included boundary
-						// is the biggest composite key in the index that contains key with values field1=1 and field2=2.
+	private void addIndexMergeValues(final Set<OIdentifiable> iResult, final Object iValues) {
+		if (iValues instanceof Collection<?>) {
+			for (OIdentifiable value : (Collection<OIdentifiable>) iValues)
+				iResult.add(value.getIdentity());
+		} else if (iValues instanceof OIdentifiable)
+			iResult.add(((OIdentifiable) iValues).getIdentity());
+	}
 
-						final Object keyOne = indexDefinition.createValue(keyParams.subList(0, keyParams.size() - 1));
+	/**
+	 * Checks if the whole WHERE condition is answered by the index search result. This happens when the condition is made only by
+	 * AND-ed conditions against simple fields of the same index and the index belongs to the target class, so every RID returned by
+	 * the index matches the query.
+	 */
+	private boolean isConditionCoveredByIndex(final OClass iSchemaClass, final OIndexDefinition iIndexDefinition,
+			final OIndexSearchResult iSearchResult) {
+		if (iSearchResult.lastField.isLong() || iIndexDefinition instanceof OIndexDefinitionMultiValue
+				|| !iSchemaClass.getName().equalsIgnoreCase(iIndexDefinition.getClassName()))
+			return false;
 
-						if (keyOne == null)
-							continue;
+		final List<String> searchFields = iSearchResult.fields();
+		if (new HashSet<String>(searchFields).size() != searchFields.size())
+			return false;
 
-						final Object keyTwo = indexDefinition.createValue(keyParams);
+		final List<OSQLFilterCondition> conditions = new ArrayList<OSQLFilterCondition>();
+		if (!collectConditions(compiledFilter.getRootCondition(), OQueryOperatorAnd.class, conditions)
+				|| conditions.size() != searchFields.size())
+			return false;
 
-						if (keyTwo == null)
-							continue;
+		for (OSQLFilterCondition condition : conditions) {
+			if (condition.getOperator() == null
+					|| !OIndexReuseType.INDEX_METHOD.equals(condition.getOperator().getIndexReuseType(condition.getLeft(),
+							condition.getRight())))
+				return false;
 
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesBetween(keyOne, true, keyTwo, false, fetchLimit);
-						else
-							result = index.getValuesBetween(keyOne, true, keyTwo, false);
+			OIndexSearchResult conditionResult = createIndexedProperty(condition, condition.getLeft());
+			if (conditionResult == null)
+				conditionResult = createIndexedProperty(condition, condition.getRight());
 
-						fillSearchIndexResultSet(result);
+			if (conditionResult == null || conditionResult.lastField.isLong()
+					|| !searchFields.contains(conditionResult.lastField.getItemName(0)))
+				return false;
+		}
+		return true;
+	}
 
-						if (OProfiler.getInstance().isRecording()) {
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
-						}
-						return true;
-					}
+	/**
+	 * Flattens the tree of conditions joined by the given logical operator (AND or OR) collecting its operands.
+	 */
+	private boolean collectConditions(final OSQLFilterCondition iCondition, final Class<? extends OQueryOperator> iOperator,
+			final List<OSQLFilterCondition> iConditions) {
+		if (iCondition == null)
+			return false;
 
-					if (operator instanceof OQueryOperatorMinorEquals) {
-						// if we have situation like "field1 = 1 AND field2 <= 2"
-						// then we fetch collection which left included boundary is the smallest composite key in the
-						// index that contains key with value field1=1 and which right not included boundary
-						// is the biggest composite key in the index that contains key with value field1=1 and field2=2.
+		if (iCondition.getOperator() == null) {
+			if (iCondition.getRight() == null && iCondition.getLeft() instanceof OSQLFilterCondition)
+				return collectConditions((OSQLFilterCondition) iCondition.getLeft(), iOperator, iConditions);
+			return false;
+		}
 
-						final Object keyOne = indexDefinition.createValue(keyParams.subList(0, keyParams.size() - 1));
+		if (iOperator.isInstance(iCondition.getOperator()))
+			return iCondition.getLeft() instanceof OSQLFilterCondition && iCondition.getRight() instanceof OSQLFilterCondition
+					&& collectConditions((OSQLFilterCondition) iCondition.getLeft(), iOperator, iConditions)
+					&& collectConditions((OSQLFilterCondition) iCondition.getRight(), iOperator, iConditions);
 
-						if (keyOne == null)
-							continue;
+		iConditions.add(iCondition);
+		return true;
+	}
 
-						final Object keyTwo = indexDefinition.createValue(keyParams);
+	/**
+	 * Returns true if the projections are only simple fields contained in the index key.
+	 */
+	private boolean areProjectionsCoveredByIndex(final OIndexDefinition iIndexDefinition) {
+		if (projections == null || projections.isEmpty() || anyFunctionAggregates || orderedFields != null || flattenTarget != null
+				|| groupByItems != null)
+			return false;
 
-						if (keyTwo == null)
-							continue;
+		for (Object projection : projections.values()) {
+			if (!(projection instanceof OSQLFilterItemField))
+				return false;
 
-						final Collection<OIdentifiable> result;
-						if (fetchLimit > -1)
-							result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
-						else
-							result = index.getValuesBetween(keyOne, true, keyTwo, true);
+			final OSQLFilterItemField field = (OSQLFilterItemField) projection;
+			if (field.hasChainOperators() || !iIndexDefinition.getFields().contains(field.getRoot()))
+				return false;
+		}
+		return true;
+	}
 
-						fillSearchIndexResultSet(result);
+	/**
+	 * Returns true if the only projection is count(*).
+	 */
+	private boolean isCountAllProjection() {
+		if (projections == null || projections.size() != 1 || orderedFields != null || flattenTarget != null || groupByItems != null)
+			return false;
 
-						if (OProfiler.getInstance().isRecording()) {
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage", 1);
-							OProfiler.getInstance().updateCounter("Query.compositeIndexUsage." + indexDefinition.getParamCount(), 1);
-						}
-						return true;
-					}
+		final Object projection = projections.values().iterator().next();
+		if (!(projection instanceof OSQLFunctionRuntime))
+			return false;
+
+		final OSQLFunctionRuntime f = (OSQLFunctionRuntime) projection;
+		return f.getRoot().equals(OSQLFunctionCount.NAME) && f.configuredParameters.length == 1
+				&& "*".equals(f.configuredParameters[0]);
+	}
+
+	/**
+	 * Answers the query by browsing the index entries only: the projected fields are extracted from the index keys, so the records
+	 * are never loaded.
+	 * 
+	 * @return true if the operator is supported by the index-only search, otherwise false
+	 */
+	private boolean searchInIndexKeys(final OIndex<?> iIndex, final OIndexDefinition iIndexDefinition, final OQueryOperator iOperator,
+			final List<Object> iKeyParams) {
+		final Collection<ODocument> entries;
+
+		if (iIndexDefinition.getParamCount() == 1) {
+			if (iOperator instanceof OQueryOperatorBetween) {
+				final Object[] betweenKeys = (Object[]) iKeyParams.get(0);
+
+				final Object keyOne = iIndexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[0])));
+				final Object keyTwo = iIndexDefinition.createValue(Collections.singletonList(OSQLHelper.getValue(betweenKeys[2])));
+
+				if (keyOne == null || keyTwo == null)
+					return false;
+
+				entries = iIndex.getEntriesBetween(keyOne, keyTwo, true, fetchLimit);
+			} else if (iOperator instanceof OQueryOperatorIn) {
+				final List<Object> inKeys = new ArrayList<Object>();
+				for (final Object keyValue : (List<Object>) iKeyParams.get(0)) {
+					final Object key = iIndexDefinition.createValue(OSQLHelper.getValue(keyValue));
+					if (key == null)
+						return false;
+					inKeys.add(key);
 				}
+
+				entries = iIndex.getEntries(inKeys, fetchLimit);
+			} else {
+				final Object key = iIndexDefinition.createValue(iKeyParams);
+				if (key == null)
+					return false;
+
+				if (iOperator instanceof OQueryOperatorEquals)
+					entries = iIndex.getEntries(Collections.singletonList(key), fetchLimit);
+				else if (iOperator instanceof OQueryOperatorMajor)
+					entries = iIndex.getEntriesMajor(key, false, fetchLimit);
+				else if (iOperator instanceof OQueryOperatorMajorEquals)
+					entries = iIndex.getEntriesMajor(key, true, fetchLimit);
+				else if (iOperator instanceof OQueryOperatorMinor)
+					entries = iIndex.getEntriesMinor(key, false, fetchLimit);
+				else if (iOperator instanceof OQueryOperatorMinorEquals)
+					entries = iIndex.getEntriesMinor(key, true, fetchLimit);
+				else
+					return false;
 			}
+		} else if (iOperator instanceof OQueryOperatorEquals) {
+			// PARTIAL OR FULL COMPOSITE KEY
+			final Object key = iIndexDefinition.createValue(iKeyParams);
+			if (key == null)
+				return false;
+
+			entries = iIndex.getEntriesBetween(key, key, true, fetchLimit);
+		} else
+			return false;
+
+		final List<String> fields = iIndexDefinition.getFields();
+		final List<OIdentifiable> keyDocuments = new ArrayList<OIdentifiable>(entries.size());
+		for (final ODocument entry : entries) {
+			final Object key = entry.field("key");
+
+			final ODocument keyDocument = new ODocument();
+			if (key instanceof OCompositeKey) {
+				final List<Comparable> keys = ((OCompositeKey) key).getKeys();
+				for (int i = 0; i < fields.size() && i < keys.size(); ++i)
+					keyDocument.field(fields.get(i), keys.get(i));
+			} else
+				keyDocument.field(fields.get(0), key);
+			keyDocument.unsetDirty();
+
+			keyDocuments.add(keyDocument);
 		}
-		return false;
+
+		// THE INDEX ALREADY SATISFIES THE CONDITIONS
+		target = keyDocuments;
+		targetFiltered = true;
+		return true;
 	}
 
 	private List<OIndex<?>> getInvolvedIndexes(OClass iSchemaClass, OIndexSearchResult searchResultFields) {
@@ -813,34 +1803,29 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 
 	@SuppressWarnings("rawtypes")
 	private void fillSearchIndexResultSet(final Object indexResult) {
-		if (indexResult != null) {
-			if (indexResult instanceof Collection<?>) {
-				Collection<OIdentifiable> indexResultSet = (Collection<OIdentifiable>) indexResult;
-				if (!indexResultSet.isEmpty()) {
-					// FOUND USING INDEXES
-					for (OIdentifiable identifiable : indexResultSet) {
-						ORecord<?> record = identifiable.getRecord();
-						if (record.getInternalStatus() == ORecordElement.STATUS.NOT_LOADED) {
-							try {
-								record = record.<ORecord> load();
-							} catch (ORecordNotFoundException e) {
-								throw new OException("Error during loading record with id : " + record.getIdentity());
-							}
-						}
-
-						if (filter((ORecordInternal<?>) record)) {
-							final boolean continueResultParsing = addResult(record);
-							if (!continueResultParsing)
-								break;
-						}
-					}
-				}
-			} else {
-				final ORecord<?> record = ((OIdentifiable) indexResult).getRecord();
-				if (filter((ORecordInternal<?>) record))
-					addResult(record);
+		if (indexResult != null && countFromIndex) {
+			// INDEX-ONLY COUNT: THE INDEX ANSWERS THE WHOLE CONDITION, SO NO RECORD IS LOADED
+			long found = indexResult instanceof Collection<?> ? ((Collection<?>) indexResult).size() : 1;
+			if (skip > 0) {
+				final int skipped = (int) Math.min(skip, found);
+				skip -= skipped;
+				found -= skipped;
 			}
+
+			final OSQLFunctionRuntime f = (OSQLFunctionRuntime) projections.values().iterator().next();
+			f.setResult(((Number) f.getResult()).longValue() + found);
+			OProfiler.getInstance().updateCounter("Query.indexOnlyUsage", 1);
+			target = Collections.<OIdentifiable> emptyList();
+			return;
 		}
+
+		// THE RECORDS FOUND ARE BROWSED BY THE PIPELINE
+		if (indexResult instanceof Collection<?>)
+			target = (Collection<OIdentifiable>) indexResult;
+		else if (indexResult != null)
+			target = Collections.singletonList((OIdentifiable) indexResult);
+		else
+			target = Collections.<OIdentifiable> emptyList();
 	}
 
 	protected int parseProjections() {
@@ -952,91 +1937,6 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 		return endPos;
 	}
 
-	private void applyOrderBy() {
-		if (orderedFields == null)
-			return;
-
-		ODocumentHelper.sort(getResult(), orderedFields);
-		orderedFields.clear();
-	}
-
-	/**
-	 * Extract the content of collections and/or links and put it as result
-	 */
-	private void applyFlatten() {
-		if (flattenTarget == null)
-			return;
-
-		final List<OIdentifiable> finalResult = new ArrayList<OIdentifiable>();
-		Object fieldValue;
-		if (tempResult != null)
-			for (OIdentifiable id : tempResult) {
-				if (flattenTarget instanceof OSQLFilterItem)
-					fieldValue = ((OSQLFilterItem) flattenTarget).getValue(id.getRecord(), context);
-				else if (flattenTarget instanceof OSQLFunctionRuntime)
-					fieldValue = ((OSQLFunctionRuntime) flattenTarget).getResult();
-				else
-					fieldValue = flattenTarget.toString();
-
-				if (fieldValue != null)
-					if (fieldValue instanceof Collection<?>) {
-						for (Object o : ((Collection<?>) fieldValue)) {
-							if (o instanceof OIdentifiable)
-								finalResult.add(((OIdentifiable) o).getRecord());
-						}
-					} else
-						finalResult.add((OIdentifiable) fieldValue);
-			}
-
-		tempResult = finalResult;
-	}
-
-	private OIdentifiable applyProjections(final OIdentifiable iRecord) {
-		if (projections != null) {
-			// APPLY PROJECTIONS
-			final ODocument doc = iRecord.getRecord();
-			final ODocument result = new ODocument().setOrdered(true);
-
-			// ASSIGN A TEMPORARY RID TO ALLOW PAGINATION IF ANY
-			((ORecordId) result.getIdentity()).clusterId = -2;
-			((ORecordId) result.getIdentity()).clusterPosition = resultCount;
-
-			boolean canExcludeResult = false;
-
-			Object value;
-			for (Entry<String, Object> projection : projections.entrySet()) {
-				if (projection.getValue().equals("*")) {
-					doc.copy(result);
-					value = null;
-				} else if (projection.getValue().toString().startsWith("$")) {
-					value = context != null ? context.getVariable(projection.getValue().toString().substring(1)) : null;
-				} else if (projection.getValue() instanceof OSQLFilterItemField)
-					value = ((OSQLFilterItemField) projection.getValue()).getValue(doc, null);
-				else if (projection.getValue() instanceof OSQLFunctionRuntime) {
-					final OSQLFunctionRuntime f = (OSQLFunctionRuntime) projection.getValue();
-					canExcludeResult = f.filterResult();
-					value = f.execute(doc, this);
-				} else
-					value = projection.getValue();
-
-				if (value != null)
-					result.field(projection.getKey(), value);
-			}
-
-			if (canExcludeResult && result.isEmpty())
-				// RESULT EXCLUDED FOR EMPTY RECORD
-				return null;
-
-			if (anyFunctionAggregates)
-				return null;
-
-			return result;
-		}
-
-		// INVOKE THE LISTENER
-		return iRecord;
-	}
-
 	private void searchInIndex() {
 		final OIndex<Object> index = (OIndex<Object>) getDatabase().getMetadata().getIndexManager()
 				.getIndex(compiledFilter.getTargetIndex());
@@ -1048,6 +1948,8 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 		if (index.getDefinition() == null)
 			return;
 
+		final List<OIdentifiable> result = new ArrayList<OIdentifiable>();
+
 		if (compiledFilter.getRootCondition() != null) {
 			if (!"KEY".equalsIgnoreCase(compiledFilter.getRootCondition().getLeft().toString()))
 				throw new OCommandExecutionException("'Key' field is required for queries against indexes");
@@ -1058,32 +1960,28 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 				final Collection<ODocument> entries = index.getEntriesBetween(getIndexKey(index.getDefinition(), values[0]),
 						getIndexKey(index.getDefinition(), values[2]));
 
-				for (final OIdentifiable r : entries) {
-					final boolean continueResultParsing = addResult(r);
-					if (!continueResultParsing)
-						break;
-				}
+				result.addAll(entries);
 
 			} else if (indexOperator instanceof OQueryOperatorMajor) {
 				final Object value = compiledFilter.getRootCondition().getRight();
 				final Collection<ODocument> entries = index.getEntriesMajor(getIndexKey(index.getDefinition(), value), false);
 
-				parseIndexSearchResult(entries);
+				result.addAll(entries);
 			} else if (indexOperator instanceof OQueryOperatorMajorEquals) {
 				final Object value = compiledFilter.getRootCondition().getRight();
 				final Collection<ODocument> entries = index.getEntriesMajor(getIndexKey(index.getDefinition(), value), true);
 
-				parseIndexSearchResult(entries);
+				result.addAll(entries);
 			} else if (indexOperator instanceof OQueryOperatorMinor) {
 				final Object value = compiledFilter.getRootCondition().getRight();
 				final Collection<ODocument> entries = index.getEntriesMinor(getIndexKey(index.getDefinition(), value), false);
 
-				parseIndexSearchResult(entries);
+				result.addAll(entries);
 			} else if (indexOperator instanceof OQueryOperatorMinorEquals) {
 				final Object value = compiledFilter.getRootCondition().getRight();
 				final Collection<ODocument> entries = index.getEntriesMinor(getIndexKey(index.getDefinition(), value), true);
 
-				parseIndexSearchResult(entries);
+				result.addAll(entries);
 			} else if (indexOperator instanceof OQueryOperatorIn) {
 				final List<Object> origValues = (List<Object>) compiledFilter.getRootCondition().getRight();
 				final List<Object> values = new ArrayList<Object>(origValues.size());
@@ -1098,7 +1996,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 
 				final Collection<ODocument> entries = index.getEntries(values);
 
-				parseIndexSearchResult(entries);
+				result.addAll(entries);
 			} else {
 				final Object right = compiledFilter.getRootCondition().getRight();
 				final Object keyValue = getIndexKey(index.getDefinition(), right);
@@ -1115,10 +2013,10 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 					if (res instanceof Collection<?>)
 						// MULTI VALUES INDEX
 						for (final OIdentifiable r : (Collection<OIdentifiable>) res)
-							addResult(createIndexEntryAsDocument(keyValue, r.getIdentity()));
+							result.add(createIndexEntryAsDocument(keyValue, r.getIdentity()));
 					else
 						// SINGLE VALUE INDEX
-						addResult(createIndexEntryAsDocument(keyValue, ((OIdentifiable) res).getIdentity()));
+						result.add(createIndexEntryAsDocument(keyValue, ((OIdentifiable) res).getIdentity()));
 			}
 
 		} else {
@@ -1143,10 +2041,10 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 					final Entry<Object, Object> current = it.next();
 
 					if (current.getValue() instanceof Collection<?>)
-						for (OIdentifiable identifiable : ((OMVRBTreeRIDSet) current.getValue()))
-							addResult(createIndexEntryAsDocument(current.getKey(), identifiable.getIdentity()));
+						for (OIdentifiable identifiable : ((Collection<OIdentifiable>) current.getValue()))
+							result.add(createIndexEntryAsDocument(current.getKey(), identifiable.getIdentity()));
 					else
-						addResult(createIndexEntryAsDocument(current.getKey(), (OIdentifiable) current.getValue()));
+						result.add(createIndexEntryAsDocument(current.getKey(), (OIdentifiable) current.getValue()));
 				}
 			} finally {
 				if(indexInternal instanceof OSharedResource)
@@ -1154,14 +2052,9 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 			}
 		}
 
-		if (anyFunctionAggregates) {
-			for (final Entry<String, Object> projection : projections.entrySet()) {
-				if (projection.getValue() instanceof OSQLFunctionRuntime) {
-					final OSQLFunctionRuntime f = (OSQLFunctionRuntime) projection.getValue();
-					f.setResult(index.getSize());
-				}
-			}
-		}
+		// THE ENTRIES ARE ALREADY FILTERED BY KEY
+		target = result;
+		targetFiltered = true;
 	}
 
 	private Object getIndexKey(final OIndexDefinition indexDefinition, Object value) {
@@ -1187,14 +2080,6 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 		}
 	}
 
-	protected void parseIndexSearchResult(final Collection<ODocument> entries) {
-		for (final ODocument document : entries) {
-			final boolean continueResultParsing = addResult(document);
-			if (!continueResultParsing)
-				break;
-		}
-	}
-
 	private ODocument createIndexEntryAsDocument(final Object iKey, final OIdentifiable iValue) {
 		final ODocument doc = new ODocument().setOrdered(true);
 		doc.field("key", iKey);
@@ -1203,27 +2088,6 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 		return doc;
 	}
 
-	private void applyProjections() {
-		if (anyFunctionAggregates) {
-			// EXECUTE AGGREGATIONS
-			Object value;
-			final ODocument result = new ODocument().setOrdered(true);
-			for (Entry<String, Object> projection : projections.entrySet()) {
-				if (projection.getValue() instanceof OSQLFilterItemField)
-					value = ((OSQLFilterItemField) projection.getValue()).getValue(result, null);
-				else if (projection.getValue() instanceof OSQLFunctionRuntime) {
-					final OSQLFunctionRuntime f = (OSQLFunctionRuntime) projection.getValue();
-					value = f.getResult();
-				} else
-					value = projection.getValue();
-
-				result.field(projection.getKey(), value);
-			}
-
-			request.getResultListener().result(result);
-		}
-	}
-
 	private boolean checkIndexExistence(OClass iSchemaClass, OIndexSearchResult result) {
 		if (!iSchemaClass.areIndexed(result.fields())) {
 			return false;
@@ -1246,6 +2110,6 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLExtractAbstrac
 
 	@Override
 	public String getSyntax() {
-		return "SELECT [<Projections>] FROM <Target> [WHERE <Condition>*] [ORDER BY <Fields>* [ASC|DESC]*] [LIMIT <MaxRecords>]";
+		return "SELECT [<Projections>] FROM <Target> [WHERE <Condition>*] [GROUP BY <Fields>* [HAVING <Condition>*]] [ORDER BY <Fields>* [ASC|DESC]*] [LIMIT <MaxRecords>] [PARALLEL [<Threads>]] [TIMEOUT <Milliseconds>]";
 	}
 }
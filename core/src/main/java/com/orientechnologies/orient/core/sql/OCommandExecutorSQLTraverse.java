@@ -15,7 +15,12 @@
  */
 package com.orientechnologies.orient.core.sql;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,7 +37,8 @@ import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
-import com.orientechnologies.orient.core.sql.filter.OSQLFilterCondition;
+import com.orientechnologies.orient.core.sql.OTraverseContext.OTraverseFrame;
+import com.orientechnologies.orient.core.sql.filter.OSQLCompiledCondition;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemFieldAll;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemFieldAny;
 
@@ -51,13 +57,31 @@ import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemFieldAny;
  * <p>
  * <code>SELECT FROM (TRAVERSE children FROM #5:23 WHERE $depth BETWEEN 1 AND 3) WHERE city.name = 'Rome'</code>
  * </p>
+ * <p>
+ * MAXDEPTH stops crossing the records at the depth level specified, without evaluating the records over it. STRATEGY sets the
+ * order the records are crossed: DEPTH_FIRST, the default, or BREADTH_FIRST. The traverse is iterative, so the depth is not
+ * limited by the stack, and the records already traversed are kept as bits per cluster position. The records are passed to the
+ * result listener as soon as they are found and the traverse stops once the LIMIT is reached.
+ * </p>
  * 
  * @author Luca Garulli
  */
 @SuppressWarnings("unchecked")
 public class OCommandExecutorSQLTraverse extends OCommandExecutorSQLExtractAbstract {
 	public static final String	KEYWORD_TRAVERSE	= "TRAVERSE";
+	public static final String	KEYWORD_MAXDEPTH	= "MAXDEPTH";
+	public static final String	KEYWORD_STRATEGY	= "STRATEGY";
+
+	// RECORDS LOADED AT ONCE, IN THE ORDER OF THE STORAGE, ON BREADTH FIRST
+	private static final int		PREFETCH_BATCH		= 100;
+
+	public enum STRATEGY {
+		DEPTH_FIRST, BREADTH_FIRST
+	}
+
 	private Set<String>					fields;
+	private int									maxDepth					= -1;
+	private STRATEGY						strategy					= STRATEGY.DEPTH_FIRST;
 
 	/**
 	 * Compile the filter conditions only the first time.
@@ -70,9 +94,11 @@ public class OCommandExecutorSQLTraverse extends OCommandExecutorSQLExtractAbstr
 			throw new OCommandSQLParsingException("Traverse must have the field list. Use " + getSyntax());
 
 		int endPosition = text.length();
-		int endP = textUpperCase.indexOf(" " + OCommandExecutorSQLTraverse.KEYWORD_LIMIT, currentPos);
-		if (endP > -1 && endP < endPosition)
-			endPosition = endP;
+		for (String keyword : new String[] { KEYWORD_LIMIT, KEYWORD_MAXDEPTH, KEYWORD_STRATEGY, KEYWORD_TIMEOUT }) {
+			final int endP = textUpperCase.indexOf(" " + keyword, currentPos);
+			if (endP > -1 && endP < endPosition)
+				endPosition = endP;
+		}
 
 		compiledFilter = OSQLEngine.getInstance().parseFromWhereCondition(text.substring(pos, endPosition), context);
 
@@ -95,6 +121,12 @@ public class OCommandExecutorSQLTraverse extends OCommandExecutorSQLExtractAbstr
 						parseLimit(word);
 					else if (w.equals(KEYWORD_SKIP))
 						parseSkip(word);
+					else if (w.equals(KEYWORD_MAXDEPTH))
+						parseMaxDepth(word);
+					else if (w.equals(KEYWORD_STRATEGY))
+						parseStrategy(word);
+					else if (w.equals(KEYWORD_TIMEOUT))
+						parseTimeout(word);
 				}
 			}
 		}
@@ -108,7 +140,12 @@ public class OCommandExecutorSQLTraverse extends OCommandExecutorSQLExtractAbstr
 		if (!assignTarget(iArgs))
 			throw new OQueryParsingException("No source found in query: specify class, cluster(s) or single record(s)");
 
-		executeTraverse();
+		startRunning();
+		try {
+			executeTraverse();
+		} finally {
+			stopRunning();
+		}
 
 		applyLimit();
 
@@ -119,102 +156,199 @@ public class OCommandExecutorSQLTraverse extends OCommandExecutorSQLExtractAbstr
 		if (target == null)
 			throw new OCommandExecutionException("Traverse error: target not specified");
 
-		context = new OTraverseContext();
+		final OTraverseContext traverseContext = new OTraverseContext();
+		context = traverseContext;
+
+		final LinkedList<OTraverseFrame> pending = new LinkedList<OTraverseFrame>();
+
 		// BROWSE ALL THE RECORDS
 		for (OIdentifiable id : target) {
-			traverse(id, compiledFilter.getRootCondition());
+			pending.add(new OTraverseFrame(id, null, null));
+			if (!traverse(pending, traverseContext))
+				// LIMIT REACHED
+				break;
 		}
 	}
 
-	private void traverse(Object iTarget, final OSQLFilterCondition iCondition) {
-		if (!(iTarget instanceof OIdentifiable))
-			// JUMP IT BECAUSE IT ISN'T A RECORD
-			return;
+	/**
+	 * Traverses the records reachable from the pending ones. The records to cross are pushed on the head of the pending list on depth
+	 * first, so the records are crossed in the same order of a recursive traverse, or on the tail on breadth first.
+	 * 
+	 * @return false if the limit has been reached
+	 */
+	private boolean traverse(final LinkedList<OTraverseFrame> iPending, final OTraverseContext iContext) {
+		final OSQLCompiledCondition condition = compiledFilter.getCompiledCondition();
+		final List<OTraverseFrame> children = new ArrayList<OTraverseFrame>();
 
-		final ORecord<?> record = ((OIdentifiable) iTarget).getRecord();
-		if (!(record instanceof ODocument))
-			// JUMP IT BECAUSE NOT ODOCUMENT
-			return;
+		while (!iPending.isEmpty()) {
+			if (strategy == STRATEGY.BREADTH_FIRST && iPending.getFirst().record == null && iPending.getFirst().target != null)
+				prefetch(iPending);
 
-		final ODocument target = (ODocument) record;
+			if (running != null)
+				running.checkScanned();
 
-		if (((OTraverseContext) context).traversed.contains(target.getIdentity()))
-			// ALREADY EVALUATED, DON'T GO IN DEEP
-			return;
+			final OTraverseFrame frame = iPending.removeFirst();
+			final ODocument document = frame.record != null || frame.target == null ? frame.record : load(frame);
+			frame.target = null;
+			frame.record = null;
+
+			if (document == null || iContext.traversed.contains(document.getIdentity()))
+				// ALREADY EVALUATED, DON'T GO IN DEEP
+				continue;
+
+			iContext.setCurrent(frame);
+			if (condition != null && !condition.evaluate(document, iContext))
+				continue;
+
+			// MATCH
+			if (!addResult(document))
+				return false;
+
+			iContext.traversed.add(document.getIdentity());
 
-		if (target.getInternalStatus() == ORecordElement.STATUS.NOT_LOADED)
+			if (maxDepth > -1 && frame.depth >= maxDepth)
+				// DON'T GO IN DEEP
+				continue;
+
+			children.clear();
+			collectChildren(frame, document, children);
+
+			if (strategy == STRATEGY.DEPTH_FIRST)
+				iPending.addAll(0, children);
+			else
+				iPending.addAll(children);
+		}
+		return true;
+	}
+
+	/**
+	 * Loads the record to traverse.
+	 * 
+	 * @return the document, or null if the record is not a document, it has been already traversed or it doesn't exist
+	 */
+	private ODocument load(final OTraverseFrame iFrame) {
+		if (((OTraverseContext) context).traversed.contains(iFrame.rid))
+			return null;
+
+		final ORecord<?> record = iFrame.target.getRecord();
+		if (!(record instanceof ODocument))
+			// JUMP IT BECAUSE NOT ODOCUMENT
+			return null;
+
+		final ODocument document = (ODocument) record;
+		if (document.getInternalStatus() == ORecordElement.STATUS.NOT_LOADED)
 			try {
-				target.load();
+				document.load();
 			} catch (final ORecordNotFoundException e) {
 				// INVALID RID
-				return;
+				return null;
 			}
 
-		if (iCondition != null) {
-			final Object conditionResult = iCondition.evaluate(target, context);
-			if (conditionResult != Boolean.TRUE)
-				return;
+		return document;
+	}
+
+	/**
+	 * Loads the next pending records in the order of their position in the storage, before they are evaluated in the order they have
+	 * been found.
+	 */
+	private void prefetch(final LinkedList<OTraverseFrame> iPending) {
+		final List<OTraverseFrame> batch = new ArrayList<OTraverseFrame>();
+		for (OTraverseFrame frame : iPending) {
+			if (batch.size() >= PREFETCH_BATCH)
+				break;
+			if (frame.record == null && frame.target != null)
+				batch.add(frame);
 		}
 
-		// MATCH
-		addResult(target);
+		Collections.sort(batch, new Comparator<OTraverseFrame>() {
+			public int compare(final OTraverseFrame iFrame1, final OTraverseFrame iFrame2) {
+				return iFrame1.rid.compareTo(iFrame2.rid);
+			}
+		});
 
-		// UPDATE CONTEXT
-		((OTraverseContext) context).traversed.add(target.getIdentity());
-		((OTraverseContext) context).history.add(target.getIdentity());
+		for (OTraverseFrame frame : batch) {
+			frame.record = load(frame);
+			if (frame.record == null)
+				// NOTHING TO TRAVERSE: THE FRAME WILL BE JUMPED
+				frame.target = null;
+		}
+	}
 
-		try {
-			// TRAVERSE THE DOCUMENT ITSELF
-			for (String cfgField : fields) {
-				if ("*".equals(cfgField) || OSQLFilterItemFieldAll.FULL_NAME.equals(cfgField)
-						|| OSQLFilterItemFieldAny.FULL_NAME.equals(cfgField)) {
-					// ALL FIELDS
-					for (final String fieldName : target.fieldNames())
-						traverseField(target, fieldName, iCondition);
-				} else {
-					final int pos = cfgField.indexOf('.');
-					if (pos > -1) {
-						// FOUND <CLASS>.<FIELD>
-						final OClass cls = target.getSchemaClass();
-						if (cls == null)
-							// JUMP IT BECAUSE NO SCHEMA
-							continue;
-
-						final String className = cfgField.substring(0, pos);
-						if (!cls.isSubClassOf(className))
-							// JUMP IT BECAUSE IT'S NOT A INSTANCEOF THE CLASS
-							continue;
-
-						cfgField = cfgField.substring(pos + 1);
-					}
-
-					traverseField(target, cfgField, iCondition);
+	private void collectChildren(final OTraverseFrame iFrame, final ODocument iDocument, final List<OTraverseFrame> iChildren) {
+		for (String cfgField : fields) {
+			if ("*".equals(cfgField) || OSQLFilterItemFieldAll.FULL_NAME.equals(cfgField)
+					|| OSQLFilterItemFieldAny.FULL_NAME.equals(cfgField)) {
+				// ALL FIELDS
+				for (final String fieldName : iDocument.fieldNames())
+					collectChildren(iFrame, iDocument, fieldName, iChildren);
+			} else {
+				final int pos = cfgField.indexOf('.');
+				if (pos > -1) {
+					// FOUND <CLASS>.<FIELD>
+					final OClass cls = iDocument.getSchemaClass();
+					if (cls == null)
+						// JUMP IT BECAUSE NO SCHEMA
+						continue;
+
+					final String className = cfgField.substring(0, pos);
+					if (!cls.isSubClassOf(className))
+						// JUMP IT BECAUSE IT'S NOT A INSTANCEOF THE CLASS
+						continue;
+
+					cfgField = cfgField.substring(pos + 1);
 				}
-			}
 
-		} finally {
-			((OTraverseContext) context).history.remove(((OTraverseContext) context).history.size() - 1);
+				collectChildren(iFrame, iDocument, cfgField, iChildren);
+			}
 		}
 	}
 
-	protected void traverseField(final ODocument iDocument, final String iFieldName, final OSQLFilterCondition iCondition) {
+	protected void collectChildren(final OTraverseFrame iFrame, final ODocument iDocument, final String iFieldName,
+			final List<OTraverseFrame> iChildren) {
 		final Object fieldValue = iDocument.rawField(iFieldName);
 		if (fieldValue == null)
 			return;
 
-		((OTraverseContext) context).path.add(iFieldName);
+		if (OMultiValue.isMultiValue(fieldValue)) {
+			for (Object o : OMultiValue.getMultiValueIterable(fieldValue))
+				if (o instanceof OIdentifiable)
+					iChildren.add(new OTraverseFrame((OIdentifiable) o, iFrame, iFieldName));
+		} else if (fieldValue instanceof OIdentifiable)
+			// JUMP THE VALUES THAT AREN'T RECORDS
+			iChildren.add(new OTraverseFrame((OIdentifiable) fieldValue, iFrame, iFieldName));
+	}
+
+	/**
+	 * Parses the MAXDEPTH keyword.
+	 */
+	protected int parseMaxDepth(final StringBuilder word) throws OCommandSQLParsingException {
+		currentPos = OSQLHelper.nextWord(text, textUpperCase, currentPos, word, true);
 		try {
+			maxDepth = Integer.parseInt(word.toString());
+		} catch (Exception e) {
+			throw new OCommandSQLParsingException("Invalid MAXDEPTH value setted to '" + word
+					+ "' but it should be a valid positive integer. Example: MAXDEPTH 3", text, currentPos);
+		}
 
-			if (OMultiValue.isMultiValue(fieldValue))
-				for (Object o : OMultiValue.getMultiValueIterable(fieldValue)) {
-					traverse(o, iCondition);
-				}
-			else if (fieldValue instanceof OIdentifiable)
-				traverse(fieldValue, iCondition);
+		if (maxDepth < 0)
+			throw new OCommandSQLParsingException("Invalid MAXDEPTH value setted to the negative number '" + word
+					+ "'. Only positive numbers are valid. Example: MAXDEPTH 3", text, currentPos);
 
-		} finally {
-			((OTraverseContext) context).path.remove(((OTraverseContext) context).path.size() - 1);
+		return maxDepth;
+	}
+
+	/**
+	 * Parses the STRATEGY keyword.
+	 */
+	protected STRATEGY parseStrategy(final StringBuilder word) throws OCommandSQLParsingException {
+		currentPos = OSQLHelper.nextWord(text, textUpperCase, currentPos, word, true);
+		try {
+			strategy = STRATEGY.valueOf(word.toString());
+		} catch (IllegalArgumentException e) {
+			throw new OCommandSQLParsingException("Invalid STRATEGY '" + word + "'. Supported ones are: "
+					+ Arrays.toString(STRATEGY.values()), text, currentPos);
 		}
+		return strategy;
 	}
 
 	protected int parseFields() {
@@ -246,6 +380,6 @@ public class OCommandExecutorSQLTraverse extends OCommandExecutorSQLExtractAbstr
 	}
 
 	public String getSyntax() {
-		return "TRAVERSE <field>* FROM <target> [WHERE <filter>]";
+		return "TRAVERSE <field>* FROM <target> [WHERE <filter>] [MAXDEPTH <depth>] [STRATEGY <DEPTH_FIRST|BREADTH_FIRST>] [LIMIT <max-records>] [TIMEOUT <ms>]";
 	}
 }
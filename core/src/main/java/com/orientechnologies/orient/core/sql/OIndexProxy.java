@@ -21,6 +21,7 @@ import com.orientechnologies.orient.core.index.OIndexDefinition;
 import com.orientechnologies.orient.core.index.OIndexInternal;
 import com.orientechnologies.orient.core.index.OIndexNotUnique;
 import com.orientechnologies.orient.core.index.OIndexOneValue;
+import com.orientechnologies.orient.core.index.OIndexStatistics;
 import com.orientechnologies.orient.core.index.OIndexUnique;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OType;
@@ -416,6 +417,10 @@ public class OIndexProxy<T> implements OIndex<T> {
 		throw new UnsupportedOperationException("Not allowed operation");
 	}
 
+	public Iterator<Map.Entry<Object, T>> inverseIterator() {
+		throw new UnsupportedOperationException("Not allowed operation");
+	}
+
 	public OIndex<T> put(Object iKey, OIdentifiable iValue) {
 		throw new UnsupportedOperationException("Not allowed operation");
 	}
@@ -444,6 +449,13 @@ public class OIndexProxy<T> implements OIndex<T> {
 		throw new UnsupportedOperationException("Not allowed operation");
 	}
 
+	/**
+	 * The search goes through a chain of indexes, so the statistics of a single index cannot estimate its cost.
+	 */
+	public OIndexStatistics getStatistics() {
+		return null;
+	}
+
 	public OIndex<T> lazySave() {
 		throw new UnsupportedOperationException("Not allowed operation");
 	}
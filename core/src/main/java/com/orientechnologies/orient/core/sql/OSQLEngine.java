@@ -26,6 +26,7 @@ import javax.imageio.spi.ServiceRegistry;
 
 import com.orientechnologies.common.util.OCollections;
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionFactory;
@@ -45,7 +46,11 @@ public class OSQLEngine {
     
 	protected static final OSQLEngine																		INSTANCE						= new OSQLEngine();
 
-	protected OSQLEngine() {}
+	protected final OSQLStatementCache																	statementCache;
+
+	protected OSQLEngine() {
+		statementCache = new OSQLStatementCache(OGlobalConfiguration.COMMAND_CACHE_SIZE.getValueAsInteger());
+	}
 
 	public synchronized OQueryOperator[] getRecordOperators() {
         if(SORTED_OPERATORS != null){
@@ -254,6 +259,20 @@ scan:       for (final Iterator<OQueryOperator> it=operators.iterator(); it.hasN
 		return new OSQLFilter(iText, iContext);
 	}
 
+	/**
+	 * Parses conditions without target, like the ones of the HAVING clause.
+	 */
+	public OSQLFilter parseCondition(final String iText, final OCommandContext iContext) {
+		return new OSQLFilter(iText, iContext, false);
+	}
+
+	/**
+	 * Returns the cache of the SQL statements already parsed.
+	 */
+	public OSQLStatementCache getStatementCache() {
+		return statementCache;
+	}
+
 	public static OSQLEngine getInstance() {
 		return INSTANCE;
 	}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.command.OCommandExecutor;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItem;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemField;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
+
+/**
+ * Hash aggregation of the records of a SELECT with GROUP BY. Every group is identified by the values of the GROUP BY expressions
+ * and keeps its own state for every aggregate function of the projections. When the groups in memory reach the limit, the records
+ * of the new groups are spilled to temporary files partitioned by the hash of their group. Once the in-memory groups are returned,
+ * every partition is read back and aggregated in the same way, spilling again if still too large.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OSQLGroupBy {
+	private static final int								SPILL_PARTITIONS	= 16;
+	private static final int								MAX_SPILL_DEPTH		= 4;
+
+	private final List<Object>							groupByItems;
+	private final Map<String, Object>				projections;
+	private final List<OSQLFunctionRuntime>	aggregates				= new ArrayList<OSQLFunctionRuntime>();
+	private final OCommandContext						context;
+	private final OCommandExecutor					requester;
+	private final int												maxGroups;
+	private final int												depth;
+	private final Map<List<Object>, OGroup>	groups						= new LinkedHashMap<List<Object>, OGroup>();
+
+	private File[]													spillFiles;
+	private DataOutputStream[]							spillStreams;
+	private int[]														spillRecords;
+
+	/**
+	 * Group of records with the same values of the GROUP BY expressions.
+	 */
+	private static class OGroup {
+		private final ODocument				firstRecord;
+		private final OSQLFunction[]	states;
+
+		private OGroup(final ODocument iFirstRecord, final OSQLFunction[] iStates) {
+			firstRecord = iFirstRecord;
+			states = iStates;
+		}
+	}
+
+	/**
+	 * @param iGroupByItems
+	 *          Parsed GROUP BY expressions
+	 * @param iProjections
+	 *          Parsed projections of the SELECT, null to return the first record of every group
+	 * @param iContext
+	 *          Command context
+	 * @param iRequester
+	 *          Executor of the SELECT
+	 * @param iMaxGroups
+	 *          Maximum number of groups kept in memory
+	 */
+	public OSQLGroupBy(final List<Object> iGroupByItems, final Map<String, Object> iProjections, final OCommandContext iContext,
+			final OCommandExecutor iRequester, final int iMaxGroups) {
+		this(iGroupByItems, iProjections, iContext, iRequester, iMaxGroups, 0);
+	}
+
+	private OSQLGroupBy(final List<Object> iGroupByItems, final Map<String, Object> iProjections, final OCommandContext iContext,
+			final OCommandExecutor iRequester, final int iMaxGroups, final int iDepth) {
+		groupByItems = iGroupByItems;
+		projections = iProjections;
+		context = iContext;
+		requester = iRequester;
+		maxGroups = Math.max(1, iMaxGroups);
+		depth = iDepth;
+
+		if (projections != null)
+			for (Object projection : projections.values())
+				if (projection instanceof OSQLFunctionRuntime && ((OSQLFunctionRuntime) projection).aggregateResults())
+					aggregates.add((OSQLFunctionRuntime) projection);
+	}
+
+	/**
+	 * Aggregates the record in its group.
+	 */
+	public void add(final ODocument iRecord) {
+		final List<Object> key = getKey(iRecord);
+
+		OGroup group = groups.get(key);
+		if (group == null) {
+			if (groups.size() >= maxGroups && depth < MAX_SPILL_DEPTH) {
+				// TOO MANY GROUPS IN MEMORY: AGGREGATE IT LATER
+				spill(key, iRecord);
+				return;
+			}
+
+			final OSQLFunction[] states = new OSQLFunction[aggregates.size()];
+			for (int i = 0; i < states.length; ++i)
+				states[i] = aggregates.get(i).createState();
+
+			group = new OGroup(iRecord.copy(), states);
+			groups.put(key, group);
+		}
+
+		for (int i = 0; i < group.states.length; ++i)
+			aggregates.get(i).execute(group.states[i], iRecord, requester);
+	}
+
+	/**
+	 * Returns a document for every group satisfying the HAVING conditions, then frees all the resources.
+	 *
+	 * @param iHaving
+	 *          HAVING conditions evaluated against the group documents, null to return all the groups
+	 */
+	public List<OIdentifiable> getResult(final OSQLFilter iHaving) {
+		final List<OIdentifiable> result = new ArrayList<OIdentifiable>();
+		try {
+			fetch(result, iHaving);
+		} finally {
+			close();
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes the temporary files still open.
+	 */
+	public void close() {
+		if (spillFiles == null)
+			return;
+
+		for (int i = 0; i < SPILL_PARTITIONS; ++i)
+			if (spillFiles[i] != null) {
+				try {
+					spillStreams[i].close();
+				} catch (IOException e) {
+					// IGNORE IT
+				}
+				spillFiles[i].delete();
+			}
+
+		spillFiles = null;
+		spillStreams = null;
+		spillRecords = null;
+	}
+
+	private void fetch(final List<OIdentifiable> ioResult, final OSQLFilter iHaving) {
+		for (OGroup group : groups.values()) {
+			final ODocument document = toDocument(group);
+			if (iHaving == null || iHaving.evaluate(document, context))
+				ioResult.add(document);
+		}
+		groups.clear();
+
+		if (spillFiles == null)
+			return;
+
+		for (int i = 0; i < SPILL_PARTITIONS; ++i) {
+			if (spillFiles[i] == null)
+				continue;
+
+			final OSQLGroupBy partition = new OSQLGroupBy(groupByItems, projections, context, requester, maxGroups, depth + 1);
+			try {
+				spillStreams[i].close();
+
+				final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFiles[i])));
+				try {
+					for (int r = 0; r < spillRecords[i]; ++r)
+						partition.add(readRecord(in));
+				} finally {
+					in.close();
+				}
+
+				spillFiles[i].delete();
+				spillFiles[i] = null;
+
+				partition.fetch(ioResult, iHaving);
+			} catch (IOException e) {
+				throw new OCommandExecutionException("Error on reading the GROUP BY records spilled to file " + spillFiles[i], e);
+			} finally {
+				partition.close();
+			}
+		}
+	}
+
+	private ODocument toDocument(final OGroup iGroup) {
+		if (projections == null)
+			return iGroup.firstRecord;
+
+		final ODocument result = new ODocument().setOrdered(true);
+
+		int aggregate = 0;
+		Object value;
+		for (Entry<String, Object> projection : projections.entrySet()) {
+			final Object item = projection.getValue();
+
+			if (item.equals("*")) {
+				iGroup.firstRecord.copy(result);
+				value = null;
+			} else if (item.toString().startsWith("$"))
+				value = context != null ? context.getVariable(item.toString().substring(1)) : null;
+			else if (item instanceof OSQLFilterItemField)
+				value = ((OSQLFilterItemField) item).getValue(iGroup.firstRecord, null);
+			else if (item instanceof OSQLFunctionRuntime) {
+				final OSQLFunctionRuntime f = (OSQLFunctionRuntime) item;
+				if (f.aggregateResults())
+					value = f.getResult(iGroup.states[aggregate++]);
+				else
+					value = f.execute(iGroup.firstRecord, requester);
+			} else
+				value = item;
+
+			if (value != null)
+				result.field(projection.getKey(), value);
+		}
+
+		return result;
+	}
+
+	private List<Object> getKey(final ODocument iRecord) {
+		final List<Object> key = new ArrayList<Object>(groupByItems.size());
+		for (Object item : groupByItems)
+			key.add(item instanceof OSQLFilterItem ? ((OSQLFilterItem) item).getValue(iRecord, context) : item);
+		return key;
+	}
+
+	private void spill(final List<Object> iKey, final ODocument iRecord) {
+		// EVERY LEVEL MIXES THE HASH IN A DIFFERENT WAY TO SPLIT THE GROUPS OF THE PARTITION
+		int hash = iKey.hashCode() * (2 * depth + 1) + depth;
+		hash ^= hash >>> 16;
+		final int partition = (hash & Integer.MAX_VALUE) % SPILL_PARTITIONS;
+
+		try {
+			if (spillFiles == null) {
+				spillFiles = new File[SPILL_PARTITIONS];
+				spillStreams = new DataOutputStream[SPILL_PARTITIONS];
+				spillRecords = new int[SPILL_PARTITIONS];
+			}
+
+			if (spillFiles[partition] == null) {
+				spillFiles[partition] = File.createTempFile("orientdb-groupby-", ".tmp");
+				spillFiles[partition].deleteOnExit();
+				spillStreams[partition] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFiles[partition])));
+				OProfiler.getInstance().updateCounter("Query.groupBySpills", 1);
+			}
+
+			writeRecord(spillStreams[partition], iRecord);
+			spillRecords[partition]++;
+
+		} catch (IOException e) {
+			throw new OCommandExecutionException("Error on spilling the GROUP BY records to a temporary file", e);
+		}
+	}
+
+	private static void writeRecord(final DataOutputStream iOut, final ODocument iRecord) throws IOException {
+		iOut.writeUTF(iRecord.getIdentity().toString());
+
+		final byte[] content = iRecord.toStream();
+		iOut.writeInt(content.length);
+		iOut.write(content);
+	}
+
+	private static ODocument readRecord(final DataInputStream iIn) throws IOException {
+		final String rid = iIn.readUTF();
+
+		final byte[] content = new byte[iIn.readInt()];
+		iIn.readFully(content);
+
+		final ODocument record = new ODocument();
+		record.fromStream(content);
+		((ORecordId) record.getIdentity()).fromString(rid);
+		return record;
+	}
+}
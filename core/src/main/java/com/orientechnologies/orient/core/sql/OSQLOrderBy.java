@@ -0,0 +1,308 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.common.util.OPair;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentComparator;
+
+/**
+ * Sorts the records of a SELECT with ORDER BY. When the records to return are known (SKIP + LIMIT) only the best ones are kept in
+ * a bounded heap, so the memory does not depend on the records found. Otherwise all the records are collected and, when they
+ * exceed the records allowed in memory, sorted runs are spilled to temporary files and merged at the end. The records with the
+ * same values keep the order they were found in, like a stable sort.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OSQLOrderBy {
+	private final Comparator<OIdentifiable>	comparator;
+	private final Comparator<OEntry>				entryComparator;
+	private final int												maxRecords;
+	private final int												maxRecordsInMemory;
+	private long														sequence;
+
+	private PriorityQueue<OEntry>						heap;
+	private List<OEntry>										records;
+	private List<File>											runs;
+	private DataInputStream[]								inputs;
+
+	/**
+	 * Record with the position it was found in, to break the ties.
+	 */
+	private static class OEntry {
+		private final OIdentifiable	record;
+		private final long					sequence;
+
+		private OEntry(final OIdentifiable iRecord, final long iSequence) {
+			record = iRecord;
+			sequence = iSequence;
+		}
+	}
+
+	/**
+	 * @param iOrderedFields
+	 *          Fields of the ORDER BY with their direction
+	 * @param iMaxRecords
+	 *          Records to return including the skipped ones, -1 to return them all
+	 * @param iMaxRecordsInMemory
+	 *          Maximum number of records to sort in memory
+	 */
+	public OSQLOrderBy(final List<OPair<String, String>> iOrderedFields, final int iMaxRecords, final int iMaxRecordsInMemory) {
+		comparator = new ODocumentComparator(iOrderedFields);
+		entryComparator = new Comparator<OEntry>() {
+			public int compare(final OEntry iEntry1, final OEntry iEntry2) {
+				final int result = comparator.compare(iEntry1.record, iEntry2.record);
+				if (result != 0)
+					return result;
+				return iEntry1.sequence < iEntry2.sequence ? -1 : (iEntry1.sequence == iEntry2.sequence ? 0 : 1);
+			}
+		};
+		maxRecords = iMaxRecords;
+		maxRecordsInMemory = Math.max(1, iMaxRecordsInMemory);
+
+		if (maxRecords > -1 && maxRecords <= maxRecordsInMemory)
+			// TOP-K: THE HEAD OF THE HEAP IS THE WORST RECORD KEPT
+			heap = new PriorityQueue<OEntry>(Math.max(1, maxRecords), Collections.reverseOrder(entryComparator));
+		else
+			records = new ArrayList<OEntry>();
+	}
+
+	public void add(final OIdentifiable iRecord) {
+		final OEntry entry = new OEntry(iRecord, sequence++);
+
+		if (heap != null) {
+			if (heap.size() < maxRecords)
+				heap.offer(entry);
+			else if (maxRecords > 0 && entryComparator.compare(entry, heap.peek()) < 0) {
+				// BETTER THAN THE WORST ONE: REPLACE IT
+				heap.poll();
+				heap.offer(entry);
+			}
+			return;
+		}
+
+		records.add(entry);
+		if (records.size() >= maxRecordsInMemory)
+			spill();
+	}
+
+	/**
+	 * Returns true if all the records to return have been collected. Useful only when the records are received already ordered.
+	 */
+	public boolean isFull() {
+		return heap != null && heap.size() >= maxRecords;
+	}
+
+	/**
+	 * Returns the records in order. The temporary files are deleted by {@link #close()}.
+	 */
+	public Iterator<OIdentifiable> fetch() {
+		final List<OEntry> sorted;
+		if (heap != null) {
+			sorted = new ArrayList<OEntry>(heap);
+			heap.clear();
+		} else {
+			sorted = records;
+			records = new ArrayList<OEntry>();
+		}
+		Collections.sort(sorted, entryComparator);
+
+		if (runs == null)
+			return new Iterator<OIdentifiable>() {
+				private final Iterator<OEntry>	iterator	= sorted.iterator();
+
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				public OIdentifiable next() {
+					return iterator.next().record;
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException("remove");
+				}
+			};
+
+		try {
+			return new OMergeIterator(sorted);
+		} catch (IOException e) {
+			close();
+			throw new OCommandExecutionException("Error on reading the ORDER BY records spilled to temporary files", e);
+		}
+	}
+
+	/**
+	 * Deletes the temporary files still present.
+	 */
+	public void close() {
+		if (inputs != null) {
+			for (DataInputStream input : inputs)
+				if (input != null)
+					try {
+						input.close();
+					} catch (IOException e) {
+						// IGNORE IT
+					}
+			inputs = null;
+		}
+
+		if (runs == null)
+			return;
+
+		for (File run : runs)
+			run.delete();
+		runs = null;
+	}
+
+	/**
+	 * Merges the sorted runs on disk with the records still in memory, that are the last found.
+	 */
+	private class OMergeIterator implements Iterator<OIdentifiable> {
+		private final List<OEntry>	memory;
+		private final OEntry[]			heads;
+		private int									memoryPosition;
+
+		private OMergeIterator(final List<OEntry> iMemory) throws IOException {
+			memory = iMemory;
+
+			final int runCount = runs.size();
+			inputs = new DataInputStream[runCount];
+			heads = new OEntry[runCount + 1];
+			for (int i = 0; i < runCount; ++i) {
+				inputs[i] = new DataInputStream(new BufferedInputStream(new FileInputStream(runs.get(i))));
+				heads[i] = readEntry(inputs[i]);
+			}
+			heads[runCount] = nextInMemory();
+		}
+
+		public boolean hasNext() {
+			for (OEntry head : heads)
+				if (head != null)
+					return true;
+			return false;
+		}
+
+		public OIdentifiable next() {
+			// THE RUNS ARE ORDERED BY ARRIVAL: ON EQUAL VALUES THE FIRST RUN WINS
+			int lowest = -1;
+			for (int i = 0; i < heads.length; ++i)
+				if (heads[i] != null && (lowest == -1 || comparator.compare(heads[i].record, heads[lowest].record) < 0))
+					lowest = i;
+
+			if (lowest == -1)
+				throw new NoSuchElementException();
+
+			final OEntry entry = heads[lowest];
+			try {
+				heads[lowest] = lowest < inputs.length ? readEntry(inputs[lowest]) : nextInMemory();
+			} catch (IOException e) {
+				throw new OCommandExecutionException("Error on reading the ORDER BY records spilled to temporary files", e);
+			}
+			return entry.record;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException("remove");
+		}
+
+		private OEntry nextInMemory() {
+			return memoryPosition < memory.size() ? memory.get(memoryPosition++) : null;
+		}
+	}
+
+	private void spill() {
+		Collections.sort(records, entryComparator);
+
+		try {
+			final File run = File.createTempFile("orientdb-orderby-", ".tmp");
+			run.deleteOnExit();
+			if (runs == null)
+				runs = new ArrayList<File>();
+			runs.add(run);
+
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));
+			try {
+				for (OEntry entry : records)
+					writeEntry(out, entry);
+			} finally {
+				out.close();
+			}
+
+		} catch (IOException e) {
+			throw new OCommandExecutionException("Error on spilling the ORDER BY records to a temporary file", e);
+		}
+
+		records.clear();
+		OProfiler.getInstance().updateCounter("Query.orderBySpills", 1);
+	}
+
+	private static void writeEntry(final DataOutputStream iOut, final OEntry iEntry) throws IOException {
+		final ODocument record = iEntry.record.getRecord();
+
+		iOut.writeLong(iEntry.sequence);
+		iOut.writeUTF(record.getIdentity().toString());
+		iOut.writeInt(record.getVersion());
+
+		final byte[] content = record.toStream();
+		iOut.writeInt(content.length);
+		iOut.write(content);
+	}
+
+	private static OEntry readEntry(final DataInputStream iIn) throws IOException {
+		final long sequence;
+		try {
+			sequence = iIn.readLong();
+		} catch (EOFException e) {
+			// END OF THE RUN
+			return null;
+		}
+
+		final String rid = iIn.readUTF();
+		final int version = iIn.readInt();
+
+		final byte[] content = new byte[iIn.readInt()];
+		iIn.readFully(content);
+
+		final ODocument record = new ODocument().setOrdered(true);
+		record.fromStream(content);
+		((ORecordId) record.getIdentity()).fromString(rid);
+		record.setVersion(version);
+		return new OEntry(record, sequence);
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.common.profiler.OProfiler.OProfilerHookValue;
+import com.orientechnologies.orient.core.OOrientListener;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.index.OIndexManager;
+import com.orientechnologies.orient.core.storage.OStorage;
+
+/**
+ * Bounded cache of parsed SQL statements. The executors are kept already parsed and optimized by database and statement text, so
+ * the next execution of the same statement binds the new parameters and runs without parsing it again. Since an executor keeps the
+ * state of the running execution, it is taken out of the cache while in use: every statement keeps a small pool of idle executors
+ * for the concurrent executions. The executors are discarded when the schema or the index configuration changes, that is when the
+ * version of their records differs from the one at parsing time. The statements of a database are removed when its storage is
+ * closed or dropped, since a database created again with the same URL starts again from the same versions.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OSQLStatementCache implements OOrientListener {
+	/**
+	 * Idle executors kept for every statement.
+	 */
+	private static final int								EXECUTORS_PER_STATEMENT	= 8;
+
+	private final int												limit;
+	private final Map<String, OStatementPool>	statements;
+	private long														hits;
+	private long														misses;
+
+	/**
+	 * Parsed executors of a statement with the schema version they were parsed with.
+	 */
+	private static class OStatementPool {
+		private final long															version;
+		private final List<OCommandExecutorSQLAbstract>	executors	= new ArrayList<OCommandExecutorSQLAbstract>();
+
+		private OStatementPool(final long iVersion) {
+			version = iVersion;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	public OSQLStatementCache(final int iLimit) {
+		limit = iLimit;
+		statements = new LinkedHashMap<String, OStatementPool>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, OStatementPool> iEldest) {
+				return size() > limit;
+			}
+		};
+
+		OProfiler.getInstance().registerHookValue("Command.cache.current", new OProfilerHookValue() {
+			public Object getValue() {
+				return getSize();
+			}
+		});
+
+		OProfiler.getInstance().registerHookValue("Command.cache.hitRatio", new OProfilerHookValue() {
+			public Object getValue() {
+				return getHitRatio();
+			}
+		});
+
+		Orient.instance().registerListener(this);
+	}
+
+	public boolean isEnabled() {
+		return limit > 0 && OGlobalConfiguration.COMMAND_CACHE_ENABLED.getValueAsBoolean();
+	}
+
+	/**
+	 * Takes an idle executor of the statement out of the cache.
+	 *
+	 * @param iDatabase
+	 *          Database the statement is executed against
+	 * @param iText
+	 *          Statement text
+	 * @param iVersion
+	 *          Current schema version as returned by {@link #getVersion(ODatabaseRecord)}
+	 * @return The executor already parsed, or null if not found or all its executors are in use
+	 */
+	public synchronized OCommandExecutorSQLAbstract acquire(final ODatabaseRecord iDatabase, final String iText, final long iVersion) {
+		final String key = getKey(iDatabase, iText);
+		final OStatementPool pool = statements.get(key);
+
+		if (pool != null && pool.version != iVersion) {
+			// SCHEMA OR INDEXES CHANGED AFTER THE PARSING
+			statements.remove(key);
+			OProfiler.getInstance().updateCounter("Command.cache.invalidations", 1);
+		} else if (pool != null && !pool.executors.isEmpty()) {
+			hits++;
+			OProfiler.getInstance().updateCounter("Command.cache.hits", 1);
+			return pool.executors.remove(pool.executors.size() - 1);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Counts a reusable statement that was not found in the cache and has been parsed.
+	 */
+	public synchronized void onMiss() {
+		misses++;
+		OProfiler.getInstance().updateCounter("Command.cache.misses", 1);
+	}
+
+	/**
+	 * Gives back an executor after its execution to be reused by the next execution of the same statement.
+	 *
+	 * @param iDatabase
+	 *          Database the statement was executed against
+	 * @param iText
+	 *          Statement text
+	 * @param iVersion
+	 *          Schema version the executor was parsed with
+	 * @param iExecutor
+	 *          Executor to reuse
+	 */
+	public synchronized void release(final ODatabaseRecord iDatabase, final String iText, final long iVersion,
+			final OCommandExecutorSQLAbstract iExecutor) {
+		final String key = getKey(iDatabase, iText);
+		OStatementPool pool = statements.get(key);
+
+		if (pool == null || pool.version < iVersion) {
+			pool = new OStatementPool(iVersion);
+			statements.put(key, pool);
+		} else if (pool.version != iVersion)
+			// PARSED WITH AN OLDER SCHEMA
+			return;
+
+		if (pool.executors.size() < EXECUTORS_PER_STATEMENT)
+			pool.executors.add(iExecutor);
+	}
+
+	/**
+	 * Returns the version of the schema and of the index configuration of the database. Every change of them makes the cached
+	 * statements obsolete.
+	 */
+	public long getVersion(final ODatabaseRecord iDatabase) {
+		final OIndexManager indexManager = iDatabase.getMetadata().getIndexManager();
+		final long indexVersion = indexManager.getConfiguration() != null ? indexManager.getConfiguration().getVersion() : 0;
+		return ((long) iDatabase.getMetadata().getSchema().getVersion() << 32) + indexVersion;
+	}
+
+	public synchronized void clear() {
+		statements.clear();
+	}
+
+	public void onStorageRegistered(final OStorage iStorage) {
+	}
+
+	/**
+	 * Removes the statements of the closed storage. This avoids to reuse them against a database created again with the same URL.
+	 */
+	public synchronized void onStorageUnregistered(final OStorage iStorage) {
+		final String prefix = iStorage.getURL() + "|";
+		for (Iterator<String> it = statements.keySet().iterator(); it.hasNext();)
+			if (it.next().startsWith(prefix))
+				it.remove();
+	}
+
+	public synchronized int getSize() {
+		return statements.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the percentage of executions that found the statement already parsed.
+	 */
+	public synchronized float getHitRatio() {
+		return hits + misses > 0 ? hits * 100f / (hits + misses) : 0;
+	}
+
+	private static String getKey(final ODatabaseRecord iDatabase, final String iText) {
+		return iDatabase.getStorage().getURL() + "|" + iText;
+	}
+}
@@ -16,20 +16,21 @@
 package com.orientechnologies.orient.core.sql;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordIdBitmap;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 
 public class OTraverseContext implements OCommandContext {
-	public Set<ORID>			traversed	= new HashSet<ORID>();
-	public List<ORID>			history		= new ArrayList<ORID>();
-	public OTraversePath	path			= new OTraversePath();
+	public ORecordIdBitmap	traversed	= new ORecordIdBitmap();
+	private OTraverseFrame	current;
 
 	@SuppressWarnings("serial")
 	public class OTraversePath extends ArrayList<String> {
@@ -45,26 +46,81 @@ public class OTraverseContext implements OCommandContext {
 		}
 	}
 
+	/**
+	 * Record to traverse, with the field and the record it has been reached from. The frames of the records already traversed keep
+	 * only the identity, to build the history of the records following.
+	 */
+	public static class OTraverseFrame {
+		public final OTraverseFrame	parent;
+		public final String					field;
+		public final int						depth;
+		public final ORID						rid;
+		public OIdentifiable				target;
+		public ODocument						record;
+
+		public OTraverseFrame(final OIdentifiable iTarget, final OTraverseFrame iParent, final String iField) {
+			target = iTarget;
+			parent = iParent;
+			field = iField;
+			depth = iParent == null ? 0 : iParent.depth + 1;
+			rid = iTarget.getIdentity();
+		}
+	}
+
+	/**
+	 * Sets the record under evaluation, used to resolve the $depth, $path and $history variables.
+	 */
+	public void setCurrent(final OTraverseFrame iFrame) {
+		current = iFrame;
+	}
+
+	public int getDepth() {
+		return current == null ? 0 : current.depth;
+	}
+
+	/**
+	 * Returns the fields crossed from the root record to the current one.
+	 */
+	public OTraversePath getPath() {
+		final OTraversePath path = new OTraversePath();
+		for (OTraverseFrame frame = current; frame != null && frame.field != null; frame = frame.parent)
+			path.add(frame.field);
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Returns the records crossed from the root record to the current one, excluded.
+	 */
+	public List<ORID> getHistory() {
+		final List<ORID> history = new ArrayList<ORID>();
+		if (current != null)
+			for (OTraverseFrame frame = current.parent; frame != null; frame = frame.parent)
+				history.add(frame.rid);
+		Collections.reverse(history);
+		return history;
+	}
+
 	public Object getVariable(final String iName) {
 		if ("depth".equalsIgnoreCase(iName))
-			return history.size();
+			return getDepth();
 		else if ("path".equalsIgnoreCase(iName))
-			return path;
+			return getPath();
 		else if ("history".equalsIgnoreCase(iName))
-			return history;
+			return getHistory();
 		return null;
 	}
 
 	public void setVariable(final String iName, final Object iValue) {
 		if ("depth".equalsIgnoreCase(iName))
-			throw new OCommandExecutionException("Cannot change read-only 'depth' variable. Current value is: " + history.size());
+			throw new OCommandExecutionException("Cannot change read-only 'depth' variable. Current value is: " + getDepth());
 	}
 
 	public Map<String, Object> getVariables() {
 		final HashMap<String, Object> map = new HashMap<String, Object>();
-		map.put("depth", history.size());
-		map.put("path", path);
-		map.put("history", history);
+		map.put("depth", getDepth());
+		map.put("path", getPath());
+		map.put("history", getHistory());
 		return map;
 	}
 
@@ -75,4 +131,4 @@ public class OTraverseContext implements OCommandContext {
 	public String toString() {
 		return getVariables().toString();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.filter;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+/**
+ * Condition compiled by {@link OSQLFilterCompiler} to be evaluated against many records. The instances can be evaluated by more
+ * threads at the same time.
+ *
+ * @author Luca Garulli
+ *
+ */
+public abstract class OSQLCompiledCondition {
+	/**
+	 * Evaluates the condition against a record.
+	 *
+	 * @return true if the record satisfies the condition
+	 */
+	public abstract boolean evaluate(OIdentifiable iRecord, OCommandContext iContext);
+
+	/**
+	 * Returns the relative cost of the evaluation. AND and OR evaluate the cheapest conditions first.
+	 */
+	public abstract int getCost();
+}
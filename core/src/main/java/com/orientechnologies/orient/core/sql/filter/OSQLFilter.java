@@ -16,6 +16,7 @@
 package com.orientechnologies.orient.core.sql.filter;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -36,16 +37,21 @@ import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OProperty;
 import com.orientechnologies.orient.core.record.ORecord;
-import com.orientechnologies.orient.core.record.ORecordSchemaAware;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentHelper;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.sql.OCommandExecutorSQLAbstract;
 import com.orientechnologies.orient.core.sql.OCommandExecutorSQLSelect;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.OSQLEngine;
 import com.orientechnologies.orient.core.sql.OSQLHelper;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperator;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorAnd;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorNot;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorOr;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorTraverse;
+import com.orientechnologies.orient.core.sql.query.OSQLQuery;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
 /**
@@ -55,6 +61,7 @@ import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
  * 
  */
 public class OSQLFilter extends OCommandToParse {
+	private static final Set<String>						ALL_FIELDS	= new HashSet<String>();
 	protected ODatabaseRecord										database;
 	protected Iterable<? extends OIdentifiable>	targetRecords;
 	protected Map<String, String>								targetClusters;
@@ -64,17 +71,29 @@ public class OSQLFilter extends OCommandToParse {
 	protected OSQLFilterCondition								rootCondition;
 	protected List<String>											recordTransformed;
 	protected List<OSQLFilterItemParameter>			parameterItems;
+	protected volatile OSQLCompiledCondition		compiledCondition;
+	protected volatile Set<String>							referencedFields;
 	protected int																braces;
 	private OCommandContext											context;
 
 	public OSQLFilter(final String iText, final OCommandContext iContext) {
+		this(iText, iContext, true);
+	}
+
+	/**
+	 * @param iWithTarget
+	 *          false to parse only the conditions, like the ones of the HAVING clause
+	 */
+	public OSQLFilter(final String iText, final OCommandContext iContext, final boolean iWithTarget) {
 		context = iContext;
 		try {
 			database = ODatabaseRecordThreadLocal.INSTANCE.get();
 			text = iText;
 			textUpperCase = text.toUpperCase(Locale.ENGLISH);
 
-			if (extractTargets()) {
+			if (!iWithTarget)
+				rootCondition = (OSQLFilterCondition) extractConditions(null);
+			else if (extractTargets()) {
 				// IF WHERE EXISTS EXTRACT CONDITIONS
 
 				final StringBuilder word = new StringBuilder();
@@ -85,7 +104,11 @@ public class OSQLFilter extends OCommandToParse {
 						rootCondition = (OSQLFilterCondition) extractConditions(null);
 					} else if (word.toString().equals(OCommandExecutorSQLAbstract.KEYWORD_LIMIT)
 							|| word.toString().equals(OCommandExecutorSQLSelect.KEYWORD_ORDER)
-							|| word.toString().equals(OCommandExecutorSQLSelect.KEYWORD_SKIP))
+							|| word.toString().equals(OCommandExecutorSQLSelect.KEYWORD_SKIP)
+							|| word.toString().equals(OCommandExecutorSQLSelect.KEYWORD_GROUP)
+							|| word.toString().equals(OCommandExecutorSQLSelect.KEYWORD_HAVING)
+							|| word.toString().equals(OCommandExecutorSQLSelect.KEYWORD_PARALLEL)
+							|| word.toString().equals(OCommandExecutorSQLAbstract.KEYWORD_TIMEOUT))
 						return;
 					else
 						throw new OQueryParsingException("Found invalid keyword '" + word + "'", text, newPos);
@@ -115,7 +138,19 @@ public class OSQLFilter extends OCommandToParse {
 		if (rootCondition == null)
 			return true;
 
-		return (Boolean) rootCondition.evaluate((ORecordSchemaAware<?>) iRecord, iContext);
+		return getCompiledCondition().evaluate(iRecord, iContext);
+	}
+
+	/**
+	 * Returns the conditions compiled to be evaluated against many records, compiling them at the first call.
+	 */
+	public OSQLCompiledCondition getCompiledCondition() {
+		OSQLCompiledCondition compiled = compiledCondition;
+		if (compiled == null && rootCondition != null) {
+			compiled = OSQLFilterCompiler.compile(rootCondition);
+			compiledCondition = compiled;
+		}
+		return compiled;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -286,8 +321,10 @@ public class OSQLFilter extends OCommandToParse {
 
 	protected boolean checkForEnd(final String iWord) {
 		if (iWord != null
-				&& (iWord.equals(OCommandExecutorSQLSelect.KEYWORD_ORDER) || iWord.equals(OCommandExecutorSQLSelect.KEYWORD_LIMIT) || iWord
-						.equals(OCommandExecutorSQLSelect.KEYWORD_SKIP))) {
+				&& (iWord.equals(OCommandExecutorSQLSelect.KEYWORD_ORDER) || iWord.equals(OCommandExecutorSQLSelect.KEYWORD_LIMIT)
+						|| iWord.equals(OCommandExecutorSQLSelect.KEYWORD_SKIP) || iWord.equals(OCommandExecutorSQLSelect.KEYWORD_GROUP)
+						|| iWord.equals(OCommandExecutorSQLSelect.KEYWORD_HAVING) || iWord.equals(OCommandExecutorSQLSelect.KEYWORD_PARALLEL)
+						|| iWord.equals(OCommandExecutorSQLAbstract.KEYWORD_TIMEOUT))) {
 			currentPos -= iWord.length();
 			return true;
 		}
@@ -530,6 +567,146 @@ public class OSQLFilter extends OCommandToParse {
 		return "Unparsed: " + text;
 	}
 
+	/**
+	 * Unbinds all the parameters before a new execution binds them again.
+	 */
+	public void resetParameters() {
+		if (parameterItems == null)
+			return;
+
+		for (OSQLFilterItemParameter item : parameterItems)
+			item.reset();
+	}
+
+	/**
+	 * Tells if the conditions can be evaluated again by another execution binding new parameters. Functions and sub-queries keep the
+	 * state of the execution that created them, so the conditions containing them cannot be reused.
+	 */
+	public boolean isReusable() {
+		return isReusable(rootCondition);
+	}
+
+	private static boolean isReusable(final Object iItem) {
+		if (iItem instanceof OSQLFilterCondition)
+			return isReusable(((OSQLFilterCondition) iItem).getLeft()) && isReusable(((OSQLFilterCondition) iItem).getRight());
+
+		if (iItem instanceof OSQLFunctionRuntime || iItem instanceof OSQLQuery<?>)
+			return false;
+
+		if (iItem instanceof Collection<?>) {
+			for (Object item : (Collection<?>) iItem)
+				if (!isReusable(item))
+					return false;
+		} else if (iItem instanceof Object[]) {
+			for (Object item : (Object[]) iItem)
+				if (!isReusable(item))
+					return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Tells if the conditions can be evaluated by more threads at the same time. Functions and sub-queries keep the state of the
+	 * execution, while the fields of the linked records and the conditions against the items of collections load other records
+	 * through the database, that cannot be shared between threads.
+	 */
+	public boolean isConcurrent() {
+		return isConcurrent(rootCondition);
+	}
+
+	private static boolean isConcurrent(final Object iItem) {
+		if (iItem instanceof OSQLFilterCondition) {
+			final OSQLFilterCondition condition = (OSQLFilterCondition) iItem;
+			final OQueryOperator operator = condition.getOperator();
+
+			if (operator == null || operator instanceof OQueryOperatorAnd || operator instanceof OQueryOperatorOr
+					|| operator instanceof OQueryOperatorNot)
+				return isConcurrent(condition.getLeft()) && isConcurrent(condition.getRight());
+
+			// THE OTHER OPERATORS EVALUATE THE NESTED CONDITIONS AGAINST OTHER RECORDS
+			return !(condition.getLeft() instanceof OSQLFilterCondition) && !(condition.getRight() instanceof OSQLFilterCondition)
+					&& isConcurrent(condition.getLeft()) && isConcurrent(condition.getRight());
+		}
+
+		if (iItem instanceof OSQLFunctionRuntime || iItem instanceof OSQLQuery<?>)
+			return false;
+
+		if (iItem instanceof OSQLFilterItemAbstract)
+			return !((OSQLFilterItemAbstract) iItem).isReadingLinkedRecords();
+
+		if (iItem instanceof Collection<?>) {
+			for (Object item : (Collection<?>) iItem)
+				if (!isConcurrent(item))
+					return false;
+		} else if (iItem instanceof Object[]) {
+			for (Object item : (Object[]) iItem)
+				if (!isConcurrent(item))
+					return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the names of the fields of the record read by the conditions, or null if the conditions can read any part of the
+	 * record, like the functions, the sub-queries, the traverse and the conditions against all the fields. The records can be
+	 * filtered unmarshalling only these fields (see {@link ODocument#fieldsFromStream(Set)}).
+	 */
+	public Set<String> getReferencedFields() {
+		Set<String> fields = referencedFields;
+		if (fields == null) {
+			fields = new HashSet<String>();
+			if (!collectReferencedFields(rootCondition, fields))
+				// THE WHOLE RECORD IS NEEDED
+				fields = ALL_FIELDS;
+			referencedFields = fields;
+		}
+		return fields == ALL_FIELDS ? null : fields;
+	}
+
+	private static boolean collectReferencedFields(final Object iItem, final Set<String> iFields) {
+		if (iItem instanceof OSQLFilterCondition) {
+			final OSQLFilterCondition condition = (OSQLFilterCondition) iItem;
+			if (condition.getOperator() instanceof OQueryOperatorTraverse)
+				return false;
+			return collectReferencedFields(condition.getLeft(), iFields) && collectReferencedFields(condition.getRight(), iFields);
+		}
+
+		if (iItem instanceof OSQLFilterItemField) {
+			String name = ((OSQLFilterItemField) iItem).getRoot();
+			if (name == null || name.length() == 0 || name.indexOf('(') > -1)
+				return false;
+
+			if (name.charAt(0) == '@')
+				// THE IDENTITY, THE VERSION AND THE CLASS ARE ALWAYS AVAILABLE
+				return name.equalsIgnoreCase(ODocumentHelper.ATTRIBUTE_RID) || name.equalsIgnoreCase(ODocumentHelper.ATTRIBUTE_VERSION)
+						|| name.equalsIgnoreCase(ODocumentHelper.ATTRIBUTE_CLASS);
+
+			final int indexPos = name.indexOf('[');
+			if (indexPos > -1)
+				name = name.substring(0, indexPos);
+			iFields.add(name);
+			return true;
+		}
+
+		if (iItem instanceof OSQLFilterItemAbstract || iItem instanceof OSQLFunctionRuntime || iItem instanceof OSQLQuery<?>)
+			// ANY(), ALL(), VARIABLES, FUNCTIONS AND SUB-QUERIES
+			return false;
+
+		if (iItem instanceof Collection<?>) {
+			for (Object item : (Collection<?>) iItem)
+				if (!collectReferencedFields(item, iFields))
+					return false;
+		} else if (iItem instanceof Object[]) {
+			for (Object item : (Object[]) iItem)
+				if (!collectReferencedFields(item, iFields))
+					return false;
+		}
+
+		return true;
+	}
+
 	/**
 	 * Binds parameters.
 	 * 
@@ -577,5 +754,7 @@ public class OSQLFilter extends OCommandToParse {
 
 	public void setRootCondition(final OSQLFilterCondition iCondition) {
 		rootCondition = iCondition;
+		compiledCondition = null;
+		referencedFields = null;
 	}
 }
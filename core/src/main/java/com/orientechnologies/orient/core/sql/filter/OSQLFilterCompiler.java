@@ -0,0 +1,437 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordElement;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OSQLHelper;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperator;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorAnd;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorLike;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajor;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMatches;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinor;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorNot;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorOr;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorTraverse;
+import com.orientechnologies.orient.core.sql.query.OSQLQuery;
+
+/**
+ * Compiles the conditions of a query in a tree of {@link OSQLCompiledCondition} that avoids the interpretation of the parsed
+ * conditions for every record:
+ * <ul>
+ * <li>AND and OR stop at the first condition that decides the result, evaluating the cheapest conditions first</li>
+ * <li>the comparisons of a document field against a constant or a parameter read the field directly and reuse the constant
+ * already converted to the type of the field</li>
+ * </ul>
+ * All the other conditions, like the ones against functions, sub-queries, collections or linked records, are evaluated by the
+ * interpreter ({@link OSQLFilterCondition#evaluate(OIdentifiable, OCommandContext)}), so the results are always the same.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OSQLFilterCompiler {
+	private static final int													COST_COMPARISON	= 1;
+	private static final int													COST_OPERATOR		= 2;
+	private static final int													COST_PATTERN		= 4;
+	private static final int													COST_FUNCTION		= 5;
+	private static final int													COST_LINKED			= 10;
+	private static final int													COST_QUERY			= 100;
+
+	private static final Comparator<OSQLCompiledCondition>	BY_COST					= new Comparator<OSQLCompiledCondition>() {
+																																			public int compare(final OSQLCompiledCondition iFirst,
+																																					final OSQLCompiledCondition iSecond) {
+																																				return iFirst.getCost() - iSecond.getCost();
+																																			}
+																																		};
+
+	/**
+	 * Compiles a condition and its nested conditions.
+	 */
+	public static OSQLCompiledCondition compile(final OSQLFilterCondition iCondition) {
+		final OQueryOperator operator = iCondition.getOperator();
+		final Object left = iCondition.getLeft();
+		final Object right = iCondition.getRight();
+
+		if (operator == null) {
+			// BRACES
+			if (left instanceof OSQLFilterCondition || left instanceof Boolean)
+				return compileItem(left);
+		} else if (operator instanceof OQueryOperatorAnd || operator instanceof OQueryOperatorOr) {
+			if (isLogical(left) && isLogical(right))
+				return compileLogical(operator instanceof OQueryOperatorAnd, compileItem(left), compileItem(right));
+		} else if (operator instanceof OQueryOperatorNot) {
+			if (isLogical(left) && right == null)
+				return new ONot(compileItem(left));
+		} else {
+			final int comparison = getComparison(operator);
+			if (comparison != OComparison.NONE && isSimpleField(left)
+					&& (right instanceof OSQLFilterItemParameter || isConstant(right)))
+				return new OComparison(iCondition, comparison, ((OSQLFilterItemField) left).getRoot(), right);
+		}
+
+		return new OInterpreted(iCondition);
+	}
+
+	private static OSQLCompiledCondition compileItem(final Object iItem) {
+		if (iItem instanceof Boolean)
+			return ((Boolean) iItem) ? OConstant.TRUE : OConstant.FALSE;
+		return compile((OSQLFilterCondition) iItem);
+	}
+
+	private static OSQLCompiledCondition compileLogical(final boolean iAnd, final OSQLCompiledCondition iLeft,
+			final OSQLCompiledCondition iRight) {
+		// MERGE THE NESTED CONDITIONS OF THE SAME KIND: A AND (B AND C) BECOMES A AND B AND C
+		final List<OSQLCompiledCondition> conditions = new ArrayList<OSQLCompiledCondition>();
+		for (OSQLCompiledCondition condition : new OSQLCompiledCondition[] { iLeft, iRight })
+			if (condition instanceof OLogical && ((OLogical) condition).and == iAnd)
+				Collections.addAll(conditions, ((OLogical) condition).conditions);
+			else
+				conditions.add(condition);
+
+		// STABLE SORT: THE CONDITIONS WITH THE SAME COST KEEP THE ORDER OF THE QUERY
+		Collections.sort(conditions, BY_COST);
+		return new OLogical(iAnd, conditions.toArray(new OSQLCompiledCondition[conditions.size()]));
+	}
+
+	private static boolean isLogical(final Object iItem) {
+		return iItem instanceof OSQLFilterCondition || iItem instanceof Boolean;
+	}
+
+	private static int getComparison(final OQueryOperator iOperator) {
+		final Class<?> cls = iOperator.getClass();
+		if (cls == OQueryOperatorEquals.class)
+			return OComparison.EQUALS;
+		if (cls == OQueryOperatorMajor.class)
+			return OComparison.MAJOR;
+		if (cls == OQueryOperatorMajorEquals.class)
+			return OComparison.MAJOR_EQUALS;
+		if (cls == OQueryOperatorMinor.class)
+			return OComparison.MINOR;
+		if (cls == OQueryOperatorMinorEquals.class)
+			return OComparison.MINOR_EQUALS;
+		return OComparison.NONE;
+	}
+
+	/**
+	 * Returns true if the item is a field of the document itself, without attributes, chains or functions.
+	 */
+	private static boolean isSimpleField(final Object iItem) {
+		if (iItem == null || iItem.getClass() != OSQLFilterItemField.class)
+			return false;
+
+		final OSQLFilterItemField field = (OSQLFilterItemField) iItem;
+		final String name = field.getRoot();
+		return !field.hasChainOperators() && name != null && name.length() > 0 && name.charAt(0) != '@' && name.indexOf('.') == -1
+				&& name.indexOf('[') == -1 && name.indexOf('(') == -1;
+	}
+
+	/**
+	 * Returns true if the value can be compared directly with the values of the fields.
+	 */
+	private static boolean isConstant(final Object iValue) {
+		return iValue instanceof Comparable<?> && !(iValue instanceof OIdentifiable) && !OSQLHelper.DEFINED.equals(iValue)
+				&& !OSQLHelper.NOT_NULL.equals(iValue);
+	}
+
+	private static int getCost(final Object iItem) {
+		if (iItem instanceof OSQLFilterCondition) {
+			final OSQLFilterCondition condition = (OSQLFilterCondition) iItem;
+			final OQueryOperator operator = condition.getOperator();
+
+			final int cost;
+			if (operator instanceof OQueryOperatorLike || operator instanceof OQueryOperatorMatches)
+				cost = COST_PATTERN;
+			else if (operator instanceof OQueryOperatorTraverse)
+				cost = COST_LINKED;
+			else
+				cost = COST_OPERATOR;
+
+			return cost + getCost(condition.getLeft()) + getCost(condition.getRight());
+		}
+
+		if (iItem instanceof OSQLQuery<?>)
+			return COST_QUERY;
+
+		if (iItem instanceof OSQLFunctionRuntime)
+			return COST_FUNCTION;
+
+		if (iItem instanceof OSQLFilterItemAbstract && ((OSQLFilterItemAbstract) iItem).isReadingLinkedRecords())
+			return COST_LINKED;
+
+		if (iItem instanceof Collection<?>) {
+			int cost = 0;
+			for (Object item : (Collection<?>) iItem)
+				cost += getCost(item);
+			return cost;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Constant result, for the conditions already resolved by the optimizer.
+	 */
+	private static class OConstant extends OSQLCompiledCondition {
+		private static final OConstant	TRUE	= new OConstant(true);
+		private static final OConstant	FALSE	= new OConstant(false);
+
+		private final boolean						value;
+
+		private OConstant(final boolean iValue) {
+			value = iValue;
+		}
+
+		@Override
+		public boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+			return value;
+		}
+
+		@Override
+		public int getCost() {
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(value);
+		}
+	}
+
+	/**
+	 * AND or OR of two or more conditions, ordered by cost.
+	 */
+	private static class OLogical extends OSQLCompiledCondition {
+		private final boolean									and;
+		private final OSQLCompiledCondition[]	conditions;
+		private final int											cost;
+
+		private OLogical(final boolean iAnd, final OSQLCompiledCondition[] iConditions) {
+			and = iAnd;
+			conditions = iConditions;
+
+			int total = 0;
+			for (OSQLCompiledCondition condition : conditions)
+				total += condition.getCost();
+			cost = total;
+		}
+
+		@Override
+		public boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+			// STOP AT THE FIRST CONDITION THAT DECIDES THE RESULT
+			for (OSQLCompiledCondition condition : conditions)
+				if (condition.evaluate(iRecord, iContext) != and)
+					return !and;
+			return and;
+		}
+
+		@Override
+		public int getCost() {
+			return cost;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder buffer = new StringBuilder();
+			buffer.append('(');
+			for (int i = 0; i < conditions.length; ++i) {
+				if (i > 0)
+					buffer.append(and ? " AND " : " OR ");
+				buffer.append(conditions[i]);
+			}
+			buffer.append(')');
+			return buffer.toString();
+		}
+	}
+
+	private static class ONot extends OSQLCompiledCondition {
+		private final OSQLCompiledCondition	condition;
+
+		private ONot(final OSQLCompiledCondition iCondition) {
+			condition = iCondition;
+		}
+
+		@Override
+		public boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+			return !condition.evaluate(iRecord, iContext);
+		}
+
+		@Override
+		public int getCost() {
+			return condition.getCost();
+		}
+
+		@Override
+		public String toString() {
+			return "NOT " + condition;
+		}
+	}
+
+	/**
+	 * Condition evaluated by the interpreter.
+	 */
+	private static class OInterpreted extends OSQLCompiledCondition {
+		private final OSQLFilterCondition	condition;
+		private final int									cost;
+
+		private OInterpreted(final OSQLFilterCondition iCondition) {
+			condition = iCondition;
+			cost = OSQLFilterCompiler.getCost(iCondition);
+		}
+
+		@Override
+		public boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+			final Object result = condition.evaluate(iRecord, iContext);
+			return result != null && (Boolean) result;
+		}
+
+		@Override
+		public int getCost() {
+			return cost;
+		}
+
+		@Override
+		public String toString() {
+			return condition.toString();
+		}
+	}
+
+	/**
+	 * Comparison of a field against a constant or a parameter. The constant is converted as the interpreter does, but only once per
+	 * type of the field values. When the value of the field cannot be compared directly the condition is interpreted.
+	 */
+	private static class OComparison extends OSQLCompiledCondition {
+		private static final int					NONE					= 0;
+		private static final int					EQUALS				= 1;
+		private static final int					MAJOR					= 2;
+		private static final int					MAJOR_EQUALS	= 3;
+		private static final int					MINOR					= 4;
+		private static final int					MINOR_EQUALS	= 5;
+
+		private final OSQLFilterCondition	condition;
+		private final int									comparison;
+		private final String							fieldName;
+		private final Object							right;
+		private volatile OConversion			lastConversion;
+
+		/**
+		 * Constant converted for the values of a class.
+		 */
+		private static class OConversion {
+			private final Class<?>	valueClass;
+			private final Object		constant;
+			private final Object		converted;
+
+			private OConversion(final Class<?> iValueClass, final Object iConstant, final Object iConverted) {
+				valueClass = iValueClass;
+				constant = iConstant;
+				converted = iConverted;
+			}
+		}
+
+		private OComparison(final OSQLFilterCondition iCondition, final int iComparison, final String iFieldName, final Object iRight) {
+			condition = iCondition;
+			comparison = iComparison;
+			fieldName = iFieldName;
+			right = iRight;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+			final Object constant = right instanceof OSQLFilterItemParameter ? ((OSQLFilterItemParameter) right).getValue(iRecord,
+					iContext) : right;
+
+			final ORecord<?> record = iRecord.getRecord();
+			if (!(record instanceof ODocument) || record.getInternalStatus() == ORecordElement.STATUS.NOT_LOADED
+					|| !isConstant(constant))
+				return interpret(iRecord, iContext);
+
+			final Object value = ((ODocument) record).rawField(fieldName);
+			if (value == null || !isConstant(value))
+				return interpret(iRecord, iContext);
+
+			OConversion conversion = lastConversion;
+			if (conversion == null || conversion.valueClass != value.getClass() || conversion.constant != constant) {
+				conversion = convert(iRecord, value, constant);
+				if (conversion == null)
+					return interpret(iRecord, iContext);
+				lastConversion = conversion;
+			}
+
+			if (conversion.converted == null)
+				return false;
+
+			switch (comparison) {
+			case EQUALS:
+				return value.equals(conversion.converted);
+			case MAJOR:
+				return ((Comparable<Object>) value).compareTo(conversion.converted) > 0;
+			case MAJOR_EQUALS:
+				return ((Comparable<Object>) value).compareTo(conversion.converted) >= 0;
+			case MINOR:
+				return ((Comparable<Object>) value).compareTo(conversion.converted) < 0;
+			default:
+				return ((Comparable<Object>) value).compareTo(conversion.converted) <= 0;
+			}
+		}
+
+		@Override
+		public int getCost() {
+			return COST_COMPARISON;
+		}
+
+		@Override
+		public String toString() {
+			return condition.toString();
+		}
+
+		/**
+		 * Converts the constant for the class of the value, or returns null when the interpreter would convert the value itself.
+		 */
+		private OConversion convert(final OIdentifiable iRecord, final Object iValue, final Object iConstant) {
+			Object constant = iConstant;
+
+			final Object[] convertedValues = condition.checkForConversion(iRecord, iValue, iConstant);
+			if (convertedValues != null) {
+				if (convertedValues[0] != iValue)
+					return null;
+				constant = convertedValues[1];
+			}
+
+			return new OConversion(iValue.getClass(), iConstant, OType.convert(constant, iValue.getClass()));
+		}
+
+		private boolean interpret(final OIdentifiable iRecord, final OCommandContext iContext) {
+			final Object result = condition.evaluate(iRecord, iContext);
+			return result != null && (Boolean) result;
+		}
+	}
+}
@@ -105,7 +105,7 @@ public class OSQLFilterCondition {
 		return operator.getEndRidRange(left, right);
 	}
 
-	private Object[] checkForConversion(final OIdentifiable o, final Object l, final Object r) {
+	protected Object[] checkForConversion(final OIdentifiable o, final Object l, final Object r) {
 		Object[] result = null;
 
 		// DEFINED OPERATOR
@@ -99,6 +99,18 @@ public abstract class OSQLFilterItemAbstract implements OSQLFilterItem {
 
 	public abstract String getRoot();
 
+	/**
+	 * Tells if the item reads the fields of other records, following the links of the record. The linked records are loaded
+	 * through the database.
+	 */
+	public boolean isReadingLinkedRecords() {
+		if (operationsChain != null)
+			for (OPair<Integer, List<String>> op : operationsChain)
+				if (op.getKey().equals(OSQLFilterFieldOperator.FIELD.id))
+					return true;
+		return false;
+	}
+
 	protected abstract void setRoot(OCommandToParse iQueryToParse, final String iRoot);
 
 	public Object transformValue(final OIdentifiable iRecord, Object ioResult) {
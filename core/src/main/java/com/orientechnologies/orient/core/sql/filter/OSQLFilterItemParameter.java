@@ -53,4 +53,11 @@ public class OSQLFilterItemParameter implements OSQLFilterItem {
 	public void setValue(Object value) {
 		this.value = value;
 	}
+
+	/**
+	 * Unbinds the value set by the last execution.
+	 */
+	public void reset() {
+		value = NOT_SETTED;
+	}
 }
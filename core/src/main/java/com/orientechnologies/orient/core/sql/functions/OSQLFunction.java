@@ -115,5 +115,20 @@ public interface OSQLFunction {
      * @param iResult 
      */
 	public void setResult(Object iResult);
+
+    /**
+     * Tells if the values aggregated by different instances of the function can be combined by
+     * {@link #mergeResult(OSQLFunction)}, so the records can be aggregated in parts at the same time.
+     * 
+     * @return true if the partial results can be merged
+     */
+	public boolean canMergeResults();
+
+    /**
+     * Adds to this function the values aggregated by another instance of the same function.
+     * 
+     * @param iPartial : function that aggregated another part of the records
+     */
+	public void mergeResult(OSQLFunction iPartial);
     
 }
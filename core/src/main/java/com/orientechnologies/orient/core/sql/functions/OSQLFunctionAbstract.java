@@ -65,4 +65,12 @@ public abstract class OSQLFunctionAbstract implements OSQLFunction {
 
 	public void setResult(final Object iResult) {
 	}
+
+	public boolean canMergeResults() {
+		return false;
+	}
+
+	public void mergeResult(final OSQLFunction iPartial) {
+		throw new UnsupportedOperationException("Function " + name + "() cannot merge partial results");
+	}
 }
@@ -62,21 +62,98 @@ public class OSQLFunctionRuntime extends OSQLFilterItemAbstract {
 	 * @return
 	 */
 	public Object execute(final OIdentifiable o, final OCommandExecutor iRequester) {
+		return execute(function, o, iRequester);
+	}
+
+	/**
+	 * Execute the function keeping the aggregated values in a separate state. Used to aggregate every group of records separately.
+	 * 
+	 * @param iState
+	 *          State created by {@link #createState()}
+	 * @param o
+	 *          Current record
+	 * @param iRequester
+	 * @return
+	 */
+	public Object execute(final OSQLFunction iState, final OIdentifiable o, final OCommandExecutor iRequester) {
+		return execute(iState, runtimeParameters, o, iRequester);
+	}
+
+	/**
+	 * Execute the function keeping the aggregated values and the resolved parameters in separate objects. Used to aggregate the
+	 * records by more threads at the same time.
+	 * 
+	 * @param iState
+	 *          State created by {@link #createState()}
+	 * @param iParameters
+	 *          Parameters created by {@link #createParameters()}
+	 * @param o
+	 *          Current record
+	 * @param iRequester
+	 * @return
+	 */
+	public Object execute(final OSQLFunction iState, final Object[] iParameters, final OIdentifiable o,
+			final OCommandExecutor iRequester) {
 		// RESOLVE VALUES USING THE CURRENT RECORD
 		for (int i = 0; i < configuredParameters.length; ++i) {
 			if (configuredParameters[i] instanceof OSQLFilterItemField)
-				runtimeParameters[i] = ((OSQLFilterItemField) configuredParameters[i]).getValue(o, null);
+				iParameters[i] = ((OSQLFilterItemField) configuredParameters[i]).getValue(o, null);
 			else if (configuredParameters[i] instanceof OSQLFunctionRuntime)
-				runtimeParameters[i] = ((OSQLFunctionRuntime) configuredParameters[i]).execute(o, iRequester);
+				iParameters[i] = ((OSQLFunctionRuntime) configuredParameters[i]).execute(o, iRequester);
 		}
 
-		final Object functionResult = function.execute(o, runtimeParameters, iRequester);
+		final Object functionResult = iState.execute(o, iParameters, iRequester);
 
 		return transformValue(o, functionResult);
 	}
 
 	public Object getResult() {
-		return transformValue(null, function.getResult());
+		return getResult(function);
+	}
+
+	public Object getResult(final OSQLFunction iState) {
+		return transformValue(null, iState.getResult());
+	}
+
+	/**
+	 * Creates a new empty state for the aggregation: a new instance of the same function, since the functions keep the aggregated
+	 * values.
+	 */
+	public OSQLFunction createState() {
+		return OSQLEngine.getInstance().getFunction(function.getName());
+	}
+
+	/**
+	 * Creates a new array for the parameters, with the static values already copied.
+	 */
+	public Object[] createParameters() {
+		return runtimeParameters.clone();
+	}
+
+	/**
+	 * Tells if the function aggregates the records in partial results that can be merged, reading only the fields of the record
+	 * itself. The records can be aggregated by more threads at the same time, each one in its own state.
+	 */
+	public boolean canMergeResults() {
+		if (!aggregateResults() || !function.canMergeResults())
+			return false;
+
+		for (Object parameter : configuredParameters)
+			if (parameter instanceof OSQLFunctionRuntime || parameter instanceof OSQLFilterItemField
+					&& ((OSQLFilterItemField) parameter).isReadingLinkedRecords())
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Adds the partial result aggregated in a separate state to the result of the function.
+	 * 
+	 * @param iState
+	 *          State created by {@link #createState()}
+	 */
+	public void mergeResult(final OSQLFunction iState) {
+		function.mergeResult(iState);
 	}
 
 	public void setResult(final Object iValue) {
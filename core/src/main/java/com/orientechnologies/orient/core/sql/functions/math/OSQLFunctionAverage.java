@@ -17,6 +17,7 @@ package com.orientechnologies.orient.core.sql.functions.math;
 
 import com.orientechnologies.orient.core.command.OCommandExecutor;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 
 /**
  * Compute the average value for a field. Uses the context to save the last average number. When different Number class are used,
@@ -41,27 +42,7 @@ public class OSQLFunctionAverage extends OSQLFunctionMathAbstract {
 		total++;
 
 		if (value != null && value instanceof Number) {
-			if (sum == null)
-				// FIRST TIME
-				sum = value;
-			else {
-				Number contextValue = getContextValue(sum, value.getClass());
-				if (contextValue instanceof Integer) {
-					sum = sum.intValue() + value.intValue();
-
-				} else if (contextValue instanceof Long) {
-					sum = sum.longValue() + value.longValue();
-
-				} else if (contextValue instanceof Short) {
-					sum = sum.shortValue() + value.shortValue();
-
-				} else if (contextValue instanceof Float) {
-					sum = sum.floatValue() + value.floatValue();
-
-				} else if (contextValue instanceof Double) {
-					sum = sum.doubleValue() + value.doubleValue();
-				}
-			}
+			sum = sum(sum, value);
 		}
 		return value;
 	}
@@ -83,4 +64,31 @@ public class OSQLFunctionAverage extends OSQLFunctionMathAbstract {
 
 		return null;
 	}
+
+	/**
+	 * Adds the sum of the values of more records computed elsewhere.
+	 * 
+	 * @param iSum
+	 *          Sum of the values, null if all the values were null
+	 * @param iTotal
+	 *          Number of records, including the ones with null value
+	 */
+	public void add(final Number iSum, final int iTotal) {
+		if (iSum != null)
+			sum = sum(sum, iSum);
+		total += iTotal;
+	}
+
+	@Override
+	public boolean canMergeResults() {
+		return true;
+	}
+
+	@Override
+	public void mergeResult(final OSQLFunction iPartial) {
+		final OSQLFunctionAverage partial = (OSQLFunctionAverage) iPartial;
+		if (partial.sum != null)
+			sum = sum(sum, partial.sum);
+		total += partial.total;
+	}
 }
@@ -60,6 +60,34 @@ public abstract class OSQLFunctionMathAbstract extends OSQLFunctionAbstract {
 		return iClass1;
 	}
 
+	/**
+	 * Adds the value to the sum, keeping the class with most precision.
+	 * 
+	 * @param iSum
+	 *          Current sum, null the first time
+	 * @param iValue
+	 *          Value to add
+	 * @return the new sum
+	 */
+	protected Number sum(final Number iSum, final Number iValue) {
+		if (iSum == null)
+			// FIRST TIME
+			return iValue;
+
+		final Number contextValue = getContextValue(iSum, iValue.getClass());
+		if (contextValue instanceof Integer)
+			return iSum.intValue() + iValue.intValue();
+		else if (contextValue instanceof Long)
+			return iSum.longValue() + iValue.longValue();
+		else if (contextValue instanceof Short)
+			return iSum.shortValue() + iValue.shortValue();
+		else if (contextValue instanceof Float)
+			return iSum.floatValue() + iValue.floatValue();
+		else if (contextValue instanceof Double)
+			return iSum.doubleValue() + iValue.doubleValue();
+		return iSum;
+	}
+
 	public final boolean aggregateResults(final Object[] iConfiguredParameters) {
 		return iConfiguredParameters.length == 1;
 	}
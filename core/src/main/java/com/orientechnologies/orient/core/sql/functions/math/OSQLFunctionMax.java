@@ -17,6 +17,7 @@ package com.orientechnologies.orient.core.sql.functions.math;
 
 import com.orientechnologies.orient.core.command.OCommandExecutor;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 
 /**
  * Compute the maximum value for a field. Uses the context to save the last maximum number. When different Number class are used,
@@ -64,4 +65,16 @@ public class OSQLFunctionMax extends OSQLFunctionMathAbstract {
 	public Object getResult() {
 		return context;
 	}
+
+	@Override
+	public boolean canMergeResults() {
+		return true;
+	}
+
+	@Override
+	public void mergeResult(final OSQLFunction iPartial) {
+		final Comparable<Object> partial = ((OSQLFunctionMax) iPartial).context;
+		if (partial != null && (context == null || context.compareTo(partial) < 0))
+			context = partial;
+	}
 }
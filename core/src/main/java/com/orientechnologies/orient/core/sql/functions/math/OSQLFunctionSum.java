@@ -17,6 +17,7 @@ package com.orientechnologies.orient.core.sql.functions.math;
 
 import com.orientechnologies.orient.core.command.OCommandExecutor;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 
 /**
  * Compute the averahe value for a field. Uses the context to save the last average number. When different Number class are used,
@@ -38,27 +39,7 @@ public class OSQLFunctionSum extends OSQLFunctionMathAbstract {
 		Number value = (Number) iParameters[0];
 
 		if (value != null && value instanceof Number) {
-			if (sum == null)
-				// FIRST TIME
-				sum = value;
-			else {
-				Number contextValue = getContextValue(sum, value.getClass());
-				if (contextValue instanceof Integer) {
-					sum = sum.intValue() + value.intValue();
-
-				} else if (contextValue instanceof Long) {
-					sum = sum.longValue() + value.longValue();
-
-				} else if (contextValue instanceof Short) {
-					sum = sum.shortValue() + value.shortValue();
-
-				} else if (contextValue instanceof Float) {
-					sum = sum.floatValue() + value.floatValue();
-
-				} else if (contextValue instanceof Double) {
-					sum = sum.doubleValue() + value.doubleValue();
-				}
-			}
+			sum = sum(sum, value);
 		}
 		return value;
 	}
@@ -75,4 +56,16 @@ public class OSQLFunctionSum extends OSQLFunctionMathAbstract {
 	public Object getResult() {
 		return sum;
 	}
+
+	@Override
+	public boolean canMergeResults() {
+		return true;
+	}
+
+	@Override
+	public void mergeResult(final OSQLFunction iPartial) {
+		final Number partial = ((OSQLFunctionSum) iPartial).sum;
+		if (partial != null)
+			sum = sum(sum, partial);
+	}
 }
@@ -17,6 +17,7 @@ package com.orientechnologies.orient.core.sql.functions.misc;
 
 import com.orientechnologies.orient.core.command.OCommandExecutor;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMathAbstract;
 
 /**
@@ -59,4 +60,14 @@ public class OSQLFunctionCount extends OSQLFunctionMathAbstract {
 	public void setResult(final Object iResult) {
 		total = ((Number) iResult).longValue();
 	}
+
+	@Override
+	public boolean canMergeResults() {
+		return true;
+	}
+
+	@Override
+	public void mergeResult(final OSQLFunction iPartial) {
+		total += ((OSQLFunctionCount) iPartial).total;
+	}
 }
@@ -0,0 +1,863 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.command.OCommandExecutor;
+import com.orientechnologies.orient.core.command.ORunningCommand;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordElement;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OProperty;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterCondition;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemField;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemParameter;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionAverage;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMax;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMin;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionSum;
+import com.orientechnologies.orient.core.sql.functions.misc.OSQLFunctionCount;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajor;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinor;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorNotEquals;
+import com.orientechnologies.orient.core.storage.OCluster;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+import com.orientechnologies.orient.core.storage.OStorage;
+import com.orientechnologies.orient.core.storage.impl.local.OClusterColumnar;
+import com.orientechnologies.orient.core.storage.impl.local.OColumnChunk;
+import com.orientechnologies.orient.core.storage.impl.local.OColumnChunk.OColumn;
+
+/**
+ * First operator of the pipeline when the clusters scanned are columnar (see {@link OClusterColumnar}). The positions are read by
+ * chunk: the chunks whose zone maps cannot satisfy the conditions are skipped, in the others the simple conditions against the
+ * numeric properties are evaluated on the primitive arrays of the values, giving the bitmap of the positions selected. The chunks
+ * not built yet are built from the records the first time they are scanned.<br/>
+ * When all the conditions are evaluated by column and the aggregate functions only read the columns, the functions are computed on
+ * the values selected and no record is returned. Otherwise the records of the positions selected are returned, and the whole
+ * condition must be evaluated again on them. The chunks containing values of other types or documents of other classes are read
+ * by record.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OColumnarScanOperator extends OPipelineOperator {
+	private static final int									LESS				= 1;
+	private static final int									EQUAL				= 2;
+	private static final int									GREATER			= 4;
+
+	private static final int									COUNT_ALL		= 0;
+	private static final int									COUNT				= 1;
+	private static final int									SUM					= 2;
+	private static final int									AVG					= 3;
+	private static final int									MIN					= 4;
+	private static final int									MAX					= 5;
+
+	private final ODatabaseRecord							database;
+	private final int[]												clusterIds;
+	private final OClusterColumnar[]					clusters;
+	private final String[]										classNames;
+	private final String[][]									columnNames;
+	private final OType[][]										columnTypes;
+	private final List<OVectorCondition>			conditions;
+	private final List<OVectorAggregate>			aggregates;
+	private final OSQLFilter									filter;
+	private final Set<String>									fields;
+	private final OCommandContext							context;
+	private final ORunningCommand							running;
+	private final OCommandExecutor						requester;
+
+	private boolean														started;
+	private int																currentCluster	= -1;
+	private long															currentChunk;
+	private long															lastChunk;
+	private long															firstPosition;
+	private long															lastPosition;
+	private OColumnChunk											loadedChunk;
+	private long[]														selection;
+	private boolean														selectionByRecord;
+	private int																selectionWord;
+	private long															selectionBase;
+
+	/**
+	 * Condition evaluated on the values of a column: accepted is the mask of the outcomes (LESS, EQUAL, GREATER) of the comparison of
+	 * the value with the constant satisfying the operator.
+	 */
+	private static class OVectorCondition {
+		private final String	column;
+		private final int			accepted;
+		private final long		longValue;
+		private final double	doubleValue;
+
+		private OVectorCondition(final String iColumn, final int iAccepted, final Object iValue) {
+			column = iColumn;
+			accepted = iAccepted;
+			if (iValue instanceof Float || iValue instanceof Double) {
+				longValue = 0;
+				doubleValue = ((Number) iValue).doubleValue();
+			} else {
+				longValue = iValue instanceof Date ? ((Date) iValue).getTime() : ((Number) iValue).longValue();
+				doubleValue = 0;
+			}
+		}
+	}
+
+	/**
+	 * Partial result of an aggregate function computed on the columns.
+	 */
+	private static class OVectorAggregate {
+		private final OSQLFunctionRuntime	function;
+		private final int									kind;
+		private final String							column;
+		private OType											type;
+		private long											count;
+		private long											longValue;
+		private double										doubleValue;
+		private boolean										found;
+
+		private OVectorAggregate(final OSQLFunctionRuntime iFunction, final int iKind, final String iColumn) {
+			function = iFunction;
+			kind = iKind;
+			column = iColumn;
+		}
+	}
+
+	private OColumnarScanOperator(final ODatabaseRecord iDatabase, final int[] iClusterIds, final OClusterColumnar[] iClusters,
+			final String[] iClassNames, final String[][] iColumnNames, final OType[][] iColumnTypes,
+			final List<OVectorCondition> iConditions, final List<OVectorAggregate> iAggregates, final OSQLFilter iFilter,
+			final OCommandContext iContext, final ORunningCommand iRunning, final OCommandExecutor iRequester) {
+		super(null);
+		database = iDatabase;
+		clusterIds = iClusterIds;
+		clusters = iClusters;
+		classNames = iClassNames;
+		columnNames = iColumnNames;
+		columnTypes = iColumnTypes;
+		conditions = iConditions;
+		aggregates = iAggregates;
+		filter = iFilter;
+		fields = iFilter.getReferencedFields();
+		context = iContext;
+		running = iRunning;
+		requester = iRequester;
+	}
+
+	/**
+	 * Creates the scan of columnar clusters if the query can use the columns.
+	 *
+	 * @param iDatabase
+	 *          Database executing the query
+	 * @param iClusterIds
+	 *          Clusters to scan, all columnar
+	 * @param iTargetClass
+	 *          Class of the query, null if the target is a list of clusters
+	 * @param iConditions
+	 *          Conditions joined by AND forming the whole WHERE, null if the WHERE is not made only by AND
+	 * @param iFilter
+	 *          Conditions of the query
+	 * @param iAggregates
+	 *          Aggregate functions forming all the projections, null if the records must be returned
+	 * @param iContext
+	 *          Command context
+	 * @param iRunning
+	 *          Command in execution, checked for every record read. Null to not check it
+	 * @param iRequester
+	 *          Executor of the SELECT
+	 * @return the operator or null if the clusters are not columnar or no condition and no function can be computed on the columns
+	 */
+	public static OColumnarScanOperator create(final ODatabaseRecord iDatabase, final int[] iClusterIds, final OClass iTargetClass,
+			final List<OSQLFilterCondition> iConditions, final OSQLFilter iFilter, final List<OSQLFunctionRuntime> iAggregates,
+			final OCommandContext iContext, final ORunningCommand iRunning, final OCommandExecutor iRequester) {
+		if (iClusterIds.length == 0 || iConditions == null)
+			return null;
+
+		final OStorage storage = iDatabase.getStorage();
+		final OClusterColumnar[] clusters = new OClusterColumnar[iClusterIds.length];
+		final String[] classNames = new String[iClusterIds.length];
+		final String[][] columnNames = new String[iClusterIds.length][];
+		final OType[][] columnTypes = new OType[iClusterIds.length][];
+
+		// THE TYPE OF EVERY COLUMN, THAT MUST BE THE SAME IN ALL THE CLUSTERS
+		Map<String, OType> columns = null;
+
+		for (int i = 0; i < iClusterIds.length; ++i) {
+			final OCluster cluster = storage.getClusterById(iClusterIds[i]);
+			if (!(cluster instanceof OClusterColumnar))
+				return null;
+			clusters[i] = (OClusterColumnar) cluster;
+
+			final OClass cls = getClusterClass(iDatabase, iClusterIds[i]);
+			if (cls == null || iTargetClass != null && !cls.isSubClassOf(iTargetClass))
+				return null;
+			classNames[i] = cls.getName();
+
+			final Map<String, OType> clusterColumns = new HashMap<String, OType>();
+			for (OProperty p : cls.properties())
+				if (OColumnChunk.isSupported(p.getType()))
+					clusterColumns.put(p.getName(), p.getType());
+
+			columnNames[i] = clusterColumns.keySet().toArray(new String[clusterColumns.size()]);
+			columnTypes[i] = new OType[columnNames[i].length];
+			for (int c = 0; c < columnNames[i].length; ++c)
+				columnTypes[i][c] = clusterColumns.get(columnNames[i][c]);
+
+			if (columns == null)
+				columns = clusterColumns;
+			else
+				// KEEP ONLY THE COLUMNS OF THE SAME TYPE EVERYWHERE
+				for (String name : new ArrayList<String>(columns.keySet()))
+					if (clusterColumns.get(name) != columns.get(name))
+						columns.remove(name);
+		}
+
+		final List<OVectorCondition> conditions = new ArrayList<OVectorCondition>();
+		for (OSQLFilterCondition condition : iConditions) {
+			final OVectorCondition vectorCondition = createCondition(condition, columns);
+			if (vectorCondition != null)
+				conditions.add(vectorCondition);
+		}
+
+		List<OVectorAggregate> aggregates = null;
+		if (iAggregates != null && conditions.size() == iConditions.size()) {
+			aggregates = new ArrayList<OVectorAggregate>();
+			for (OSQLFunctionRuntime f : iAggregates) {
+				final OVectorAggregate aggregate = createAggregate(f, columns);
+				if (aggregate == null) {
+					aggregates = null;
+					break;
+				}
+				aggregates.add(aggregate);
+			}
+		}
+
+		if (aggregates == null && conditions.isEmpty())
+			// NOTHING TO COMPUTE ON THE COLUMNS
+			return null;
+
+		return new OColumnarScanOperator(iDatabase, iClusterIds, clusters, classNames, columnNames, columnTypes, conditions,
+				aggregates, iFilter, iContext, iRunning, iRequester);
+	}
+
+	/**
+	 * Tells if the aggregate functions are computed by the operator, so no record is returned.
+	 */
+	public boolean isAggregating() {
+		return aggregates != null;
+	}
+
+	@Override
+	public OIdentifiable next() {
+		if (!started) {
+			started = true;
+			OProfiler.getInstance().updateCounter("Query.columnarScans", 1);
+
+			if (aggregates != null) {
+				aggregate();
+				return null;
+			}
+		}
+
+		if (aggregates != null)
+			return null;
+
+		while (true) {
+			if (selection == null && !nextSelection())
+				return null;
+
+			final long position = nextSelected();
+			if (position < 0) {
+				selection = null;
+				continue;
+			}
+
+			if (running != null)
+				running.checkScanned();
+
+			final ODocument record = readDocument(clusterIds[currentCluster], position);
+			if (record != null)
+				return record;
+		}
+	}
+
+	/**
+	 * Computes the aggregate functions on the positions selected of every chunk.
+	 */
+	private void aggregate() {
+		while (nextSelection()) {
+			if (selectionByRecord) {
+				// VALUES NOT IN THE COLUMNS: EVALUATE THE RECORDS
+				long position;
+				while ((position = nextSelected()) > -1) {
+					if (running != null)
+						running.checkScanned();
+
+					final ODocument record = readDocument(clusterIds[currentCluster], position);
+					if (record != null && filter.evaluate(OFilterOperator.getCandidate(record, fields), context))
+						for (OVectorAggregate aggregate : aggregates)
+							aggregate.function.execute(record, requester);
+				}
+			} else
+				for (OVectorAggregate aggregate : aggregates)
+					aggregate(aggregate, loadedChunk);
+
+			selection = null;
+		}
+
+		for (OVectorAggregate aggregate : aggregates)
+			flush(aggregate);
+	}
+
+	/**
+	 * Moves to the next chunk with positions that can satisfy the conditions, computing the bitmap of the positions selected.
+	 *
+	 * @return false if there are no more chunks
+	 */
+	private boolean nextSelection() {
+		while (true) {
+			if (currentCluster > -1 && currentChunk <= lastChunk) {
+				final long chunkIndex = currentChunk++;
+				if (running != null && running.isInterrupted())
+					// THE CHECK THROWS THE EXCEPTION
+					running.checkScanned();
+
+				if (selectChunk(chunkIndex)) {
+					selectionWord = 0;
+					selectionBase = chunkIndex * OColumnChunk.ROWS;
+					return true;
+				}
+				continue;
+			}
+
+			if (++currentCluster >= clusters.length)
+				return false;
+
+			final long[] range = database.getStorage().getClusterDataRange(clusterIds[currentCluster]);
+			if (range.length < 2 || range[0] < 0 || range[1] < range[0]) {
+				// EMPTY CLUSTER
+				currentChunk = 0;
+				lastChunk = -1;
+				continue;
+			}
+
+			firstPosition = range[0];
+			lastPosition = range[1];
+			currentChunk = firstPosition / OColumnChunk.ROWS;
+			lastChunk = lastPosition / OColumnChunk.ROWS;
+		}
+	}
+
+	/**
+	 * Computes the positions of a chunk of the current cluster to read.
+	 *
+	 * @return false if no position of the chunk can satisfy the conditions
+	 */
+	private boolean selectChunk(final long iChunkIndex) {
+		final OClusterColumnar cluster = clusters[currentCluster];
+		final int rows = (int) Math.min(OColumnChunk.ROWS, lastPosition - iChunkIndex * OColumnChunk.ROWS + 1);
+
+		try {
+			OColumnChunk chunk = cluster.getChunk(iChunkIndex);
+			if (chunk == null || !isUsable(chunk, rows))
+				chunk = buildChunk(cluster, iChunkIndex, rows);
+
+			if (chunk.getPresentCount() == 0)
+				return false;
+
+			selectionByRecord = !isReadableByColumn(chunk);
+			if (!selectionByRecord && !mayMatch(chunk)) {
+				OProfiler.getInstance().updateCounter("Query.columnarChunksSkipped", 1);
+				return false;
+			}
+
+			OColumnChunk loaded = cluster.loadChunk(chunk);
+			if (loaded == null)
+				// CHANGED IN THE MEANWHILE
+				loaded = buildChunk(cluster, iChunkIndex, rows);
+			loadedChunk = loaded;
+
+			selection = loaded.getPresent().clone();
+			if (!selectionByRecord)
+				for (OVectorCondition condition : conditions)
+					select(condition, loaded.getColumn(condition.column), rows);
+
+		} catch (IOException e) {
+			throw new OCommandExecutionException("Error on reading the column chunk " + iChunkIndex + " of cluster "
+					+ clusterIds[currentCluster], e);
+		}
+
+		for (long word : selection)
+			if (word != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Tells if a chunk has been built with the columns used by the query, for the current positions of the cluster.
+	 */
+	private boolean isUsable(final OColumnChunk iChunk, final int iRows) {
+		if (iChunk.getRows() != iRows)
+			return false;
+
+		for (OVectorCondition condition : conditions)
+			if (!hasColumn(iChunk, condition.column))
+				return false;
+
+		if (aggregates != null)
+			for (OVectorAggregate aggregate : aggregates)
+				if (aggregate.column != null && !hasColumn(iChunk, aggregate.column))
+					return false;
+
+		return true;
+	}
+
+	private boolean hasColumn(final OColumnChunk iChunk, final String iName) {
+		final OColumn column = iChunk.getColumn(iName);
+		if (column == null)
+			return false;
+
+		final String[] names = columnNames[currentCluster];
+		for (int i = 0; i < names.length; ++i)
+			if (names[i].equals(iName))
+				return columnTypes[currentCluster][i] == column.getType();
+		return false;
+	}
+
+	/**
+	 * Tells if the values used by the query are all in the columns.
+	 */
+	private boolean isReadableByColumn(final OColumnChunk iChunk) {
+		if (iChunk.isForeign())
+			return false;
+
+		for (OVectorCondition condition : conditions)
+			if (!iChunk.getColumn(condition.column).isValid())
+				return false;
+
+		if (aggregates != null)
+			for (OVectorAggregate aggregate : aggregates)
+				if (aggregate.column != null && !iChunk.getColumn(aggregate.column).isValid())
+					return false;
+
+		return true;
+	}
+
+	/**
+	 * Checks the conditions against the zone maps of the chunk.
+	 */
+	private boolean mayMatch(final OColumnChunk iChunk) {
+		for (OVectorCondition condition : conditions) {
+			final OColumn column = iChunk.getColumn(condition.column);
+			if (column.getCount() == 0)
+				// NO VALUE: NULL NEVER SATISFIES THE CONDITION
+				return false;
+
+			final int minOutcome;
+			final int maxOutcome;
+			if (column.isFloating()) {
+				minOutcome = Double.compare(column.getMinDouble(), condition.doubleValue);
+				maxOutcome = Double.compare(column.getMaxDouble(), condition.doubleValue);
+			} else {
+				minOutcome = column.getMinLong() < condition.longValue ? -1 : column.getMinLong() == condition.longValue ? 0 : 1;
+				maxOutcome = column.getMaxLong() < condition.longValue ? -1 : column.getMaxLong() == condition.longValue ? 0 : 1;
+			}
+
+			int possible = 0;
+			if (minOutcome < 0)
+				possible |= LESS;
+			if (minOutcome <= 0 && maxOutcome >= 0)
+				possible |= EQUAL;
+			if (maxOutcome > 0)
+				possible |= GREATER;
+
+			if ((possible & condition.accepted) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes from the selection the rows whose value does not satisfy the condition.
+	 */
+	private void select(final OVectorCondition iCondition, final OColumn iColumn, final int iRows) {
+		final long[] filled = iColumn.getFilled();
+		final int accepted = iCondition.accepted;
+
+		for (int w = 0; w < selection.length; ++w) {
+			final long candidates = selection[w] & filled[w];
+			if (candidates == 0) {
+				selection[w] = 0;
+				continue;
+			}
+
+			final int base = w << 6;
+			final int end = Math.min(64, iRows - base);
+			long matches = 0;
+
+			if (iColumn.isFloating()) {
+				final double[] values = iColumn.getDoubles();
+				final double constant = iCondition.doubleValue;
+				for (int i = 0; i < end; ++i) {
+					final int cmp = Double.compare(values[base + i], constant);
+					if ((accepted & (cmp < 0 ? LESS : cmp == 0 ? EQUAL : GREATER)) != 0)
+						matches |= 1L << i;
+				}
+			} else {
+				final long[] values = iColumn.getLongs();
+				final long constant = iCondition.longValue;
+				for (int i = 0; i < end; ++i) {
+					final long value = values[base + i];
+					if ((accepted & (value < constant ? LESS : value == constant ? EQUAL : GREATER)) != 0)
+						matches |= 1L << i;
+				}
+			}
+
+			selection[w] = candidates & matches;
+		}
+	}
+
+	/**
+	 * Adds the values of the rows selected of a chunk to the partial result of an aggregate function.
+	 */
+	private void aggregate(final OVectorAggregate iAggregate, final OColumnChunk iChunk) {
+		if (iAggregate.kind == COUNT_ALL) {
+			for (long word : selection)
+				iAggregate.count += Long.bitCount(word);
+			return;
+		}
+
+		final OColumn column = iChunk.getColumn(iAggregate.column);
+		iAggregate.type = column.getType();
+		final long[] filled = column.getFilled();
+		final long[] longs = column.getLongs();
+		final double[] doubles = column.getDoubles();
+
+		for (int w = 0; w < selection.length; ++w) {
+			if (iAggregate.kind == AVG)
+				// THE AVERAGE DIVIDES BY ALL THE RECORDS, ALSO WITHOUT VALUE
+				iAggregate.count += Long.bitCount(selection[w]);
+
+			long bits = selection[w] & filled[w];
+			if (bits == 0)
+				continue;
+
+			if (iAggregate.kind == COUNT) {
+				iAggregate.count += Long.bitCount(bits);
+				continue;
+			}
+
+			final int base = w << 6;
+			while (bits != 0) {
+				final int row = base + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+
+				switch (iAggregate.kind) {
+				case SUM:
+				case AVG:
+					if (doubles == null)
+						iAggregate.longValue += longs[row];
+					else if (iAggregate.type == OType.FLOAT)
+						iAggregate.doubleValue = (float) (iAggregate.doubleValue + doubles[row]);
+					else
+						iAggregate.doubleValue += doubles[row];
+					iAggregate.found = true;
+					break;
+
+				case MIN:
+				case MAX:
+					final boolean min = iAggregate.kind == MIN;
+					if (doubles == null) {
+						final long value = longs[row];
+						if (!iAggregate.found || (min ? value < iAggregate.longValue : value > iAggregate.longValue))
+							iAggregate.longValue = value;
+					} else {
+						final int cmp = Double.compare(doubles[row], iAggregate.doubleValue);
+						if (!iAggregate.found || (min ? cmp < 0 : cmp > 0))
+							iAggregate.doubleValue = doubles[row];
+					}
+					iAggregate.found = true;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the partial result computed on the columns to the function.
+	 */
+	private void flush(final OVectorAggregate iAggregate) {
+		final OSQLFunctionRuntime f = iAggregate.function;
+
+		switch (iAggregate.kind) {
+		case COUNT_ALL:
+		case COUNT:
+			final OSQLFunction partial = f.createState();
+			partial.setResult(iAggregate.count);
+			f.mergeResult(partial);
+			break;
+
+		case SUM:
+			if (iAggregate.found)
+				f.function.execute(null, new Object[] { getSum(iAggregate) }, requester);
+			break;
+
+		case AVG:
+			((OSQLFunctionAverage) f.function).add(iAggregate.found ? getSum(iAggregate) : null, (int) iAggregate.count);
+			break;
+
+		case MIN:
+		case MAX:
+			if (iAggregate.found)
+				f.function.execute(null, new Object[] { box(iAggregate) }, requester);
+			break;
+		}
+	}
+
+	private static Number getSum(final OVectorAggregate iAggregate) {
+		switch (iAggregate.type) {
+		case INTEGER:
+			// THE SUM OF INTEGERS IS AN INTEGER
+			return (int) iAggregate.longValue;
+		case LONG:
+			return iAggregate.longValue;
+		case FLOAT:
+			return (float) iAggregate.doubleValue;
+		default:
+			return iAggregate.doubleValue;
+		}
+	}
+
+	private static Object box(final OVectorAggregate iAggregate) {
+		switch (iAggregate.type) {
+		case BYTE:
+			return (byte) iAggregate.longValue;
+		case SHORT:
+			return (short) iAggregate.longValue;
+		case INTEGER:
+			return (int) iAggregate.longValue;
+		case LONG:
+			return iAggregate.longValue;
+		case FLOAT:
+			return (float) iAggregate.doubleValue;
+		case DOUBLE:
+			return iAggregate.doubleValue;
+		default:
+			return new Date(iAggregate.longValue);
+		}
+	}
+
+	/**
+	 * Returns the next position selected of the current chunk, or -1 if there are no more.
+	 */
+	private long nextSelected() {
+		while (selectionWord < selection.length) {
+			final long word = selection[selectionWord];
+			if (word != 0) {
+				final int bit = Long.numberOfTrailingZeros(word);
+				selection[selectionWord] = word & (word - 1);
+				return selectionBase + (selectionWord << 6) + bit;
+			}
+			selectionWord++;
+		}
+		return -1;
+	}
+
+	/**
+	 * Builds a chunk reading its records, and keeps it in the cluster unless the records changed in the meanwhile.
+	 */
+	private OColumnChunk buildChunk(final OClusterColumnar iCluster, final long iChunkIndex, final int iRows) throws IOException {
+		OProfiler.getInstance().updateCounter("Query.columnarChunksBuilt", 1);
+
+		final int version = iCluster.getChunkVersion(iChunkIndex);
+		final OColumnChunk chunk = new OColumnChunk(iChunkIndex, iRows, columnNames[currentCluster], columnTypes[currentCluster]);
+		final String className = classNames[currentCluster];
+
+		final long first = iChunkIndex * OColumnChunk.ROWS;
+		for (int row = Math.max(0, (int) (firstPosition - first)); row < iRows; ++row) {
+			if (running != null)
+				running.checkScanned();
+
+			final ODocument record = readDocument(clusterIds[currentCluster], first + row);
+			if (record == null)
+				continue;
+
+			if (record.getSchemaClass() == null || !className.equals(record.getSchemaClass().getName()))
+				chunk.setForeign(true);
+
+			chunk.add(row, record);
+		}
+
+		iCluster.saveChunk(chunk, version);
+		return chunk;
+	}
+
+	/**
+	 * Reads a document directly from the storage.
+	 *
+	 * @return the document or null if the position is empty or contains another type of record
+	 */
+	private ODocument readDocument(final int iClusterId, final long iPosition) {
+		final ORecordId rid = new ORecordId(iClusterId, iPosition);
+
+		final ORawBuffer buffer = database.getStorage().readRecord(rid, null, false, null);
+		if (buffer == null || buffer.recordType != ODocument.RECORD_TYPE)
+			// DELETED OR WRONG RECORD TYPE: JUMP IT
+			return null;
+
+		final ODocument record = new ODocument();
+		record.fill(rid, buffer.version, buffer.buffer, false);
+		record.fromStream(buffer.buffer);
+		record.setInternalStatus(ORecordElement.STATUS.LOADED);
+		return record;
+	}
+
+	/**
+	 * Returns the only class using the cluster, or null.
+	 */
+	private static OClass getClusterClass(final ODatabaseRecord iDatabase, final int iClusterId) {
+		OClass result = null;
+		for (OClass cls : iDatabase.getMetadata().getSchema().getClasses())
+			for (int id : cls.getClusterIds())
+				if (id == iClusterId) {
+					if (result != null)
+						return null;
+					result = cls;
+				}
+		return result;
+	}
+
+	/**
+	 * Creates the condition to evaluate on a column, if the condition compares a column with a constant of a compatible type.
+	 */
+	private static OVectorCondition createCondition(final OSQLFilterCondition iCondition, final Map<String, OType> iColumns) {
+		final int accepted;
+		final Class<?> operator = iCondition.getOperator() != null ? iCondition.getOperator().getClass() : null;
+		if (operator == OQueryOperatorEquals.class)
+			accepted = EQUAL;
+		else if (operator == OQueryOperatorNotEquals.class)
+			accepted = LESS | GREATER;
+		else if (operator == OQueryOperatorMinor.class)
+			accepted = LESS;
+		else if (operator == OQueryOperatorMinorEquals.class)
+			accepted = LESS | EQUAL;
+		else if (operator == OQueryOperatorMajor.class)
+			accepted = GREATER;
+		else if (operator == OQueryOperatorMajorEquals.class)
+			accepted = GREATER | EQUAL;
+		else
+			return null;
+
+		final String column = getColumn(iCondition.getLeft(), iColumns);
+		if (column == null)
+			return null;
+
+		Object right = iCondition.getRight();
+		if (right instanceof OSQLFilterItemParameter)
+			right = ((OSQLFilterItemParameter) right).getValue(null, null);
+
+		final Object value = convert(right, iColumns.get(column).getDefaultJavaType());
+		if (value == null)
+			return null;
+
+		return new OVectorCondition(column, accepted, value);
+	}
+
+	/**
+	 * Converts the constant of a condition as the comparison with a value of the column does, returning null if the conversion
+	 * depends on the value.
+	 */
+	private static Object convert(final Object iValue, final Class<?> iColumnClass) {
+		if (iValue == null)
+			return null;
+
+		if (iValue.getClass() == iColumnClass)
+			return iValue;
+
+		if (iColumnClass == Date.class || !(iValue instanceof Number))
+			return null;
+
+		if (iColumnClass == Float.class)
+			// THE CONSTANT IS PARSED AS FLOAT
+			return new Float(iValue.toString());
+
+		if (iValue instanceof Float)
+			// THE VALUE WOULD BE CONVERTED TO FLOAT
+			return null;
+
+		final Object value = OType.convert(iValue, iColumnClass);
+		return iColumnClass.isInstance(value) ? value : null;
+	}
+
+	/**
+	 * Creates the partial result of an aggregate function, if the function can be computed on the columns.
+	 */
+	private static OVectorAggregate createAggregate(final OSQLFunctionRuntime iFunction, final Map<String, OType> iColumns) {
+		final String name = iFunction.function.getName();
+		if (iFunction.configuredParameters.length != 1)
+			return null;
+
+		if (name.equals(OSQLFunctionCount.NAME) && "*".equals(iFunction.configuredParameters[0]))
+			return new OVectorAggregate(iFunction, COUNT_ALL, null);
+
+		final String column = getColumn(iFunction.configuredParameters[0], iColumns);
+		if (column == null)
+			return null;
+
+		final OType type = iColumns.get(column);
+		final boolean summable = type == OType.INTEGER || type == OType.LONG || type == OType.FLOAT || type == OType.DOUBLE;
+
+		if (name.equals(OSQLFunctionCount.NAME))
+			return new OVectorAggregate(iFunction, COUNT, column);
+		else if (name.equals(OSQLFunctionSum.NAME) && summable)
+			return new OVectorAggregate(iFunction, SUM, column);
+		else if (name.equals(OSQLFunctionAverage.NAME) && summable)
+			return new OVectorAggregate(iFunction, AVG, column);
+		else if (name.equals(OSQLFunctionMin.NAME))
+			return new OVectorAggregate(iFunction, MIN, column);
+		else if (name.equals(OSQLFunctionMax.NAME))
+			return new OVectorAggregate(iFunction, MAX, column);
+		return null;
+	}
+
+	/**
+	 * Returns the column read by an item, null if the item is not a simple field stored in a column.
+	 */
+	private static String getColumn(final Object iItem, final Map<String, OType> iColumns) {
+		if (!(iItem instanceof OSQLFilterItemField) || ((OSQLFilterItemField) iItem).hasChainOperators())
+			return null;
+
+		final String name = ((OSQLFilterItemField) iItem).getRoot();
+		return iColumns.containsKey(name) ? name : null;
+	}
+}
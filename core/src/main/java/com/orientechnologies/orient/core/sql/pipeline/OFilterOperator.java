@@ -0,0 +1,63 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import java.util.Set;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
+
+/**
+ * Returns only the records satisfying the conditions of the WHERE. When the conditions read only some fields, the documents not
+ * unmarshalled yet are checked unmarshalling only these fields, so the records discarded are never unmarshalled.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OFilterOperator extends OPipelineOperator {
+	private final OSQLFilter			filter;
+	private final OCommandContext	context;
+	private final Set<String>			fields;
+
+	public OFilterOperator(final OPipelineOperator iSource, final OSQLFilter iFilter, final OCommandContext iContext) {
+		super(iSource);
+		filter = iFilter;
+		context = iContext;
+		fields = iFilter.getReferencedFields();
+	}
+
+	@Override
+	public OIdentifiable next() {
+		OIdentifiable record;
+		while ((record = source.next()) != null)
+			if (filter.evaluate(getCandidate(record, fields), context))
+				return record;
+		return null;
+	}
+
+	/**
+	 * Returns the record to check against the conditions: a document with only the fields read by the conditions if the document is
+	 * not unmarshalled yet, otherwise the record itself.
+	 */
+	public static ORecord<?> getCandidate(final OIdentifiable iRecord, final Set<String> iFields) {
+		if (iFields != null && iRecord instanceof ODocument)
+			return ((ODocument) iRecord).fieldsFromStream(iFields);
+		return (ORecord<?>) iRecord;
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItem;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
+
+/**
+ * Extracts the content of collections and/or links of every record and returns it as result.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OFlattenOperator extends OPipelineOperator {
+	private final Object					flattenTarget;
+	private final OCommandContext	context;
+	private Iterator<?>						values;
+
+	public OFlattenOperator(final OPipelineOperator iSource, final Object iFlattenTarget, final OCommandContext iContext) {
+		super(iSource);
+		flattenTarget = iFlattenTarget;
+		context = iContext;
+	}
+
+	@Override
+	public OIdentifiable next() {
+		while (true) {
+			if (values != null)
+				while (values.hasNext()) {
+					final Object o = values.next();
+					if (o instanceof OIdentifiable)
+						return ((OIdentifiable) o).getRecord();
+				}
+
+			final OIdentifiable record = source.next();
+			if (record == null)
+				return null;
+
+			final Object fieldValue;
+			if (flattenTarget instanceof OSQLFilterItem)
+				fieldValue = ((OSQLFilterItem) flattenTarget).getValue(record.getRecord(), context);
+			else if (flattenTarget instanceof OSQLFunctionRuntime)
+				fieldValue = ((OSQLFunctionRuntime) flattenTarget).getResult();
+			else
+				fieldValue = flattenTarget.toString();
+
+			if (fieldValue instanceof Collection<?>)
+				values = ((Collection<?>) fieldValue).iterator();
+			else {
+				values = null;
+				if (fieldValue != null)
+					return (OIdentifiable) fieldValue;
+			}
+		}
+	}
+}
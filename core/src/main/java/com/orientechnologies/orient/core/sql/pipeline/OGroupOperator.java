@@ -0,0 +1,60 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import java.util.Iterator;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OSQLGroupBy;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
+
+/**
+ * Aggregates all the records of the source by group, then returns a document for every group satisfying the HAVING conditions.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OGroupOperator extends OPipelineOperator {
+	private final OSQLGroupBy					groupBy;
+	private final OSQLFilter					having;
+	private Iterator<OIdentifiable>	groups;
+
+	public OGroupOperator(final OPipelineOperator iSource, final OSQLGroupBy iGroupBy, final OSQLFilter iHaving) {
+		super(iSource);
+		groupBy = iGroupBy;
+		having = iHaving;
+	}
+
+	@Override
+	public OIdentifiable next() {
+		if (groups == null) {
+			OIdentifiable record;
+			while ((record = source.next()) != null)
+				groupBy.add((ODocument) record.getRecord());
+			groups = groupBy.getResult(having).iterator();
+		}
+
+		return groups.hasNext() ? groups.next() : null;
+	}
+
+	@Override
+	public void close() {
+		// DELETE THE TEMPORARY FILES IN CASE OF ERRORS
+		groupBy.close();
+		super.close();
+	}
+}
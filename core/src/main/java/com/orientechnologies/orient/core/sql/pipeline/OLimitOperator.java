@@ -0,0 +1,43 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+/**
+ * Returns at most the first records of the source. Once reached the limit the source is not asked anymore, so the whole pipeline
+ * stops.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OLimitOperator extends OPipelineOperator {
+	private int	remaining;
+
+	public OLimitOperator(final OPipelineOperator iSource, final int iLimit) {
+		super(iSource);
+		remaining = iLimit;
+	}
+
+	@Override
+	public OIdentifiable next() {
+		if (remaining <= 0)
+			return null;
+
+		remaining--;
+		return source.next();
+	}
+}
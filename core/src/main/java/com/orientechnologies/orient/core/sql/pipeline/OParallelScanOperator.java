@@ -0,0 +1,369 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.command.OCommandExecutor;
+import com.orientechnologies.orient.core.command.ORunningCommand;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordElement;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.exception.OCommandInterruptedException;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+import com.orientechnologies.orient.core.storage.OStorage;
+
+/**
+ * First operator of the pipeline when the clusters are scanned by more threads. The positions of every cluster are split in
+ * partitions that the worker threads read from the storage and filter, taking the next partition free once done. The records found
+ * are returned in the order of the partitions, like a scan in the calling thread, or as soon as every partition is done when the
+ * order does not matter. At most two partitions per thread wait to be returned, so the workers cannot fill the memory.<br/>
+ * When the aggregate functions can merge their results, every worker aggregates the records found in its own state and no record
+ * is returned: the partial results are merged in the functions at the end.<br/>
+ * The records are read directly from the storage, so the workers do not touch the database that is not thread safe: the
+ * conditions must not load other records (see {@link OSQLFilter#isConcurrent()}) and the database must not have hooks acting on
+ * the records read. The records found are returned with the content in the level-1 cache of the database, like the records loaded.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OParallelScanOperator extends OPipelineOperator {
+	private static final int									PARTITIONS_PER_THREAD		= 4;
+	private static final int									MIN_PARTITION_POSITIONS	= 1000;
+	private static ExecutorService						workers;
+
+	private final ODatabaseRecord							database;
+	private final OSQLFilter									filter;
+	private final Set<String>									fields;
+	private final OCommandContext							context;
+	private final ORunningCommand							running;
+	private final OCommandExecutor						requester;
+	private final boolean											ordered;
+	private final List<OSQLFunctionRuntime>		aggregates;
+	private final List<OPartition>						partitions							= new ArrayList<OPartition>();
+	private final int													threads;
+	private final AtomicInteger								nextPartition						= new AtomicInteger();
+	private final Semaphore										waitingPartitions;
+	private final BlockingQueue<OPartition>		donePartitions					= new LinkedBlockingQueue<OPartition>();
+	private final CountDownLatch							workersDone;
+	private volatile boolean									closed;
+
+	private boolean														started;
+	private int																returnedPartitions;
+	private Iterator<OIdentifiable>						current;
+
+	/**
+	 * Positions of a cluster read by the same worker, with the records found.
+	 */
+	private static class OPartition {
+		private final int										clusterId;
+		private final long									from;
+		private final long									to;
+		private final List<OIdentifiable>	records	= new ArrayList<OIdentifiable>();
+		private final CountDownLatch				done		= new CountDownLatch(1);
+		private Throwable										error;
+
+		private OPartition(final int iClusterId, final long iFrom, final long iTo) {
+			clusterId = iClusterId;
+			from = iFrom;
+			to = iTo;
+		}
+	}
+
+	/**
+	 * @param iDatabase
+	 *          Database executing the query, used by the workers only to resolve the schema
+	 * @param iClusterIds
+	 *          Clusters to scan
+	 * @param iFilter
+	 *          Conditions of the query, evaluated by the workers
+	 * @param iContext
+	 *          Command context
+	 * @param iRunning
+	 *          Command in execution, checked for every record read. Null to not check it
+	 * @param iThreads
+	 *          Number of worker threads
+	 * @param iOrdered
+	 *          True to return the records in the order of the clusters, as the scan in the calling thread
+	 * @param iAggregates
+	 *          Aggregate functions to compute in the workers, null to return the records found. All of them must be able to merge
+	 *          their results
+	 * @param iRequester
+	 *          Executor of the SELECT
+	 */
+	public OParallelScanOperator(final ODatabaseRecord iDatabase, final int[] iClusterIds, final OSQLFilter iFilter,
+			final OCommandContext iContext, final ORunningCommand iRunning, final int iThreads, final boolean iOrdered,
+			final List<OSQLFunctionRuntime> iAggregates, final OCommandExecutor iRequester) {
+		super(null);
+		database = iDatabase;
+		filter = iFilter;
+		fields = iFilter.getReferencedFields();
+		context = iContext;
+		running = iRunning;
+		ordered = iOrdered;
+		aggregates = iAggregates;
+		requester = iRequester;
+
+		final OStorage storage = database.getStorage();
+
+		final List<long[]> ranges = new ArrayList<long[]>();
+		long totalPositions = 0;
+		for (int clusterId : iClusterIds) {
+			final long[] range = storage.getClusterDataRange(clusterId);
+			if (range.length < 2 || range[0] < 0 || range[1] < range[0])
+				// EMPTY CLUSTER
+				continue;
+
+			ranges.add(new long[] { clusterId, range[0], range[1] });
+			totalPositions += range[1] - range[0] + 1;
+		}
+
+		final long partitionSize = Math.max(MIN_PARTITION_POSITIONS, totalPositions / (iThreads * PARTITIONS_PER_THREAD) + 1);
+		for (long[] range : ranges)
+			for (long from = range[1]; from <= range[2]; from += partitionSize)
+				partitions.add(new OPartition((int) range[0], from, Math.min(from + partitionSize - 1, range[2])));
+
+		threads = Math.max(1, Math.min(iThreads, partitions.size()));
+		waitingPartitions = new Semaphore(threads * 2);
+		workersDone = new CountDownLatch(threads);
+	}
+
+	@Override
+	public OIdentifiable next() {
+		if (!started)
+			start();
+
+		while (true) {
+			if (current != null) {
+				if (current.hasNext()) {
+					final OIdentifiable record = getCachedRecord((ODocument) current.next());
+					if (record != null)
+						return record;
+					continue;
+				}
+
+				// ALL THE RECORDS OF THE PARTITION RETURNED: ANOTHER ONE CAN BE READ
+				current = null;
+				waitingPartitions.release();
+			}
+
+			if (returnedPartitions >= partitions.size()) {
+				if (aggregates != null)
+					// THE PARTIAL RESULTS ARE MERGED BY THE WORKERS BEFORE ENDING
+					awaitWorkers();
+				return null;
+			}
+
+			final OPartition partition = nextDonePartition();
+			returnedPartitions++;
+
+			if (partition.error instanceof OCommandInterruptedException)
+				throw (OCommandInterruptedException) partition.error;
+
+			if (partition.error != null)
+				throw new OCommandExecutionException("Error on scanning the records of cluster " + partition.clusterId
+						+ " in parallel", partition.error);
+
+			current = partition.records.iterator();
+		}
+	}
+
+	@Override
+	public void close() {
+		if (started && !closed) {
+			closed = true;
+			// WAKE UP THE WORKERS WAITING FOR A PARTITION
+			waitingPartitions.release(threads);
+			awaitWorkers();
+		}
+		closed = true;
+		super.close();
+	}
+
+	private void start() {
+		started = true;
+		OProfiler.getInstance().updateCounter("Query.parallelScans", 1);
+
+		final ExecutorService executor = getWorkers();
+		for (int i = 0; i < threads; ++i)
+			executor.execute(new Runnable() {
+				public void run() {
+					work();
+				}
+			});
+	}
+
+	private void work() {
+		ODatabaseRecordThreadLocal.INSTANCE.set(database);
+		try {
+			final OSQLFunction[] states;
+			final Object[][] parameters;
+			if (aggregates != null) {
+				states = new OSQLFunction[aggregates.size()];
+				parameters = new Object[aggregates.size()][];
+				for (int i = 0; i < states.length; ++i) {
+					states[i] = aggregates.get(i).createState();
+					parameters[i] = aggregates.get(i).createParameters();
+				}
+			} else {
+				states = null;
+				parameters = null;
+			}
+
+			while (!closed) {
+				waitingPartitions.acquireUninterruptibly();
+				if (closed)
+					break;
+
+				final int index = nextPartition.getAndIncrement();
+				if (index >= partitions.size())
+					break;
+
+				final OPartition partition = partitions.get(index);
+				try {
+					scan(partition, states, parameters);
+				} catch (Throwable t) {
+					partition.error = t;
+				}
+				partition.done.countDown();
+				if (!ordered)
+					donePartitions.offer(partition);
+			}
+
+			if (states != null && !closed)
+				synchronized (aggregates) {
+					for (int i = 0; i < states.length; ++i)
+						aggregates.get(i).mergeResult(states[i]);
+				}
+
+		} finally {
+			ODatabaseRecordThreadLocal.INSTANCE.remove();
+			workersDone.countDown();
+		}
+	}
+
+	private void scan(final OPartition iPartition, final OSQLFunction[] iStates, final Object[][] iParameters) {
+		final OStorage storage = database.getStorage();
+
+		for (long position = iPartition.from; position <= iPartition.to && !closed; ++position) {
+			if (running != null)
+				running.checkScanned();
+
+			final ORecordId rid = new ORecordId(iPartition.clusterId, position);
+
+			final ORawBuffer buffer = storage.readRecord(rid, null, false, null);
+			if (buffer == null || buffer.recordType != ODocument.RECORD_TYPE)
+				// DELETED OR WRONG RECORD TYPE: JUMP IT
+				continue;
+
+			final ODocument record = new ODocument();
+			record.fill(rid, buffer.version, buffer.buffer, false);
+			record.fromStream(buffer.buffer);
+			record.setInternalStatus(ORecordElement.STATUS.LOADED);
+
+			if (!filter.evaluate(OFilterOperator.getCandidate(record, fields), context))
+				continue;
+
+			if (iStates != null) {
+				for (int i = 0; i < iStates.length; ++i)
+					aggregates.get(i).execute(iStates[i], iParameters[i], record, requester);
+			} else
+				iPartition.records.add(record);
+		}
+	}
+
+	/**
+	 * Applies the level-1 cache like the load of the record does: a record in the cache gives its content, including the changes not
+	 * yet saved, otherwise the record found is cached. A content different from the one read by the worker is checked again against
+	 * the conditions.
+	 * 
+	 * @return the record to return, or null if the content in the cache doesn't satisfy the conditions
+	 */
+	private OIdentifiable getCachedRecord(final ODocument iRecord) {
+		final ORecordInternal<?> cached = database.getLevel1Cache().findRecord(iRecord.getIdentity());
+		if (cached == null) {
+			database.getLevel1Cache().updateRecord(iRecord);
+			return iRecord;
+		}
+
+		if (cached == iRecord || !(cached instanceof ODocument) || cached.getInternalStatus() == ORecordElement.STATUS.NOT_LOADED
+				|| !cached.isDirty() && cached.getVersion() == iRecord.getVersion())
+			return iRecord;
+
+		iRecord.fromStream(cached.toStream());
+		iRecord.setVersion(cached.getVersion());
+
+		return filter.evaluate(OFilterOperator.getCandidate(iRecord, fields), context) ? iRecord : null;
+	}
+
+	private OPartition nextDonePartition() {
+		try {
+			if (!ordered)
+				return donePartitions.take();
+
+			final OPartition partition = partitions.get(returnedPartitions);
+			partition.done.await();
+			return partition;
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OCommandExecutionException("Parallel scan interrupted", e);
+		}
+	}
+
+	private void awaitWorkers() {
+		try {
+			workersDone.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static synchronized ExecutorService getWorkers() {
+		if (workers == null)
+			workers = Executors.newCachedThreadPool(new ThreadFactory() {
+				private final AtomicInteger	counter	= new AtomicInteger();
+
+				public Thread newThread(final Runnable iRunnable) {
+					final Thread thread = new Thread(iRunnable, "OrientDB parallel query " + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		return workers;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+/**
+ * Operator of the pipeline executing a SELECT. Every operator pulls the records from its source one at a time when asked for the
+ * next one, so the records flow through the whole pipeline without being collected, unless the operator needs all of them, like
+ * the sorting. When the last operator stops asking, the upstream operators stop too.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public abstract class OPipelineOperator {
+	protected final OPipelineOperator	source;
+
+	protected OPipelineOperator(final OPipelineOperator iSource) {
+		source = iSource;
+	}
+
+	/**
+	 * Returns the next record, or null if there are no more records.
+	 */
+	public abstract OIdentifiable next();
+
+	/**
+	 * Frees the resources of the operator and of its sources.
+	 */
+	public void close() {
+		if (source != null)
+			source.close();
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.command.OCommandExecutor;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemField;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
+
+/**
+ * Returns a new document with the projections of every record. With aggregate functions the records are only passed to the
+ * functions, and a single document with their results is returned at the end.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OProjectOperator extends OPipelineOperator {
+	private final Map<String, Object>	projections;
+	private final boolean							aggregate;
+	private final OCommandContext			context;
+	private final OCommandExecutor		requester;
+	private int												position;
+	private boolean										aggregated;
+
+	/**
+	 * @param iSource
+	 *          Operator to pull the records from
+	 * @param iProjections
+	 *          Parsed projections of the SELECT
+	 * @param iAggregate
+	 *          True if any projection is an aggregate function
+	 * @param iContext
+	 *          Command context
+	 * @param iRequester
+	 *          Executor of the SELECT
+	 */
+	public OProjectOperator(final OPipelineOperator iSource, final Map<String, Object> iProjections, final boolean iAggregate,
+			final OCommandContext iContext, final OCommandExecutor iRequester) {
+		super(iSource);
+		projections = iProjections;
+		aggregate = iAggregate;
+		context = iContext;
+		requester = iRequester;
+	}
+
+	@Override
+	public OIdentifiable next() {
+		OIdentifiable record;
+		while ((record = source.next()) != null) {
+			final ODocument result = project((ODocument) record.getRecord());
+			if (result != null)
+				return result;
+		}
+
+		if (aggregate && !aggregated) {
+			aggregated = true;
+			return getAggregates();
+		}
+
+		return null;
+	}
+
+	private ODocument project(final ODocument iRecord) {
+		final ODocument result = new ODocument().setOrdered(true);
+
+		// ASSIGN A TEMPORARY RID TO ALLOW PAGINATION IF ANY
+		((ORecordId) result.getIdentity()).clusterId = -2;
+		((ORecordId) result.getIdentity()).clusterPosition = position;
+
+		boolean canExcludeResult = false;
+
+		Object value;
+		for (Entry<String, Object> projection : projections.entrySet()) {
+			if (projection.getValue().equals("*")) {
+				iRecord.copy(result);
+				value = null;
+			} else if (projection.getValue().toString().startsWith("$")) {
+				value = context != null ? context.getVariable(projection.getValue().toString().substring(1)) : null;
+			} else if (projection.getValue() instanceof OSQLFilterItemField)
+				value = ((OSQLFilterItemField) projection.getValue()).getValue(iRecord, null);
+			else if (projection.getValue() instanceof OSQLFunctionRuntime) {
+				final OSQLFunctionRuntime f = (OSQLFunctionRuntime) projection.getValue();
+				canExcludeResult = f.filterResult();
+				value = f.execute(iRecord, requester);
+			} else
+				value = projection.getValue();
+
+			if (value != null)
+				result.field(projection.getKey(), value);
+		}
+
+		if (canExcludeResult && result.isEmpty())
+			// RESULT EXCLUDED FOR EMPTY RECORD
+			return null;
+
+		if (aggregate)
+			// THE FUNCTIONS KEEP THE VALUES
+			return null;
+
+		position++;
+		return result;
+	}
+
+	private ODocument getAggregates() {
+		Object value;
+		final ODocument result = new ODocument().setOrdered(true);
+		for (Entry<String, Object> projection : projections.entrySet()) {
+			if (projection.getValue() instanceof OSQLFilterItemField)
+				value = ((OSQLFilterItemField) projection.getValue()).getValue(result, null);
+			else if (projection.getValue() instanceof OSQLFunctionRuntime) {
+				final OSQLFunctionRuntime f = (OSQLFunctionRuntime) projection.getValue();
+				value = f.getResult();
+			} else
+				value = projection.getValue();
+
+			result.field(projection.getKey(), value);
+		}
+		return result;
+	}
+}
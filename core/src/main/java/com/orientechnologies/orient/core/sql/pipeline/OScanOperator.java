@@ -0,0 +1,77 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import java.util.Iterator;
+
+import com.orientechnologies.orient.core.command.ORunningCommand;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordElement;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.exception.ORecordNotFoundException;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * First operator of the pipeline: browses the target of the query, that is a class, a cluster, the records found by an index or
+ * an index in key order, loading the documents. The records of the other types are ignored.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OScanOperator extends OPipelineOperator {
+	private final Iterator<? extends OIdentifiable>	iterator;
+	private final ORunningCommand										running;
+
+	/**
+	 * @param iTarget
+	 *          Records to browse
+	 * @param iRunning
+	 *          Command in execution, checked for every record read. Null to not check it
+	 */
+	public OScanOperator(final Iterable<? extends OIdentifiable> iTarget, final ORunningCommand iRunning) {
+		super(null);
+		iterator = iTarget.iterator();
+		running = iRunning;
+	}
+
+	@Override
+	public OIdentifiable next() {
+		while (iterator.hasNext()) {
+			if (running != null)
+				running.checkScanned();
+
+			ORecordInternal<?> record = iterator.next().getRecord();
+			if (record == null)
+				// DELETED
+				continue;
+
+			if (record.getInternalStatus() == ORecordElement.STATUS.NOT_LOADED)
+				try {
+					record = (ORecordInternal<?>) record.load();
+				} catch (ORecordNotFoundException e) {
+					throw new OCommandExecutionException("Error during loading record with id : " + record.getIdentity());
+				}
+
+			if (record.getRecordType() != ODocument.RECORD_TYPE)
+				// WRONG RECORD TYPE: JUMP IT
+				continue;
+
+			return record;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+/**
+ * Discards the first records of the source.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OSkipOperator extends OPipelineOperator {
+	private int	skip;
+
+	public OSkipOperator(final OPipelineOperator iSource, final int iSkip) {
+		super(iSource);
+		skip = iSkip;
+	}
+
+	@Override
+	public OIdentifiable next() {
+		for (; skip > 0; skip--)
+			if (source.next() == null)
+				return null;
+
+		return source.next();
+	}
+}
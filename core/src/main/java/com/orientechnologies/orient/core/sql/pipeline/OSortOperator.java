@@ -0,0 +1,64 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.pipeline;
+
+import java.util.Iterator;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.OSQLOrderBy;
+
+/**
+ * Collects the records of the source and returns them ordered. When the source returns the records already in order, like an
+ * index browsed in key order, it stops pulling them as soon as all the records to return have been collected.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OSortOperator extends OPipelineOperator {
+	private final OSQLOrderBy					orderBy;
+	private final boolean							sourceOrdered;
+	private Iterator<OIdentifiable>	sorted;
+
+	public OSortOperator(final OPipelineOperator iSource, final OSQLOrderBy iOrderBy, final boolean iSourceOrdered) {
+		super(iSource);
+		orderBy = iOrderBy;
+		sourceOrdered = iSourceOrdered;
+	}
+
+	@Override
+	public OIdentifiable next() {
+		if (sorted == null) {
+			OIdentifiable record;
+			while ((record = source.next()) != null) {
+				orderBy.add(record);
+
+				if (sourceOrdered && orderBy.isFull())
+					// THE NEXT RECORDS CANNOT BE BETTER
+					break;
+			}
+			sorted = orderBy.fetch();
+		}
+
+		return sorted.hasNext() ? sorted.next() : null;
+	}
+
+	@Override
+	public void close() {
+		// DELETE THE TEMPORARY FILES IN CASE OF ERRORS
+		orderBy.close();
+		super.close();
+	}
+}
@@ -19,11 +19,14 @@ import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandRequestAsynch;
 import com.orientechnologies.orient.core.command.OCommandRequestText;
 import com.orientechnologies.orient.core.command.OCommandResultListener;
+import com.orientechnologies.orient.core.command.OCommandResultStream;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 
 /**
  * SQL asynchronous query. When executed the caller does not wait the the execution, rather the listener will be called for each
  * item found in the query. OSQLAsynchQuery has been built on top of this. NOTE: if you're working with remote databases don't
  * execute any remote call inside the callback function because the network channel is locked until the query command has finished.
+ * Use {@link #stream(int, Object...)} to consume the results in another thread than the one executing the query.
  * 
  * @author Luca Garulli
  * 
@@ -59,6 +62,18 @@ public class OSQLAsynchQuery<T extends Object> extends OSQLQuery<T> implements O
 		return (RET) execute(iArgs);
 	}
 
+	/**
+	 * Executes the query in another thread. The results are kept in a buffer of the capacity specified and the query waits when the
+	 * buffer is full, until the caller takes the results. The listener, if any, is replaced by the stream returned.
+	 * 
+	 * @param iCapacity
+	 *          Maximum number of results waiting to be taken
+	 * @return the stream to take the results from, or to cancel the query
+	 */
+	public OCommandResultStream stream(final int iCapacity, final Object... iArgs) {
+		return new OCommandResultStream(iCapacity).execute(ODatabaseRecordThreadLocal.INSTANCE.get(), this, iArgs);
+	}
+
 	public T executeFirst() {
 		execute(1);
 		return null;
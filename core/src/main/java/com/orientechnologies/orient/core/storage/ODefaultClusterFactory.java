@@ -19,20 +19,24 @@ import java.util.Arrays;
 
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.config.OStorageClusterConfiguration;
+import com.orientechnologies.orient.core.config.OStorageColumnarClusterConfiguration;
 import com.orientechnologies.orient.core.config.OStorageMemoryClusterConfiguration;
 import com.orientechnologies.orient.core.config.OStoragePhysicalClusterConfiguration;
 import com.orientechnologies.orient.core.exception.OStorageException;
+import com.orientechnologies.orient.core.storage.impl.local.OClusterColumnar;
 import com.orientechnologies.orient.core.storage.impl.local.OClusterLocal;
 import com.orientechnologies.orient.core.storage.impl.memory.OClusterMemory;
 
 public class ODefaultClusterFactory implements OClusterFactory {
-	private static final String[]	TYPES	= { "PHYSICAL", "MEMORY" };
+	private static final String[]	TYPES	= { "PHYSICAL", "MEMORY", "COLUMNAR" };
 
 	public OCluster createCluster(final String iType) {
 		if (iType.equalsIgnoreCase("PHYSICAL"))
 			return new OClusterLocal();
 		else if (iType.equalsIgnoreCase("MEMORY"))
 			return new OClusterMemory();
+		else if (iType.equalsIgnoreCase("COLUMNAR"))
+			return new OClusterColumnar();
 		else
 			OLogManager.instance().exception(
 					"Cluster type '" + iType + "' is not supported. Supported types are: " + Arrays.toString(TYPES), null,
@@ -41,7 +45,9 @@ public class ODefaultClusterFactory implements OClusterFactory {
 	}
 
 	public OCluster createCluster(final OStorageClusterConfiguration iConfig) {
-		if (iConfig instanceof OStoragePhysicalClusterConfiguration)
+		if (iConfig instanceof OStorageColumnarClusterConfiguration)
+			return new OClusterColumnar();
+		else if (iConfig instanceof OStoragePhysicalClusterConfiguration)
 			return new OClusterLocal();
 		else if (iConfig instanceof OStorageMemoryClusterConfiguration)
 			return new OClusterMemory();
@@ -0,0 +1,33 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.storage;
+
+/**
+ * Destination of the raw content of a record read by the storage without creating the record.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public interface ORawRecordTarget {
+	/**
+	 * Called once the record has been found, before its content is read.
+	 * 
+	 * @param iSize
+	 *          Size of the record content in bytes
+	 * @return The buffer, at least iSize bytes long, where the storage copies the content starting from the first byte
+	 */
+	public byte[] getBuffer(int iSize);
+}
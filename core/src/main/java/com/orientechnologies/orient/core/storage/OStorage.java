@@ -42,7 +42,7 @@ public interface OStorage extends OSharedContainer {
 	public static final String	DATA_DEFAULT_NAME			= "default";
 
 	public enum CLUSTER_TYPE {
-		PHYSICAL, MEMORY
+		PHYSICAL, MEMORY, COLUMNAR
 	}
 
 	public enum SIZE {
@@ -0,0 +1,437 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.storage.impl.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.config.OStorageColumnarClusterConfiguration;
+import com.orientechnologies.orient.core.config.OStorageFileConfiguration;
+import com.orientechnologies.orient.core.config.OStoragePhysicalClusterConfiguration;
+import com.orientechnologies.orient.core.memory.OMemoryWatchDog;
+import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
+import com.orientechnologies.orient.core.serialization.OMemoryStream;
+import com.orientechnologies.orient.core.storage.OPhysicalPosition;
+import com.orientechnologies.orient.core.storage.OStorage;
+import com.orientechnologies.orient.core.storage.fs.OFile;
+
+/**
+ * Physical cluster that also keeps the numeric and date properties of its documents by column, in chunks of
+ * {@link OColumnChunk#ROWS} positions, to answer the analytic queries without reading the records. The records are stored as in
+ * any physical cluster: the chunks are a copy of their values built by the first query that reads them, and invalidated by every
+ * change to their positions, so they suit the classes mostly appended.<br/>
+ * <br/>
+ * The full chunks are appended to the file <code>&lt;cluster&gt;.occ</code>, while the last one is kept in memory since it still
+ * grows. The entries of the chunks invalidated are marked as removed setting their chunk index to -1:<br/>
+ * <code>
+ * +----------------------+---------------+-------------+--------+------+<br/>
+ * | CHUNK INDEX......... | HEADER LENGTH | BODY LENGTH | HEADER | BODY |<br/>
+ * | 8 bytes = max 2^63-1 | 4 bytes...... | 4 bytes.... | ...... | .... |<br/>
+ * +----------------------+---------------+-------------+--------+------+<br/>
+ * </code><br/>
+ * The headers with the zone maps are loaded on open, the bodies are read when a query needs the values. The file is compacted on
+ * close when the entries replaced take more space than the valid ones.
+ *
+ * @see OColumnChunk
+ * @author Luca Garulli
+ *
+ */
+public class OClusterColumnar extends OClusterLocal {
+	public static final String						TYPE							= "COLUMNAR";
+	private static final String						DEF_EXTENSION			= ".occ";
+	private static final int							DEF_START_SIZE		= 262144;
+	private static final int							ENTRY_HEADER_SIZE	= OBinaryProtocol.SIZE_LONG + OBinaryProtocol.SIZE_INT * 2;
+
+	private final Map<Long, OChunkState>	chunks						= new HashMap<Long, OChunkState>();
+	private OSingleFileSegment						chunkSegment;
+	private OStorageLocal									storage;
+	private long													garbage;
+
+	/**
+	 * State of a chunk read by a query at least once.
+	 */
+	private static class OChunkState {
+		private int						version;
+		private OColumnChunk	header;
+		private OColumnChunk	values;
+		private int						offset	= -1;
+		private int						headerLength;
+		private int						bodyLength;
+
+		private int getEntrySize() {
+			return ENTRY_HEADER_SIZE + headerLength + bodyLength;
+		}
+	}
+
+	@Override
+	public void create(final int iStartSize) throws IOException {
+		super.create(iStartSize);
+		synchronized (chunks) {
+			chunkSegment.create(DEF_START_SIZE);
+		}
+	}
+
+	@Override
+	public void open() throws IOException {
+		super.open();
+		synchronized (chunks) {
+			if (chunkSegment.exists()) {
+				chunkSegment.open();
+				loadChunks();
+			} else
+				chunkSegment.create(DEF_START_SIZE);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (chunks) {
+			compact();
+			chunkSegment.close();
+			chunks.clear();
+		}
+		super.close();
+	}
+
+	@Override
+	public void delete() throws IOException {
+		super.delete();
+		synchronized (chunks) {
+			chunkSegment.delete();
+		}
+	}
+
+	@Override
+	public void truncate() throws IOException {
+		super.truncate();
+		synchronized (chunks) {
+			// THE STATES ARE KEPT TO INVALIDATE THE CHUNKS IN CONSTRUCTION
+			for (OChunkState state : chunks.values()) {
+				state.version++;
+				state.header = null;
+				state.values = null;
+				state.offset = -1;
+			}
+			chunkSegment.truncate();
+			garbage = 0;
+		}
+	}
+
+	@Override
+	public void set(final ATTRIBUTES iAttribute, final Object iValue) throws IOException {
+		final String oldName = getName();
+		super.set(iAttribute, iValue);
+
+		if (iAttribute == ATTRIBUTES.NAME && !oldName.equals(getName()))
+			synchronized (chunks) {
+				final File newFile = new File(storage.getStoragePath() + "/" + getName() + DEF_EXTENSION);
+				boolean renamed = chunkSegment.getFile().renameTo(newFile);
+				while (!renamed) {
+					OMemoryWatchDog.freeMemory(100);
+					renamed = chunkSegment.getFile().renameTo(newFile);
+				}
+			}
+	}
+
+	@Override
+	public void addPhysicalPosition(final OPhysicalPosition iPPosition) throws IOException {
+		super.addPhysicalPosition(iPPosition);
+		invalidateChunk(iPPosition.clusterPosition);
+	}
+
+	@Override
+	public void setPhysicalPosition(final OPhysicalPosition iPosition) throws IOException {
+		super.setPhysicalPosition(iPosition);
+		invalidateChunk(iPosition.clusterPosition);
+	}
+
+	@Override
+	public void updateDataSegmentPosition(final long iPosition, final int iDataSegmentId, final long iDataSegmentPosition)
+			throws IOException {
+		super.updateDataSegmentPosition(iPosition, iDataSegmentId, iDataSegmentPosition);
+		invalidateChunk(iPosition);
+	}
+
+	@Override
+	public void updateVersion(final long iPosition, final int iVersion) throws IOException {
+		super.updateVersion(iPosition, iVersion);
+		invalidateChunk(iPosition);
+	}
+
+	@Override
+	public void updateRecordType(final long iPosition, final byte iRecordType) throws IOException {
+		super.updateRecordType(iPosition, iRecordType);
+		invalidateChunk(iPosition);
+	}
+
+	@Override
+	public void removePhysicalPosition(final long iPosition) throws IOException {
+		super.removePhysicalPosition(iPosition);
+		invalidateChunk(iPosition);
+	}
+
+	@Override
+	public boolean removeHole(final long iPosition) throws IOException {
+		final boolean removed = super.removeHole(iPosition);
+		invalidateChunk(iPosition);
+		return removed;
+	}
+
+	@Override
+	public String getType() {
+		return TYPE;
+	}
+
+	/**
+	 * Returns the version of a chunk, incremented by every change to its positions. A chunk built from the records is accepted by
+	 * {@link #saveChunk(OColumnChunk, int)} only if the version read before reading the records is still the same.
+	 */
+	public int getChunkVersion(final long iChunk) {
+		synchronized (chunks) {
+			OChunkState state = chunks.get(iChunk);
+			if (state == null) {
+				state = new OChunkState();
+				chunks.put(iChunk, state);
+			}
+			return state.version;
+		}
+	}
+
+	/**
+	 * Returns a valid chunk, with the zone maps only if its values are in the file, or null if the chunk has to be built.
+	 *
+	 * @see #loadChunk(OColumnChunk)
+	 */
+	public OColumnChunk getChunk(final long iChunk) {
+		synchronized (chunks) {
+			final OChunkState state = chunks.get(iChunk);
+			if (state == null)
+				return null;
+			return state.values != null ? state.values : state.header;
+		}
+	}
+
+	/**
+	 * Reads the values of a chunk returned by {@link #getChunk(long)}.
+	 *
+	 * @return the chunk with the values, or null if it has been changed in the meanwhile
+	 */
+	public OColumnChunk loadChunk(final OColumnChunk iChunk) throws IOException {
+		if (iChunk.isLoaded())
+			return iChunk;
+
+		final byte[] body;
+		synchronized (chunks) {
+			final OChunkState state = chunks.get(iChunk.getIndex());
+			if (state == null || state.header != iChunk)
+				return null;
+
+			body = new byte[state.bodyLength];
+			chunkSegment.getFile().read(state.offset + ENTRY_HEADER_SIZE + state.headerLength, body, body.length);
+		}
+		return iChunk.fromStream(body);
+	}
+
+	/**
+	 * Keeps a chunk built from the records, unless its positions have been changed in the meanwhile. The full chunks are written in
+	 * the file, the last one is kept in memory.
+	 *
+	 * @param iChunk
+	 *          Chunk built
+	 * @param iVersion
+	 *          Version of the chunk read by {@link #getChunkVersion(long)} before reading the records
+	 * @return true if the chunk has been kept, otherwise false
+	 */
+	public boolean saveChunk(final OColumnChunk iChunk, final int iVersion) throws IOException {
+		synchronized (chunks) {
+			final OChunkState state = chunks.get(iChunk.getIndex());
+			if (state == null || state.version != iVersion)
+				// CHANGED WHILE BUILDING
+				return false;
+
+			// BUILT AGAIN WITH OTHER COLUMNS: THE NEW ENTRY REPLACES THE OLD ONE
+			removeEntry(state);
+			state.header = null;
+			state.values = null;
+
+			if (iChunk.getRows() < OColumnChunk.ROWS) {
+				// LAST CHUNK OF THE CLUSTER: IT'S STILL GROWING
+				state.values = iChunk;
+				return true;
+			}
+
+			final byte[] header = iChunk.headerToStream();
+			final byte[] body = iChunk.toStream();
+			final int size = ENTRY_HEADER_SIZE + header.length + body.length;
+
+			final OMemoryStream entry = new OMemoryStream(size);
+			entry.set(iChunk.getIndex());
+			entry.set(header.length);
+			entry.set(body.length);
+			entry.write(header, 0, header.length);
+			entry.write(body, 0, body.length);
+
+			final OFile file = chunkSegment.getFile();
+			try {
+				if (file.getFilledUpTo() > Integer.MAX_VALUE - size)
+					throw new IllegalArgumentException("Cannot enlarge file beyond 2GB");
+				state.offset = file.allocateSpace(size);
+			} catch (IllegalArgumentException e) {
+				// FILE FULL: THE CHUNK WILL BE BUILT BY EVERY QUERY
+				OLogManager.instance().debug(this, "Cannot store chunk %d of cluster %s: %s", iChunk.getIndex(), getName(),
+						e.getMessage());
+				return false;
+			}
+			file.write(state.offset, entry.toByteArray());
+			state.headerLength = header.length;
+			state.bodyLength = body.length;
+			state.header = OColumnChunk.headerFromStream(iChunk.getIndex(), header);
+			return true;
+		}
+	}
+
+	@Override
+	protected void init(final OStorage iStorage, final int iId, final String iClusterName, final String iLocation,
+			final int iDataSegmentId, final Object... iParameters) throws IOException {
+		super.init(iStorage, iId, iClusterName, iLocation, iDataSegmentId, iParameters);
+		storage = (OStorageLocal) iStorage;
+
+		if (chunkSegment == null) {
+			final OStoragePhysicalClusterConfiguration config = getConfig();
+			chunkSegment = new OSingleFileSegment(storage, new OStorageFileConfiguration(config,
+					OStorageVariableParser.DB_PATH_VARIABLE + "/" + iClusterName + DEF_EXTENSION, config.fileType, config.maxSize,
+					config.fileIncrementSize));
+		}
+	}
+
+	@Override
+	protected OStoragePhysicalClusterConfiguration createConfiguration(final OStorage iStorage, final int iId,
+			final int iDataSegmentId) {
+		return new OStorageColumnarClusterConfiguration(iStorage.getConfiguration(), iId, iDataSegmentId);
+	}
+
+	/**
+	 * Invalidates the chunk of a position changed. Its entry in the file is marked as removed, so it's not loaded again.
+	 */
+	protected void invalidateChunk(final long iPosition) throws IOException {
+		synchronized (chunks) {
+			final OChunkState state = chunks.get(iPosition / OColumnChunk.ROWS);
+			if (state == null)
+				// NEVER READ
+				return;
+
+			state.version++;
+			state.header = null;
+			state.values = null;
+			removeEntry(state);
+		}
+	}
+
+	private void removeEntry(final OChunkState iState) throws IOException {
+		if (iState.offset > -1) {
+			chunkSegment.getFile().writeLong(iState.offset, -1);
+			garbage += iState.getEntrySize();
+			iState.offset = -1;
+		}
+	}
+
+	/**
+	 * Reads the headers of the chunks in the file.
+	 */
+	private void loadChunks() throws IOException {
+		final OFile file = chunkSegment.getFile();
+		final int end = file.getFilledUpTo();
+
+		int offset = 0;
+		while (offset + ENTRY_HEADER_SIZE <= end) {
+			final long index = file.readLong(offset);
+			final int headerLength = file.readInt(offset + OBinaryProtocol.SIZE_LONG);
+			final int bodyLength = file.readInt(offset + OBinaryProtocol.SIZE_LONG + OBinaryProtocol.SIZE_INT);
+
+			if (headerLength < 0 || headerLength > end - offset - ENTRY_HEADER_SIZE || bodyLength < 0
+					|| bodyLength > end - offset - ENTRY_HEADER_SIZE - headerLength) {
+				// ENTRY NOT COMPLETED BEFORE A CRASH: DISCARD IT AND THE NEXT ONES
+				OLogManager.instance().warn(this, "Found a broken entry in the chunks of cluster %s at offset %d: truncated", getName(),
+						offset);
+				file.shrink(offset);
+				break;
+			}
+
+			if (index < 0)
+				// REMOVED
+				garbage += ENTRY_HEADER_SIZE + headerLength + bodyLength;
+			else {
+				final byte[] header = new byte[headerLength];
+				file.read(offset + ENTRY_HEADER_SIZE, header, headerLength);
+
+				final OChunkState state = new OChunkState();
+				state.offset = offset;
+				state.headerLength = headerLength;
+				state.bodyLength = bodyLength;
+				state.header = OColumnChunk.headerFromStream(index, header);
+				chunks.put(index, state);
+			}
+
+			offset += ENTRY_HEADER_SIZE + headerLength + bodyLength;
+		}
+	}
+
+	/**
+	 * Moves the valid entries to the beginning of the file, removing the entries replaced, when they take more than half of it.
+	 */
+	private void compact() throws IOException {
+		final OFile file = chunkSegment.getFile();
+		if (garbage == 0 || garbage < file.getFilledUpTo() / 2)
+			return;
+
+		final List<OChunkState> entries = new ArrayList<OChunkState>();
+		for (OChunkState state : chunks.values())
+			if (state.offset > -1)
+				entries.add(state);
+
+		Collections.sort(entries, new Comparator<OChunkState>() {
+			public int compare(final OChunkState o1, final OChunkState o2) {
+				return o1.offset < o2.offset ? -1 : o1.offset == o2.offset ? 0 : 1;
+			}
+		});
+
+		// THE ENTRIES ONLY MOVE BACKWARD, SO THEY CAN BE MOVED IN PLACE
+		int offset = 0;
+		for (OChunkState state : entries) {
+			final int size = state.getEntrySize();
+			if (state.offset != offset) {
+				final byte[] entry = new byte[size];
+				file.read(state.offset, entry, size);
+				file.write(offset, entry);
+				state.offset = offset;
+			}
+			offset += size;
+		}
+
+		OLogManager.instance().debug(this, "Compacted the chunks of cluster %s from %d to %d bytes", getName(), file.getFilledUpTo(),
+				offset);
+
+		file.shrink(offset);
+		garbage = 0;
+	}
+}
@@ -68,7 +68,7 @@ public class OClusterLocal extends OSharedResourceAbstract implements OCluster {
 
 	public void configure(final OStorage iStorage, final int iId, final String iClusterName, final String iLocation,
 			final int iDataSegmentId, final Object... iParameters) throws IOException {
-		config = new OStoragePhysicalClusterConfiguration(iStorage.getConfiguration(), iId, iDataSegmentId);
+		config = createConfiguration(iStorage, iId, iDataSegmentId);
 		config.name = iClusterName;
 		init(iStorage, iId, iClusterName, iLocation, iDataSegmentId);
 	}
@@ -647,4 +647,12 @@ public class OClusterLocal extends OSharedResourceAbstract implements OCluster {
 	public OStoragePhysicalClusterConfiguration getConfig() {
 		return config;
 	}
+
+	/**
+	 * Creates the configuration of a new cluster.
+	 */
+	protected OStoragePhysicalClusterConfiguration createConfiguration(final OStorage iStorage, final int iId,
+			final int iDataSegmentId) {
+		return new OStoragePhysicalClusterConfiguration(iStorage.getConfiguration(), iId, iDataSegmentId);
+	}
 }
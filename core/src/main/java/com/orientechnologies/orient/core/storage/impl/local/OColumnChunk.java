@@ -0,0 +1,518 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.storage.impl.local;
+
+import java.util.Date;
+
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
+import com.orientechnologies.orient.core.serialization.OMemoryStream;
+
+/**
+ * Values of the numeric and date properties of {@link #ROWS} consecutive positions of a columnar cluster, stored by column in
+ * primitive arrays. Every column keeps the minimum and maximum value (zone map), so the chunks that cannot match a condition are
+ * skipped without reading the values. The integer types and the dates are kept as long, FLOAT and DOUBLE as double.<br/>
+ * <br/>
+ * The zone maps form the header of the chunk and the values its body, serialized separately so the header can be read alone:<br/>
+ * <code>
+ * HEADER = rows:int, presentCount:int, foreign:boolean, columns:short, [ name:string, type:byte, valid:boolean, count:int, min:long,
+ * max:long ]*<br/>
+ * BODY&nbsp;&nbsp; = present:long[], [ sameAsPresent:boolean, filled:long[]?, values ]*
+ * </code><br/>
+ * The values of the rows filled are stored as the delta from the previous value in zigzag variable length format, the double values
+ * as the XOR with the previous value without its leading and trailing zero bytes.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OColumnChunk {
+	public static final int	ROWS				= 4096;
+
+	private static final int	ZERO_XOR	= 0x80;
+
+	private final long				index;
+	private final int					rows;
+	private final OColumn[]		columns;
+	private long[]						present;
+	private int								presentCount;
+	private boolean						foreign;
+
+	/**
+	 * Values of a property.
+	 */
+	public static class OColumn {
+		private final String	name;
+		private final OType		type;
+		private final boolean	floating;
+		private boolean				valid	= true;
+		private int						count;
+		private long[]				filled;
+		private long[]				longs;
+		private double[]			doubles;
+		private long					minLong;
+		private long					maxLong;
+		private double				minDouble;
+		private double				maxDouble;
+
+		private OColumn(final String iName, final OType iType) {
+			name = iName;
+			type = iType;
+			floating = iType == OType.FLOAT || iType == OType.DOUBLE;
+		}
+
+		private void allocate(final int iRows) {
+			filled = new long[words(iRows)];
+			if (floating)
+				doubles = new double[iRows];
+			else
+				longs = new long[iRows];
+		}
+
+		private void add(final int iRow, final Object iValue) {
+			if (!valid || iValue == null)
+				return;
+
+			if (!type.getDefaultJavaType().isInstance(iValue)) {
+				// VALUE OF ANOTHER TYPE, PROBABLY WRITTEN BEFORE THE PROPERTY: THE COLUMN CANNOT BE USED
+				valid = false;
+				return;
+			}
+
+			if (floating) {
+				final double value = ((Number) iValue).doubleValue();
+				doubles[iRow] = value;
+				if (count == 0 || Double.compare(value, minDouble) < 0)
+					minDouble = value;
+				if (count == 0 || Double.compare(value, maxDouble) > 0)
+					maxDouble = value;
+			} else {
+				final long value = iValue instanceof Date ? ((Date) iValue).getTime() : ((Number) iValue).longValue();
+				longs[iRow] = value;
+				if (count == 0 || value < minLong)
+					minLong = value;
+				if (count == 0 || value > maxLong)
+					maxLong = value;
+			}
+
+			filled[iRow >> 6] |= 1L << iRow;
+			count++;
+		}
+
+		/**
+		 * Returns the value of a row in the Java type of the property.
+		 */
+		public Object box(final long iValue) {
+			switch (type) {
+			case BYTE:
+				return (byte) iValue;
+			case SHORT:
+				return (short) iValue;
+			case INTEGER:
+				return (int) iValue;
+			case DATE:
+			case DATETIME:
+				return new Date(iValue);
+			default:
+				return iValue;
+			}
+		}
+
+		/**
+		 * Returns the value of a row in the Java type of the property.
+		 */
+		public Object box(final double iValue) {
+			return type == OType.FLOAT ? (Object) (float) iValue : (Object) iValue;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public OType getType() {
+			return type;
+		}
+
+		/**
+		 * Tells if the values are double, otherwise long.
+		 */
+		public boolean isFloating() {
+			return floating;
+		}
+
+		/**
+		 * Tells if all the values are of the type of the property. The chunks with invalid columns must be read by record.
+		 */
+		public boolean isValid() {
+			return valid;
+		}
+
+		/**
+		 * Returns the number of rows with a value.
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the bitmap of the rows with a value.
+		 */
+		public long[] getFilled() {
+			return filled;
+		}
+
+		public long[] getLongs() {
+			return longs;
+		}
+
+		public double[] getDoubles() {
+			return doubles;
+		}
+
+		public long getMinLong() {
+			return minLong;
+		}
+
+		public long getMaxLong() {
+			return maxLong;
+		}
+
+		public double getMinDouble() {
+			return minDouble;
+		}
+
+		public double getMaxDouble() {
+			return maxDouble;
+		}
+	}
+
+	/**
+	 * Creates an empty chunk to fill with {@link #add(int, ODocument)}.
+	 *
+	 * @param iIndex
+	 *          Index of the chunk: the first position is iIndex * {@link #ROWS}
+	 * @param iRows
+	 *          Positions covered, less than {@link #ROWS} only for the last chunk of the cluster
+	 * @param iNames
+	 *          Names of the properties
+	 * @param iTypes
+	 *          Types of the properties, all supported by {@link #isSupported(OType)}
+	 */
+	public OColumnChunk(final long iIndex, final int iRows, final String[] iNames, final OType[] iTypes) {
+		index = iIndex;
+		rows = iRows;
+		present = new long[words(iRows)];
+		columns = new OColumn[iNames.length];
+		for (int i = 0; i < columns.length; ++i) {
+			columns[i] = new OColumn(iNames[i], iTypes[i]);
+			columns[i].allocate(iRows);
+		}
+	}
+
+	private OColumnChunk(final long iIndex, final int iRows, final OColumn[] iColumns) {
+		index = iIndex;
+		rows = iRows;
+		columns = iColumns;
+	}
+
+	/**
+	 * Tells if the values of a type can be stored in a column.
+	 */
+	public static boolean isSupported(final OType iType) {
+		switch (iType) {
+		case BYTE:
+		case SHORT:
+		case INTEGER:
+		case LONG:
+		case FLOAT:
+		case DOUBLE:
+		case DATE:
+		case DATETIME:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Adds the values of the document stored in a position of the chunk.
+	 *
+	 * @param iRow
+	 *          Position of the document relative to the first position of the chunk
+	 * @param iDocument
+	 *          Document to read
+	 */
+	public void add(final int iRow, final ODocument iDocument) {
+		present[iRow >> 6] |= 1L << iRow;
+		presentCount++;
+
+		for (OColumn column : columns)
+			column.add(iRow, iDocument.field(column.name));
+	}
+
+	/**
+	 * Returns the column of a property, null if the property was not a column when the chunk was built.
+	 */
+	public OColumn getColumn(final String iName) {
+		for (OColumn column : columns)
+			if (column.name.equals(iName))
+				return column;
+		return null;
+	}
+
+	public OColumn[] getColumns() {
+		return columns;
+	}
+
+	public long getIndex() {
+		return index;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Returns the bitmap of the positions containing a document, null if only the header has been read.
+	 */
+	public long[] getPresent() {
+		return present;
+	}
+
+	public int getPresentCount() {
+		return presentCount;
+	}
+
+	/**
+	 * Tells if the chunk contains documents of classes other than the class of the cluster. Such chunks must be read by record.
+	 */
+	public boolean isForeign() {
+		return foreign;
+	}
+
+	public void setForeign(final boolean iForeign) {
+		foreign = iForeign;
+	}
+
+	/**
+	 * Tells if the chunk has the values or only the zone maps.
+	 */
+	public boolean isLoaded() {
+		return present != null;
+	}
+
+	/**
+	 * Returns the number of long words of the bitmaps of a chunk.
+	 */
+	public static int words(final int iRows) {
+		return (iRows + 63) >> 6;
+	}
+
+	public byte[] headerToStream() {
+		final OMemoryStream stream = new OMemoryStream(32 + columns.length * 32);
+		stream.set(rows);
+		stream.set(presentCount);
+		stream.set(foreign);
+		stream.set((short) columns.length);
+		for (OColumn column : columns) {
+			stream.set(column.name);
+			stream.set((byte) column.type.getId());
+			stream.set(column.valid);
+			stream.set(column.count);
+			if (column.floating) {
+				stream.set(Double.doubleToRawLongBits(column.minDouble));
+				stream.set(Double.doubleToRawLongBits(column.maxDouble));
+			} else {
+				stream.set(column.minLong);
+				stream.set(column.maxLong);
+			}
+		}
+		return stream.toByteArray();
+	}
+
+	/**
+	 * Creates a chunk with the zone maps only. The values are read by {@link #fromStream(byte[])}.
+	 */
+	public static OColumnChunk headerFromStream(final long iIndex, final byte[] iHeader) {
+		final OMemoryStream stream = new OMemoryStream(iHeader);
+		final int rows = stream.getAsInteger();
+		final int presentCount = stream.getAsInteger();
+		final boolean foreign = stream.getAsBoolean();
+
+		final OColumn[] columns = new OColumn[stream.getAsShort()];
+		for (int i = 0; i < columns.length; ++i) {
+			final OColumn column = new OColumn(stream.getAsString(), OType.getById(stream.getAsByte()));
+			column.valid = stream.getAsBoolean();
+			column.count = stream.getAsInteger();
+			if (column.floating) {
+				column.minDouble = Double.longBitsToDouble(stream.getAsLong());
+				column.maxDouble = Double.longBitsToDouble(stream.getAsLong());
+			} else {
+				column.minLong = stream.getAsLong();
+				column.maxLong = stream.getAsLong();
+			}
+			columns[i] = column;
+		}
+
+		final OColumnChunk chunk = new OColumnChunk(iIndex, rows, columns);
+		chunk.presentCount = presentCount;
+		chunk.foreign = foreign;
+		return chunk;
+	}
+
+	public byte[] toStream() {
+		final int words = words(rows);
+		final OMemoryStream stream = new OMemoryStream(words * OBinaryProtocol.SIZE_LONG + presentCount * columns.length * 2 + 1);
+
+		for (long word : present)
+			stream.set(word);
+
+		for (OColumn column : columns) {
+			if (!column.valid || column.count == 0)
+				continue;
+
+			final boolean sameAsPresent = column.count == presentCount;
+			stream.set(sameAsPresent);
+			if (!sameAsPresent)
+				for (long word : column.filled)
+					stream.set(word);
+
+			long previous = 0;
+			for (int w = 0; w < words; ++w)
+				for (long bits = column.filled[w]; bits != 0; bits &= bits - 1) {
+					final int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+					if (column.floating) {
+						final long value = Double.doubleToRawLongBits(column.doubles[row]);
+						writeXor(stream, value ^ previous);
+						previous = value;
+					} else {
+						final long value = column.longs[row];
+						writeSignedVarLong(stream, value - previous);
+						previous = value;
+					}
+				}
+		}
+
+		return stream.toByteArray();
+	}
+
+	/**
+	 * Returns a copy of the chunk with the values read from the body.
+	 */
+	public OColumnChunk fromStream(final byte[] iBody) {
+		final OMemoryStream stream = new OMemoryStream(iBody);
+		final int words = words(rows);
+
+		final OColumn[] loadedColumns = new OColumn[columns.length];
+		final OColumnChunk chunk = new OColumnChunk(index, rows, loadedColumns);
+		chunk.presentCount = presentCount;
+		chunk.foreign = foreign;
+		chunk.present = new long[words];
+		for (int w = 0; w < words; ++w)
+			chunk.present[w] = stream.getAsLong();
+
+		for (int i = 0; i < columns.length; ++i) {
+			final OColumn column = new OColumn(columns[i].name, columns[i].type);
+			column.valid = columns[i].valid;
+			column.count = columns[i].count;
+			column.minLong = columns[i].minLong;
+			column.maxLong = columns[i].maxLong;
+			column.minDouble = columns[i].minDouble;
+			column.maxDouble = columns[i].maxDouble;
+			column.allocate(rows);
+			loadedColumns[i] = column;
+
+			if (!column.valid || column.count == 0)
+				continue;
+
+			if (stream.getAsBoolean())
+				System.arraycopy(chunk.present, 0, column.filled, 0, words);
+			else
+				for (int w = 0; w < words; ++w)
+					column.filled[w] = stream.getAsLong();
+
+			long previous = 0;
+			for (int w = 0; w < words; ++w)
+				for (long bits = column.filled[w]; bits != 0; bits &= bits - 1) {
+					final int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+					if (column.floating) {
+						previous ^= readXor(stream);
+						column.doubles[row] = Double.longBitsToDouble(previous);
+					} else {
+						previous += readSignedVarLong(stream);
+						column.longs[row] = previous;
+					}
+				}
+		}
+
+		return chunk;
+	}
+
+	private static void writeXor(final OMemoryStream iOutput, final long iXor) {
+		if (iXor == 0) {
+			iOutput.write(ZERO_XOR);
+			return;
+		}
+
+		// ONLY THE BYTES BETWEEN THE LEADING AND TRAILING ZERO BYTES ARE WRITTEN
+		final int leading = Long.numberOfLeadingZeros(iXor) >> 3;
+		final int trailing = Long.numberOfTrailingZeros(iXor) >> 3;
+		iOutput.write(leading << 4 | trailing);
+
+		long value = iXor >>> (trailing << 3);
+		for (int i = 8 - leading - trailing; i > 0; --i) {
+			iOutput.write((int) (value & 0xFF));
+			value >>>= 8;
+		}
+	}
+
+	private static long readXor(final OMemoryStream iInput) {
+		final int header = iInput.getAsByte() & 0xFF;
+		if (header == ZERO_XOR)
+			return 0;
+
+		final int leading = header >> 4;
+		final int trailing = header & 0x0F;
+
+		long value = 0;
+		final int bytes = 8 - leading - trailing;
+		for (int i = 0; i < bytes; ++i)
+			value |= (iInput.getAsByte() & 0xFFL) << (i << 3);
+		return value << (trailing << 3);
+	}
+
+	private static void writeSignedVarLong(final OMemoryStream iOutput, final long iValue) {
+		// ZIGZAG ENCODING: SMALL NEGATIVE DELTAS TAKE FEW BYTES TOO
+		long value = (iValue << 1) ^ (iValue >> 63);
+		while ((value & ~0x7FL) != 0) {
+			iOutput.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		iOutput.write((int) value);
+	}
+
+	private static long readSignedVarLong(final OMemoryStream iInput) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = iInput.getAsByte();
+			value |= (b & 0x7FL) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
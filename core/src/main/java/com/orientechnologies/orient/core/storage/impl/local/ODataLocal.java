@@ -31,6 +31,7 @@ import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 import com.orientechnologies.orient.core.storage.OCluster;
 import com.orientechnologies.orient.core.storage.ODataSegment;
 import com.orientechnologies.orient.core.storage.OPhysicalPosition;
+import com.orientechnologies.orient.core.storage.ORawRecordTarget;
 import com.orientechnologies.orient.core.storage.fs.OFile;
 
 /**
@@ -178,23 +179,11 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
 			final long[] pos = getRelativePosition(iPosition);
 			final OFile file = files[(int) pos[0]];
 
-			final int recordSize = file.readInt(pos[1]);
+			final int recordSize = readRecordSize(file, pos[1], iPosition);
 			if (recordSize <= 0)
 				// RECORD DELETED
 				return null;
 
-			if (pos[1] + RECORD_FIX_SIZE + recordSize > file.getFilledUpTo())
-				throw new OStorageException(
-						"Error on reading record from file '"
-								+ file.getName()
-								+ "', position "
-								+ iPosition
-								+ ", size "
-								+ OFileUtils.getSizeAsString(recordSize)
-								+ ": the record size is bigger then the file itself ("
-								+ OFileUtils.getSizeAsString(getFilledUpTo())
-								+ "). Probably the record is dirty due to a previous crash. It is strongly suggested to restore the database or export and reimport this one.");
-
 			final byte[] content = new byte[recordSize];
 			file.read(pos[1] + RECORD_FIX_SIZE, content, recordSize);
 			return content;
@@ -204,6 +193,53 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
 		}
 	}
 
+	/**
+	 * Copies the record content from file to the buffer provided by the target, avoiding to allocate a new byte array.
+	 * 
+	 * @return The size of the record content, or -1 if the record is deleted
+	 * @throws IOException
+	 */
+	public int readRecord(final long iPosition, final ORawRecordTarget iTarget) throws IOException {
+		if (iPosition == -1)
+			return -1;
+
+		acquireSharedLock();
+		try {
+
+			final long[] pos = getRelativePosition(iPosition);
+			final OFile file = files[(int) pos[0]];
+
+			final int recordSize = readRecordSize(file, pos[1], iPosition);
+			if (recordSize <= 0)
+				// RECORD DELETED
+				return -1;
+
+			file.read(pos[1] + RECORD_FIX_SIZE, iTarget.getBuffer(recordSize), recordSize);
+			return recordSize;
+
+		} finally {
+			releaseSharedLock();
+		}
+	}
+
+	private int readRecordSize(final OFile iFile, final long iFilePosition, final long iPosition) throws IOException {
+		final int recordSize = iFile.readInt(iFilePosition);
+
+		if (recordSize > 0 && iFilePosition + RECORD_FIX_SIZE + recordSize > iFile.getFilledUpTo())
+			throw new OStorageException(
+					"Error on reading record from file '"
+							+ iFile.getName()
+							+ "', position "
+							+ iPosition
+							+ ", size "
+							+ OFileUtils.getSizeAsString(recordSize)
+							+ ": the record size is bigger then the file itself ("
+							+ OFileUtils.getSizeAsString(getFilledUpTo())
+							+ "). Probably the record is dirty due to a previous crash. It is strongly suggested to restore the database or export and reimport this one.");
+
+		return recordSize;
+	}
+
 	/**
 	 * Returns the record size.
 	 * 
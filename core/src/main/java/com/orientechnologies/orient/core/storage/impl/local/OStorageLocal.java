@@ -52,6 +52,7 @@ import com.orientechnologies.orient.core.storage.OCluster;
 import com.orientechnologies.orient.core.storage.OClusterPositionIterator;
 import com.orientechnologies.orient.core.storage.OPhysicalPosition;
 import com.orientechnologies.orient.core.storage.ORawBuffer;
+import com.orientechnologies.orient.core.storage.ORawRecordTarget;
 import com.orientechnologies.orient.core.storage.ORecordCallback;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.OStorageEmbedded;
@@ -915,6 +916,58 @@ public class OStorageLocal extends OStorageEmbedded {
 		return readRecord(getClusterById(iRid.clusterId), iRid, true);
 	}
 
+	/**
+	 * Copies the content of a record from the data segment to the buffer provided by the target, without creating the record. The
+	 * locks on the storage and on the record are released as soon as the content has been copied.
+	 * 
+	 * @return The physical position of the record with its version, type and size, or null if the record is deleted
+	 * @throws IOException
+	 */
+	public OPhysicalPosition readRecord(final ORecordId iRid, final ORawRecordTarget iTarget) throws IOException {
+		checkOpeness();
+
+		final OCluster cluster = getClusterById(iRid.clusterId);
+		if (iRid.clusterPosition < 0)
+			throw new IllegalArgumentException("Cannot read record " + iRid + " since the position is invalid in storage '" + name + "'");
+
+		final long timer = OProfiler.getInstance().startChrono();
+
+		lock.acquireSharedLock();
+		try {
+
+			lockManager.acquireLock(Thread.currentThread(), iRid, LOCK.SHARED);
+			try {
+
+				final OPhysicalPosition ppos = getValidPhysicalPosition(cluster, iRid);
+				if (ppos == null)
+					// DELETED
+					return null;
+
+				if (ppos.dataSegmentPos == -1) {
+					// EMPTY RECORD: ITS CONTENT IS CREATED AT THE FIRST UPDATE
+					iTarget.getBuffer(0);
+					ppos.recordSize = 0;
+					return ppos;
+				}
+
+				ppos.recordSize = getDataSegmentById(ppos.dataSegmentId).readRecord(ppos.dataSegmentPos, iTarget);
+				if (ppos.recordSize < 0)
+					// DELETED
+					return null;
+
+				return ppos;
+
+			} finally {
+				lockManager.releaseLock(Thread.currentThread(), iRid, LOCK.SHARED);
+			}
+
+		} finally {
+			lock.releaseSharedLock();
+
+			OProfiler.getInstance().stopChrono(PROFILER_READ_RECORD, timer);
+		}
+	}
+
 	public int updateRecord(final ORecordId iRid, final byte[] iContent, final int iVersion, final byte iRecordType, final int iMode,
 			ORecordCallback<Integer> iCallback) {
 		checkOpeness();
@@ -1441,18 +1494,8 @@ public class OStorageLocal extends OStorageEmbedded {
 			lockManager.acquireLock(Thread.currentThread(), iRid, LOCK.SHARED);
 			try {
 
-				final long lastPos = iClusterSegment.getLastEntryPosition();
-
-				if (lastPos < 0)
-					throw new ORecordNotFoundException("Record " + iRid + " is outside cluster range. The cluster '"
-							+ iClusterSegment.getName() + "' is empty in storage '" + name + "'");
-
-				if (iRid.clusterPosition > lastPos)
-					throw new ORecordNotFoundException("Record " + iRid + " is outside cluster range. Valid range for cluster '"
-							+ iClusterSegment.getName() + "' is 0-" + lastPos + " in storage '" + name + "'");
-
-				final OPhysicalPosition ppos = iClusterSegment.getPhysicalPosition(new OPhysicalPosition(iRid.clusterPosition));
-				if (ppos == null || !checkForRecordValidity(ppos))
+				final OPhysicalPosition ppos = getValidPhysicalPosition(iClusterSegment, iRid);
+				if (ppos == null)
 					// DELETED
 					return null;
 
@@ -1476,6 +1519,30 @@ public class OStorageLocal extends OStorageEmbedded {
 		}
 	}
 
+	/**
+	 * Returns the physical position of a record, or null if the record is deleted. Must be called under the record lock.
+	 * 
+	 * @throws ORecordNotFoundException
+	 *           if the position is outside the cluster range
+	 */
+	private OPhysicalPosition getValidPhysicalPosition(final OCluster iClusterSegment, final ORecordId iRid) throws IOException {
+		final long lastPos = iClusterSegment.getLastEntryPosition();
+
+		if (lastPos < 0)
+			throw new ORecordNotFoundException("Record " + iRid + " is outside cluster range. The cluster '" + iClusterSegment.getName()
+					+ "' is empty in storage '" + name + "'");
+
+		if (iRid.clusterPosition > lastPos)
+			throw new ORecordNotFoundException("Record " + iRid + " is outside cluster range. Valid range for cluster '"
+					+ iClusterSegment.getName() + "' is 0-" + lastPos + " in storage '" + name + "'");
+
+		final OPhysicalPosition ppos = iClusterSegment.getPhysicalPosition(new OPhysicalPosition(iRid.clusterPosition));
+		if (ppos == null || !checkForRecordValidity(ppos))
+			return null;
+
+		return ppos;
+	}
+
 	protected OPhysicalPosition updateRecord(final OCluster iClusterSegment, final ORecordId iRid, final byte[] iContent,
 			final int iVersion, final byte iRecordType) {
 		if (iClusterSegment == null)
@@ -1538,6 +1605,10 @@ public class OStorageLocal extends OStorageEmbedded {
 					// UPDATE IT
 					newDataSegmentOffset = getDataSegmentById(ppos.dataSegmentId).setRecord(ppos.dataSegmentPos, iRid, iContent);
 
+				if (iClusterSegment instanceof OClusterColumnar)
+					// THE CONTENT CHANGES EVEN WHEN THE VERSION DOESN'T
+					((OClusterColumnar) iClusterSegment).invalidateChunk(iRid.clusterPosition);
+
 				if (newDataSegmentOffset != ppos.dataSegmentPos)
 					// UPDATE DATA SEGMENT OFFSET WITH THE NEW PHYSICAL POSITION
 					iClusterSegment.updateDataSegmentPosition(ppos.clusterPosition, ppos.dataSegmentId, newDataSegmentOffset);
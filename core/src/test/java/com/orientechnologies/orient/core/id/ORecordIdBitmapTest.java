@@ -0,0 +1,58 @@
+package com.orientechnologies.orient.core.id;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class ORecordIdBitmapTest {
+
+	@Test
+	public void testAddAndContains() {
+		final ORecordIdBitmap bitmap = new ORecordIdBitmap();
+		for (int i = 0; i < 5000; i += 3)
+			Assert.assertTrue(bitmap.add(new ORecordId(5, i)));
+
+		for (int i = 0; i < 5000; i++)
+			Assert.assertEquals(bitmap.contains(new ORecordId(5, i)), i % 3 == 0);
+
+		Assert.assertFalse(bitmap.add(new ORecordId(5, 3)));
+		Assert.assertFalse(bitmap.contains(new ORecordId(4, 3)));
+		Assert.assertFalse(bitmap.contains(new ORecordId(6, 3)));
+		Assert.assertEquals(bitmap.size(), 1667);
+	}
+
+	@Test
+	public void testHighPositions() {
+		final ORecordIdBitmap bitmap = new ORecordIdBitmap();
+
+		// ONLY THE CHUNKS OF THE POSITIONS USED ARE CREATED
+		final long high = 1L << 40;
+		Assert.assertTrue(bitmap.add(new ORecordId(1, high)));
+		Assert.assertTrue(bitmap.add(new ORecordId(1, high + 1)));
+		Assert.assertTrue(bitmap.add(new ORecordId(1, 0)));
+		Assert.assertTrue(bitmap.add(new ORecordId(1, Long.MAX_VALUE)));
+
+		Assert.assertTrue(bitmap.contains(new ORecordId(1, high)));
+		Assert.assertTrue(bitmap.contains(new ORecordId(1, high + 1)));
+		Assert.assertFalse(bitmap.contains(new ORecordId(1, high - 1)));
+		Assert.assertTrue(bitmap.contains(new ORecordId(1, Long.MAX_VALUE)));
+		Assert.assertTrue(bitmap.contains(new ORecordId(1, 0)));
+		Assert.assertEquals(bitmap.size(), 4);
+	}
+
+	@Test
+	public void testTemporaryAndClear() {
+		final ORecordIdBitmap bitmap = new ORecordIdBitmap();
+		Assert.assertTrue(bitmap.add(new ORecordId(3, -2)));
+		Assert.assertFalse(bitmap.add(new ORecordId(3, -2)));
+		Assert.assertTrue(bitmap.add(new ORecordId(3, 2)));
+		Assert.assertTrue(bitmap.contains(new ORecordId(3, -2)));
+		Assert.assertEquals(bitmap.size(), 2);
+
+		bitmap.clear();
+		Assert.assertEquals(bitmap.size(), 0);
+		Assert.assertFalse(bitmap.contains(new ORecordId(3, -2)));
+		Assert.assertFalse(bitmap.contains(new ORecordId(3, 2)));
+		Assert.assertTrue(bitmap.add(new ORecordId(3, 2)));
+	}
+}
@@ -0,0 +1,154 @@
+package com.orientechnologies.orient.core.index;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+@Test
+public class OIndexStatisticsTest {
+
+	private List<Entry<Object, ?>>	entries;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		// KEYS 0..99 WITH ONE VALUE, THEN KEY 100 WITH 100 VALUES
+		entries = new ArrayList<Entry<Object, ?>>();
+		for (int i = 0; i < 100; i++)
+			entries.add(new AbstractMap.SimpleEntry<Object, Object>(i, "v" + i));
+
+		final List<String> values = new ArrayList<String>();
+		for (int i = 0; i < 100; i++)
+			values.add("w" + i);
+		entries.add(new AbstractMap.SimpleEntry<Object, Object>(100, values));
+	}
+
+	@Test
+	public void testRefresh() {
+		final OIndexStatistics statistics = new OIndexStatistics();
+		statistics.refresh(entries, 10);
+
+		Assert.assertEquals(statistics.getEntries(), 200);
+		Assert.assertEquals(statistics.getKeys(), 101);
+		Assert.assertEquals(statistics.getHistogram().get(0), 0);
+		Assert.assertEquals(statistics.getHistogram().get(statistics.getHistogram().size() - 1), 100);
+		Assert.assertFalse(statistics.isStale());
+	}
+
+	@Test
+	public void testRefreshWithoutHistogram() {
+		final OIndexStatistics statistics = new OIndexStatistics();
+		statistics.refresh(entries, 0);
+
+		Assert.assertEquals(statistics.getEntries(), 200);
+		Assert.assertNull(statistics.getHistogram());
+		Assert.assertEquals(statistics.estimateRange(0, 10), 200 / 3);
+	}
+
+	@Test
+	public void testEstimateEquals() {
+		final OIndexStatistics statistics = new OIndexStatistics();
+		Assert.assertEquals(statistics.estimateEquals(), 0);
+
+		statistics.refresh(entries, 10);
+		Assert.assertEquals(statistics.estimateEquals(), 1);
+	}
+
+	@Test
+	public void testEstimateRange() {
+		final OIndexStatistics statistics = new OIndexStatistics();
+		statistics.refresh(entries, 10);
+
+		// HALF OF THE ENTRIES HAVE THE KEY 100: THE HISTOGRAM MUST TELL IT
+		final long lowKeys = statistics.estimateRange(null, 49);
+		final long highKeys = statistics.estimateRange(99, null);
+
+		Assert.assertTrue(lowKeys >= 40 && lowKeys <= 70, "Estimated " + lowKeys);
+		Assert.assertTrue(highKeys >= 90 && highKeys <= 120, "Estimated " + highKeys);
+		Assert.assertEquals(statistics.estimateRange(200, 300), 0);
+		Assert.assertEquals(statistics.estimateRange(null, null), 200);
+	}
+
+	@Test
+	public void testChanges() {
+		final OIndexStatistics statistics = new OIndexStatistics();
+		statistics.refresh(entries, 10);
+
+		for (int i = 0; i < 40; i++)
+			statistics.onChange(1, 101 + i);
+
+		Assert.assertEquals(statistics.getEntries(), 240);
+		Assert.assertEquals(statistics.getKeys(), 140);
+		Assert.assertFalse(statistics.isStale());
+
+		for (int i = 0; i < 20; i++)
+			statistics.onChange(-1, 140);
+
+		Assert.assertEquals(statistics.getEntries(), 220);
+		Assert.assertTrue(statistics.isStale());
+	}
+
+	@Test
+	public void testNoChanges() {
+		final OIndexStatistics statistics = new OIndexStatistics();
+		statistics.refresh(entries, 10);
+
+		// VALUES ALREADY INDEXED OR REPLACED
+		for (int i = 0; i < 100; i++)
+			statistics.onChange(0, 101);
+
+		Assert.assertEquals(statistics.getEntries(), 200);
+		Assert.assertFalse(statistics.isStale());
+	}
+
+	@Test
+	public void testRefreshWithCountedEntries() {
+		final OIndexStatistics fromScratch = new OIndexStatistics();
+		fromScratch.refresh(entries, 10);
+
+		final OIndexStatistics counted = new OIndexStatistics(fromScratch);
+		for (int i = 0; i < 50; i++)
+			counted.onChange(-1, 101);
+		Assert.assertTrue(counted.isStale());
+
+		// THE ENTRIES ARE BROWSED ONCE, THE BUCKETS ARE SIZED BY THE ENTRIES COUNTED SO FAR
+		counted.refresh(entries.subList(50, entries.size()), 10);
+		Assert.assertEquals(counted.getEntries(), 150);
+		Assert.assertEquals(counted.getKeys(), 51);
+		Assert.assertEquals(counted.getHistogram().get(0), 50);
+		Assert.assertEquals(counted.getHistogram().get(counted.getHistogram().size() - 1), 100);
+		Assert.assertFalse(counted.isStale());
+
+		// THE COPY IS NOT AFFECTED
+		Assert.assertEquals(fromScratch.getEntries(), 200);
+	}
+
+	@Test
+	public void testDocumentRoundTrip() {
+		final OIndexStatistics statistics = new OIndexStatistics();
+		statistics.refresh(entries, 10);
+
+		final ODocument document = new ODocument();
+		document.fromStream(statistics.toDocument().toStream());
+
+		final OIndexStatistics loaded = OIndexStatistics.fromDocument(document);
+		Assert.assertEquals(loaded.getEntries(), statistics.getEntries());
+		Assert.assertEquals(loaded.getKeys(), statistics.getKeys());
+		Assert.assertEquals(loaded.getHistogram(), statistics.getHistogram());
+		Assert.assertEquals(loaded.estimateRange(10, 20), statistics.estimateRange(10, 20));
+	}
+
+	@Test
+	public void testMissingDocument() {
+		final OIndexStatistics statistics = OIndexStatistics.fromDocument(null);
+		Assert.assertTrue(statistics.isStale());
+		Assert.assertEquals(Arrays.asList(statistics.getEntries(), statistics.getKeys()), Arrays.asList(0l, 0l));
+	}
+}
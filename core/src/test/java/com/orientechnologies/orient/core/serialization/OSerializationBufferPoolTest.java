@@ -0,0 +1,100 @@
+/*
+ * Copyright 1999-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.orientechnologies.orient.core.serialization;
+
+import java.io.UnsupportedEncodingException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+
+@Test
+public class OSerializationBufferPoolTest {
+
+	@Test
+	public void testReuse() {
+		final OSerializationBufferPool pool = new OSerializationBufferPool();
+
+		final OMemoryStream stream = pool.acquireStream(100);
+		stream.set(10);
+		pool.releaseStream(stream);
+
+		final OMemoryStream reused = pool.acquireStream(200);
+		Assert.assertSame(reused, stream);
+		Assert.assertEquals(reused.size(), 0);
+
+		// NOT RELEASED YET: A NEW ONE IS ALLOCATED
+		Assert.assertNotSame(pool.acquireStream(200), reused);
+
+		Assert.assertEquals(pool.getAcquired(), 3);
+		Assert.assertEquals(pool.getAllocated(), 2);
+
+		final StringBuilder builder = pool.acquireStringBuilder(0);
+		builder.append("test");
+		pool.releaseStringBuilder(builder);
+		Assert.assertSame(pool.acquireStringBuilder(10), builder);
+		Assert.assertEquals(builder.length(), 0);
+	}
+
+	@Test
+	public void testSizeClasses() {
+		final OSerializationBufferPool pool = new OSerializationBufferPool();
+
+		final byte[] small = pool.acquireBytes(10);
+		pool.releaseBytes(small);
+
+		// TOO SMALL FOR THE REQUEST
+		final byte[] medium = pool.acquireBytes(small.length + 1);
+		Assert.assertNotSame(medium, small);
+		Assert.assertTrue(medium.length > small.length);
+		pool.releaseBytes(medium);
+
+		Assert.assertSame(pool.acquireBytes(5), small);
+
+		// LARGER THAN ALL THE CLASSES: ALLOCATED AND NEVER KEPT
+		final byte[] large = pool.acquireBytes(10000000);
+		Assert.assertEquals(large.length, 10000000);
+		pool.releaseBytes(large);
+		Assert.assertEquals(pool.getDiscarded(), 1);
+		Assert.assertNotSame(pool.acquireBytes(10000000), large);
+	}
+
+	@Test
+	public void testDisabled() {
+		final OSerializationBufferPool pool = new OSerializationBufferPool();
+
+		final int oldSize = OGlobalConfiguration.SERIALIZATION_BUFFER_POOL_SIZE.getValueAsInteger();
+		OGlobalConfiguration.SERIALIZATION_BUFFER_POOL_SIZE.setValue(0);
+		try {
+			final OMemoryStream stream = pool.acquireStream(100);
+			pool.releaseStream(stream);
+			Assert.assertNotSame(pool.acquireStream(100), stream);
+			Assert.assertEquals(pool.getReuseRatio(), 0f);
+		} finally {
+			OGlobalConfiguration.SERIALIZATION_BUFFER_POOL_SIZE.setValue(oldSize);
+		}
+	}
+
+	@Test
+	public void testString2Bytes() throws UnsupportedEncodingException {
+		final String text = "a\u00e8\u20ac-z";
+		Assert.assertEquals(OBinaryProtocol.string2bytes(new StringBuilder(text)), text.getBytes("UTF-8"));
+		Assert.assertEquals(OBinaryProtocol.string2bytes(text), text.getBytes("UTF-8"));
+		Assert.assertNull(OBinaryProtocol.string2bytes((String) null));
+	}
+}
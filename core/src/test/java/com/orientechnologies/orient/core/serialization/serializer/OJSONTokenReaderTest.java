@@ -0,0 +1,83 @@
+/*
+ * Copyright 1999-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.orientechnologies.orient.core.serialization.serializer;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.exception.OSerializationException;
+import com.orientechnologies.orient.core.serialization.serializer.OJSONTokenReader.TOKEN;
+
+@Test
+public class OJSONTokenReaderTest {
+
+	@Test
+	public void testTokens() throws IOException {
+		final OJSONTokenReader reader = new OJSONTokenReader("{ \"name\": 'Jay', \"ids\": [#10:3, 12, true], \"x\":null}");
+
+		Assert.assertEquals(reader.next(), TOKEN.BEGIN_OBJECT);
+		Assert.assertEquals(reader.next(), TOKEN.STRING);
+		Assert.assertTrue(reader.isValue("name"));
+		Assert.assertEquals(reader.next(), TOKEN.STRING);
+		Assert.assertEquals(reader.getString(), "Jay");
+		Assert.assertEquals(reader.next(), TOKEN.STRING);
+		Assert.assertEquals(reader.next(), TOKEN.BEGIN_ARRAY);
+		Assert.assertEquals(reader.next(), TOKEN.LITERAL);
+		Assert.assertEquals(reader.getString(), "#10:3");
+		Assert.assertEquals(reader.next(), TOKEN.LITERAL);
+		Assert.assertEquals(reader.getString(), "12");
+		Assert.assertEquals(reader.next(), TOKEN.LITERAL);
+		Assert.assertEquals(reader.getString(), "true");
+		Assert.assertEquals(reader.next(), TOKEN.END_ARRAY);
+		Assert.assertEquals(reader.next(), TOKEN.STRING);
+		Assert.assertTrue(reader.isValue("x"));
+		Assert.assertEquals(reader.next(), TOKEN.LITERAL);
+		Assert.assertTrue(reader.isValue("null"));
+		Assert.assertEquals(reader.next(), TOKEN.END_OBJECT);
+		Assert.assertEquals(reader.next(), TOKEN.END);
+	}
+
+	@Test
+	public void testEscapes() throws IOException {
+		final OJSONTokenReader reader = new OJSONTokenReader("\"a\\\"b\\\\c\\nd\\u00e8\\/\"");
+		Assert.assertEquals(reader.next(), TOKEN.STRING);
+		Assert.assertEquals(reader.getString(), "a\"b\\c\nd\u00e8/");
+	}
+
+	@Test
+	public void testSmallBuffer() throws IOException {
+		final OJSONTokenReader reader = new OJSONTokenReader(new StringReader("[\"first\",\n \"second\"] rest"), 1);
+		Assert.assertEquals(reader.next(), TOKEN.BEGIN_ARRAY);
+		Assert.assertEquals(reader.next(), TOKEN.STRING);
+		Assert.assertEquals(reader.getString(), "first");
+		Assert.assertEquals(reader.next(), TOKEN.STRING);
+		Assert.assertEquals(reader.getString(), "second");
+		Assert.assertEquals(reader.getLineNumber(), 2);
+		Assert.assertEquals(reader.next(), TOKEN.END_ARRAY);
+		Assert.assertEquals(reader.next(), TOKEN.LITERAL);
+		Assert.assertEquals(reader.getString(), "rest");
+	}
+
+	@Test(expectedExceptions = OSerializationException.class)
+	public void testStringNotClosed() throws IOException {
+		final OJSONTokenReader reader = new OJSONTokenReader("\"abc");
+		reader.next();
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.orientechnologies.orient.core.serialization.serializer;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerStringAbstract;
+
+@Test
+public class OStringSerializerHelperTest {
+
+	@Test
+	public void testParseLong() {
+		Assert.assertEquals(OStringSerializerHelper.parseLong("a123b", 1, 4), 123l);
+		Assert.assertEquals(OStringSerializerHelper.parseLong("-45", 0, 3), -45l);
+		Assert.assertEquals(OStringSerializerHelper.parseLong("+7", 0, 2), 7l);
+		Assert.assertEquals(OStringSerializerHelper.parseLong(String.valueOf(Long.MAX_VALUE), 0, 19), Long.MAX_VALUE);
+		Assert.assertEquals(OStringSerializerHelper.parseLong(String.valueOf(Long.MIN_VALUE), 0, 20), Long.MIN_VALUE);
+
+		for (String invalid : new String[] { "", "-", "+", "1-2", "12a", "9223372036854775808", "-9223372036854775809" })
+			try {
+				OStringSerializerHelper.parseLong(invalid, 0, invalid.length());
+				Assert.fail("Parsed invalid number '" + invalid + "'");
+			} catch (NumberFormatException e) {
+			}
+	}
+
+	@Test
+	public void testParseInt() {
+		Assert.assertEquals(OStringSerializerHelper.parseInt("2147483647", 0, 10), Integer.MAX_VALUE);
+		Assert.assertEquals(OStringSerializerHelper.parseInt("-2147483648", 0, 11), Integer.MIN_VALUE);
+		try {
+			OStringSerializerHelper.parseInt("2147483648", 0, 10);
+			Assert.fail();
+		} catch (NumberFormatException e) {
+		}
+	}
+
+	@Test
+	public void testSmartSplit() {
+		Assert.assertEquals(OStringSerializerHelper.smartSplit("a:1,b:\"x,y\",c:[1,2],d:#3:4,e:\"q\\\"\\u0041\\n\"", ','),
+				Arrays.asList("a:1", "b:\"x,y\"", "c:[1,2]", "d:#3:4", "e:\"q\\\"A\n\""));
+	}
+
+	@Test
+	public void testRecordId() {
+		Assert.assertEquals(new ORecordId("#3:12"), new ORecordId(3, 12));
+		Assert.assertEquals(new ORecordId(" 3:12 "), new ORecordId(3, 12));
+		Assert.assertEquals(new ORecordId("#-1:-2"), new ORecordId(-1, -2));
+		Assert.assertEquals(new ORecordId("#3:12").getClusterPosition(), 12l);
+
+		for (String invalid : new String[] { "#3", "#a:1", "#3:1:2", "#3:" })
+			try {
+				new ORecordId(invalid);
+				Assert.fail("Parsed invalid RID '" + invalid + "'");
+			} catch (IllegalArgumentException e) {
+			}
+	}
+
+	@Test
+	public void testTypeValues() {
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("12"), Integer.valueOf(12));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("-3000000000"), Long.valueOf(-3000000000l));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("12l"), Long.valueOf(12));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("-12s"), Short.valueOf((short) -12));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("12b"), Byte.valueOf((byte) 12));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("1.5f"), Float.valueOf(1.5f));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("1.5d"), Double.valueOf(1.5d));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("1.5"), new BigDecimal("1.5"));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("1000t"), new Date(1000));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("#5:6"), new ORecordId(5, 6));
+		Assert.assertEquals(ORecordSerializerStringAbstract.getTypeValue("12x"), "12x");
+	}
+
+	@Test
+	public void testSimpleValuesToStream() {
+		Assert.assertEquals(toStream(OType.INTEGER, 12), "12");
+		Assert.assertEquals(toStream(OType.LONG, 12l), "12l");
+		Assert.assertEquals(toStream(OType.SHORT, (short) 12), "12s");
+		Assert.assertEquals(toStream(OType.BYTE, (byte) 12), "12b");
+		Assert.assertEquals(toStream(OType.FLOAT, 1.5f), "1.5f");
+		Assert.assertEquals(toStream(OType.DOUBLE, 1.5d), "1.5d");
+		Assert.assertEquals(toStream(OType.DECIMAL, new BigDecimal("1.50")), "1.50c");
+		Assert.assertEquals(toStream(OType.BOOLEAN, true), "true");
+		Assert.assertEquals(toStream(OType.DATETIME, new Date(1000)), "1000t");
+
+		final Calendar calendar = Calendar.getInstance();
+		calendar.set(2012, 4, 10, 15, 30, 20);
+		final String date = toStream(OType.DATE, calendar.getTime());
+		calendar.set(2012, 4, 10, 0, 0, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		Assert.assertEquals(date, calendar.getTimeInMillis() + "a");
+	}
+
+	private String toStream(final OType iType, final Object iValue) {
+		final StringBuilder buffer = new StringBuilder();
+		ORecordSerializerStringAbstract.simpleValueToStream(buffer, iType, iValue);
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,138 @@
+package com.orientechnologies.orient.core.serialization.serializer.object;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.object.ODatabaseObjectTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+@Test
+public class OObjectSerializerHelperTest {
+	private ODatabaseObjectTx	database;
+
+	public static class SerializerBaseEntity {
+		private String	baseName;
+		protected int		baseCount;
+
+		public String getBaseName() {
+			return baseName;
+		}
+
+		public void setBaseName(final String iBaseName) {
+			baseName = iBaseName;
+		}
+	}
+
+	public static class SerializerEntity extends SerializerBaseEntity {
+		// NO ACCESSORS: READ AND WRITTEN BY THE FIELD
+		private String						name;
+		private transient String	cache;
+		private long							amount;
+
+		public long getAmount() {
+			return amount;
+		}
+
+		public void setAmount(final long iAmount) {
+			amount = iAmount;
+		}
+	}
+
+	@BeforeClass
+	public void beforeClass() {
+		database = new ODatabaseObjectTx("memory:objectserializerhelpertest").create();
+		database.getEntityManager().registerEntityClass(SerializerBaseEntity.class);
+		database.getEntityManager().registerEntityClass(SerializerEntity.class);
+	}
+
+	@AfterClass
+	public void afterClass() {
+		database.drop();
+	}
+
+	@Test
+	public void testToStream() {
+		// THE SECOND TIME THE ACCESSORS OF THE CLASS ARE ALREADY RESOLVED
+		for (int i = 0; i < 2; i++) {
+			final ODocument document = database.pojo2Stream(createEntity(i), new ODocument(database.getUnderlying(),
+					"SerializerEntity"));
+
+			Assert.assertEquals(document.field("name"), "name" + i);
+			Assert.assertEquals(document.field("amount"), (long) i);
+			Assert.assertEquals(document.field("baseName"), "base" + i);
+			Assert.assertEquals(document.field("baseCount"), i);
+			Assert.assertFalse(document.containsField("cache"));
+		}
+	}
+
+	@Test
+	public void testFromStream() {
+		for (int i = 0; i < 2; i++) {
+			final ODocument document = new ODocument(database.getUnderlying(), "SerializerEntity");
+			document.field("name", "name" + i).field("amount", (long) i).field("baseName", "base" + i).field("baseCount", i)
+					.field("cache", "cache" + i);
+
+			final SerializerEntity entity = (SerializerEntity) database.stream2pojo(document, new SerializerEntity(), null);
+
+			Assert.assertEquals(entity.name, "name" + i);
+			Assert.assertEquals(entity.getAmount(), i);
+			Assert.assertEquals(entity.getBaseName(), "base" + i);
+			Assert.assertEquals(entity.baseCount, i);
+			Assert.assertNull(entity.cache);
+		}
+	}
+
+	@Test
+	public void testSaveAndLoad() {
+		final SerializerEntity entity = createEntity(7);
+		database.save(entity);
+		final ORID rid = database.getIdentity(entity);
+
+		// ANOTHER DATABASE INSTANCE CREATES THE POJO FROM THE RECORD
+		database.getLevel2Cache().clear();
+		final ODatabaseObjectTx other = new ODatabaseObjectTx(database.getURL()).open("admin", "admin");
+		try {
+			other.getEntityManager().registerEntityClass(SerializerEntity.class);
+			final SerializerEntity loaded = (SerializerEntity) other.load(rid);
+
+			Assert.assertNotSame(loaded, entity);
+			Assert.assertEquals(loaded.name, "name7");
+			Assert.assertEquals(loaded.getAmount(), 7);
+			Assert.assertEquals(loaded.getBaseName(), "base7");
+			Assert.assertEquals(loaded.baseCount, 7);
+			Assert.assertNull(loaded.cache);
+		} finally {
+			other.close();
+			ODatabaseRecordThreadLocal.INSTANCE.set(database.getUnderlying());
+		}
+	}
+
+	@Test
+	public void testFieldValueByName() {
+		final SerializerEntity entity = createEntity(3);
+
+		Assert.assertEquals(OObjectSerializerHelper.getFieldValue(entity, "name"), "name3");
+		Assert.assertEquals(OObjectSerializerHelper.getFieldValue(entity, "baseName"), "base3");
+
+		OObjectSerializerHelper.setFieldValue(entity, "name", "changed");
+		OObjectSerializerHelper.setFieldValue(entity, "baseCount", 30);
+		Assert.assertEquals(entity.name, "changed");
+		Assert.assertEquals(entity.baseCount, 30);
+
+		Assert.assertFalse(OObjectSerializerHelper.hasField(entity, "cache"));
+	}
+
+	private SerializerEntity createEntity(final int iValue) {
+		final SerializerEntity entity = new SerializerEntity();
+		entity.name = "name" + iValue;
+		entity.cache = "cache" + iValue;
+		entity.setAmount(iValue);
+		entity.setBaseName("base" + iValue);
+		entity.baseCount = iValue;
+		return entity;
+	}
+}
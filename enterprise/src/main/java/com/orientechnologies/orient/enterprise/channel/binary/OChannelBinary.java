@@ -38,6 +38,7 @@ import com.orientechnologies.orient.core.exception.ODatabaseException;
 import com.orientechnologies.orient.core.exception.OStorageException;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.serialization.OSerializationBufferPool;
 import com.orientechnologies.orient.enterprise.channel.OChannel;
 
 public abstract class OChannelBinary extends OChannel {
@@ -122,10 +123,13 @@ public abstract class OChannelBinary extends OChannel {
 		if (len < 0)
 			return null;
 
-		final byte[] tmp = new byte[len];
-		in.readFully(tmp);
-
-		return new String(tmp);
+		final byte[] tmp = OSerializationBufferPool.INSTANCE.acquireBytes(len);
+		try {
+			in.readFully(tmp, 0, len);
+			return new String(tmp, 0, len);
+		} finally {
+			OSerializationBufferPool.INSTANCE.releaseBytes(tmp);
+		}
 	}
 
 	public byte[] readBytes() throws IOException {
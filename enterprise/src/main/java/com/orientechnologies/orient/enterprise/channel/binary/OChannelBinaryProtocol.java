@@ -73,6 +73,9 @@ public class OChannelBinaryProtocol {
 	public static final byte	REQUEST_PUSH_RECORD						= 79;
 	public static final byte	PUSH_NODE2CLIENT_DB_CONFIG		= 80;
 
+	public static final byte	REQUEST_COMMAND_LIST					= 81; // SINCE 1.0
+	public static final byte	REQUEST_COMMAND_KILL					= 82; // SINCE 1.0
+
 	// INCOMING
 	public static final byte	RESPONSE_STATUS_OK						= 0;
 	public static final byte	RESPONSE_STATUS_ERROR					= 1;
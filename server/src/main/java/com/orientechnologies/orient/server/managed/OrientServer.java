@@ -19,6 +19,8 @@ import java.util.Collection;
 import java.util.List;
 
 import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.command.OCommandManager;
+import com.orientechnologies.orient.core.command.ORunningCommand;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.server.OClientConnection;
 import com.orientechnologies.orient.server.OClientConnectionManager;
@@ -41,4 +43,19 @@ public class OrientServer implements OrientServerMBean {
 		conns.toArray(output);
 		return output;
 	}
+
+	@Override
+	public String[] getRunningCommands() {
+		final Collection<ORunningCommand> commands = OCommandManager.instance().getRunningCommands();
+		final String[] output = new String[commands.size()];
+		int i = 0;
+		for (ORunningCommand command : commands)
+			output[i++] = command.toString();
+		return output;
+	}
+
+	@Override
+	public boolean killRunningCommand(final long iCommandId) {
+		return OCommandManager.instance().killRunningCommand(iCommandId);
+	}
 }
@@ -22,4 +22,8 @@ public interface OrientServerMBean {
 	public OStorage[] getOpenedStorages();
 
 	public OClientConnection[] getConnections();
+
+	public String[] getRunningCommands();
+
+	public boolean killRunningCommand(long iCommandId);
 }
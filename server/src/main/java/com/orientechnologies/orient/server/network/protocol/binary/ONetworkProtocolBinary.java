@@ -17,16 +17,20 @@ package com.orientechnologies.orient.server.network.protocol.binary;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.command.OCommandManager;
 import com.orientechnologies.orient.core.command.OCommandRequestInternal;
 import com.orientechnologies.orient.core.command.OCommandRequestText;
-import com.orientechnologies.orient.core.command.OCommandResultListener;
+import com.orientechnologies.orient.core.command.OCommandResultStream;
+import com.orientechnologies.orient.core.command.ORunningCommand;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseComplex;
@@ -44,19 +48,26 @@ import com.orientechnologies.orient.core.fetch.OFetchHelper;
 import com.orientechnologies.orient.core.fetch.OFetchListener;
 import com.orientechnologies.orient.core.fetch.remote.ORemoteFetchContext;
 import com.orientechnologies.orient.core.fetch.remote.ORemoteFetchListener;
+import com.orientechnologies.orient.core.hook.OHookHelper;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.metadata.security.ODatabaseSecurityResources;
+import com.orientechnologies.orient.core.metadata.security.ORole;
 import com.orientechnologies.orient.core.metadata.security.OUser;
 import com.orientechnologies.orient.core.query.OQuery;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.record.impl.ORecordBytes;
+import com.orientechnologies.orient.core.serialization.OSerializationBufferPool;
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerStringAbstract;
 import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializerAnyStreamable;
 import com.orientechnologies.orient.core.storage.OCluster;
+import com.orientechnologies.orient.core.storage.OPhysicalPosition;
+import com.orientechnologies.orient.core.storage.ORawRecordTarget;
 import com.orientechnologies.orient.core.storage.OStorageEmbedded;
+import com.orientechnologies.orient.core.storage.impl.local.OStorageLocal;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryServer;
 import com.orientechnologies.orient.server.OClientConnection;
@@ -266,6 +277,14 @@ public class ONetworkProtocolBinary extends OBinaryNetworkProtocolAbstract {
 			configList();
 			break;
 
+		case OChannelBinaryProtocol.REQUEST_COMMAND_LIST:
+			listCommands();
+			break;
+
+		case OChannelBinaryProtocol.REQUEST_COMMAND_KILL:
+			killCommand();
+			break;
+
 		default:
 			setDataCommandInfo("Command not supported");
 			return false;
@@ -741,6 +760,44 @@ public class ONetworkProtocolBinary extends OBinaryNetworkProtocolAbstract {
 		}
 	}
 
+	protected void listCommands() throws IOException {
+		setDataCommandInfo("List running commands");
+
+		checkServerAccess("server.commands.list");
+
+		final List<ODocument> commands = new ArrayList<ODocument>();
+		for (ORunningCommand command : OCommandManager.instance().getRunningCommands())
+			commands.add(command.toDocument());
+
+		final ODocument result = new ODocument();
+		result.field("commands", commands, OType.EMBEDDEDLIST);
+
+		beginResponse();
+		try {
+			sendOk(clientTxId);
+			channel.writeBytes(result.toStream());
+		} finally {
+			endResponse();
+		}
+	}
+
+	protected void killCommand() throws IOException {
+		setDataCommandInfo("Kill running command");
+
+		checkServerAccess("server.commands.kill");
+
+		final long id = channel.readLong();
+		final boolean killed = OCommandManager.instance().killRunningCommand(id);
+
+		beginResponse();
+		try {
+			sendOk(clientTxId);
+			channel.writeByte((byte) (killed ? 1 : 0));
+		} finally {
+			endResponse();
+		}
+	}
+
 	protected void commit() throws IOException {
 		setDataCommandInfo("Transaction commit");
 
@@ -804,48 +861,55 @@ public class ONetworkProtocolBinary extends OBinaryNetworkProtocolAbstract {
 		beginResponse();
 		try {
 			if (asynch) {
-				// ASYNCHRONOUS
-				final StringBuilder empty = new StringBuilder();
+				// ASYNCHRONOUS: THE COMMAND RUNS IN ANOTHER THREAD AND THE RECORDS ARE SENT IN BATCHES WHILE IT GOES ON
 				final Set<ODocument> recordsToSend = new HashSet<ODocument>();
-				final int txId = clientTxId;
-
 				final Map<String, Integer> fetchPlan = query != null ? OFetchHelper.buildFetchPlan(query.getFetchPlan()) : null;
-				command.setResultListener(new OCommandResultListener() {
+				final int batchSize = OGlobalConfiguration.NETWORK_BINARY_ASYNCH_BATCH.getValueAsInteger();
+
+				final OCommandResultStream stream = new OCommandResultStream(batchSize * 2) {
 					@Override
 					public boolean result(final Object iRecord) {
-						if (empty.length() == 0)
-							try {
-								sendOk(txId);
-								empty.append("-");
-							} catch (IOException e1) {
-							}
-
-						try {
-							channel.writeByte((byte) 1); // ONE MORE RECORD
-							writeIdentifiable((ORecordInternal<?>) iRecord);
-
-							if (fetchPlan != null && iRecord instanceof ODocument) {
-								final ODocument doc = (ODocument) iRecord;
-								final OFetchListener listener = new ORemoteFetchListener(recordsToSend);
-								final OFetchContext context = new ORemoteFetchContext();
-								OFetchHelper.fetch(doc, iRecord, fetchPlan, listener, context);
-							}
+						// MARSHALL THE RECORD AND FETCH ITS LINKS IN THE THREAD OF THE COMMAND: THE CONNECTION ONLY WRITES THE BYTES
+						if (iRecord instanceof ORecordInternal<?>)
+							((ORecordInternal<?>) iRecord).toStream();
 
-						} catch (IOException e) {
-							return false;
+						if (fetchPlan != null && iRecord instanceof ODocument) {
+							final ODocument doc = (ODocument) iRecord;
+							final OFetchListener listener = new ORemoteFetchListener(recordsToSend);
+							final OFetchContext context = new ORemoteFetchContext();
+							OFetchHelper.fetch(doc, iRecord, fetchPlan, listener, context);
 						}
 
-						return true;
+						return super.result(iRecord);
 					}
-				});
+				};
+				stream.execute(connection.database, command);
 
-				((OCommandRequestInternal) connection.database.command(command)).execute();
+				final List<Object> batch = new ArrayList<Object>(batchSize);
+				try {
+					// AN ERROR BEFORE THE FIRST RECORD IS SENT AS ERROR OF THE COMMAND
+					stream.next(batch, batchSize);
 
-				if (empty.length() == 0)
-					try {
-						sendOk(clientTxId);
-					} catch (IOException e1) {
+					sendOk(clientTxId);
+
+					while (!batch.isEmpty()) {
+						for (Object record : batch) {
+							channel.writeByte((byte) 1); // ONE MORE RECORD
+							writeIdentifiable((ORecordInternal<?>) record);
+						}
+						channel.flush();
+
+						batch.clear();
+						stream.next(batch, batchSize);
 					}
+				} catch (IOException e) {
+					// THE CLIENT IS NOT READING ANYMORE: STOP THE COMMAND
+					cancelCommand(stream);
+					throw e;
+				} catch (RuntimeException e) {
+					cancelCommand(stream);
+					throw e;
+				}
 
 				// SEND RECORDS TO LOAD IN CLIENT CACHE
 				for (ODocument doc : recordsToSend) {
@@ -1021,6 +1085,9 @@ public class ONetworkProtocolBinary extends OBinaryNetworkProtocolAbstract {
 				endResponse();
 			}
 
+		} else if (fetchPlanString.length() == 0 && isRawLoadAllowed()) {
+			readRawRecord(rid);
+
 		} else {
 			final ORecordInternal<?> record = connection.database.load(rid, fetchPlanString, ignoreCache);
 
@@ -1066,6 +1133,69 @@ public class ONetworkProtocolBinary extends OBinaryNetworkProtocolAbstract {
 		}
 	}
 
+	/**
+	 * Cancels an asynchronous command and waits for its thread to stop, because the database of the connection is released as soon
+	 * as the request ends and it can't be used by two threads at the same time.
+	 */
+	protected void cancelCommand(final OCommandResultStream iStream) {
+		iStream.cancel();
+
+		// THE RESULTS ARE DISCARDED: next() RETURNS NULL ONLY ONCE THE COMMAND HAS FINISHED
+		while (iStream.next() != null)
+			;
+	}
+
+	/**
+	 * Sends the content of the record as read from the data segment, without creating the record. The content is copied in a pooled
+	 * buffer and sent after the storage has released its locks, so a slow client never blocks the storage. The response is the same of
+	 * the records loaded through the database.
+	 */
+	protected void readRawRecord(final ORecordId iRid) throws IOException {
+		connection.database.checkSecurity(ODatabaseSecurityResources.CLUSTER, ORole.PERMISSION_READ,
+				connection.database.getClusterNameById(iRid.getClusterId()));
+
+		final byte[][] buffer = new byte[1][];
+		try {
+			final OPhysicalPosition ppos = ((OStorageLocal) connection.database.getStorage()).readRecord(iRid, new ORawRecordTarget() {
+				public byte[] getBuffer(final int iSize) {
+					buffer[0] = OSerializationBufferPool.INSTANCE.acquireBytes(iSize);
+					return buffer[0];
+				}
+			});
+
+			beginResponse();
+			try {
+				sendOk(clientTxId);
+
+				if (ppos != null) {
+					channel.writeByte((byte) 1); // HAS RECORD
+					channel.writeBytes(buffer[0], ppos.recordSize);
+					channel.writeInt(ppos.recordVersion);
+					channel.writeByte(ppos.recordType);
+				}
+				channel.writeByte((byte) 0); // NO MORE RECORDS
+
+			} finally {
+				endResponse();
+			}
+
+		} finally {
+			OSerializationBufferPool.INSTANCE.releaseBytes(buffer[0]);
+		}
+	}
+
+	/**
+	 * Returns true if the record can be sent without being loaded through the database: the storage must be local and the only hooks
+	 * registered must be the default ones, that don't act on reading.
+	 */
+	protected boolean isRawLoadAllowed() {
+		if (!OGlobalConfiguration.NETWORK_BINARY_LOAD_RAW.getValueAsBoolean())
+			return false;
+
+		return connection.database.getStorage() instanceof OStorageLocal && !connection.database.getTransaction().isActive()
+				&& !OHookHelper.hasReadHooks(connection.database);
+	}
+
 	protected void endResponse() throws IOException {
 		channel.flush();
 		channel.releaseExclusiveLock();
@@ -25,6 +25,7 @@ import com.orientechnologies.orient.server.network.protocol.http.command.delete.
 import com.orientechnologies.orient.server.network.protocol.http.command.delete.OServerCommandDeleteDocument;
 import com.orientechnologies.orient.server.network.protocol.http.command.delete.OServerCommandDeleteIndex;
 import com.orientechnologies.orient.server.network.protocol.http.command.delete.OServerCommandDeleteProperty;
+import com.orientechnologies.orient.server.network.protocol.http.command.delete.OServerCommandDeleteRunningCommand;
 import com.orientechnologies.orient.server.network.protocol.http.command.delete.OServerCommandDropDatabase;
 import com.orientechnologies.orient.server.network.protocol.http.command.get.OServerCommandGetClass;
 import com.orientechnologies.orient.server.network.protocol.http.command.get.OServerCommandGetCluster;
@@ -39,6 +40,7 @@ import com.orientechnologies.orient.server.network.protocol.http.command.get.OSe
 import com.orientechnologies.orient.server.network.protocol.http.command.get.OServerCommandGetIndex;
 import com.orientechnologies.orient.server.network.protocol.http.command.get.OServerCommandGetListDatabases;
 import com.orientechnologies.orient.server.network.protocol.http.command.get.OServerCommandGetQuery;
+import com.orientechnologies.orient.server.network.protocol.http.command.get.OServerCommandGetRunningCommands;
 import com.orientechnologies.orient.server.network.protocol.http.command.get.OServerCommandGetServer;
 import com.orientechnologies.orient.server.network.protocol.http.command.get.OServerCommandGetStorageAllocation;
 import com.orientechnologies.orient.server.network.protocol.http.command.options.OServerCommandOptions;
@@ -78,6 +80,7 @@ public class ONetworkProtocolHttpDb extends ONetworkProtocolHttpAbstract {
 		registerCommand(new OServerCommandGetIndex());
 		registerCommand(new OServerCommandGetListDatabases());
 		registerCommand(new OServerCommandGetExportDatabase());
+		registerCommand(new OServerCommandGetRunningCommands());
 
 		registerCommand(new OServerCommandPostClass());
 		registerCommand(new OServerCommandPostCommand());
@@ -98,6 +101,7 @@ public class ONetworkProtocolHttpDb extends ONetworkProtocolHttpAbstract {
 		registerCommand(new OServerCommandDeleteDocument());
 		registerCommand(new OServerCommandDeleteProperty());
 		registerCommand(new OServerCommandDeleteIndex());
+		registerCommand(new OServerCommandDeleteRunningCommand());
 
 		registerCommand(new OServerCommandOptions());
 
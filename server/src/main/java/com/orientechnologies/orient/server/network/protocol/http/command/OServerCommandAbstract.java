@@ -30,9 +30,11 @@ import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OProperty;
 import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 import com.orientechnologies.orient.core.serialization.serializer.OJSONWriter;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
+import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerJSON;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpRequest;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpRequestException;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpUtils;
@@ -189,19 +191,22 @@ public abstract class OServerCommandAbstract implements OServerCommand {
 	protected void formatCollection(final List<OIdentifiable> iRecords, final StringWriter buffer, final String format) {
 		if (iRecords != null) {
 			int counter = 0;
-			String objectJson;
+			int mark;
 			for (OIdentifiable rec : iRecords) {
-				if (rec != null)
+				if (rec != null) {
+					// WRITE THE RECORD DIRECTLY IN THE BUFFER, REMOVING IT IN CASE OF ERROR
+					mark = buffer.getBuffer().length();
 					try {
-						objectJson = rec.getRecord().toJSON(format);
-
-						if (counter++ > 0)
+						if (counter > 0)
 							buffer.append(", ");
 
-						buffer.append(objectJson);
+						ORecordSerializerJSON.INSTANCE.toStream((ORecordInternal<?>) rec.getRecord(), buffer, format);
+						counter++;
 					} catch (Exception e) {
+						buffer.getBuffer().setLength(mark);
 						OLogManager.instance().error(this, "Error transforming record " + rec.getIdentity() + " to JSON", e);
 					}
+				}
 			}
 		}
 	}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.server.network.protocol.http.command.delete;
+
+import com.orientechnologies.orient.core.command.OCommandManager;
+import com.orientechnologies.orient.server.network.protocol.http.OHttpRequest;
+import com.orientechnologies.orient.server.network.protocol.http.OHttpUtils;
+import com.orientechnologies.orient.server.network.protocol.http.command.OServerCommandAuthenticatedServerAbstract;
+
+/**
+ * Kills a command in execution: it's interrupted at the next record read.
+ */
+public class OServerCommandDeleteRunningCommand extends OServerCommandAuthenticatedServerAbstract {
+	private static final String[]	NAMES	= { "DELETE|runningCommand/*" };
+
+	public OServerCommandDeleteRunningCommand() {
+		super("server.commands.kill");
+	}
+
+	@Override
+	public boolean execute(final OHttpRequest iRequest) throws Exception {
+		final String[] urlParts = checkSyntax(iRequest.url, 2, "Syntax error: runningCommand/<id>");
+
+		iRequest.data.commandInfo = "Kill running command";
+		iRequest.data.commandDetail = urlParts[1];
+
+		if (!OCommandManager.instance().killRunningCommand(Long.parseLong(urlParts[1])))
+			throw new IllegalArgumentException("Command " + urlParts[1] + " is not running");
+
+		sendTextContent(iRequest, OHttpUtils.STATUS_OK_CODE, "OK", null, OHttpUtils.CONTENT_TEXT_PLAIN, null);
+		return false;
+	}
+
+	@Override
+	public String[] getNames() {
+		return NAMES;
+	}
+}
@@ -25,6 +25,8 @@ import com.orientechnologies.orient.core.metadata.schema.OProperty;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ORecordAbstract;
 import com.orientechnologies.orient.core.record.ORecordSchemaAware;
+import com.orientechnologies.orient.core.record.impl.OChunkedBlob;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.record.impl.ORecordBytes;
 import com.orientechnologies.orient.server.db.OSharedDocumentDatabase;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpRequest;
@@ -63,6 +65,9 @@ public class OServerCommandGetFileDownload extends OServerCommandAuthenticatedDb
 				if (response instanceof ORecordBytes) {
 					sendORecordBinaryFileContent(iRequest, OHttpUtils.STATUS_OK_CODE, OHttpUtils.STATUS_OK_DESCRIPTION, fileType,
 							(ORecordBytes) response, fileName);
+				} else if (response instanceof ODocument && OChunkedBlob.isChunkedBlob((ODocument) response)) {
+					sendChunkedBlobFileContent(iRequest, OHttpUtils.STATUS_OK_CODE, OHttpUtils.STATUS_OK_DESCRIPTION, fileType,
+							new OChunkedBlob(response.getIdentity()), fileName);
 				} else if (response instanceof ORecordSchemaAware) {
 					for (OProperty prop : ((ORecordSchemaAware<?>) response).getSchemaClass().properties()) {
 						if (prop.getType().equals(OType.BINARY))
@@ -103,6 +108,21 @@ public class OServerCommandGetFileDownload extends OServerCommandAuthenticatedDb
 		iRequest.channel.flush();
 	}
 
+	protected void sendChunkedBlobFileContent(final OHttpRequest iRequest, final int iCode, final String iReason,
+			final String iContentType, final OChunkedBlob blob, final String iFileName) throws IOException {
+		sendStatus(iRequest, iCode, iReason);
+		sendResponseHeaders(iRequest, iContentType);
+		writeLine(iRequest, "Content-Disposition: attachment; filename=" + iFileName);
+		writeLine(iRequest, "Date: " + new Date());
+		writeLine(iRequest, OHttpUtils.HEADER_CONTENT_LENGTH + (blob.getSize()));
+		writeLine(iRequest, null);
+
+		// SEND ONE CHUNK AT A TIME
+		blob.toOutputStream(iRequest.channel.outStream);
+
+		iRequest.channel.flush();
+	}
+
 	protected void sendBinaryFieldFileContent(final OHttpRequest iRequest, final int iCode, final String iReason,
 			final String iContentType, final byte[] record, final String iFileName) throws IOException {
 		sendStatus(iRequest, iCode, iReason);
@@ -0,0 +1,52 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.server.network.protocol.http.command.get;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.orientechnologies.orient.core.command.OCommandManager;
+import com.orientechnologies.orient.core.command.ORunningCommand;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.server.network.protocol.http.OHttpRequest;
+import com.orientechnologies.orient.server.network.protocol.http.command.OServerCommandAuthenticatedServerAbstract;
+
+public class OServerCommandGetRunningCommands extends OServerCommandAuthenticatedServerAbstract {
+	private static final String[]	NAMES	= { "GET|runningCommands" };
+
+	public OServerCommandGetRunningCommands() {
+		super("server.commands.list");
+	}
+
+	@Override
+	public boolean execute(final OHttpRequest iRequest) throws Exception {
+		checkSyntax(iRequest.url, 1, "Syntax error: runningCommands");
+
+		iRequest.data.commandInfo = "List running commands";
+
+		final List<OIdentifiable> commands = new ArrayList<OIdentifiable>();
+		for (ORunningCommand command : OCommandManager.instance().getRunningCommands())
+			commands.add(command.toDocument());
+
+		sendRecordsContent(iRequest, commands);
+		return false;
+	}
+
+	@Override
+	public String[] getNames() {
+		return NAMES;
+	}
+}
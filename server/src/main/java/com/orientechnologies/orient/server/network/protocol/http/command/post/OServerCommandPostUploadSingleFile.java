@@ -25,7 +25,7 @@ import java.util.HashMap;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.record.impl.ORecordBytes;
+import com.orientechnologies.orient.core.record.impl.OChunkedBlob;
 import com.orientechnologies.orient.core.serialization.serializer.OJSONWriter;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpRequest;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpUtils;
@@ -162,10 +162,8 @@ public class OServerCommandPostUploadSingleFile extends OHttpMultipartRequestCom
 
 			fileDocument = null;
 		} else {
-			if (fileRID != null) {
-				ORecordBytes file = new ORecordBytes(fileRID);
-				database.delete(file);
-			}
+			if (fileRID != null)
+				new OChunkedBlob(fileRID).delete();
 			sendTextContent(iRequest, OHttpUtils.STATUS_INVALIDMETHOD_CODE, "Document template cannot be null", null,
 					OHttpUtils.CONTENT_TEXT_PLAIN, "Document template cannot be null");
 		}
@@ -21,7 +21,7 @@ import java.util.Map;
 
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
 import com.orientechnologies.orient.core.id.ORID;
-import com.orientechnologies.orient.core.record.impl.ORecordBytes;
+import com.orientechnologies.orient.core.record.impl.OChunkedBlob;
 import com.orientechnologies.orient.server.network.protocol.http.OHttpRequest;
 
 /**
@@ -33,9 +33,9 @@ public class OHttpMultipartFileToRecordContentParser implements OHttpMultipartCo
 	@Override
 	public ORID parse(final OHttpRequest iRequest, final Map<String, String> headers, final OHttpMultipartContentInputStream in,
 			ODatabaseRecord database) throws IOException {
-		final ORecordBytes record = new ORecordBytes();
-		record.fromInputStream(in);
-		record.save();
-		return record.getIdentity();
+		// WRITE THE FILE ONE CHUNK AT A TIME WITHOUT LOADING IT ALL IN MEMORY
+		final OChunkedBlob blob = new OChunkedBlob();
+		blob.fromInputStream(in);
+		return blob.getIdentity();
 	}
 }
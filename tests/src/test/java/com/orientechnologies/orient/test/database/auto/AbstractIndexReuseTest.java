@@ -57,7 +57,7 @@ public abstract class AbstractIndexReuseTest {
 		}
 	}
 
-	private boolean isRemoteStorage() {
+	protected boolean isRemoteStorage() {
 		return database.getStorage() instanceof OStorageRemote || database.getStorage() instanceof OStorageRemoteThread;
 	}
 
@@ -15,14 +15,24 @@
  */
 package com.orientechnologies.orient.test.database.auto;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
 import org.testng.Assert;
 import org.testng.annotations.Parameters;
 import org.testng.annotations.Test;
 
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.OChunkedBlob;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.record.impl.ORecordBytes;
 
@@ -96,4 +106,57 @@ public class BinaryTest {
 
 		database.close();
 	}
+
+	@Test
+	public void testChunkedBlob() throws IOException {
+		database.open("admin", "admin");
+
+		final int oldChunkSize = OGlobalConfiguration.BLOB_CHUNK_SIZE.getValueAsInteger();
+		OGlobalConfiguration.BLOB_CHUNK_SIZE.setValue(1000);
+		try {
+			final byte[] content = new byte[4500];
+			for (int i = 0; i < content.length; ++i)
+				content[i] = (byte) i;
+
+			OChunkedBlob blob = new OChunkedBlob();
+			Assert.assertEquals(blob.fromInputStream(new ByteArrayInputStream(content)), content.length);
+			Assert.assertEquals(blob.getChunks().size(), 5);
+
+			final ORID blobRid = blob.getIdentity();
+			final List<ORID> chunks = blob.getChunks();
+
+			blob = new OChunkedBlob(blobRid);
+			Assert.assertEquals(blob.getSize(), content.length);
+
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final InputStream in = blob.getInputStream();
+			final byte[] buffer = new byte[700];
+			int read;
+			while ((read = in.read(buffer)) > -1)
+				out.write(buffer, 0, read);
+			Assert.assertTrue(Arrays.equals(out.toByteArray(), content));
+
+			// REWRITE THE CONTENT: THE OLD CHUNKS ARE DELETED
+			final OutputStream blobOut = blob.getOutputStream();
+			blobOut.write("Small content".getBytes());
+			blobOut.close();
+
+			Assert.assertEquals(blob.getSize(), 13);
+			Assert.assertEquals(blob.getChunks().size(), 1);
+			for (ORID chunk : chunks)
+				Assert.assertNull(database.load(chunk));
+
+			out.reset();
+			new OChunkedBlob(blobRid).toOutputStream(out);
+			Assert.assertEquals(new String(out.toByteArray()), "Small content");
+
+			final ORID lastChunk = blob.getChunks().get(0);
+			blob.delete();
+			Assert.assertNull(database.load(blobRid));
+			Assert.assertNull(database.load(lastChunk));
+		} finally {
+			OGlobalConfiguration.BLOB_CHUNK_SIZE.setValue(oldChunkSize);
+			database.close();
+		}
+	}
 }
@@ -0,0 +1,360 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.ODatabase;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OSchemaException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OProperty;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerSchemaAware2Binary;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "crud", "record-document" })
+public class DocumentBinaryFormatTest {
+	private final ODatabaseDocumentTx	database;
+
+	@Parameters(value = "url")
+	public DocumentBinaryFormatTest(final String iURL) {
+		database = new ODatabaseDocumentTx(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		final OClass cls = database.getMetadata().getSchema().createClass("binaryFormatTestClass");
+		cls.createProperty("name", OType.STRING);
+		cls.createProperty("age", OType.INTEGER);
+		cls.createProperty("born", OType.DATE);
+		database.getMetadata().getSchema().save();
+
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.getMetadata().getSchema().setRecordFormat(OSchema.RECORD_FORMAT_CSV);
+		database.command(new OCommandSQL("delete from binaryFormatTestClass")).execute();
+		database.command(new OCommandSQL("drop class binaryFormatTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@BeforeMethod
+	public void beforeMethod() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		database.getMetadata().getSchema().setRecordFormat(OSchema.RECORD_FORMAT_CSV);
+		database.close();
+	}
+
+	@Test
+	public void testDictionary() {
+		final OSchema schema = database.getMetadata().getSchema();
+		final int id = schema.getFieldId("age");
+		Assert.assertTrue(id > -1);
+		Assert.assertEquals(schema.getFieldName(id), "age");
+		Assert.assertEquals(schema.getFieldId("notInTheDictionary"), -1);
+		Assert.assertNull(schema.getFieldName(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testAllTypes() {
+		database.getMetadata().getSchema().setRecordFormat(OSchema.RECORD_FORMAT_BINARY);
+
+		final ODocument linked = new ODocument(database, "binaryFormatTestClass").field("name", "linked");
+		linked.save();
+
+		final Date now = new Date();
+		final ODocument doc = new ODocument(database, "binaryFormatTestClass");
+		doc.field("name", "Luca \u00e0\u00e8\u00ec\u00f2\u00f9");
+		doc.field("age", -35);
+		doc.field("born", now);
+		doc.field("long", 12345678901234L);
+		doc.field("double", 3.1415d);
+		doc.field("float", -2.5f);
+		doc.field("short", (short) 300);
+		doc.field("byte", (byte) 7);
+		doc.field("boolean", true);
+		doc.field("datetime", now);
+		doc.field("binary", new byte[] { 0, 1, 2, -1 });
+		doc.field("link", linked);
+		doc.field("nullValue", (Object) null);
+		doc.field("embedded", new ODocument().field("city", "Rome").field("zip", 100), OType.EMBEDDED);
+
+		final List<String> tags = new ArrayList<String>();
+		tags.add("a");
+		tags.add("b");
+		doc.field("tags", tags);
+
+		final Map<String, Object> map = new HashMap<String, Object>();
+		map.put("key", "value");
+		doc.field("map", map);
+
+		final List<OIdentifiable> links = new ArrayList<OIdentifiable>();
+		links.add(linked);
+		doc.field("links", links, OType.LINKLIST);
+		doc.save();
+
+		final ORID rid = doc.getIdentity();
+		database.getLevel1Cache().invalidate();
+		database.getLevel2Cache().clear();
+
+		final ODocument loaded = database.load(rid);
+		Assert.assertTrue(ORecordSerializerSchemaAware2Binary.isBinary(loaded.toStream()));
+		Assert.assertEquals(loaded.getClassName(), "binaryFormatTestClass");
+		Assert.assertEquals(loaded.field("name"), "Luca \u00e0\u00e8\u00ec\u00f2\u00f9");
+		Assert.assertEquals(loaded.field("age"), -35);
+		Assert.assertTrue(((Date) loaded.field("born")).getTime() <= now.getTime());
+		Assert.assertEquals(loaded.field("long"), 12345678901234L);
+		Assert.assertEquals(loaded.field("double"), 3.1415d);
+		Assert.assertEquals(loaded.field("float"), -2.5f);
+		Assert.assertEquals(loaded.field("short"), (short) 300);
+		Assert.assertEquals(loaded.field("byte"), (byte) 7);
+		Assert.assertEquals(loaded.field("boolean"), Boolean.TRUE);
+		Assert.assertEquals(loaded.field("datetime"), now);
+		Assert.assertTrue(Arrays.equals((byte[]) loaded.field("binary"), new byte[] { 0, 1, 2, -1 }));
+		Assert.assertEquals(((OIdentifiable) loaded.field("link")).getIdentity(), linked.getIdentity());
+		Assert.assertTrue(loaded.containsField("nullValue"));
+		Assert.assertNull(loaded.field("nullValue"));
+
+		final ODocument embedded = loaded.field("embedded");
+		Assert.assertTrue(embedded.isEmbedded());
+		Assert.assertEquals(embedded.field("city"), "Rome");
+		Assert.assertEquals(embedded.field("zip"), 100);
+
+		Assert.assertEquals(loaded.field("tags"), tags);
+		Assert.assertEquals(((Map<?, ?>) loaded.field("map")).get("key"), "value");
+		Assert.assertEquals(((List<OIdentifiable>) loaded.field("links")).get(0).getIdentity(), linked.getIdentity());
+
+		// THE ORDER OF THE FIELDS IS KEPT
+		Assert.assertEquals(loaded.fieldNames()[0], "name");
+		Assert.assertEquals(loaded.fieldNames()[loaded.fieldNames().length - 1], "links");
+	}
+
+	@Test
+	public void testQuery() {
+		database.getMetadata().getSchema().setRecordFormat(OSchema.RECORD_FORMAT_BINARY);
+
+		for (int i = 0; i < 10; i++)
+			new ODocument(database, "binaryFormatTestClass").field("name", "query" + i).field("age", i).save();
+
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from binaryFormatTestClass where name like 'query%' and age >= 5"));
+		Assert.assertEquals(result.size(), 5);
+		for (ODocument d : result)
+			Assert.assertTrue((Integer) d.field("age") >= 5);
+	}
+
+	@Test
+	public void testReadOnDemand() {
+		database.getMetadata().getSchema().setRecordFormat(OSchema.RECORD_FORMAT_BINARY);
+
+		final ODocument doc = new ODocument(database, "binaryFormatTestClass").field("name", "onDemand").field("age", 10)
+				.field("city", "Rome").field("tags", new ArrayList<String>(Arrays.asList("a", "b")));
+		doc.save();
+
+		database.getLevel1Cache().invalidate();
+		database.getLevel2Cache().clear();
+
+		final ODocument loaded = database.load(doc.getIdentity());
+		Assert.assertEquals(loaded.getClassName(), "binaryFormatTestClass");
+		Assert.assertEquals(loaded.fields(), 0);
+
+		// ONLY THE FIELDS REQUESTED ARE UNMARSHALLED
+		Assert.assertEquals(loaded.field("age"), 10);
+		Assert.assertEquals(loaded.fields(), 1);
+		Assert.assertTrue(loaded.containsField("city"));
+		Assert.assertFalse(loaded.containsField("notExistent"));
+		Assert.assertEquals(loaded.fields(), 2);
+		Assert.assertEquals(((List<?>) loaded.field("tags")).size(), 2);
+
+		// ALL THE FIELDS ARE NEEDED, IN THE ORIGINAL ORDER
+		Assert.assertEquals(Arrays.asList(loaded.fieldNames()), Arrays.asList("name", "age", "city", "tags"));
+		Assert.assertEquals(loaded.field("name"), "onDemand");
+	}
+
+	@Test
+	public void testUpdateOnDemand() {
+		database.getMetadata().getSchema().setRecordFormat(OSchema.RECORD_FORMAT_BINARY);
+
+		final ODocument doc = new ODocument(database, "binaryFormatTestClass").field("name", "update").field("age", 10)
+				.field("city", "Rome").field("tags", new ArrayList<String>(Arrays.asList("a", "b")));
+		doc.save();
+		final ORID rid = doc.getIdentity();
+
+		// SAME SIZE: OVERWRITTEN IN PLACE
+		ODocument loaded = reload(rid);
+		final int size = loaded.toStream().length;
+		loaded.field("age", 11).save();
+		// THE VALIDATION READS ONLY THE DECLARED PROPERTIES
+		Assert.assertTrue(loaded.fields() < 4);
+		Assert.assertEquals(loaded.toStream().length, size);
+
+		loaded = reload(rid);
+		Assert.assertEquals(loaded.field("age"), 11);
+		Assert.assertEquals(loaded.field("city"), "Rome");
+
+		// DIFFERENT SIZE AND NEW FIELD: THE VALUES NOT READ ARE COPIED
+		loaded.field("city", "Rome, Italy").field("zip", 100).save();
+		Assert.assertTrue(loaded.fields() < 5);
+
+		loaded = reload(rid);
+		Assert.assertEquals(loaded.field("city"), "Rome, Italy");
+		Assert.assertEquals(loaded.field("zip"), 100);
+		Assert.assertEquals(loaded.field("name"), "update");
+		Assert.assertEquals(loaded.field("age"), 11);
+		Assert.assertEquals(loaded.field("tags"), Arrays.asList("a", "b"));
+		Assert.assertEquals(Arrays.asList(loaded.fieldNames()), Arrays.asList("name", "age", "city", "tags", "zip"));
+
+		// FIELD IN THE CSV SECTION: MARSHALLED ENTIRELY
+		loaded = reload(rid);
+		((List<String>) loaded.field("tags")).add("c");
+		loaded.field("age", 12).save();
+
+		loaded = reload(rid);
+		Assert.assertEquals(loaded.field("tags"), Arrays.asList("a", "b", "c"));
+		Assert.assertEquals(loaded.field("age"), 12);
+		Assert.assertEquals(loaded.field("city"), "Rome, Italy");
+
+		// UPDATE BY QUERY
+		database.command(new OCommandSQL("update " + rid + " set age = 13")).execute();
+		loaded = reload(rid);
+		Assert.assertEquals(loaded.field("age"), 13);
+		Assert.assertEquals(loaded.field("zip"), 100);
+	}
+
+	@Test
+	public void testMigration() {
+		final ODocument doc = new ODocument(database, "binaryFormatTestClass").field("name", "migrated").field("age", 1);
+		doc.save();
+		final ORID rid = doc.getIdentity();
+
+		database.getMetadata().getSchema().setRecordFormat(OSchema.RECORD_FORMAT_BINARY);
+		database.getLevel1Cache().invalidate();
+		database.getLevel2Cache().clear();
+
+		// WRITTEN IN CSV: READ AS IS AND MIGRATED ON SAVE
+		ODocument loaded = database.load(rid);
+		Assert.assertFalse(ORecordSerializerSchemaAware2Binary.isBinary(loaded.toStream()));
+		Assert.assertEquals(loaded.field("name"), "migrated");
+		loaded.field("age", 2).save();
+
+		database.getLevel1Cache().invalidate();
+		database.getLevel2Cache().clear();
+
+		loaded = database.load(rid);
+		Assert.assertTrue(ORecordSerializerSchemaAware2Binary.isBinary(loaded.toStream()));
+		Assert.assertEquals(loaded.field("name"), "migrated");
+		Assert.assertEquals(loaded.field("age"), 2);
+
+		// BACK TO CSV
+		database.getMetadata().getSchema().setRecordFormat(OSchema.RECORD_FORMAT_CSV);
+		database.getLevel1Cache().invalidate();
+		database.getLevel2Cache().clear();
+
+		loaded = database.load(rid);
+		Assert.assertEquals(loaded.field("age"), 2);
+		loaded.field("age", 3).save();
+
+		database.getLevel1Cache().invalidate();
+		database.getLevel2Cache().clear();
+
+		loaded = database.load(rid);
+		Assert.assertFalse(ORecordSerializerSchemaAware2Binary.isBinary(loaded.toStream()));
+		Assert.assertEquals(loaded.field("age"), 3);
+	}
+
+	@Test
+	public void testValueDictionary() {
+		final OSchema schema = database.getMetadata().getSchema();
+		schema.setRecordFormat(OSchema.RECORD_FORMAT_BINARY);
+
+		final OClass cls = schema.getClass("binaryFormatTestClass");
+		final OProperty status = cls.createProperty("status", OType.STRING).setDictionarySize(2);
+		Assert.assertEquals(status.getDictionarySize(), 2);
+
+		try {
+			cls.getProperty("age").setDictionarySize(10);
+			Assert.fail("Only string properties can be encoded with a dictionary");
+		} catch (OSchemaException e) {
+		}
+
+		final List<ORID> rids = new ArrayList<ORID>();
+		for (String value : new String[] { "open", "closed", "open", "rejected" })
+			rids.add(new ODocument(database, "binaryFormatTestClass").field("name", "dictionary").field("status", value).save()
+					.getIdentity());
+
+		if (!database.getURL().startsWith("remote:")) {
+			// THE THIRD VALUE EXCEEDS THE SIZE OF THE DICTIONARY AND IS STORED AS IS
+			Assert.assertEquals(schema.getDictionaryValueId(cls, status, "open"), 0);
+			Assert.assertEquals(schema.getDictionaryValueId(cls, status, "closed"), 1);
+			Assert.assertEquals(schema.getDictionaryValueId(cls, status, "rejected"), -1);
+			Assert.assertEquals(schema.getDictionaryValue(cls, "status", 1), "closed");
+		}
+
+		Assert.assertEquals(reload(rids.get(0)).field("status"), "open");
+		Assert.assertEquals(reload(rids.get(1)).field("status"), "closed");
+		Assert.assertEquals(reload(rids.get(2)).field("status"), "open");
+		Assert.assertEquals(reload(rids.get(3)).field("status"), "rejected");
+
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from binaryFormatTestClass where status = 'open'"));
+		Assert.assertEquals(result.size(), 2);
+
+		// THE VALUES ALREADY WRITTEN ARE STILL DECODED AFTER THE DICTIONARY IS DISABLED
+		status.setDictionarySize(0);
+		Assert.assertEquals(reload(rids.get(1)).field("status"), "closed");
+
+		for (ORID rid : rids)
+			database.delete(database.load(rid));
+	}
+
+	private ODocument reload(final ORID iRID) {
+		database.getLevel1Cache().invalidate();
+		database.getLevel2Cache().clear();
+		return database.load(iRID);
+	}
+
+	@Test
+	public void testAlterDatabase() {
+		if (database.getURL().startsWith("remote:"))
+			// THE COMMAND CHANGES THE SCHEMA OF THE SERVER
+			return;
+
+		database.command(new OCommandSQL("alter database recordformat binary")).execute();
+		Assert.assertEquals(database.get(ODatabase.ATTRIBUTES.RECORDFORMAT), OSchema.RECORD_FORMAT_BINARY);
+
+		database.command(new OCommandSQL("alter database recordformat csv")).execute();
+		Assert.assertEquals(database.getMetadata().getSchema().getRecordFormat(), OSchema.RECORD_FORMAT_CSV);
+	}
+}
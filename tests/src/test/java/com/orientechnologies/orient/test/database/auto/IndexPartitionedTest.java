@@ -0,0 +1,219 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexNotUniquePartitioned;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "index" })
+public class IndexPartitionedTest {
+	private static final int					THREADS						= 8;
+	private static final int					RECORDS_PER_THREAD	= 100;
+
+	private final String							url;
+	private final ODatabaseDocumentTx	database;
+
+	@Parameters(value = "url")
+	public IndexPartitionedTest(final String iURL) {
+		url = iURL;
+		database = new ODatabaseDocumentTx(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		final OSchema schema = database.getMetadata().getSchema();
+		final OClass oClass = schema.createClass("IndexPartitionedTestClass");
+		oClass.createProperty("value", OType.INTEGER);
+		oClass.createProperty("thread", OType.INTEGER);
+		schema.save();
+
+		database.command(new OCommandSQL("CREATE INDEX IndexPartitionedTestClass.value NOTUNIQUE_PARTITIONED")).execute();
+		database.getMetadata().getIndexManager().reload();
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.command(new OCommandSQL("delete from IndexPartitionedTestClass")).execute();
+		database.command(new OCommandSQL("drop class IndexPartitionedTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@BeforeMethod
+	public void beforeMethod() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		database.close();
+	}
+
+	@Test
+	public void testIndexType() {
+		final OIndex<?> index = getIndex();
+		Assert.assertEquals(index.getType(), OIndexNotUniquePartitioned.TYPE_ID);
+		if (!url.startsWith("remote:"))
+			// THE REMOTE INDEXES DON'T EXPOSE THE IMPLEMENTATION
+			Assert.assertTrue(index.getInternal() instanceof OIndexNotUniquePartitioned);
+	}
+
+	@Test(dependsOnMethods = "testIndexType")
+	public void testConcurrentInserts() throws Exception {
+		final Thread[] threads = new Thread[THREADS];
+		final Throwable[] errors = new Throwable[THREADS];
+
+		for (int i = 0; i < THREADS; ++i) {
+			final int threadId = i;
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					final ODatabaseDocumentTx db = new ODatabaseDocumentTx(url).open("admin", "admin");
+					try {
+						for (int j = 0; j < RECORDS_PER_THREAD; ++j) {
+							final ODocument document = new ODocument(db, "IndexPartitionedTestClass");
+							document.field("value", j);
+							document.field("thread", threadId);
+							document.save();
+						}
+					} catch (Throwable e) {
+						errors[threadId] = e;
+					} finally {
+						db.close();
+					}
+				}
+			});
+			threads[i].start();
+
+			if (url.startsWith("remote:"))
+				// THE REMOTE DATABASES OF THE CLIENT SHARE THE NETWORK CHANNEL: THE CONCURRENCY IS TESTED ON THE EMBEDDED STORAGES
+				threads[i].join();
+		}
+
+		for (Thread thread : threads)
+			thread.join();
+
+		for (Throwable error : errors)
+			if (error != null)
+				throw new AssertionError(error);
+
+		Assert.assertEquals(getIndex().getSize(), RECORDS_PER_THREAD);
+		for (int j = 0; j < RECORDS_PER_THREAD; ++j)
+			Assert.assertEquals(((Collection<?>) getIndex().get(j)).size(), THREADS);
+	}
+
+	@Test(dependsOnMethods = "testConcurrentInserts")
+	public void testRanges() {
+		Assert.assertEquals(getIndex().getValuesBetween(10, 19).size(), 10 * THREADS);
+		Assert.assertEquals(getIndex().getValuesMajor(90, false).size(), 9 * THREADS);
+		Assert.assertEquals(getIndex().getValuesMinor(9, true).size(), 10 * THREADS);
+		if (!url.startsWith("remote:"))
+			// THE QUERIES OF THE REMOTE INDEXES DON'T SUPPORT THE RANGES WITH THE INCLUSIVE FLAGS
+			Assert.assertEquals(getIndex().getValuesBetween(0, true, RECORDS_PER_THREAD, true, 15).size(), 15);
+		Assert.assertEquals(getIndex().getEntriesBetween(10, 14).size(), 5 * THREADS);
+
+		final List<ODocument> result = database.command(
+				new OSQLSynchQuery<ODocument>("select from IndexPartitionedTestClass where value between 20 and 24 and thread = 3"))
+				.execute();
+		Assert.assertEquals(result.size(), 5);
+	}
+
+	@Test(dependsOnMethods = "testConcurrentInserts")
+	@SuppressWarnings("unchecked")
+	public void testOrderedIteration() {
+		if (url.startsWith("remote:"))
+			// THE ITERATOR IS AVAILABLE ONLY ON THE INDEX IMPLEMENTATION
+			return;
+
+		final Iterator<Entry<Object, Object>> iterator = ((OIndex<Object>) getIndex().getInternal()).iterator();
+
+		int expectedKey = 0;
+		while (iterator.hasNext()) {
+			final Entry<Object, Object> entry = iterator.next();
+			Assert.assertEquals(entry.getKey(), expectedKey++);
+			Assert.assertEquals(((Collection<OIdentifiable>) entry.getValue()).size(), THREADS);
+		}
+		Assert.assertEquals(expectedKey, RECORDS_PER_THREAD);
+
+		expectedKey = 0;
+		for (Object key : getIndex().getInternal().keys())
+			Assert.assertEquals(key, expectedKey++);
+		Assert.assertEquals(expectedKey, RECORDS_PER_THREAD);
+	}
+
+	@Test(dependsOnMethods = { "testRanges", "testOrderedIteration" })
+	public void testRemoveAndTransaction() {
+		database.command(new OCommandSQL("delete from IndexPartitionedTestClass where value = 5")).execute();
+		Assert.assertEquals(getIndex().getSize(), RECORDS_PER_THREAD - 1);
+		Assert.assertTrue(((Collection<?>) getIndex().get(5)).isEmpty());
+
+		database.begin();
+		final ODocument document = new ODocument(database, "IndexPartitionedTestClass");
+		document.field("value", 5);
+		document.field("thread", 0);
+		document.save();
+		database.commit();
+
+		Assert.assertEquals(getIndex().getSize(), RECORDS_PER_THREAD);
+		Assert.assertEquals(((Collection<?>) getIndex().get(5)).size(), 1);
+	}
+
+	@Test(dependsOnMethods = "testRemoveAndTransaction")
+	public void testReload() {
+		database.close();
+		database.open("admin", "admin");
+		database.getMetadata().getIndexManager().reload();
+
+		Assert.assertEquals(getIndex().getSize(), RECORDS_PER_THREAD);
+		Assert.assertEquals(((Collection<?>) getIndex().get(7)).size(), THREADS);
+		if (!url.startsWith("remote:"))
+			// THE STATISTICS ARE KEPT ONLY BY THE SERVER
+			Assert.assertEquals(getIndex().getStatistics().getEntries(), (RECORDS_PER_THREAD - 1) * THREADS + 1);
+	}
+
+	private OIndex<?> getIndex() {
+		return database.getMetadata().getIndexManager().getIndex("IndexPartitionedTestClass.value");
+	}
+}
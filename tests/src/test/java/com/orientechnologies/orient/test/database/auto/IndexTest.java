@@ -702,7 +702,8 @@ public class IndexTest {
 
 		Assert.assertEquals(expectedNicks.size(), 0);
 		long newIndexQueries = OProfiler.getInstance().getCounter("Query.indexUsage");
-		Assert.assertEquals(newIndexQueries, indexQueries);
+		// THE TWO RANGES ON NICK ARE UNITED BY THE INDEX MERGE
+		Assert.assertEquals(newIndexQueries, indexQueries + 1);
 	}
 
 	public void populateIndexDocuments() {
@@ -0,0 +1,157 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.test.database.auto;
+
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.client.db.ODatabaseHelper;
+import com.orientechnologies.orient.client.remote.OEngineRemote;
+import com.orientechnologies.orient.client.remote.OServerAdmin;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ORecordBytes;
+
+/**
+ * Loads records through a remote connection with network.binary.loadRaw enabled on the server, so the records are sent as read from
+ * the data segment.
+ */
+@Test(groups = "crud")
+public class RawRecordLoadTest {
+	private final String			url;
+	private ODatabaseDocument	database;
+	private OServerAdmin			serverAdmin;
+	private String						oldLoadRaw;
+
+	@Parameters(value = "url")
+	public RawRecordLoadTest(final String iURL) {
+		url = iURL;
+	}
+
+	@BeforeClass
+	public void beforeClass() throws IOException {
+		if (!url.startsWith(OEngineRemote.NAME))
+			return;
+
+		serverAdmin = new OServerAdmin(url).connect("root", ODatabaseHelper.getServerRootPassword());
+		oldLoadRaw = serverAdmin.getGlobalConfiguration(OGlobalConfiguration.NETWORK_BINARY_LOAD_RAW);
+		serverAdmin.setGlobalConfiguration(OGlobalConfiguration.NETWORK_BINARY_LOAD_RAW, true);
+	}
+
+	@AfterClass
+	public void afterClass() throws IOException {
+		if (serverAdmin == null)
+			return;
+
+		serverAdmin.setGlobalConfiguration(OGlobalConfiguration.NETWORK_BINARY_LOAD_RAW, oldLoadRaw);
+		serverAdmin.close();
+	}
+
+	@BeforeMethod
+	public void beforeMethod() {
+		database = new ODatabaseDocumentTx(url);
+		database.open("admin", "admin");
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		database.close();
+	}
+
+	public void testLoadDocument() {
+		final ODocument doc = new ODocument();
+		doc.field("name", "Jay");
+		doc.field("surname", "Miner");
+		doc.save();
+
+		doc.field("name", "Jay Glenn");
+		doc.save();
+
+		clearCaches();
+
+		final ODocument loaded = database.load(doc.getIdentity());
+		Assert.assertNotSame(loaded, doc);
+		Assert.assertEquals(loaded.field("name"), "Jay Glenn");
+		Assert.assertEquals(loaded.field("surname"), "Miner");
+		Assert.assertEquals(loaded.getVersion(), doc.getVersion());
+
+		doc.delete();
+	}
+
+	public void testLoadBytes() {
+		// ONE RECORD SMALLER AND ONE BIGGER THAN THE BUFFERS KEPT IN THE SERVER'S POOL
+		for (int size : new int[] { 100, 300000 }) {
+			final byte[] content = new byte[size];
+			for (int i = 0; i < size; ++i)
+				content[i] = (byte) i;
+
+			final ORecordBytes record = new ORecordBytes(database, content);
+			record.save();
+
+			clearCaches();
+
+			final ORecordBytes loaded = database.load(record.getIdentity());
+			Assert.assertNotSame(loaded, record);
+			Assert.assertEquals(loaded.toStream(), content);
+
+			record.delete();
+		}
+	}
+
+	public void testLoadEmpty() {
+		// THE CONTENT OF AN EMPTY RECORD IS NOT WRITTEN IN THE DATA SEGMENT
+		final ODocument doc = new ODocument();
+		doc.save();
+
+		clearCaches();
+
+		final ODocument loaded = database.load(doc.getIdentity());
+		Assert.assertNotNull(loaded);
+		Assert.assertEquals(loaded.fields(), 0);
+		Assert.assertEquals(loaded.getVersion(), doc.getVersion());
+
+		doc.delete();
+	}
+
+	public void testLoadDeleted() {
+		final ODocument doc = new ODocument();
+		doc.field("name", "Deleted");
+		doc.save();
+
+		final ORID rid = doc.getIdentity().copy();
+		doc.delete();
+
+		clearCaches();
+
+		Assert.assertNull(database.load(rid));
+	}
+
+	private void clearCaches() {
+		// FORCE THE LOAD FROM THE SERVER
+		database.getLevel1Cache().clear();
+		database.getLevel2Cache().clear();
+	}
+}
@@ -0,0 +1,167 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.command.OCommandResultStream;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+
+@Test(groups = { "sql-select" })
+public class SQLSelectAsynchStreamTest {
+	private static final int					RECORDS	= 500;
+	private final ODatabaseDocumentTx	database;
+
+	@Parameters(value = "url")
+	public SQLSelectAsynchStreamTest(final String iURL) {
+		database = new ODatabaseDocumentTx(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.getMetadata().getSchema().createClass("sqlSelectAsynchStreamTestClass");
+		database.getMetadata().getSchema().save();
+
+		for (int i = 0; i < RECORDS; i++)
+			new ODocument(database, "sqlSelectAsynchStreamTestClass").field("value", i).save();
+
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.command(new OCommandSQL("delete from sqlSelectAsynchStreamTestClass")).execute();
+		database.command(new OCommandSQL("drop class sqlSelectAsynchStreamTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@BeforeMethod
+	public void beforeMethod() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		database.close();
+	}
+
+	@Test
+	public void testAllRecordsInOrder() {
+		final OCommandResultStream stream = new OSQLAsynchQuery<ODocument>("select from sqlSelectAsynchStreamTestClass").stream(10);
+
+		int expected = 0;
+		Object record;
+		while ((record = stream.next()) != null)
+			Assert.assertEquals(((ODocument) record).field("value"), expected++);
+
+		Assert.assertEquals(expected, RECORDS);
+		Assert.assertNull(stream.next());
+	}
+
+	@Test
+	public void testBatches() {
+		final OCommandResultStream stream = new OSQLAsynchQuery<ODocument>(
+				"select from sqlSelectAsynchStreamTestClass where value < ?").stream(100, 250);
+
+		final List<Object> batch = new ArrayList<Object>();
+		int total = 0;
+		int added;
+		while ((added = stream.next(batch, 40)) > 0) {
+			Assert.assertTrue(added <= 40);
+			Assert.assertEquals(batch.size(), added);
+			total += added;
+			batch.clear();
+		}
+
+		Assert.assertEquals(total, 250);
+	}
+
+	@Test
+	public void testBackPressure() throws InterruptedException {
+		final OCountingStream stream = new OCountingStream(10);
+		stream.execute(database, new OSQLAsynchQuery<ODocument>("select from sqlSelectAsynchStreamTestClass"));
+
+		stream.request(5);
+		Assert.assertNotNull(stream.next());
+		Thread.sleep(200);
+
+		// THE QUERY WAITS FOR THE CONSUMER
+		Assert.assertEquals(stream.produced.get(), 5);
+
+		stream.next();
+		stream.next();
+		stream.next();
+		stream.next();
+		Assert.assertNotNull(stream.next());
+		Thread.sleep(200);
+
+		// THE BUFFER IS FULL
+		Assert.assertEquals(stream.produced.get(), 15);
+
+		stream.cancel();
+		Assert.assertNull(stream.next());
+	}
+
+	@Test
+	public void testCancel() {
+		final OCountingStream stream = new OCountingStream(10);
+		stream.execute(database, new OSQLAsynchQuery<ODocument>("select from sqlSelectAsynchStreamTestClass"));
+
+		for (int i = 0; i < 25; i++)
+			Assert.assertNotNull(stream.next());
+
+		stream.cancel();
+		Assert.assertTrue(stream.isCancelled());
+
+		// WAITS FOR THE QUERY TO STOP
+		Assert.assertNull(stream.next());
+		Assert.assertTrue(stream.produced.get() < RECORDS, "The query has not been stopped: " + stream.produced.get());
+	}
+
+	@Test
+	public void testError() {
+		final OCommandResultStream stream = new OSQLAsynchQuery<ODocument>("select from sqlSelectAsynchStreamNotExistentClass")
+				.stream(10);
+		try {
+			stream.next();
+			Assert.fail("The error of the query has not been thrown");
+		} catch (RuntimeException e) {
+		}
+	}
+
+	private static class OCountingStream extends OCommandResultStream {
+		private final AtomicInteger	produced	= new AtomicInteger();
+
+		public OCountingStream(final int iCapacity) {
+			super(iCapacity);
+		}
+
+		@Override
+		public boolean result(final Object iRecord) {
+			if (!super.result(iRecord))
+				return false;
+			produced.incrementAndGet();
+			return true;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.hook.ORecordHook;
+import com.orientechnologies.orient.core.hook.ORecordHookAbstract;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.core.storage.OCluster;
+import com.orientechnologies.orient.core.storage.OStorage;
+import com.orientechnologies.orient.core.storage.OStorageEmbedded;
+import com.orientechnologies.orient.core.storage.impl.local.OClusterColumnar;
+import com.orientechnologies.orient.core.storage.impl.local.OStorageLocal;
+
+@Test(groups = { "sql-select" })
+public class SQLSelectColumnarTest {
+	// TWO FULL CHUNKS AND THE LAST ONE
+	private static final int					RECORDS	= 10000;
+	private final ODatabaseDocumentTx	database;
+
+	@Parameters(value = "url")
+	public SQLSelectColumnarTest(final String iURL) {
+		database = new ODatabaseDocumentTx(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		final OClass cls = database.getMetadata().getSchema()
+				.createClass("sqlSelectColumnarTestClass", null, OStorage.CLUSTER_TYPE.COLUMNAR);
+		cls.createProperty("value", OType.INTEGER);
+		cls.createProperty("amount", OType.LONG);
+		cls.createProperty("price", OType.DOUBLE);
+		database.getMetadata().getSchema().save();
+
+		for (int i = 0; i < RECORDS; i++) {
+			final ODocument doc = new ODocument(database, "sqlSelectColumnarTestClass").field("value", i).field("amount", i * 10L);
+			if (i % 100 != 0)
+				doc.field("price", i / 4d);
+			doc.save();
+		}
+
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.command(new OCommandSQL("delete from sqlSelectColumnarTestClass")).execute();
+		database.command(new OCommandSQL("drop class sqlSelectColumnarTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@BeforeMethod
+	public void beforeMethod() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		database.close();
+	}
+
+	@Test
+	public void testAggregates() {
+		ODocument result = queryOne("select count(*), sum(value), min(amount), max(amount), avg(value) from sqlSelectColumnarTestClass");
+		Assert.assertEquals(((Number) result.field("count")).longValue(), RECORDS);
+		Assert.assertEquals(result.field("sum"), 49995000);
+		Assert.assertEquals(result.field("min"), 0L);
+		Assert.assertEquals(result.field("max"), 99990L);
+		Assert.assertEquals(result.field("avg"), 4999);
+
+		result = queryOne("select count(*), sum(value), min(amount), max(amount), avg(value) from sqlSelectColumnarTestClass"
+				+ " where value >= 1000 and value < 9000");
+		Assert.assertEquals(((Number) result.field("count")).longValue(), 8000);
+		Assert.assertEquals(result.field("sum"), 39996000);
+		Assert.assertEquals(result.field("min"), 10000L);
+		Assert.assertEquals(result.field("max"), 89990L);
+		Assert.assertEquals(result.field("avg"), 4999);
+	}
+
+	@Test
+	public void testNullValues() {
+		final ODocument result = queryOne("select count(price), sum(price), max(price) from sqlSelectColumnarTestClass where value < 200");
+		Assert.assertEquals(((Number) result.field("count")).longValue(), 198);
+		Assert.assertEquals(result.field("sum"), 4950d);
+		Assert.assertEquals(result.field("max"), 49.75d);
+
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where price <> 0.25"), RECORDS - 100 - 1);
+	}
+
+	@Test
+	public void testSkippedChunks() {
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where value > 20000"), 0);
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where amount = 50000"), 1);
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where value <= 0"), 1);
+	}
+
+	@Test
+	public void testRecords() {
+		List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectColumnarTestClass where value > 9990"));
+		Assert.assertEquals(result.size(), 9);
+		for (ODocument d : result)
+			Assert.assertTrue((Integer) d.field("value") > 9990);
+
+		// PRICE OF THE FIRST RECORD IS NULL
+		result = database.query(new OSQLSynchQuery<ODocument>(
+				"select value from sqlSelectColumnarTestClass where value < 5 and price > 0.5"));
+		Assert.assertEquals(result.size(), 2);
+		Assert.assertEquals(result.get(0).field("value"), 3);
+		Assert.assertEquals(result.get(1).field("value"), 4);
+
+		// CONDITION NOT EVALUATED BY COLUMN
+		result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectColumnarTestClass where value < 100 and (amount = 10 or amount = 20)"));
+		Assert.assertEquals(result.size(), 2);
+	}
+
+	@Test
+	public void testChunksBuilt() {
+		if (!(database.getStorage() instanceof OStorageLocal))
+			return;
+
+		final int clusterId = database.getClusterIdByName("sqlSelectColumnarTestClass");
+		final OCluster cluster = database.getStorage().getClusterById(clusterId);
+		Assert.assertTrue(cluster instanceof OClusterColumnar);
+
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where value >= 0"), RECORDS);
+		Assert.assertNotNull(((OClusterColumnar) cluster).getChunk(0));
+		Assert.assertNotNull(((OClusterColumnar) cluster).getChunk(2));
+	}
+
+	@Test
+	public void testHooksCalledOnRead() {
+		if (!(database.getStorage() instanceof OStorageEmbedded))
+			// THE HOOKS OF THE CLIENT ARE NOT CALLED BY THE SERVER
+			return;
+
+		final long oldColumnarScans = getCounter("Query.columnarScans");
+		final AtomicInteger reads = new AtomicInteger();
+		final ORecordHook hook = new ORecordHookAbstract() {
+			@Override
+			public void onRecordAfterRead(final ORecord<?> iRecord) {
+				reads.incrementAndGet();
+			}
+		};
+
+		database.getLevel1Cache().clear();
+		database.registerHook(hook);
+		try {
+			// THE COLUMNS ARE NOT READ: THE RECORDS ARE LOADED THROUGH THE DATABASE
+			Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where value > 9990"), 9);
+			Assert.assertTrue(reads.get() >= RECORDS);
+			Assert.assertEquals(getCounter("Query.columnarScans"), oldColumnarScans);
+		} finally {
+			database.unregisterHook(hook);
+		}
+	}
+
+	@Test(dependsOnMethods = { "testAggregates", "testNullValues", "testSkippedChunks", "testRecords", "testChunksBuilt",
+			"testHooksCalledOnRead" })
+	public void testChanges() {
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where value < 10"), 10);
+
+		database.command(new OCommandSQL("update sqlSelectColumnarTestClass set value = 20000 where value = 5")).execute();
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where value < 10"), 9);
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where value > 19999"), 1);
+
+		database.command(new OCommandSQL("delete from sqlSelectColumnarTestClass where value = 20000")).execute();
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where value > 19999"), 0);
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass"), RECORDS - 1);
+
+		new ODocument(database, "sqlSelectColumnarTestClass").field("value", 5).field("amount", 50L).field("price", 1.25d).save();
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass where value < 10"), 10);
+		Assert.assertEquals(count("select count(*) from sqlSelectColumnarTestClass"), RECORDS);
+		Assert.assertEquals(queryOne("select sum(value) from sqlSelectColumnarTestClass").field("sum"), 49995000);
+	}
+
+	private ODocument queryOne(final String iQuery) {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(iQuery));
+		Assert.assertEquals(result.size(), 1);
+		return result.get(0);
+	}
+
+	private long count(final String iQuery) {
+		return ((Number) queryOne(iQuery).field("count")).longValue();
+	}
+
+	private long getCounter(final String iName) {
+		final long value = OProfiler.getInstance().getCounter(iName);
+		return value == -1 ? 0 : value;
+	}
+}
@@ -0,0 +1,135 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "sql-select" })
+public class SQLSelectCompiledFilterTest {
+	private static final int					RECORDS	= 20;
+	private final ODatabaseDocumentTx	database;
+
+	@Parameters(value = "url")
+	public SQLSelectCompiledFilterTest(final String iURL) {
+		database = new ODatabaseDocumentTx(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		final OSchema schema = database.getMetadata().getSchema();
+		final OClass oClass = schema.createClass("sqlSelectCompiledFilterTestClass");
+		oClass.createProperty("intValue", OType.INTEGER);
+		oClass.createProperty("longValue", OType.LONG);
+		oClass.createProperty("floatValue", OType.FLOAT);
+		oClass.createProperty("doubleValue", OType.DOUBLE);
+		oClass.createProperty("name", OType.STRING);
+		schema.save();
+
+		for (int i = 0; i < RECORDS; i++) {
+			final ODocument document = new ODocument(database, "sqlSelectCompiledFilterTestClass");
+			document.field("intValue", i);
+			document.field("longValue", (long) i);
+			document.field("floatValue", i + 0.5f);
+			document.field("doubleValue", i + 0.5d);
+			document.field("name", "name" + i);
+			// FIELD WITHOUT SCHEMA WITH VALUES OF DIFFERENT TYPES
+			if (i % 2 == 0)
+				document.field("mixed", i);
+			else
+				document.field("mixed", String.valueOf(i));
+			document.save();
+		}
+
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.command(new OCommandSQL("delete from sqlSelectCompiledFilterTestClass")).execute();
+		database.command(new OCommandSQL("drop class sqlSelectCompiledFilterTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@BeforeMethod
+	public void beforeMethod() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		database.close();
+	}
+
+	@Test
+	public void testConstantsConvertedToTheFieldType() {
+		Assert.assertEquals(query("longValue = 5").size(), 1);
+		Assert.assertEquals(query("intValue = '5'").size(), 1);
+		Assert.assertEquals(query("intValue >= 15").size(), 5);
+		Assert.assertEquals(query("floatValue < 3").size(), 3);
+		Assert.assertEquals(query("doubleValue <= 3.5").size(), 4);
+		Assert.assertEquals(query("doubleValue > 18").size(), 2);
+		Assert.assertEquals(query("name = 'name7'").size(), 1);
+		Assert.assertEquals(query("name > 'name5'").size(), 4);
+	}
+
+	@Test
+	public void testValuesOfDifferentTypes() {
+		Assert.assertEquals(query("mixed = 4").size(), 1);
+		Assert.assertEquals(query("mixed = 5").size(), 1);
+		Assert.assertEquals(query("mixed < 6").size(), 6);
+	}
+
+	@Test
+	public void testAndOrNot() {
+		Assert.assertEquals(query("name like 'name1%' and intValue > 15").size(), 4);
+		Assert.assertEquals(query("intValue = 3 or name like 'name1%' or longValue = 19").size(), 12);
+		Assert.assertEquals(query("(mixed = 12 or mixed = 13) and not (intValue < 10)").size(), 2);
+		Assert.assertEquals(query("intValue < 10 and not (name like 'name%')").size(), 0);
+	}
+
+	@Test
+	public void testParametersBoundAgain() {
+		final OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectCompiledFilterTestClass where intValue < ? and name like 'name%'");
+		for (int i = 0; i < 5; i++)
+			Assert.assertEquals(database.query(query, i).size(), i);
+
+		Assert.assertEquals(database.query(query, "3").size(), 3);
+	}
+
+	@Test
+	public void testCheapestConditionsFirst() {
+		final OSQLFilter filter = new OSQLFilter("name like 'name1%' and (intValue > 15 or longValue = 1)", null, false);
+		final String compiled = filter.getCompiledCondition().toString();
+
+		Assert.assertTrue(compiled.indexOf("intValue") < compiled.indexOf("LIKE"), compiled);
+	}
+
+	private List<ODocument> query(final String iWhere) {
+		return database.query(new OSQLSynchQuery<ODocument>("select from sqlSelectCompiledFilterTestClass where " + iWhere));
+	}
+}
@@ -0,0 +1,150 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "sql-select" })
+public class SQLSelectGroupByTest {
+	private final ODatabaseDocumentTx	database;
+
+	@Parameters(value = "url")
+	public SQLSelectGroupByTest(final String iURL) {
+		database = new ODatabaseDocumentTx(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		final OSchema schema = database.getMetadata().getSchema();
+		final OClass oClass = schema.createClass("sqlSelectGroupByTestClass");
+		oClass.createProperty("city", OType.STRING);
+		oClass.createProperty("country", OType.STRING);
+		oClass.createProperty("amount", OType.INTEGER);
+		schema.save();
+
+		// CITY i HAS i + 1 RECORDS WITH AMOUNTS 1..i + 1
+		for (int i = 0; i < 10; i++)
+			for (int j = 0; j <= i; j++) {
+				final ODocument document = new ODocument(database, "sqlSelectGroupByTestClass");
+				document.field("city", "city" + i);
+				document.field("country", i % 2 == 0 ? "even" : "odd");
+				document.field("amount", j + 1);
+				document.save();
+			}
+
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.command(new OCommandSQL("delete from sqlSelectGroupByTestClass")).execute();
+		database.command(new OCommandSQL("drop class sqlSelectGroupByTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@BeforeMethod
+	public void beforeMethod() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		database.close();
+	}
+
+	@Test
+	public void testAggregatesByGroup() {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select city, count(*) as total, sum(amount) as amount, min(amount) as low, max(amount) as high"
+						+ " from sqlSelectGroupByTestClass group by city"));
+
+		Assert.assertEquals(result.size(), 10);
+		for (ODocument document : result) {
+			final int city = Integer.parseInt(document.<String> field("city").substring(4));
+			Assert.assertEquals(((Number) document.field("total")).intValue(), city + 1);
+			Assert.assertEquals(((Number) document.field("amount")).intValue(), (city + 1) * (city + 2) / 2);
+			Assert.assertEquals(((Number) document.field("low")).intValue(), 1);
+			Assert.assertEquals(((Number) document.field("high")).intValue(), city + 1);
+		}
+	}
+
+	@Test
+	public void testMoreGroupFieldsAndWhere() {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select country, count(*) as total from sqlSelectGroupByTestClass where amount = 1 group by country, amount"));
+
+		Assert.assertEquals(result.size(), 2);
+		for (ODocument document : result)
+			Assert.assertEquals(((Number) document.field("total")).intValue(), 5);
+	}
+
+	@Test
+	public void testHavingOrderBySkipAndLimit() {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select city, count(*) as total from sqlSelectGroupByTestClass group by city having total > 3"
+						+ " order by total desc skip 1 limit 3"));
+
+		Assert.assertEquals(result.size(), 3);
+		Assert.assertEquals(result.get(0).field("city"), "city8");
+		Assert.assertEquals(result.get(1).field("city"), "city7");
+		Assert.assertEquals(result.get(2).field("city"), "city6");
+	}
+
+	@Test
+	public void testWithoutProjections() {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectGroupByTestClass group by country"));
+
+		Assert.assertEquals(result.size(), 2);
+		final Set<String> countries = new HashSet<String>();
+		for (ODocument document : result)
+			countries.add(document.<String> field("country"));
+		Assert.assertEquals(countries.size(), 2);
+	}
+
+	@Test
+	public void testSpillToDisk() {
+		final int oldMaxGroups = OGlobalConfiguration.COMMAND_GROUP_BY_MAX_GROUPS.getValueAsInteger();
+		OGlobalConfiguration.COMMAND_GROUP_BY_MAX_GROUPS.setValue(2);
+		try {
+			final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+					"select city, count(*) as total, sum(amount) as amount from sqlSelectGroupByTestClass group by city order by city"));
+
+			Assert.assertEquals(result.size(), 10);
+			for (int i = 0; i < 10; i++) {
+				final ODocument document = result.get(i);
+				Assert.assertEquals(document.field("city"), "city" + i);
+				Assert.assertEquals(((Number) document.field("total")).intValue(), i + 1);
+				Assert.assertEquals(((Number) document.field("amount")).intValue(), (i + 1) * (i + 2) / 2);
+			}
+		} finally {
+			OGlobalConfiguration.COMMAND_GROUP_BY_MAX_GROUPS.setValue(oldMaxGroups);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "index" })
+public class SQLSelectIndexMergeTest extends AbstractIndexReuseTest {
+	@Parameters(value = "url")
+	public SQLSelectIndexMergeTest(final String iURL) {
+		super(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		final OSchema schema = database.getMetadata().getSchema();
+		final OClass oClass = schema.createClass("sqlSelectIndexMergeTestClass");
+
+		oClass.createProperty("prop1", OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+		oClass.createProperty("prop2", OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+		oClass.createProperty("prop3", OType.INTEGER);
+
+		schema.save();
+
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j < 10; j++) {
+				final ODocument document = new ODocument("sqlSelectIndexMergeTestClass");
+				document.field("prop1", i);
+				document.field("prop2", j);
+				document.field("prop3", i * 10 + j);
+				document.save();
+			}
+		}
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		database.command(new OCommandSQL("drop class sqlSelectIndexMergeTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+
+		database.close();
+	}
+
+	@Test
+	public void testIntersection() {
+		final long oldIndexUsage = getCounter("Query.indexUsage");
+		final long oldIndexMergeUsage = getCounter("Query.indexMergeUsage");
+
+		final List<ODocument> result = database.command(
+				new OSQLSynchQuery<ODocument>("select * from sqlSelectIndexMergeTestClass where prop1 = 1 and prop2 = 2")).execute();
+
+		Assert.assertEquals(result.size(), 1);
+		Assert.assertEquals(result.get(0).<Integer> field("prop3").intValue(), 12);
+
+		Assert.assertEquals(getCounter("Query.indexUsage"), oldIndexUsage + 1);
+		Assert.assertEquals(getCounter("Query.indexMergeUsage"), oldIndexMergeUsage + 1);
+	}
+
+	@Test
+	public void testIntersectionWithRanges() {
+		final long oldIndexMergeUsage = getCounter("Query.indexMergeUsage");
+
+		final List<ODocument> result = database.command(
+				new OSQLSynchQuery<ODocument>("select * from sqlSelectIndexMergeTestClass where prop1 in [1, 2] and prop2 < 3 and prop3 > 0"))
+				.execute();
+
+		Assert.assertEquals(result.size(), 6);
+		for (ODocument document : result) {
+			Assert.assertTrue(document.<Integer> field("prop1") == 1 || document.<Integer> field("prop1") == 2);
+			Assert.assertTrue(document.<Integer> field("prop2") < 3);
+		}
+
+		Assert.assertEquals(getCounter("Query.indexMergeUsage"), oldIndexMergeUsage + 1);
+	}
+
+	@Test
+	public void testUnion() {
+		final long oldIndexUsage = getCounter("Query.indexUsage");
+		final long oldIndexMergeUsage = getCounter("Query.indexMergeUsage");
+
+		final List<ODocument> result = database.command(
+				new OSQLSynchQuery<ODocument>("select * from sqlSelectIndexMergeTestClass where prop1 = 1 or prop2 = 2")).execute();
+
+		Assert.assertEquals(result.size(), 19);
+		for (ODocument document : result)
+			Assert.assertTrue(document.<Integer> field("prop1") == 1 || document.<Integer> field("prop2") == 2);
+
+		Assert.assertEquals(getCounter("Query.indexUsage"), oldIndexUsage + 1);
+		Assert.assertEquals(getCounter("Query.indexMergeUsage"), oldIndexMergeUsage + 1);
+	}
+
+	@Test
+	public void testUnionOfIntersections() {
+		final long oldIndexMergeUsage = getCounter("Query.indexMergeUsage");
+
+		final List<ODocument> result = database.command(
+				new OSQLSynchQuery<ODocument>(
+						"select * from sqlSelectIndexMergeTestClass where ( prop1 = 1 and prop2 = 1 ) or ( prop1 = 2 and prop2 = 2 )"))
+				.execute();
+
+		Assert.assertEquals(result.size(), 2);
+		Assert.assertEquals(getCounter("Query.indexMergeUsage"), oldIndexMergeUsage + 1);
+	}
+
+	@Test
+	public void testUnionWithNotIndexedBranch() {
+		final long oldIndexUsage = getCounter("Query.indexUsage");
+		final long oldIndexMergeUsage = getCounter("Query.indexMergeUsage");
+
+		final List<ODocument> result = database.command(
+				new OSQLSynchQuery<ODocument>("select * from sqlSelectIndexMergeTestClass where prop1 = 1 or prop3 = 22")).execute();
+
+		Assert.assertEquals(result.size(), 11);
+
+		Assert.assertEquals(getCounter("Query.indexUsage"), oldIndexUsage);
+		Assert.assertEquals(getCounter("Query.indexMergeUsage"), oldIndexMergeUsage);
+	}
+
+	private long getCounter(final String iName) {
+		final long value = profiler.getCounter(iName);
+		return value == -1 ? 0 : value;
+	}
+}
@@ -0,0 +1,166 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "index" })
+public class SQLSelectIndexOnlyTest extends AbstractIndexReuseTest {
+	@Parameters(value = "url")
+	public SQLSelectIndexOnlyTest(final String iURL) {
+		super(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		final OSchema schema = database.getMetadata().getSchema();
+		final OClass oClass = schema.createClass("sqlSelectIndexOnlyTestClass");
+
+		oClass.createProperty("prop1", OType.INTEGER).createIndex(OClass.INDEX_TYPE.UNIQUE);
+		oClass.createProperty("prop2", OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+		oClass.createProperty("prop3", OType.INTEGER);
+
+		schema.save();
+
+		for (int i = 0; i < 10; i++) {
+			final ODocument document = new ODocument("sqlSelectIndexOnlyTestClass");
+			document.field("prop1", i);
+			document.field("prop2", i % 3);
+			document.field("prop3", i * 10);
+			document.save();
+		}
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		database.command(new OCommandSQL("drop class sqlSelectIndexOnlyTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+
+		database.close();
+	}
+
+	@Test
+	public void testProjectionFromIndexKeys() {
+		final long oldIndexOnlyUsage = getCounter("Query.indexOnlyUsage");
+
+		final List<ODocument> result = database.command(
+				new OSQLSynchQuery<ODocument>("select prop1 from sqlSelectIndexOnlyTestClass where prop1 between 2 and 5")).execute();
+
+		Assert.assertEquals(getProp1Values(result), Arrays.asList(2, 3, 4, 5));
+		for (ODocument document : result)
+			Assert.assertNull(document.field("prop3"));
+
+		Assert.assertEquals(getCounter("Query.indexOnlyUsage"), oldIndexOnlyUsage + 1);
+	}
+
+	@Test
+	public void testCountFromIndex() {
+		final long oldIndexOnlyUsage = getCounter("Query.indexOnlyUsage");
+
+		final List<ODocument> result = database.command(
+				new OSQLSynchQuery<ODocument>("select count(*) from sqlSelectIndexOnlyTestClass where prop2 = 1")).execute();
+
+		Assert.assertEquals(result.size(), 1);
+		Assert.assertEquals(result.get(0).<Long> field("count").longValue(), 3);
+
+		Assert.assertEquals(getCounter("Query.indexOnlyUsage"), oldIndexOnlyUsage + 1);
+	}
+
+	@Test
+	public void testProjectionInTx() {
+		if (isRemoteStorage())
+			// THE QUERY IS EXECUTED BY THE SERVER, OUTSIDE THE TRANSACTION OF THE CLIENT
+			return;
+
+		final long oldIndexOnlyUsage = getCounter("Query.indexOnlyUsage");
+
+		database.begin();
+		try {
+			final ODocument updated = loadByProp1(3);
+			updated.field("prop1", 30);
+			updated.save();
+
+			loadByProp1(4).delete();
+
+			final List<ODocument> result = database.command(
+					new OSQLSynchQuery<ODocument>("select prop1 from sqlSelectIndexOnlyTestClass where prop1 between 2 and 5")).execute();
+
+			// THE RECORDS CHANGED IN TX ARE LOADED AND FILTERED AGAIN
+			Assert.assertEquals(getProp1Values(result), Arrays.asList(2, 5));
+			Assert.assertEquals(getCounter("Query.indexOnlyUsage"), oldIndexOnlyUsage);
+		} finally {
+			database.rollback();
+		}
+	}
+
+	@Test
+	public void testCountInTx() {
+		if (isRemoteStorage())
+			// THE QUERY IS EXECUTED BY THE SERVER, OUTSIDE THE TRANSACTION OF THE CLIENT
+			return;
+
+		final long oldIndexOnlyUsage = getCounter("Query.indexOnlyUsage");
+
+		database.begin();
+		try {
+			final ODocument updated = loadByProp1(1);
+			updated.field("prop2", 2);
+			updated.save();
+
+			loadByProp1(4).delete();
+
+			final List<ODocument> result = database.command(
+					new OSQLSynchQuery<ODocument>("select count(*) from sqlSelectIndexOnlyTestClass where prop2 = 1")).execute();
+
+			Assert.assertEquals(result.size(), 1);
+			Assert.assertEquals(result.get(0).<Long> field("count").longValue(), 1);
+			Assert.assertEquals(getCounter("Query.indexOnlyUsage"), oldIndexOnlyUsage);
+		} finally {
+			database.rollback();
+		}
+	}
+
+	private ODocument loadByProp1(final int iValue) {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectIndexOnlyTestClass where prop3 = " + (iValue * 10)));
+		Assert.assertEquals(result.size(), 1);
+		return result.get(0);
+	}
+
+	private List<Integer> getProp1Values(final List<ODocument> iResult) {
+		final List<Integer> values = new ArrayList<Integer>();
+		for (ODocument document : iResult)
+			values.add(document.<Integer> field("prop1"));
+		Collections.sort(values);
+		return values;
+	}
+
+	private long getCounter(final String iName) {
+		final long value = profiler.getCounter(iName);
+		return value == -1 ? 0 : value;
+	}
+}
@@ -1550,18 +1550,13 @@ public class SQLSelectIndexReuseTest extends AbstractIndexReuseTest {
 	@Test
 	public void testMostSpecificOnesProcessedFirst() {
 		long oldIndexUsage = profiler.getCounter("Query.indexUsage");
-		long oldCompositeIndexUsage = profiler.getCounter("Query.compositeIndexUsage");
-		long oldCompositeIndexUsage2 = profiler.getCounter("Query.compositeIndexUsage.2");
+		// THE COMPOSITE INDEX COUNTERS MUST NOT CHANGE: -1 IF NOT CREATED YET
+		final long oldCompositeIndexUsage = profiler.getCounter("Query.compositeIndexUsage");
+		final long oldCompositeIndexUsage2 = profiler.getCounter("Query.compositeIndexUsage.2");
 
 		if (oldIndexUsage == -1) {
 			oldIndexUsage = 0;
 		}
-		if (oldCompositeIndexUsage == -1) {
-			oldCompositeIndexUsage = 0;
-		}
-		if (oldCompositeIndexUsage2 == -1) {
-			oldCompositeIndexUsage2 = 0;
-		}
 
 		final List<ODocument> result = database.command(
 						new OSQLSynchQuery<ODocument>("select * from sqlSelectIndexReuseTestClass where prop1 = 1 and prop2 = 1 and prop3 = 11"))
@@ -1574,9 +1569,10 @@ public class SQLSelectIndexReuseTest extends AbstractIndexReuseTest {
 		Assert.assertEquals(document.<Integer>field("prop2").intValue(), 1);
 		Assert.assertEquals(document.<Integer>field("prop3").intValue(), 11);
 
+		// THE UNIQUE INDEX ON prop3 RETURNS ONE RECORD, SO IT IS CHEAPER THAN THE PARTIAL SEARCH ON THE COMPOSITE INDEX
 		Assert.assertEquals(profiler.getCounter("Query.indexUsage"), oldIndexUsage + 1);
-		Assert.assertEquals(profiler.getCounter("Query.compositeIndexUsage"), oldCompositeIndexUsage + 1);
-		Assert.assertEquals(profiler.getCounter("Query.compositeIndexUsage.2"), oldCompositeIndexUsage2 + 1);
+		Assert.assertEquals(profiler.getCounter("Query.compositeIndexUsage"), oldCompositeIndexUsage);
+		Assert.assertEquals(profiler.getCounter("Query.compositeIndexUsage.2"), oldCompositeIndexUsage2);
 	}
 
 	@Test
@@ -0,0 +1,188 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.command.OCommandManager;
+import com.orientechnologies.orient.core.command.OCommandResultStream;
+import com.orientechnologies.orient.core.command.ORunningCommand;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.exception.OCommandInterruptedException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "sql-select" })
+public class SQLSelectInterruptTest {
+	private static final int					RECORDS	= 3000;
+	private final ODatabaseDocumentTx	database;
+
+	@Parameters(value = "url")
+	public SQLSelectInterruptTest(final String iURL) {
+		database = new ODatabaseDocumentTx(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.getMetadata().getSchema().createClass("sqlSelectInterruptTestClass");
+		database.getMetadata().getSchema().save();
+
+		for (int i = 0; i < RECORDS; i++)
+			new ODocument(database, "sqlSelectInterruptTestClass").field("value", i).save();
+
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.command(new OCommandSQL("delete from sqlSelectInterruptTestClass")).execute();
+		database.command(new OCommandSQL("drop class sqlSelectInterruptTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@BeforeMethod
+	public void beforeMethod() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		database.close();
+	}
+
+	@Test
+	public void testTimeoutKeyword() {
+		List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectInterruptTestClass where value < 10 timeout 60000"));
+		Assert.assertEquals(result.size(), 10);
+
+		result = database.query(new OSQLSynchQuery<ODocument>("select from sqlSelectInterruptTestClass timeout 60000 limit 5"));
+		Assert.assertEquals(result.size(), 5);
+	}
+
+	@Test
+	public void testTimeout() throws InterruptedException {
+		if (database.getURL().startsWith("remote:"))
+			// THE SERVER SENDS THE RECORDS WITHOUT WAITING FOR THE CONSUMER
+			return;
+
+		final OCommandResultStream stream = new OSQLAsynchQuery<ODocument>("select from sqlSelectInterruptTestClass timeout 100")
+				.stream(1);
+		Assert.assertNotNull(stream.next());
+
+		// THE QUERY WAITS FOR THE CONSUMER WHILE THE TIME GOES ON
+		Thread.sleep(300);
+
+		checkInterrupted(stream);
+	}
+
+	@Test
+	public void testKill() {
+		if (database.getURL().startsWith("remote:"))
+			// THE COMMANDS RUN IN THE SERVER
+			return;
+
+		final String text = "select from sqlSelectInterruptTestClass where value > -1";
+		final OCommandResultStream stream = new OSQLAsynchQuery<ODocument>(text).stream(1);
+		Assert.assertNotNull(stream.next());
+
+		final ORunningCommand command = findRunningCommand(text);
+		Assert.assertNotNull(command);
+		Assert.assertTrue(command.getScannedRecords() > 0);
+		Assert.assertTrue(OCommandManager.instance().killRunningCommand(command.getId()));
+
+		checkInterrupted(stream);
+
+		Assert.assertNull(findRunningCommand(text));
+		Assert.assertFalse(OCommandManager.instance().killRunningCommand(command.getId()));
+	}
+
+	@Test
+	public void testMaxScannedRecords() {
+		if (database.getURL().startsWith("remote:"))
+			// THE CONFIGURATION OF THE SERVER APPLIES
+			return;
+
+		final int oldMax = OGlobalConfiguration.COMMAND_MAX_SCANNED_RECORDS.getValueAsInteger();
+		OGlobalConfiguration.COMMAND_MAX_SCANNED_RECORDS.setValue(100);
+		try {
+			List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>("select from sqlSelectInterruptTestClass limit 50"));
+			Assert.assertEquals(result.size(), 50);
+
+			try {
+				database.query(new OSQLSynchQuery<ODocument>("select from sqlSelectInterruptTestClass where value > 200"));
+				Assert.fail("The query has read more records than allowed");
+			} catch (OCommandInterruptedException e) {
+			}
+
+			try {
+				database.query(new OSQLSynchQuery<ODocument>("select from sqlSelectInterruptTestClass where value > 200 parallel 2"));
+				Assert.fail("The parallel query has read more records than allowed");
+			} catch (OCommandInterruptedException e) {
+			}
+		} finally {
+			OGlobalConfiguration.COMMAND_MAX_SCANNED_RECORDS.setValue(oldMax);
+		}
+	}
+
+	@Test
+	public void testMaxResultRecords() {
+		if (database.getURL().startsWith("remote:"))
+			// THE CONFIGURATION OF THE SERVER APPLIES
+			return;
+
+		final int oldMax = OGlobalConfiguration.COMMAND_MAX_RESULT_RECORDS.getValueAsInteger();
+		OGlobalConfiguration.COMMAND_MAX_RESULT_RECORDS.setValue(100);
+		try {
+			try {
+				database.query(new OSQLSynchQuery<ODocument>("select from sqlSelectInterruptTestClass"));
+				Assert.fail("The query has collected more records than allowed");
+			} catch (OCommandInterruptedException e) {
+			}
+
+			// THE ASYNCHRONOUS QUERIES DON'T COLLECT THE RECORDS
+			final OCommandResultStream stream = new OSQLAsynchQuery<ODocument>("select from sqlSelectInterruptTestClass").stream(100);
+			int total = 0;
+			while (stream.next() != null)
+				total++;
+			Assert.assertEquals(total, RECORDS);
+		} finally {
+			OGlobalConfiguration.COMMAND_MAX_RESULT_RECORDS.setValue(oldMax);
+		}
+	}
+
+	private void checkInterrupted(final OCommandResultStream iStream) {
+		try {
+			int total = 1;
+			while (iStream.next() != null)
+				total++;
+			Assert.fail("The query has not been interrupted after " + total + " records");
+		} catch (OCommandInterruptedException e) {
+		}
+	}
+
+	private ORunningCommand findRunningCommand(final String iText) {
+		for (ORunningCommand command : OCommandManager.instance().getRunningCommands())
+			if (command.getText().equals(iText))
+				return command;
+		return null;
+	}
+}
@@ -0,0 +1,144 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "sql-select" })
+public class SQLSelectLazyFieldsTest {
+	private static final int					RECORDS	= 50;
+	private final ODatabaseDocumentTx	database;
+
+	@Parameters(value = "url")
+	public SQLSelectLazyFieldsTest(final String iURL) {
+		database = new ODatabaseDocumentTx(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		final OSchema schema = database.getMetadata().getSchema();
+		final OClass oClass = schema.createClass("sqlSelectLazyFieldsTestClass");
+		oClass.createProperty("value", OType.INTEGER);
+		oClass.createProperty("name", OType.STRING);
+		schema.save();
+
+		for (int i = 0; i < RECORDS; i++) {
+			final ODocument document = new ODocument(database, "sqlSelectLazyFieldsTestClass");
+			document.field("value", i);
+			document.field("name", "name" + i);
+			document.field("tags", Arrays.asList("tag" + i, "tag" + (i % 5)));
+			document.field("embedded", new ODocument().field("inner", i));
+			document.save();
+		}
+
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+
+		database.command(new OCommandSQL("delete from sqlSelectLazyFieldsTestClass")).execute();
+		database.command(new OCommandSQL("drop class sqlSelectLazyFieldsTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@BeforeMethod
+	public void beforeMethod() {
+		if (database.isClosed())
+			database.open("admin", "admin");
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		database.close();
+	}
+
+	@Test
+	public void testFieldsFromStream() {
+		final ODocument document = new ODocument(database, "sqlSelectLazyFieldsTestClass");
+		document.field("value", 7);
+		document.field("name", "seven");
+		document.field("tags", Arrays.asList("a", "b"));
+
+		final ODocument loaded = new ODocument();
+		loaded.fromStream(document.toStream());
+
+		final Set<String> fields = new HashSet<String>();
+		fields.add("name");
+		final ODocument partial = loaded.fieldsFromStream(fields);
+
+		Assert.assertNotSame(partial, loaded);
+		Assert.assertEquals(partial.fieldNames(), new String[] { "name" });
+		Assert.assertEquals(partial.field("name"), "seven");
+		Assert.assertEquals(partial.getClassName(), "sqlSelectLazyFieldsTestClass");
+
+		// THE DOCUMENT IS STILL NOT UNMARSHALLED
+		Assert.assertEquals(loaded.fields(), 0);
+		Assert.assertEquals(loaded.fieldNames().length, 3);
+		Assert.assertSame(loaded.fieldsFromStream(fields), loaded);
+	}
+
+	@Test
+	public void testReferencedFields() {
+		Set<String> fields = new OSQLFilter("value > 3 and (name = 'x' or tags[0] = 'y') and embedded.inner = 3 and @rid = #5:0", null,
+				false).getReferencedFields();
+		Assert.assertEquals(fields, new HashSet<String>(Arrays.asList("value", "name", "tags", "embedded")));
+
+		Assert.assertNull(new OSQLFilter("any() = 3", null, false).getReferencedFields());
+		Assert.assertNull(new OSQLFilter("value = 3 or @this instanceof 'OUser'", null, false).getReferencedFields());
+	}
+
+	@Test
+	public void testMatchingRecordsComplete() {
+		List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectLazyFieldsTestClass where value >= 10 and value < 20"));
+		checkResult(result);
+
+		result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectLazyFieldsTestClass where value >= 10 and value < 20 parallel 2"));
+		checkResult(result);
+
+		result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectLazyFieldsTestClass where tags contains 'tag3' and embedded.inner < 30"));
+		Assert.assertEquals(result.size(), 6);
+
+		result = database.query(new OSQLSynchQuery<ODocument>("select name from sqlSelectLazyFieldsTestClass where value = 4"));
+		Assert.assertEquals(result.size(), 1);
+		Assert.assertEquals(result.get(0).field("name"), "name4");
+	}
+
+	private void checkResult(final List<ODocument> iResult) {
+		Assert.assertEquals(iResult.size(), 10);
+		for (ODocument document : iResult) {
+			final int value = document.<Integer> field("value");
+			Assert.assertEquals(document.field("name"), "name" + value);
+			Assert.assertEquals(document.<List<String>> field("tags").size(), 2);
+			Assert.assertEquals(document.<ODocument> field("embedded").field("inner"), value);
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "sql-select" })
+public class SQLSelectOrderByTest extends AbstractIndexReuseTest {
+	private static final int	RECORDS	= 100;
+
+	@Parameters(value = "url")
+	public SQLSelectOrderByTest(final String iURL) {
+		super(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		final OSchema schema = database.getMetadata().getSchema();
+		final OClass oClass = schema.createClass("sqlSelectOrderByTestClass");
+		oClass.createProperty("value", OType.INTEGER);
+		oClass.createProperty("indexed", OType.INTEGER);
+		oClass.createProperty("bucket", OType.INTEGER);
+		schema.save();
+
+		database.command(new OCommandSQL("create index sqlSelectOrderByTestClass.indexed UNIQUE")).execute();
+		database.getMetadata().getIndexManager().reload();
+
+		// VALUES INSERTED IN RANDOM ORDER
+		final List<Integer> values = new ArrayList<Integer>();
+		for (int i = 0; i < RECORDS; i++)
+			values.add(i);
+		Collections.shuffle(values, new Random(7));
+
+		for (int i = 0; i < RECORDS; i++) {
+			final ODocument document = new ODocument(database, "sqlSelectOrderByTestClass");
+			document.field("value", values.get(i));
+			document.field("indexed", values.get(i));
+			document.field("bucket", values.get(i) % 10);
+			document.field("position", i);
+			document.save();
+		}
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		database.command(new OCommandSQL("delete from sqlSelectOrderByTestClass")).execute();
+		database.command(new OCommandSQL("drop class sqlSelectOrderByTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@Test
+	public void testSkipAppliedAfterOrdering() {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectOrderByTestClass order by value desc skip 5 limit 10"));
+
+		Assert.assertEquals(result.size(), 10);
+		for (int i = 0; i < 10; i++)
+			Assert.assertEquals(result.get(i).<Integer> field("value").intValue(), RECORDS - 6 - i);
+	}
+
+	@Test
+	public void testTopKWithWhereAndProjections() {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select value as v, bucket from sqlSelectOrderByTestClass where value < 50 order by v skip 3 limit 4"));
+
+		Assert.assertEquals(result.size(), 4);
+		for (int i = 0; i < 4; i++)
+			Assert.assertEquals(result.get(i).<Integer> field("v").intValue(), i + 3);
+	}
+
+	@Test
+	public void testSkipWithoutLimit() {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectOrderByTestClass order by value skip 90"));
+
+		Assert.assertEquals(result.size(), RECORDS - 90);
+		for (int i = 0; i < result.size(); i++)
+			Assert.assertEquals(result.get(i).<Integer> field("value").intValue(), 90 + i);
+	}
+
+	@Test
+	public void testEqualValuesKeepTheOrderFound() {
+		final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectOrderByTestClass order by bucket limit 25"));
+
+		Assert.assertEquals(result.size(), 25);
+		assertOrderedByBucketThenPosition(result);
+	}
+
+	@Test
+	public void testNullValuesKeepTheOrderFound() {
+		// NO RECORD HAS THE FIELD "missing": THE RECORDS ARE ORDERED BY THE NEXT FIELD OR KEEP THE ORDER FOUND
+		List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectOrderByTestClass order by missing asc, value asc limit 10"));
+		Assert.assertEquals(result.size(), 10);
+		for (int i = 0; i < 10; i++)
+			Assert.assertEquals(result.get(i).<Integer> field("value").intValue(), i);
+
+		result = database.query(new OSQLSynchQuery<ODocument>("select from sqlSelectOrderByTestClass order by missing limit 25"));
+		Assert.assertEquals(result.size(), 25);
+		assertOrderedByPosition(result);
+
+		result = database.query(new OSQLSynchQuery<ODocument>("select from sqlSelectOrderByTestClass order by missing desc"));
+		Assert.assertEquals(result.size(), RECORDS);
+		assertOrderedByPosition(result);
+	}
+
+	@Test
+	public void testSpillToDisk() {
+		final int oldMaxRecords = OGlobalConfiguration.COMMAND_ORDER_BY_MAX_RECORDS.getValueAsInteger();
+		OGlobalConfiguration.COMMAND_ORDER_BY_MAX_RECORDS.setValue(7);
+		try {
+			List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+					"select from sqlSelectOrderByTestClass order by value desc"));
+
+			Assert.assertEquals(result.size(), RECORDS);
+			for (int i = 0; i < RECORDS; i++)
+				Assert.assertEquals(result.get(i).<Integer> field("value").intValue(), RECORDS - 1 - i);
+
+			result = database.query(new OSQLSynchQuery<ODocument>("select from sqlSelectOrderByTestClass order by bucket skip 2 limit 30"));
+			Assert.assertEquals(result.size(), 30);
+			assertOrderedByBucketThenPosition(result);
+		} finally {
+			OGlobalConfiguration.COMMAND_ORDER_BY_MAX_RECORDS.setValue(oldMaxRecords);
+		}
+	}
+
+	@Test
+	public void testIndexOrder() {
+		final long oldIndexOrderUsage = getCounter("Query.indexOrderUsage");
+
+		List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectOrderByTestClass order by indexed skip 2 limit 5"));
+		Assert.assertEquals(result.size(), 5);
+		for (int i = 0; i < 5; i++)
+			Assert.assertEquals(result.get(i).<Integer> field("indexed").intValue(), i + 2);
+
+		result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectOrderByTestClass where bucket = 3 order by indexed desc limit 3"));
+		Assert.assertEquals(result.size(), 3);
+		for (int i = 0; i < 3; i++)
+			Assert.assertEquals(result.get(i).<Integer> field("indexed").intValue(), 93 - i * 10);
+
+		Assert.assertEquals(getCounter("Query.indexOrderUsage"), oldIndexOrderUsage + 2);
+	}
+
+	private void assertOrderedByBucketThenPosition(final List<ODocument> iResult) {
+		for (int i = 1; i < iResult.size(); i++) {
+			final ODocument previous = iResult.get(i - 1);
+			final ODocument current = iResult.get(i);
+
+			final int previousBucket = previous.<Integer> field("bucket");
+			final int currentBucket = current.<Integer> field("bucket");
+			Assert.assertTrue(previousBucket <= currentBucket);
+			if (previousBucket == currentBucket)
+				Assert.assertTrue(previous.<Integer> field("position") < current.<Integer> field("position"));
+		}
+	}
+
+	private void assertOrderedByPosition(final List<ODocument> iResult) {
+		for (int i = 1; i < iResult.size(); i++)
+			Assert.assertTrue(iResult.get(i - 1).<Integer> field("position") < iResult.get(i).<Integer> field("position"));
+	}
+
+	private long getCounter(final String iName) {
+		final long value = profiler.getCounter(iName);
+		return value == -1 ? 0 : value;
+	}
+}
@@ -0,0 +1,207 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.hook.ORecordHook;
+import com.orientechnologies.orient.core.hook.ORecordHookAbstract;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "sql-select" })
+public class SQLSelectParallelTest extends AbstractIndexReuseTest {
+	// ENOUGH RECORDS TO SPLIT THE CLUSTER IN MORE PARTITIONS
+	private static final int	RECORDS	= 5000;
+
+	@Parameters(value = "url")
+	public SQLSelectParallelTest(final String iURL) {
+		super(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		final OSchema schema = database.getMetadata().getSchema();
+		final OClass oClass = schema.createClass("sqlSelectParallelTestClass");
+		oClass.createProperty("value", OType.INTEGER);
+		oClass.createProperty("bucket", OType.INTEGER);
+		schema.save();
+
+		for (int i = 0; i < RECORDS; i++) {
+			final ODocument document = new ODocument(database, "sqlSelectParallelTestClass");
+			document.field("value", i);
+			document.field("bucket", i % 10);
+			document.save();
+		}
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		database.command(new OCommandSQL("delete from sqlSelectParallelTestClass")).execute();
+		database.command(new OCommandSQL("drop class sqlSelectParallelTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+		database.close();
+	}
+
+	@Test
+	public void testOrderOfTheClusterKept() {
+		final long oldParallelScans = getCounter("Query.parallelScans");
+
+		final List<ODocument> sequential = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectParallelTestClass where bucket = 3"));
+		final List<ODocument> parallel = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectParallelTestClass where bucket = 3 parallel 4"));
+
+		Assert.assertEquals(parallel.size(), RECORDS / 10);
+		Assert.assertEquals(parallel.size(), sequential.size());
+		for (int i = 0; i < parallel.size(); i++)
+			Assert.assertEquals(parallel.get(i).getIdentity(), sequential.get(i).getIdentity());
+
+		Assert.assertEquals(getCounter("Query.parallelScans"), oldParallelScans + 1);
+	}
+
+	@Test
+	public void testLimitAndOrderBy() {
+		List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectParallelTestClass where value >= 100 parallel limit 5"));
+		Assert.assertEquals(result.size(), 5);
+		for (int i = 0; i < 5; i++)
+			Assert.assertEquals(result.get(i).<Integer> field("value").intValue(), 100 + i);
+
+		result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectParallelTestClass where bucket = 7 order by value desc limit 3 parallel 3"));
+		Assert.assertEquals(result.size(), 3);
+		for (int i = 0; i < 3; i++)
+			Assert.assertEquals(result.get(i).<Integer> field("value").intValue(), RECORDS - 3 - i * 10);
+
+		result = database.query(new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectParallelTestClass where bucket = 7 order by value parallel limit 3"));
+		Assert.assertEquals(result.size(), 3);
+		for (int i = 0; i < 3; i++)
+			Assert.assertEquals(result.get(i).<Integer> field("value").intValue(), 7 + i * 10);
+	}
+
+	@Test
+	public void testPartialAggregates() {
+		final ODocument result = (ODocument) database.query(
+				new OSQLSynchQuery<ODocument>("select count(*) as total, sum(value) as amount, min(value) as low, max(value) as high,"
+						+ " avg(value) as average from sqlSelectParallelTestClass where bucket = 5 parallel 4")).get(0);
+
+		// VALUES 5, 15, ..., RECORDS - 5
+		final int total = RECORDS / 10;
+		Assert.assertEquals(((Number) result.field("total")).intValue(), total);
+		Assert.assertEquals(((Number) result.field("amount")).intValue(), total * (5 + RECORDS - 5) / 2);
+		Assert.assertEquals(((Number) result.field("low")).intValue(), 5);
+		Assert.assertEquals(((Number) result.field("high")).intValue(), RECORDS - 5);
+		Assert.assertEquals(((Number) result.field("average")).intValue(), RECORDS / 2);
+	}
+
+	@Test
+	public void testGroupByAndDegreeFromConfiguration() {
+		final int oldDegree = OGlobalConfiguration.COMMAND_PARALLEL_DEGREE.getValueAsInteger();
+		OGlobalConfiguration.COMMAND_PARALLEL_DEGREE.setValue(4);
+		try {
+			final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+					"select bucket, count(*) as total from sqlSelectParallelTestClass group by bucket order by bucket"));
+
+			Assert.assertEquals(result.size(), 10);
+			for (int i = 0; i < 10; i++) {
+				Assert.assertEquals(result.get(i).<Integer> field("bucket").intValue(), i);
+				Assert.assertEquals(((Number) result.get(i).field("total")).intValue(), RECORDS / 10);
+			}
+		} finally {
+			OGlobalConfiguration.COMMAND_PARALLEL_DEGREE.setValue(oldDegree);
+		}
+	}
+
+	@Test
+	public void testHooksCalledOnRead() {
+		if (isRemoteStorage())
+			// THE HOOKS OF THE CLIENT ARE NOT CALLED BY THE SERVER
+			return;
+
+		final long oldParallelScans = getCounter("Query.parallelScans");
+		final AtomicInteger reads = new AtomicInteger();
+		final ORecordHook hook = new ORecordHookAbstract() {
+			@Override
+			public void onRecordAfterRead(final ORecord<?> iRecord) {
+				reads.incrementAndGet();
+			}
+		};
+
+		database.getLevel1Cache().clear();
+		database.registerHook(hook);
+		try {
+			final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+					"select from sqlSelectParallelTestClass where bucket = 3 parallel 4"));
+
+			// THE RECORDS ARE LOADED THROUGH THE DATABASE BY THE SCAN IN THE CALLING THREAD
+			Assert.assertEquals(result.size(), RECORDS / 10);
+			Assert.assertTrue(reads.get() >= RECORDS);
+			Assert.assertEquals(getCounter("Query.parallelScans"), oldParallelScans);
+		} finally {
+			database.unregisterHook(hook);
+		}
+	}
+
+	@Test
+	public void testCachedRecordsReturned() {
+		if (isRemoteStorage())
+			// THE RECORDS ARE CACHED BY THE SERVER
+			return;
+
+		final ORID rid = ((ODocument) database.query(
+				new OSQLSynchQuery<ODocument>("select from sqlSelectParallelTestClass where value = 13")).get(0)).getIdentity();
+		final ODocument cached = (ODocument) database.getLevel1Cache().findRecord(rid);
+		Assert.assertNotNull(cached);
+
+		// THE CHANGES NOT SAVED ARE SEEN LIKE IN THE SCAN IN THE CALLING THREAD
+		cached.field("value", -13);
+		try {
+			List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+					"select from sqlSelectParallelTestClass where bucket = 3 parallel 4"));
+			Assert.assertEquals(result.size(), RECORDS / 10);
+			Assert.assertEquals(result.get(1).getIdentity(), rid);
+			Assert.assertEquals(result.get(1).<Integer> field("value").intValue(), -13);
+
+			cached.field("bucket", 4);
+			result = database.query(new OSQLSynchQuery<ODocument>(
+					"select from sqlSelectParallelTestClass where bucket = 3 parallel 4"));
+			Assert.assertEquals(result.size(), RECORDS / 10 - 1);
+			Assert.assertFalse(result.contains(cached));
+
+			final List<ODocument> sequential = database.query(new OSQLSynchQuery<ODocument>(
+					"select from sqlSelectParallelTestClass where bucket = 3"));
+			Assert.assertEquals(result, sequential);
+		} finally {
+			cached.reload();
+		}
+	}
+
+	private long getCounter(final String iName) {
+		final long value = profiler.getCounter(iName);
+		return value == -1 ? 0 : value;
+	}
+}
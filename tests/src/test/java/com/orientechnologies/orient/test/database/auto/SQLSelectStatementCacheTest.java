@@ -0,0 +1,169 @@
+package com.orientechnologies.orient.test.database.auto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test(groups = { "sql-select" })
+public class SQLSelectStatementCacheTest extends AbstractIndexReuseTest {
+	@Parameters(value = "url")
+	public SQLSelectStatementCacheTest(final String iURL) {
+		super(iURL);
+	}
+
+	@BeforeClass
+	public void beforeClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		final OSchema schema = database.getMetadata().getSchema();
+		final OClass oClass = schema.createClass("sqlSelectStatementCacheTestClass");
+
+		oClass.createProperty("prop1", OType.INTEGER);
+		oClass.createProperty("prop2", OType.INTEGER);
+
+		schema.save();
+
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j < 10; j++) {
+				final ODocument document = new ODocument("sqlSelectStatementCacheTestClass");
+				document.field("prop1", i);
+				document.field("prop2", j);
+				document.save();
+			}
+		}
+		database.close();
+	}
+
+	@AfterClass
+	public void afterClass() throws Exception {
+		if (database.isClosed()) {
+			database.open("admin", "admin");
+		}
+
+		database.command(new OCommandSQL("drop class sqlSelectStatementCacheTestClass")).execute();
+		database.getMetadata().getSchema().reload();
+		database.getLevel2Cache().clear();
+
+		database.close();
+	}
+
+	@Test
+	public void testPositionalParameters() {
+		final long oldHits = getCounter("Command.cache.hits");
+
+		final OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectStatementCacheTestClass where prop1 = ? and prop2 < ?");
+		for (int i = 0; i < 10; i++) {
+			final List<ODocument> result = database.query(query, i, i);
+			Assert.assertEquals(result.size(), i);
+			for (ODocument document : result) {
+				Assert.assertEquals(document.<Integer> field("prop1").intValue(), i);
+				Assert.assertTrue(document.<Integer> field("prop2") < i);
+			}
+		}
+
+		Assert.assertTrue(getCounter("Command.cache.hits") >= oldHits + 9);
+	}
+
+	@Test
+	public void testNamedParameters() {
+		final OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectStatementCacheTestClass where prop1 = :prop1 and prop2 = :prop2");
+		for (int i = 0; i < 10; i++) {
+			final Map<String, Object> params = new HashMap<String, Object>();
+			params.put("prop1", i);
+			params.put("prop2", 9 - i);
+
+			final List<ODocument> result = database.query(query, params);
+			Assert.assertEquals(result.size(), 1);
+			Assert.assertEquals(result.get(0).<Integer> field("prop1").intValue(), i);
+			Assert.assertEquals(result.get(0).<Integer> field("prop2").intValue(), 9 - i);
+		}
+	}
+
+	@Test
+	public void testOrderBySkipAndLimit() {
+		for (int i = 0; i < 5; i++) {
+			final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+					"select from sqlSelectStatementCacheTestClass where prop1 = ? order by prop2 desc limit 3"), i);
+			Assert.assertEquals(result.size(), 3);
+			for (int j = 0; j < 3; j++)
+				Assert.assertEquals(result.get(j).<Integer> field("prop2").intValue(), 9 - j);
+		}
+
+		for (int i = 1; i < 5; i++) {
+			final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+					"select from sqlSelectStatementCacheTestClass where prop1 = 0", i));
+			Assert.assertEquals(result.size(), i);
+		}
+
+		for (int i = 0; i < 3; i++) {
+			final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+					"select from sqlSelectStatementCacheTestClass where prop1 = 0 skip 8"));
+			Assert.assertEquals(result.size(), 2);
+		}
+	}
+
+	@Test(dependsOnMethods = { "testPositionalParameters", "testNamedParameters", "testOrderBySkipAndLimit" })
+	public void testIndexCreationInvalidatesStatements() {
+		final OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>(
+				"select from sqlSelectStatementCacheTestClass where prop2 = ?");
+
+		Assert.assertEquals(database.query(query, 3).size(), 10);
+		Assert.assertEquals(database.query(query, 4).size(), 10);
+
+		database.command(new OCommandSQL("create index sqlSelectStatementCacheTestClass.prop2 NOTUNIQUE")).execute();
+		database.getMetadata().getIndexManager().reload();
+
+		final long oldIndexUsage = getCounter("Query.indexUsage");
+		Assert.assertEquals(database.query(query, 5).size(), 10);
+		Assert.assertEquals(getCounter("Query.indexUsage"), oldIndexUsage + 1);
+	}
+
+	@Test
+	public void testDroppedDatabaseForgotten() {
+		if (isRemoteStorage())
+			// THE STATEMENTS ARE CACHED BY THE SERVER
+			return;
+
+		final String url = "memory:sqlSelectStatementCacheTestDropped";
+		for (int i = 0; i < 2; i++) {
+			// THE DATABASE CREATED AGAIN HAS THE SAME URL AND SCHEMA VERSION
+			final ODatabaseDocumentTx db = new ODatabaseDocumentTx(url).create();
+			try {
+				db.getMetadata().getSchema().createClass("sqlSelectStatementCacheTestDropped");
+				db.getMetadata().getSchema().save();
+				new ODocument(db, "sqlSelectStatementCacheTestDropped").field("prop1", i).save();
+
+				final long oldHits = getCounter("Command.cache.hits");
+				final List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>(
+						"select from sqlSelectStatementCacheTestDropped where prop1 = ?"), i);
+				Assert.assertEquals(result.size(), 1);
+				Assert.assertEquals(getCounter("Command.cache.hits"), oldHits);
+			} finally {
+				db.delete();
+			}
+		}
+	}
+
+	private long getCounter(final String iName) {
+		final long value = profiler.getCounter(iName);
+		return value == -1 ? 0 : value;
+	}
+}
@@ -194,7 +194,7 @@ public class SQLSelectTest {
 		Assert.assertEquals(resultset.size(), 1);
 		Assert.assertEquals(resultset.get(0).getIdentity(), doc.getIdentity());
 
-		// doc.delete();
+		doc.delete();
 	}
 
 	@Test
@@ -357,7 +357,7 @@ public class SQLSelectTest {
 
 	@Test
 	public void queryCollectionContainsInRecords() {
-		record.reset();
+		record = new ODocument();
 		record.setClassName("Animal");
 		record.field("name", "Cat");
 
@@ -428,7 +428,7 @@ public class SQLSelectTest {
 
 	@Test
 	public void queryCollectionInNumbers() {
-		record.reset();
+		record = new ODocument();
 		record.setClassName("Animal");
 		record.field("name", "Cat");
 
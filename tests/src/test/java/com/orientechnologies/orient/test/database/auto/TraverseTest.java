@@ -15,6 +15,7 @@
  */
 package com.orientechnologies.orient.test.database.auto;
 
+import java.util.HashSet;
 import java.util.List;
 
 import org.testng.Assert;
@@ -200,4 +201,40 @@ public class TraverseTest {
 		Assert.assertEquals(result1, result4);
 	}
 
+	@Test
+	public void traverseMaxDepth() {
+		List<ODocument> result1 = database.command(
+				new OSQLSynchQuery<ODocument>("traverse * from " + tomCruise.getIdentity() + " where $depth <= 2")).execute();
+		List<ODocument> result2 = database.command(
+				new OSQLSynchQuery<ODocument>("traverse * from " + tomCruise.getIdentity() + " maxdepth 2")).execute();
+
+		Assert.assertTrue(result2.size() < TOTAL_ELEMENTS);
+		Assert.assertTrue(new HashSet<ODocument>(result2).equals(new HashSet<ODocument>(result1)));
+	}
+
+	@Test
+	public void traverseBreadthFirst() {
+		List<ODocument> depthFirst = database.command(
+				new OSQLSynchQuery<ODocument>("traverse * from " + tomCruise.getIdentity() + " strategy DEPTH_FIRST")).execute();
+		List<ODocument> breadthFirst = database.command(
+				new OSQLSynchQuery<ODocument>("traverse * from " + tomCruise.getIdentity() + " strategy BREADTH_FIRST")).execute();
+
+		Assert.assertEquals(breadthFirst.size(), TOTAL_ELEMENTS);
+		Assert.assertTrue(new HashSet<ODocument>(breadthFirst).equals(new HashSet<ODocument>(depthFirst)));
+
+		// THE NEAREST RECORDS COME FIRST
+		List<ODocument> nearest = database.command(
+				new OSQLSynchQuery<ODocument>("traverse * from " + tomCruise.getIdentity() + " maxdepth 2 strategy BREADTH_FIRST"))
+				.execute();
+		Assert.assertEquals(nearest, breadthFirst.subList(0, nearest.size()));
+	}
+
+	@Test
+	public void traverseLimit() {
+		List<ODocument> result1 = database.command(
+				new OSQLSynchQuery<ODocument>("traverse * from " + tomCruise.getIdentity() + " limit 3")).execute();
+		Assert.assertEquals(result1.size(), 3);
+		Assert.assertEquals(result1.get(0), tomCruise);
+	}
+
 }
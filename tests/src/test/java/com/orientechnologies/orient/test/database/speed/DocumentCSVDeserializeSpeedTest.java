@@ -0,0 +1,65 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.test.database.speed;
+
+import org.testng.annotations.Test;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerSchemaAware2CSV;
+import com.orientechnologies.orient.test.database.base.OrientMonoThreadTest;
+
+/**
+ * Measures the unmarshalling of the document of {@link DocumentCSVSerializeSpeedTest} from the text format.
+ */
+@Test(enabled = false)
+public class DocumentCSVDeserializeSpeedTest extends OrientMonoThreadTest {
+	private ODatabaseDocumentTx	database;
+	private byte[]							content;
+	private long								fields;
+
+	public static void main(String[] iArgs) throws InstantiationException, IllegalAccessException {
+		DocumentCSVDeserializeSpeedTest test = new DocumentCSVDeserializeSpeedTest();
+		test.data.go(test);
+	}
+
+	public DocumentCSVDeserializeSpeedTest() {
+		super(1000000);
+	}
+
+	@Override
+	public void init() {
+		OProfiler.getInstance().startRecording();
+
+		database = new ODatabaseDocumentTx("memory:csvDeserializeSpeed").create();
+		content = ORecordSerializerSchemaAware2CSV.INSTANCE.toStream(DocumentCSVSerializeSpeedTest.createDocument(database), false);
+	}
+
+	@Override
+	public void cycle() {
+		final ODocument document = (ODocument) ORecordSerializerSchemaAware2CSV.INSTANCE.fromStream(content, new ODocument(database));
+		fields += document.fields();
+	}
+
+	@Override
+	public void deinit() {
+		System.out.println("Unmarshalled " + fields + " fields");
+		if (database != null)
+			database.drop();
+		super.deinit();
+	}
+}
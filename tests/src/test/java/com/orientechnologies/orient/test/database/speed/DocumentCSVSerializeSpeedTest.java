@@ -0,0 +1,101 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.test.database.speed;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerSchemaAware2CSV;
+import com.orientechnologies.orient.test.database.base.OrientMonoThreadTest;
+
+/**
+ * Measures the marshalling of a document with the text format: numbers, dates, links, strings and embedded values.
+ */
+@Test(enabled = false)
+public class DocumentCSVSerializeSpeedTest extends OrientMonoThreadTest {
+	private ODatabaseDocumentTx	database;
+	private ODocument						document;
+	private long								size;
+
+	public static void main(String[] iArgs) throws InstantiationException, IllegalAccessException {
+		DocumentCSVSerializeSpeedTest test = new DocumentCSVSerializeSpeedTest();
+		test.data.go(test);
+	}
+
+	public DocumentCSVSerializeSpeedTest() {
+		super(1000000);
+	}
+
+	@Override
+	public void init() {
+		OProfiler.getInstance().startRecording();
+
+		database = new ODatabaseDocumentTx("memory:csvSerializeSpeed").create();
+		document = createDocument(database);
+	}
+
+	@Override
+	public void cycle() {
+		size += ORecordSerializerSchemaAware2CSV.INSTANCE.toStream(document, false).length;
+	}
+
+	@Override
+	public void deinit() {
+		System.out.println("Marshalled " + size + " bytes");
+		if (database != null)
+			database.drop();
+		super.deinit();
+	}
+
+	public static ODocument createDocument(final ODatabaseDocumentTx iDatabase) {
+		final ODocument address = new ODocument(iDatabase);
+		address.field("street", "Via \"Roma\", 10");
+		address.field("zip", 184);
+
+		final List<OIdentifiable> friends = new ArrayList<OIdentifiable>();
+		for (int i = 0; i < 10; ++i)
+			friends.add(new ORecordId(12, 1000000l + i));
+
+		final List<String> tags = new ArrayList<String>();
+		for (int i = 0; i < 5; ++i)
+			tags.add("tag" + i);
+
+		final ODocument document = new ODocument(iDatabase);
+		document.field("name", "Luca");
+		document.field("surname", "Garulli");
+		document.field("age", 35);
+		document.field("visits", 1234567890123l);
+		document.field("rank", (short) 12);
+		document.field("salary", 3000.50d);
+		document.field("score", 4.5f);
+		document.field("active", true);
+		document.field("birthDate", new Date(280000000000l));
+		document.field("lastLogin", new Date());
+		document.field("manager", new ORecordId(11, 324));
+		document.field("friends", friends);
+		document.field("tags", tags);
+		document.field("address", address);
+		return document;
+	}
+}
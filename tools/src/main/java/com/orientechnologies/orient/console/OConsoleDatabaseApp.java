@@ -262,6 +262,41 @@ public class OConsoleDatabaseApp extends OrientConsole implements OCommandOutput
 		out.println();
 	}
 
+	@ConsoleCommand(description = "List the SELECT and TRAVERSE commands in execution on the connected server")
+	public void listCommands() throws IOException {
+		if (serverAdmin != null) {
+			final List<ODocument> commands = serverAdmin.listRunningCommands();
+			if (commands == null || commands.isEmpty()) {
+				out.println("\nNo commands in execution");
+				return;
+			}
+
+			out.printf("\nFound %d commands in execution:\n", commands.size());
+			for (ODocument command : commands) {
+				out.printf("\n#%d %s [%s] by %s: %dms, %d records scanned%s -> %s", command.field("id"), command.field("database"),
+						command.field("thread"), command.field("user"), command.field("elapsed"), command.field("scanned"),
+						Boolean.TRUE.equals(command.field("interrupted")) ? ", interrupted" : "", command.field("text"));
+			}
+		} else {
+			out.println("Not connected to the Server instance");
+		}
+		out.println();
+	}
+
+	@ConsoleCommand(description = "Kill a command in execution on the connected server")
+	public void killCommand(@ConsoleParameter(name = "command-id", description = "The id of the command as shown by list commands") final String iCommandId)
+			throws IOException {
+		if (serverAdmin != null) {
+			final long commandId = Long.parseLong(iCommandId);
+			if (serverAdmin.killRunningCommand(commandId))
+				out.println("\nCommand #" + commandId + " will be interrupted at the next record read");
+			else
+				out.println("\nCommand #" + commandId + " is not in execution");
+		} else {
+			out.println("Not connected to the Server instance");
+		}
+	}
+
 	@ConsoleCommand(description = "Reload the database schema")
 	public void reloadSchema() throws IOException {
 		out.println("reloading database schema...");